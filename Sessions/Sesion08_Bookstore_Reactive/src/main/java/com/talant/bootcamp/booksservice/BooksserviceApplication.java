@@ -2,8 +2,10 @@ package com.talant.bootcamp.booksservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC is wired by R2dbcConfig; an auto-configured ConnectionFactory would switch off the JDBC DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class BooksserviceApplication {
 
 	public static void main(String[] args) {
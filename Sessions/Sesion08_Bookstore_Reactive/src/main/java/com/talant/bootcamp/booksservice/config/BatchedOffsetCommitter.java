@@ -0,0 +1,223 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.service.KafkaConsumerMetrics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerAwareRecordRecoverer;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Commits the offsets of the record listeners asynchronously, once commitRecords records were handled or
+ * commitInterval has passed since the last commit, instead of one synchronous commit per record.
+ * A record is handled once its listener returns, or once the error handler hands it to a retry or dead-letter topic.
+ * Each partition is committed up to its first record not handled yet, and never past the consumer position, so
+ * records the container seeks back to (a nack, or a failure the error handler could not hand on) are read again.
+ * Partitions being revoked are committed synchronously before another consumer takes them over.
+ * Commits are checked before each poll, on the consumer thread; one instance serves the consumers of every
+ * container it is set on.
+ */
+public class BatchedOffsetCommitter implements RecordInterceptor<String, BookNotification>,
+        ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchedOffsetCommitter.class);
+
+    private final KafkaConsumerMetrics consumerMetrics;
+    private final int commitRecords;
+    private final long commitIntervalNanos;
+    private final Map<Consumer<?, ?>, ConsumerProgress> consumers = new ConcurrentHashMap<>();
+
+    public BatchedOffsetCommitter(KafkaConsumerMetrics consumerMetrics, int commitRecords, Duration commitInterval) {
+        if (commitRecords < 1) {
+            throw new IllegalArgumentException("commitRecords must be at least 1");
+        }
+        if (commitInterval.isNegative() || commitInterval.isZero()) {
+            throw new IllegalArgumentException("commitInterval must be positive");
+        }
+        this.consumerMetrics = consumerMetrics;
+        this.commitRecords = commitRecords;
+        this.commitIntervalNanos = commitInterval.toNanos();
+    }
+
+    @Override
+    public ConsumerRecord<String, BookNotification> intercept(ConsumerRecord<String, BookNotification> record,
+                                                              Consumer<String, BookNotification> consumer) {
+        ConsumerProgress progress = consumers.computeIfAbsent(consumer, key -> new ConsumerProgress(System.nanoTime()));
+        progress.partitions.computeIfAbsent(partition(record), key -> new PartitionProgress(record.offset()))
+                .inFlight.add(record.offset());
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, BookNotification> record, Consumer<String, BookNotification> consumer) {
+        handled(record, consumer);
+    }
+
+    /**
+     * Wrap the recoverer of an error handler, so the records it hands on count as handled
+     */
+    public ConsumerAwareRecordRecoverer recovering(ConsumerAwareRecordRecoverer recoverer) {
+        return (record, consumer, exception) -> {
+            recoverer.accept(record, consumer, exception);
+            handled(record, consumer);
+        };
+    }
+
+    @Override
+    public void setupThreadState(Consumer<?, ?> consumer) {
+        commitIfDue(consumer, System.nanoTime());
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        ConsumerProgress progress = consumers.get(consumer);
+        if (progress == null) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetsToCommit(consumer, progress, partitions);
+        if (!offsets.isEmpty()) {
+            try {
+                consumer.commitSync(offsets);
+                logger.debug("Committed revoked partitions at {}", offsets);
+            } catch (KafkaException e) {
+                logger.warn("Failed to commit revoked partitions at {}, their new owner reads the rest again",
+                        offsets, e);
+            }
+        }
+        forget(consumer, progress, partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Another consumer may own them already, so committing them now could move its offsets back
+        ConsumerProgress progress = consumers.get(consumer);
+        if (progress != null) {
+            forget(consumer, progress, partitions);
+        }
+    }
+
+    /**
+     * Commit asynchronously what the consumer handled, if enough records were handled or enough time has passed
+     */
+    void commitIfDue(Consumer<?, ?> consumer, long nowNanos) {
+        ConsumerProgress progress = consumers.get(consumer);
+        if (progress == null || progress.handled == 0
+                || (progress.handled < commitRecords && nowNanos - progress.lastCommitNanos < commitIntervalNanos)) {
+            return;
+        }
+        progress.handled = 0;
+        progress.lastCommitNanos = nowNanos;
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetsToCommit(consumer, progress,
+                progress.partitions.keySet());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        // The callback runs on this thread, during a later poll or commit
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+                PartitionProgress partition = progress.partitions.get(entry.getKey());
+                if (partition == null) {
+                    continue;
+                }
+                if (exception != null) {
+                    // The next commit is for at least these offsets, so it makes up for this one
+                    partition.requested = partition.committed;
+                } else {
+                    partition.committed = Math.max(partition.committed, entry.getValue().offset());
+                    consumerMetrics.offsets(entry.getKey(), partition.committed, partition.position);
+                }
+            }
+            if (exception != null) {
+                logger.warn("Failed to commit offsets {}, committing them with the next ones", offsets, exception);
+            }
+        });
+    }
+
+    private void handled(ConsumerRecord<?, ?> record, Consumer<?, ?> consumer) {
+        ConsumerProgress progress = consumer != null ? consumers.get(consumer) : null;
+        PartitionProgress partition = progress != null ? progress.partitions.get(partition(record)) : null;
+        if (partition == null) {
+            return;
+        }
+        partition.inFlight.remove(record.offset());
+        partition.next = Math.max(partition.next, record.offset() + 1);
+        progress.handled++;
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> offsetsToCommit(Consumer<?, ?> consumer, ConsumerProgress progress,
+                                                                   Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition topicPartition : partitions) {
+            PartitionProgress partition = progress.partitions.get(topicPartition);
+            if (partition == null) {
+                continue;
+            }
+            partition.position = consumer.position(topicPartition);
+            long handledUpTo = partition.inFlight.isEmpty() ? partition.next
+                    : Math.min(partition.next, partition.inFlight.first());
+            long offset = Math.min(handledUpTo, partition.position);
+            if (offset > partition.requested) {
+                partition.requested = offset;
+                offsets.put(topicPartition, new OffsetAndMetadata(offset));
+            }
+            consumerMetrics.offsets(topicPartition, partition.committed, partition.position);
+        }
+        return offsets;
+    }
+
+    private void forget(Consumer<?, ?> consumer, ConsumerProgress progress, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            progress.partitions.remove(partition);
+            consumerMetrics.forget(partition);
+        }
+        if (progress.partitions.isEmpty()) {
+            consumers.remove(consumer);
+        }
+    }
+
+    private static TopicPartition partition(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    /**
+     * What one consumer handled since its last commit; only touched on its own thread
+     */
+    private static final class ConsumerProgress {
+        private final Map<TopicPartition, PartitionProgress> partitions = new HashMap<>();
+        private int handled;
+        private long lastCommitNanos;
+
+        private ConsumerProgress(long startNanos) {
+            this.lastCommitNanos = startNanos;
+        }
+    }
+
+    private static final class PartitionProgress {
+        // Records handed to the listener and not handled yet, normally just the current one
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private long next;
+        private long requested;
+        private long committed;
+        private long position;
+
+        private PartitionProgress(long startOffset) {
+            this.next = startOffset;
+            this.requested = startOffset;
+            this.committed = startOffset;
+            this.position = startOffset;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of book notifications.
+ * <p>
+ * Layout of version 1: a version byte, a byte flagging which of price, stock and timestamp are present,
+ * the notification type and category as one byte codes (ordinal + 1, 0 for null), the ISBN, title, author and
+ * description as varint length + 1 (0 for null) followed by UTF-8 bytes, then the present numbers as zigzag varints:
+ * the unscaled price and its scale, the stock, and the timestamp in UTC epoch seconds, to the second like the JSON
+ * format. Later versions may only append fields, so a reader decodes the fields it knows and ignores the rest;
+ * enum constants may only be appended for the same reason.
+ */
+public final class BookNotificationBinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int HAS_PRICE = 1;
+    private static final int HAS_STOCK = 1 << 1;
+    private static final int HAS_TIMESTAMP = 1 << 2;
+
+    private static final BookNotification.NotificationType[] TYPES = BookNotification.NotificationType.values();
+    private static final BookCategory[] CATEGORIES = BookCategory.values();
+
+    private BookNotificationBinaryCodec() {
+    }
+
+    public static byte[] encode(BookNotification notification) {
+        Writer out = new Writer(64 + length(notification.getTitle()) + length(notification.getDescription()));
+        out.writeByte(VERSION);
+        out.writeByte((notification.getPrice() != null ? HAS_PRICE : 0)
+                | (notification.getStock() != null ? HAS_STOCK : 0)
+                | (notification.getTimestamp() != null ? HAS_TIMESTAMP : 0));
+        out.writeByte(code(notification.getNotificationType()));
+        out.writeByte(code(notification.getCategory()));
+        out.writeString(notification.getIsbn());
+        out.writeString(notification.getTitle());
+        out.writeString(notification.getAuthor());
+        out.writeString(notification.getDescription());
+        if (notification.getPrice() != null) {
+            BigInteger unscaled = notification.getPrice().unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                throw new SerializationException("Price out of range: " + notification.getPrice());
+            }
+            out.writeSigned(unscaled.longValue());
+            out.writeSigned(notification.getPrice().scale());
+        }
+        if (notification.getStock() != null) {
+            out.writeSigned(notification.getStock());
+        }
+        if (notification.getTimestamp() != null) {
+            out.writeSigned(notification.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws SerializationException when the data is truncated, malformed or of an unknown version
+     */
+    public static BookNotification decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version < 1) {
+            throw new SerializationException("Unsupported book notification version: " + version);
+        }
+        int present = in.readByte();
+        BookNotification notification = new BookNotification();
+        notification.setNotificationType(decode(TYPES, in.readByte(), "notification type"));
+        notification.setCategory(decode(CATEGORIES, in.readByte(), "category"));
+        notification.setIsbn(in.readString());
+        notification.setTitle(in.readString());
+        notification.setAuthor(in.readString());
+        notification.setDescription(in.readString());
+        if ((present & HAS_PRICE) != 0) {
+            long unscaled = in.readSigned();
+            notification.setPrice(BigDecimal.valueOf(unscaled, in.readSignedInt()));
+        }
+        if ((present & HAS_STOCK) != 0) {
+            notification.setStock(in.readSignedInt());
+        }
+        if ((present & HAS_TIMESTAMP) != 0) {
+            notification.setTimestamp(LocalDateTime.ofEpochSecond(in.readSigned(), 0, ZoneOffset.UTC));
+        }
+        return notification;
+    }
+
+    private static int code(Enum<?> value) {
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    private static <E extends Enum<E>> E decode(E[] values, int code, String field) {
+        if (code == 0) {
+            return null;
+        }
+        if (code > values.length) {
+            throw new SerializationException("Unknown " + field + " code: " + code);
+        }
+        return values[code - 1];
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSigned(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw truncated();
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readSigned() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length - 1 > data.length - position) {
+                throw truncated();
+            }
+            String value = new String(data, position, (int) (length - 1), StandardCharsets.UTF_8);
+            position += (int) (length - 1);
+            return value;
+        }
+
+        int readSignedInt() {
+            long value = readSigned();
+            if (value != (int) value) {
+                throw new SerializationException("Integer out of range in book notification: " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in book notification");
+        }
+
+        private SerializationException truncated() {
+            return new SerializationException("Truncated book notification at byte " + position);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka deserializer reading book notifications in the format named by the content type header of each record,
+ * so JSON and binary records can be read from the same topic. Records without the header are read as JSON.
+ */
+public class BookNotificationDeserializer implements Deserializer<BookNotification> {
+
+    private final ObjectMapper objectMapper;
+
+    public BookNotificationDeserializer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public BookNotification deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        BookNotificationFormat format = BookNotificationFormat.fromHeader(
+                headers.lastHeader(BookNotificationFormat.CONTENT_TYPE_HEADER));
+        return format == BookNotificationFormat.BINARY ? BookNotificationBinaryCodec.decode(data) : readJson(data);
+    }
+
+    @Override
+    public BookNotification deserialize(String topic, byte[] data) {
+        return data == null ? null : readJson(data);
+    }
+
+    private BookNotification readJson(byte[] data) {
+        try {
+            return objectMapper.readValue(data, BookNotification.class);
+        } catch (IOException e) {
+            throw new SerializationException("Error parsing book notification JSON", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.talant.bootcamp.booksservice.config;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire formats of book notifications. The producer names the format of each record in its
+ * {@link #CONTENT_TYPE_HEADER} header, so consumers read both formats while producers are switched over.
+ */
+public enum BookNotificationFormat {
+
+    // Jackson JSON, the original format; records without the header are read as JSON
+    JSON("application/json"),
+
+    // Versioned binary encoding of BookNotificationBinaryCodec
+    BINARY("application/x-book-notification");
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private final String contentType;
+    private final byte[] headerValue;
+
+    BookNotificationFormat(String contentType) {
+        this.contentType = contentType;
+        this.headerValue = contentType.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    byte[] headerValue() {
+        return headerValue;
+    }
+
+    /**
+     * Get the format named by a content type header, JSON when the record has none
+     *
+     * @throws SerializationException when the content type is not a book notification format
+     */
+    public static BookNotificationFormat fromHeader(Header header) {
+        if (header == null || header.value() == null) {
+            return JSON;
+        }
+        String contentType = new String(header.value(), StandardCharsets.UTF_8);
+        for (BookNotificationFormat format : values()) {
+            if (format.contentType.equals(contentType)) {
+                return format;
+            }
+        }
+        throw new SerializationException("Unsupported book notification content type: " + contentType);
+    }
+
+    /**
+     * Get a format by its name as set in the kafka.notifications.format property, ignoring case
+     */
+    public static BookNotificationFormat fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown book notification format: " + name, e);
+        }
+    }
+}
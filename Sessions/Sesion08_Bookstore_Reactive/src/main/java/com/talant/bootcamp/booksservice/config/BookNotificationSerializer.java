@@ -0,0 +1,55 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing book notifications in the configured {@link BookNotificationFormat},
+ * named in the content type header of every record
+ */
+public class BookNotificationSerializer implements Serializer<BookNotification> {
+
+    private final BookNotificationFormat format;
+    private final ObjectMapper objectMapper;
+
+    public BookNotificationSerializer(BookNotificationFormat format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    public BookNotificationFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, BookNotification notification) {
+        byte[] data = serialize(topic, notification);
+        if (data != null) {
+            headers.remove(BookNotificationFormat.CONTENT_TYPE_HEADER);
+            headers.add(BookNotificationFormat.CONTENT_TYPE_HEADER, format.headerValue());
+        }
+        return data;
+    }
+
+    /**
+     * Serialize without a header; only readable as such when the format is JSON
+     */
+    @Override
+    public byte[] serialize(String topic, BookNotification notification) {
+        if (notification == null) {
+            return null;
+        }
+        if (format == BookNotificationFormat.BINARY) {
+            return BookNotificationBinaryCodec.encode(notification);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(notification);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Error serializing book notification: " + notification, e);
+        }
+    }
+}
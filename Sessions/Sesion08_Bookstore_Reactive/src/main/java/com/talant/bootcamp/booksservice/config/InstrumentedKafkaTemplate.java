@@ -0,0 +1,51 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.service.KafkaProducerMetrics;
+import io.micrometer.observation.Observation;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Kafka template recording every send in {@link KafkaProducerMetrics}: the send-to-ack latency, the serialized
+ * record size and failures, per topic
+ */
+public class InstrumentedKafkaTemplate<K, V> extends KafkaTemplate<K, V> {
+
+    private final KafkaProducerMetrics producerMetrics;
+
+    public InstrumentedKafkaTemplate(ProducerFactory<K, V> producerFactory, KafkaProducerMetrics producerMetrics) {
+        super(producerFactory);
+        this.producerMetrics = producerMetrics;
+    }
+
+    @Override
+    protected CompletableFuture<SendResult<K, V>> doSend(ProducerRecord<K, V> producerRecord,
+                                                         @Nullable Observation observation) {
+        String topic = producerRecord.topic();
+        long startNanos = producerMetrics.sendStarted(topic);
+        CompletableFuture<SendResult<K, V>> future;
+        try {
+            future = super.doSend(producerRecord, observation);
+        } catch (RuntimeException e) {
+            producerMetrics.sendFailed(topic);
+            throw e;
+        }
+        return future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                producerMetrics.sendAcknowledged(topic, startNanos, serializedSize(result.getRecordMetadata()));
+            } else {
+                producerMetrics.sendFailed(topic);
+            }
+        });
+    }
+
+    private static int serializedSize(RecordMetadata metadata) {
+        return Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize());
+    }
+}
@@ -3,8 +3,14 @@ package com.talant.bootcamp.booksservice.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.service.KafkaConsumerMetrics;
+import com.talant.bootcamp.booksservice.service.KafkaProducerMetrics;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,10 +19,20 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRecordRecoverer;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -56,6 +72,30 @@ public class KafkaConfig {
     @Value("${kafka.producer.buffer-memory:33554432}")
     private int bufferMemory;
     
+    @Value("${kafka.notifications.format:json}")
+    private String notificationFormat;
+    
+    @Value("${kafka.notifications.origin:${spring.application.name:book-service}}")
+    private String notificationOrigin;
+    
+    @Value("${kafka.sender.max-in-flight:256}")
+    private int senderMaxInFlight;
+    
+    @Value("${kafka.topic.book-notifications:book-notifications}")
+    private String bookNotificationsTopic;
+    
+    @Value("${kafka.topic.stock-updates:book-stock-updates}")
+    private String stockUpdatesTopic;
+    
+    @Value("${kafka.consumer.commit-records:100}")
+    private int commitRecords;
+    
+    @Value("${kafka.consumer.commit-interval:1s}")
+    private Duration commitInterval;
+    
+    @Value("${kafka.retry.delays:1s,10s,60s}")
+    private List<Duration> retryDelays;
+    
     /**
      * ObjectMapper bean for JSON serialization/deserialization
      */
@@ -78,10 +118,9 @@ public class KafkaConfig {
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, enableAutoCommit);
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // The consumer factories pass deserializer instances, which take precedence over these classes
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, StringDeserializer.class);
         
         // Additional consumer configurations
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
@@ -111,15 +150,38 @@ public class KafkaConfig {
         props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         
+        // Every record names this service as its origin, so its own listeners can skip the echo
+        props.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, NotificationHeadersInterceptor.class.getName());
+        props.put(NotificationHeadersInterceptor.ORIGIN_CONFIG, notificationOrigin);
+        
         return props;
     }
     
     /**
-     * Consumer factory
+     * Serializer of book notifications, in the format set by kafka.notifications.format (json or binary).
+     * Consumers read both formats, so producers can be switched once every consumer runs this version.
+     */
+    @Bean
+    public BookNotificationSerializer bookNotificationSerializer() {
+        return new BookNotificationSerializer(BookNotificationFormat.fromName(notificationFormat), objectMapper());
+    }
+    
+    /**
+     * Consumer factory; book notifications are read in the format named by each record's content type header,
+     * and records that cannot be read are handed to the error handler instead of failing the poll
      */
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
-        return new DefaultKafkaConsumerFactory<>(consumerConfigs());
+    public ConsumerFactory<String, BookNotification> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerConfigs(), new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new BookNotificationDeserializer(objectMapper())));
+    }
+    
+    /**
+     * Consumer factory reading book notifications as they were written, for replaying the dead-letter topics
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> deadLetterConsumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerConfigs(), new StringDeserializer(), new ByteArrayDeserializer());
     }
     
     /**
@@ -131,38 +193,177 @@ public class KafkaConfig {
     }
     
     /**
-     * Kafka template for sending messages
+     * Kafka template for sending messages, recording every send in the producer metrics
      */
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, String> kafkaTemplate(KafkaProducerMetrics producerMetrics) {
+        return new InstrumentedKafkaTemplate<>(producerFactory(), producerMetrics);
     }
     
     /**
-     * Kafka listener container factory
+     * Producer factory for book notifications
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = 
+    public ProducerFactory<String, BookNotification> notificationProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfigs(), new StringSerializer(), bookNotificationSerializer());
+    }
+    
+    /**
+     * Kafka template for sending book notifications, recording every send in the producer metrics
+     */
+    @Bean
+    public KafkaTemplate<String, BookNotification> notificationKafkaTemplate(KafkaProducerMetrics producerMetrics) {
+        return new InstrumentedKafkaTemplate<>(notificationProducerFactory(), producerMetrics);
+    }
+    
+    /**
+     * Producer factory forwarding records to the retry and dead-letter topics and back: book notifications are
+     * serialized again, records that could not be read keep their bytes, and no headers are added, so a forwarded
+     * record keeps the origin it was first read with
+     */
+    @Bean
+    public ProducerFactory<String, Object> forwardingProducerFactory() {
+        Map<String, Object> props = new HashMap<>(producerConfigs());
+        props.remove(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG);
+        props.remove(NotificationHeadersInterceptor.ORIGIN_CONFIG);
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(BookNotification.class, bookNotificationSerializer());
+        serializers.put(byte[].class, new ByteArraySerializer());
+        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new DelegatingByTypeSerializer(serializers));
+    }
+    
+    /**
+     * Kafka template forwarding records to the retry and dead-letter topics and back, recording every send in the
+     * producer metrics
+     */
+    @Bean
+    public KafkaTemplate<String, Object> forwardingKafkaTemplate(KafkaProducerMetrics producerMetrics) {
+        return new InstrumentedKafkaTemplate<>(forwardingProducerFactory(), producerMetrics);
+    }
+    
+    /**
+     * Retry and dead-letter topics of the notification topics, retried after the delays in kafka.retry.delays
+     */
+    @Bean
+    public NotificationRetryTopics notificationRetryTopics() {
+        return new NotificationRetryTopics(List.of(bookNotificationsTopic, stockUpdatesTopic), retryDelays);
+    }
+    
+    /**
+     * Recoverer handing a notification that failed to apply to its next retry topic, or to its dead-letter topic
+     * with the exception and the topic, partition and offset it was first read from in kafka_dlt-* headers
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer notificationRetryRecoverer(KafkaTemplate<String, Object> forwardingKafkaTemplate) {
+        DeadLetterPublishingRecoverer recoverer =
+            new DeadLetterPublishingRecoverer(forwardingKafkaTemplate, notificationRetryTopics()::destination);
+        // Keep the original topic headers of the first failure instead of adding those of every retry topic
+        recoverer.setAppendOriginalHeaders(false);
+        return recoverer;
+    }
+    
+    /**
+     * Asynchronous offset commits of the record listeners, every kafka.consumer.commit-records records or
+     * kafka.consumer.commit-interval
+     */
+    @Bean
+    public BatchedOffsetCommitter batchedOffsetCommitter(KafkaConsumerMetrics consumerMetrics) {
+        return new BatchedOffsetCommitter(consumerMetrics, commitRecords, commitInterval);
+    }
+    
+    /**
+     * Reactive sender for streams of book notifications. At most kafka.sender.max-in-flight records are
+     * requested from a stream before their acknowledgements arrive, and a failed record is reported in its
+     * result instead of cancelling the rest of the stream.
+     */
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, BookNotification> notificationKafkaSender() {
+        SenderOptions<String, BookNotification> options = SenderOptions.<String, BookNotification>create(producerConfigs())
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(bookNotificationSerializer())
+                .maxInFlight(senderMaxInFlight)
+                .stopOnError(false);
+        return KafkaSender.create(options);
+    }
+    
+    /**
+     * Kafka listener container factory; a record that fails goes to the first retry topic at once,
+     * so it does not hold back the records behind it. Offsets are committed by the batched offset committer.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BookNotification> kafkaListenerContainerFactory(
+            DeadLetterPublishingRecoverer notificationRetryRecoverer, BatchedOffsetCommitter batchedOffsetCommitter) {
+        ConcurrentKafkaListenerContainerFactory<String, BookNotification> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setConcurrency(3); // Number of concurrent consumers
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
-        factory.getContainerProperties().setSyncCommits(true);
+        useOffsetCommitter(factory, batchedOffsetCommitter);
         
         // Error handling
-        factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler(
-            (record, exception) -> {
-                // Log the error and potentially send to dead letter queue
-                System.err.println("Error processing message: " + record.value() + 
-                                 " from topic: " + record.topic() + 
-                                 " partition: " + record.partition() + 
-                                 " offset: " + record.offset());
-                exception.printStackTrace();
-            },
-            new org.springframework.util.backoff.FixedBackOff(1000L, 3L) // 1 second delay, 3 retries
-        ));
+        factory.setCommonErrorHandler(errorHandler(batchedOffsetCommitter.recovering(notificationRetryRecoverer)));
         
         return factory;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Kafka listener container factory handing each poll to the listener as one list of records,
+     * acknowledged by the listener once the whole list is applied. The listener hands failed records to the
+     * retry topics itself; when that is not possible it fails the batch at the record concerned, and the error
+     * handler commits the records before it and hands that one to the retry topics at once. A batch failing
+     * any other way has all its records handed on, so the partition is never held up by back-off waits.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BookNotification> batchKafkaListenerContainerFactory(
+            DeadLetterPublishingRecoverer notificationRetryRecoverer) {
+        ConcurrentKafkaListenerContainerFactory<String, BookNotification> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(3); // Number of concurrent consumers
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setSyncCommits(true);
+        // No offset committer tracks this factory, so the records handed on are committed by the error handler
+        factory.setCommonErrorHandler(new DefaultErrorHandler(notificationRetryRecoverer, new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+    
+    /**
+     * Kafka listener container factory for the retry topics, one record at a time. A record that is not due yet is
+     * handed back with a nack, pausing only this consumer until it is due; a record that fails again goes to the
+     * next retry topic, or the dead-letter topic after the last one. Offsets are committed by the batched offset
+     * committer, which never commits past a record handed back with a nack.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, BookNotification> retryKafkaListenerContainerFactory(
+            DeadLetterPublishingRecoverer notificationRetryRecoverer, BatchedOffsetCommitter batchedOffsetCommitter) {
+        ConcurrentKafkaListenerContainerFactory<String, BookNotification> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        useOffsetCommitter(factory, batchedOffsetCommitter);
+        factory.setCommonErrorHandler(errorHandler(batchedOffsetCommitter.recovering(notificationRetryRecoverer)));
+        return factory;
+    }
+    
+    /**
+     * Leave the commits of a record listener factory to the batched offset committer: with MANUAL acks and
+     * listeners that never acknowledge, the container does not commit by itself. Polls wait at most one commit
+     * interval, so an idle consumer still commits what it handled in time.
+     */
+    private void useOffsetCommitter(ConcurrentKafkaListenerContainerFactory<String, BookNotification> factory,
+                                    BatchedOffsetCommitter batchedOffsetCommitter) {
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setConsumerRebalanceListener(batchedOffsetCommitter);
+        containerProperties.setPollTimeout(Math.min(containerProperties.getPollTimeout(), commitInterval.toMillis()));
+        factory.setRecordInterceptor(batchedOffsetCommitter);
+    }
+    
+    /**
+     * Error handler handing a failed record straight to the recoverer, without committing it itself
+     */
+    private static DefaultErrorHandler errorHandler(ConsumerAwareRecordRecoverer recoverer) {
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(0L, 0L));
+        errorHandler.setAckAfterHandle(false);
+        return errorHandler;
+    }
+}
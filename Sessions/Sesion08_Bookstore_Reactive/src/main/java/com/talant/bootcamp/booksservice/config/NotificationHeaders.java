@@ -0,0 +1,43 @@
+package com.talant.bootcamp.booksservice.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headers every record produced by this service carries: the service it came from, its own ID and, when it was
+ * sent while applying another notification, the ID of that notification
+ */
+public final class NotificationHeaders {
+
+    public static final String ORIGIN = "book-origin";
+    public static final String EVENT_ID = "book-event-id";
+    public static final String CAUSATION_ID = "book-causation-id";
+
+    private NotificationHeaders() {
+    }
+
+    /**
+     * Get the last value of a header as text, or null when the record has none
+     */
+    public static String get(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Get the event ID of a record, or its topic, partition and offset when it was produced without one
+     */
+    public static String eventId(ConsumerRecord<?, ?> record) {
+        String eventId = get(record.headers(), EVENT_ID);
+        return eventId != null ? eventId : record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    static void setIfAbsent(Headers headers, String name, String value) {
+        if (value != null && headers.lastHeader(name) == null) {
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.service.NotificationApplyScope;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.config.ConfigException;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Producer interceptor adding the {@link NotificationHeaders} to every record, whichever template or sender
+ * produces it. Headers already set on a record are kept.
+ */
+public class NotificationHeadersInterceptor implements ProducerInterceptor<Object, Object> {
+
+    /**
+     * Producer config naming the service the records come from
+     */
+    public static final String ORIGIN_CONFIG = "book.notifications.origin";
+
+    private String origin;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object configured = configs.get(ORIGIN_CONFIG);
+        if (configured == null || configured.toString().isBlank()) {
+            throw new ConfigException(ORIGIN_CONFIG, configured, "The origin of produced records is required");
+        }
+        origin = configured.toString();
+    }
+
+    @Override
+    public ProducerRecord<Object, Object> onSend(ProducerRecord<Object, Object> record) {
+        NotificationHeaders.setIfAbsent(record.headers(), NotificationHeaders.ORIGIN, origin);
+        NotificationHeaders.setIfAbsent(record.headers(), NotificationHeaders.EVENT_ID, UUID.randomUUID().toString());
+        NotificationHeaders.setIfAbsent(record.headers(), NotificationHeaders.CAUSATION_ID,
+                NotificationApplyScope.causationOf(record.key()));
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
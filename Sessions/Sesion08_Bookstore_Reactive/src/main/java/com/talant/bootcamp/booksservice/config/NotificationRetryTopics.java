@@ -0,0 +1,109 @@
+package com.talant.bootcamp.booksservice.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.messaging.converter.MessageConversionException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Topics a book notification that failed to apply goes through: &lt;topic&gt;-retry-1 to -3, each read once the
+ * delay of its tier has passed since the record was written to it, and then &lt;topic&gt;-dlt. Records that cannot
+ * be read or do not describe a valid book go to the dead-letter topic at once, since retrying them cannot help.
+ */
+public class NotificationRetryTopics {
+
+    public static final int TIERS = 3;
+
+    private static final String RETRY_SUFFIX = "-retry-";
+    private static final String DEAD_LETTER_SUFFIX = "-dlt";
+
+    private final List<String> topics;
+    private final Map<String, String> nextTopics = new HashMap<>();
+    private final Map<String, String> deadLetterTopics = new HashMap<>();
+    private final Map<String, Duration> delays = new HashMap<>();
+
+    /**
+     * @param topics the notification topics
+     * @param delays the delay of each retry tier, first to last
+     */
+    public NotificationRetryTopics(List<String> topics, List<Duration> delays) {
+        if (delays.size() != TIERS) {
+            throw new IllegalArgumentException("Expected " + TIERS + " retry delays but got " + delays);
+        }
+        this.topics = List.copyOf(topics);
+        for (String topic : topics) {
+            String deadLetterTopic = deadLetterTopic(topic);
+            String previous = topic;
+            for (int tier = 1; tier <= TIERS; tier++) {
+                String retryTopic = retryTopic(topic, tier);
+                nextTopics.put(previous, retryTopic);
+                deadLetterTopics.put(retryTopic, deadLetterTopic);
+                this.delays.put(retryTopic, delays.get(tier - 1));
+                previous = retryTopic;
+            }
+            nextTopics.put(previous, deadLetterTopic);
+            deadLetterTopics.put(topic, deadLetterTopic);
+        }
+    }
+
+    public static String retryTopic(String topic, int tier) {
+        return topic + RETRY_SUFFIX + tier;
+    }
+
+    public static String deadLetterTopic(String topic) {
+        return topic + DEAD_LETTER_SUFFIX;
+    }
+
+    /**
+     * Get the notification topics
+     */
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Get the retry topics of one tier, from 1 to {@link #TIERS}, for the listener of that tier
+     */
+    public String[] retryTopics(int tier) {
+        return topics.stream().map(topic -> retryTopic(topic, tier)).toArray(String[]::new);
+    }
+
+    /**
+     * Get where a record that failed in its topic goes next: the retry topic of the next tier, or the dead-letter
+     * topic when the retries are spent or cannot help. The partition is left to the producer, by record key.
+     */
+    public TopicPartition destination(ConsumerRecord<?, ?> record, Exception exception) {
+        String next = isRetryable(record, exception)
+                ? nextTopics.get(record.topic())
+                : deadLetterTopics.get(record.topic());
+        return new TopicPartition(next != null ? next : deadLetterTopic(record.topic()), -1);
+    }
+
+    /**
+     * Get how long a record read from a retry topic must still wait before it is retried, zero once it is due
+     */
+    public Duration remainingDelay(ConsumerRecord<?, ?> record, long nowMillis) {
+        Duration delay = delays.getOrDefault(record.topic(), Duration.ZERO);
+        long remaining = record.timestamp() + delay.toMillis() - nowMillis;
+        return remaining > 0 ? Duration.ofMillis(remaining) : Duration.ZERO;
+    }
+
+    private static boolean isRetryable(ConsumerRecord<?, ?> record, Exception exception) {
+        if (record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+            return false;
+        }
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeserializationException || cause instanceof MessageConversionException
+                    || cause instanceof IllegalArgumentException) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package com.talant.bootcamp.booksservice.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC client for the reactive services, connected to the same database as JPA.
+ * The connection factory is kept out of the context on purpose: Spring Boot does not
+ * auto-configure the JDBC DataSource when a ConnectionFactory bean exists.
+ */
+@Configuration
+public class R2dbcConfig {
+
+    @Value("${book.r2dbc.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        return DatabaseClient.create(ConnectionFactories.get(options));
+    }
+}
@@ -1,8 +1,21 @@
 package com.talant.bootcamp.booksservice.controller;
 
+import com.talant.bootcamp.booksservice.dto.BookCacheStats;
+import com.talant.bootcamp.booksservice.dto.BookPage;
+import com.talant.bootcamp.booksservice.dto.BookQuery;
+import com.talant.bootcamp.booksservice.dto.BookQueryResponse;
 import com.talant.bootcamp.booksservice.dto.BookRequest;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.CategoryAveragePrice;
+import com.talant.bootcamp.booksservice.dto.CategoryStatistics;
+import com.talant.bootcamp.booksservice.dto.CategoryStatisticsCheck;
+import com.talant.bootcamp.booksservice.dto.StockReservation;
+import com.talant.bootcamp.booksservice.dto.StockUpdateRequest;
+import com.talant.bootcamp.booksservice.dto.StockUpdateResult;
+import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.service.BookExportService;
+import com.talant.bootcamp.booksservice.service.BookQueryService;
 import com.talant.bootcamp.booksservice.service.BookService;
 import com.talant.bootcamp.booksservice.service.BookSearchService;
 import com.talant.bootcamp.booksservice.service.BookStatisticsService;
@@ -16,9 +29,12 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -28,17 +44,32 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class BookController {
     
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     private final BookService bookService;
     private final BookSearchService bookSearchService;
+    private final BookExportService bookExportService;
+    private final BookQueryService bookQueryService;
     private final BookStatisticsService bookStatisticsService;
     private final InventoryAlertService inventoryAlertService;
     private final ReactiveBookSearchService reactiveBookSearchService;
 	private final ReactiveBookOrderService reactiveBookOrderService;
 	private final ReactiveBookStatisticsService reactiveBookStatisticsService;
     
+    @Value("${book.pagination.default-limit:100}")
+    private int defaultPageLimit;
+    
+    @Value("${book.pagination.max-limit:1000}")
+    private int maxPageLimit;
+    
+    @Value("${book.search.reactive-window:100}")
+    private int reactiveSearchWindow;
+    
     @Autowired
     public BookController(BookService bookService, 
                          BookSearchService bookSearchService,
+                         BookExportService bookExportService,
+                         BookQueryService bookQueryService,
                          BookStatisticsService bookStatisticsService,
                          InventoryAlertService inventoryAlertService, ReactiveBookSearchService reactiveBookSearchService, 
 						 ReactiveBookOrderService reactiveBookOrderService, 
@@ -46,6 +77,8 @@ public class BookController {
 		this.reactiveBookStatisticsService = reactiveBookStatisticsService;
         this.bookService = bookService;
         this.bookSearchService = bookSearchService;
+        this.bookExportService = bookExportService;
+        this.bookQueryService = bookQueryService;
         this.bookStatisticsService = bookStatisticsService;
         this.inventoryAlertService = inventoryAlertService;
 		this.reactiveBookSearchService = reactiveBookSearchService;
@@ -65,9 +98,19 @@ public class BookController {
      * Get all books
      */
     @GetMapping
-    public ResponseEntity<List<BookResponse>> getAllBooks() {
-        List<BookResponse> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getAllBooks(@RequestParam(required = false) String after,
+                                                          @RequestParam(required = false) Integer limit) {
+        BookPage page = bookService.getAllBooks(after, resolvePageLimit(after, limit));
+        return toResponse(page);
+    }
+    
+    /**
+     * Export the whole catalog as newline-delimited JSON, streamed straight to the response
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = bookExportService::exportBooks;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
     
     /**
@@ -129,18 +172,21 @@ public class BookController {
      * Search books by category
      */
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<BookResponse>> getBooksByCategory(@PathVariable BookCategory category) {
-        List<BookResponse> books = bookSearchService.getBooksByCategory(category);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksByCategory(@PathVariable BookCategory category,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksByCategory(category, after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
      * Search books with stock available
      */
     @GetMapping("/in-stock")
-    public ResponseEntity<List<BookResponse>> getBooksWithStock() {
-        List<BookResponse> books = bookSearchService.getBooksWithStock();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksWithStock(@RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksWithStock(after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
@@ -158,27 +204,33 @@ public class BookController {
     @GetMapping("/price-range")
     public ResponseEntity<List<BookResponse>> getBooksByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
-        List<BookResponse> books = bookSearchService.getBooksByPriceRange(minPrice, maxPrice);
-        return ResponseEntity.ok(books);
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksByPriceRange(minPrice, maxPrice, after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
      * Search books by maximum price
      */
     @GetMapping("/max-price/{maxPrice}")
-    public ResponseEntity<List<BookResponse>> getBooksByMaxPrice(@PathVariable BigDecimal maxPrice) {
-        List<BookResponse> books = bookSearchService.getBooksByMaxPrice(maxPrice);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksByMaxPrice(@PathVariable BigDecimal maxPrice,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksByMaxPrice(maxPrice, after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
      * Search books by minimum price
      */
     @GetMapping("/min-price/{minPrice}")
-    public ResponseEntity<List<BookResponse>> getBooksByMinPrice(@PathVariable BigDecimal minPrice) {
-        List<BookResponse> books = bookSearchService.getBooksByMinPrice(minPrice);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksByMinPrice(@PathVariable BigDecimal minPrice,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksByMinPrice(minPrice, after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
@@ -199,6 +251,16 @@ public class BookController {
         return ResponseEntity.ok(books);
     }
     
+    /**
+     * Search books by any combination of category, author, title, price range and stock,
+     * returning category and price facet counts along with the results
+     */
+    @GetMapping("/query")
+    public ResponseEntity<BookQueryResponse> queryBooks(BookQuery query) {
+        BookQueryResponse response = bookQueryService.queryBooks(query, resolveLimit(query.getLimit()));
+        return ResponseEntity.ok(response);
+    }
+    
 
 	/**
 	 * Search books by title using reactive approach
@@ -207,49 +269,58 @@ public class BookController {
 	 */
 	@GetMapping("/search/reactive")
     public Flux<BookResponse> searchBooksReactive(@RequestParam String keyword) {
+    // Enrich the results a window at a time: two queries per window instead of two per book
     return reactiveBookSearchService.findByTitleContains(keyword)
-        .flatMap(book -> 
-            Mono.zip(
-                reactiveBookOrderService.checkStock(book.getId()),
-                reactiveBookStatisticsService.getAverageRating(book.getId())
-            ).map(tuple -> new BookResponse(book, tuple.getT1(), tuple.getT2()))
-        );
+        .buffer(reactiveSearchWindow)
+        .concatMap(books -> {
+            List<Long> ids = books.stream().map(Book::getId).toList();
+            return Mono.zip(
+                reactiveBookOrderService.checkStock(ids),
+                reactiveBookStatisticsService.getAverageRatings(ids)
+            ).flatMapIterable(tuple -> books.stream()
+                .map(book -> new BookResponse(book, tuple.getT1().get(book.getId()), tuple.getT2().get(book.getId())))
+                .toList());
+        });
 	}
 
     /**
      * Get books ordered by price ascending
      */
     @GetMapping("/sorted/price-asc")
-    public ResponseEntity<List<BookResponse>> getBooksOrderedByPriceAsc() {
-        List<BookResponse> books = bookSearchService.getBooksOrderedByPriceAsc();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksOrderedByPriceAsc(@RequestParam(required = false) String after,
+                                                                   @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksOrderedByPriceAsc(after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
      * Get books ordered by price descending
      */
     @GetMapping("/sorted/price-desc")
-    public ResponseEntity<List<BookResponse>> getBooksOrderedByPriceDesc() {
-        List<BookResponse> books = bookSearchService.getBooksOrderedByPriceDesc();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksOrderedByPriceDesc(@RequestParam(required = false) String after,
+                                                                   @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksOrderedByPriceDesc(after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
      * Get books ordered by title
      */
     @GetMapping("/sorted/title")
-    public ResponseEntity<List<BookResponse>> getBooksOrderedByTitle() {
-        List<BookResponse> books = bookSearchService.getBooksOrderedByTitle();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksOrderedByTitle(@RequestParam(required = false) String after,
+                                                                   @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksOrderedByTitle(after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
      * Get books ordered by author
      */
     @GetMapping("/sorted/author")
-    public ResponseEntity<List<BookResponse>> getBooksOrderedByAuthor() {
-        List<BookResponse> books = bookSearchService.getBooksOrderedByAuthor();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookResponse>> getBooksOrderedByAuthor(@RequestParam(required = false) String after,
+                                                                   @RequestParam(required = false) Integer limit) {
+        BookPage page = bookSearchService.getBooksOrderedByAuthor(after, resolvePageLimit(after, limit));
+        return toResponse(page);
     }
     
     /**
@@ -262,6 +333,25 @@ public class BookController {
         return ResponseEntity.ok(updatedBook);
     }
     
+    /**
+     * Set the stock of many books, each identified by ID or ISBN, in one transaction; answers one result per item
+     */
+    @PatchMapping("/stock")
+    public ResponseEntity<List<StockUpdateResult>> updateStocks(@RequestBody List<StockUpdateRequest> updates) {
+        return ResponseEntity.ok(bookService.updateStocks(updates));
+    }
+    
+    /**
+     * Reserve stock of a book; answers 409 when the book has less stock than requested
+     */
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<StockReservation> reserveStock(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "1") Integer quantity) {
+        StockReservation reservation = bookService.reserveStock(id, quantity);
+        HttpStatus status = reservation.isReserved() ? HttpStatus.OK : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(reservation);
+    }
+    
     /**
      * Check if a book exists with the given ISBN
      */
@@ -275,20 +365,38 @@ public class BookController {
      * Get book statistics by category
      */
     @GetMapping("/statistics/category")
-    public ResponseEntity<List<Object[]>> getBookStatisticsByCategory() {
-        List<Object[]> statistics = bookStatisticsService.getBookStatisticsByCategory();
+    public ResponseEntity<List<CategoryStatistics>> getBookStatisticsByCategory() {
+        List<CategoryStatistics> statistics = bookStatisticsService.getBookStatisticsByCategory();
         return ResponseEntity.ok(statistics);
     }
     
+    /**
+     * Compare the category statistics with the database
+     */
+    @GetMapping("/statistics/category/check")
+    public ResponseEntity<CategoryStatisticsCheck> checkCategoryStatistics() {
+        CategoryStatisticsCheck check = bookStatisticsService.checkCategoryStatistics();
+        return ResponseEntity.ok(check);
+    }
+    
     /**
      * Get average price by category
      */
     @GetMapping("/statistics/average-price")
-    public ResponseEntity<List<Object[]>> getAveragePriceByCategory() {
-        List<Object[]> averagePrices = bookStatisticsService.getAveragePriceByCategory();
+    public ResponseEntity<List<CategoryAveragePrice>> getAveragePriceByCategory() {
+        List<CategoryAveragePrice> averagePrices = bookStatisticsService.getAveragePriceByCategory();
         return ResponseEntity.ok(averagePrices);
     }
     
+    /**
+     * Get hit, miss and eviction counters of the book cache
+     */
+    @GetMapping("/statistics/cache")
+    public ResponseEntity<BookCacheStats> getCacheStatistics() {
+        BookCacheStats stats = bookStatisticsService.getCacheStatistics();
+        return ResponseEntity.ok(stats);
+    }
+    
     /**
      * Get all available categories
      */
@@ -297,4 +405,39 @@ public class BookController {
         BookCategory[] categories = BookCategory.values();
         return ResponseEntity.ok(categories);
     }
+    
+    /**
+     * Resolve the page size of a listing. A request with neither a cursor nor a limit gets every matching book,
+     * as the listings returned before they were paginated; the default page size applies once a client pages.
+     */
+    private int resolvePageLimit(String after, Integer limit) {
+        if (after == null && limit == null) {
+            return BookPage.UNPAGED;
+        }
+        return resolveLimit(limit);
+    }
+    
+    /**
+     * Resolve the requested page size, falling back to the default and capping at the maximum
+     */
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultPageLimit;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        return Math.min(limit, maxPageLimit);
+    }
+    
+    /**
+     * Return the page content as the body and the next cursor, if any, as a header
+     */
+    private ResponseEntity<List<BookResponse>> toResponse(BookPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.talant.bootcamp.booksservice.controller;
+
+import com.talant.bootcamp.booksservice.dto.BookOrderRequest;
+import com.talant.bootcamp.booksservice.dto.BookOrderResult;
+import com.talant.bootcamp.booksservice.service.BookOrderService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/orders")
+public class BookOrderController {
+
+    private final BookOrderService bookOrderService;
+
+    public BookOrderController(BookOrderService bookOrderService) {
+        this.bookOrderService = bookOrderService;
+    }
+
+    /**
+     * Place an order; answers 201 once the batch holding it is stored,
+     * and 409 when the book has less stock left than ordered
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<BookOrderResult>> placeOrder(@Valid @RequestBody BookOrderRequest request) {
+        return bookOrderService.placeOrder(request.getBookId(), request.getQuantity())
+                .thenApply(result -> {
+                    HttpStatus status = result.isAccepted() ? HttpStatus.CREATED : HttpStatus.CONFLICT;
+                    return ResponseEntity.status(status).body(result);
+                });
+    }
+
+    /**
+     * Get the stock of a book left for new orders
+     */
+    @GetMapping("/stock/{bookId}")
+    public ResponseEntity<Integer> getAvailableStock(@PathVariable Long bookId) {
+        return ResponseEntity.ok(bookOrderService.getAvailableStock(bookId));
+    }
+}
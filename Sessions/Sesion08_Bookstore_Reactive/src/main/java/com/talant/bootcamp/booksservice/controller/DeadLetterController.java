@@ -0,0 +1,26 @@
+package com.talant.bootcamp.booksservice.controller;
+
+import com.talant.bootcamp.booksservice.dto.DeadLetterReplayReport;
+import com.talant.bootcamp.booksservice.service.DeadLetterReplayService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/kafka/dead-letters")
+public class DeadLetterController {
+
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    public DeadLetterController(DeadLetterReplayService deadLetterReplayService) {
+        this.deadLetterReplayService = deadLetterReplayService;
+    }
+
+    /**
+     * Send up to maxRecords records of the dead-letter topic of a notification topic back to it
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<DeadLetterReplayReport> replay(@RequestParam String topic,
+                                                         @RequestParam(defaultValue = "500") int maxRecords) {
+        return ResponseEntity.ok(deadLetterReplayService.replay(topic, maxRecords));
+    }
+}
@@ -0,0 +1,50 @@
+package com.talant.bootcamp.booksservice.controller;
+
+import com.talant.bootcamp.booksservice.dto.ConsumerPartitionLag;
+import com.talant.bootcamp.booksservice.dto.ConsumerTopicMetrics;
+import com.talant.bootcamp.booksservice.dto.ProducerTopicMetrics;
+import com.talant.bootcamp.booksservice.service.KafkaConsumerMetrics;
+import com.talant.bootcamp.booksservice.service.KafkaProducerMetrics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/kafka/metrics")
+public class KafkaMetricsController {
+
+    private final KafkaProducerMetrics producerMetrics;
+    private final KafkaConsumerMetrics consumerMetrics;
+
+    public KafkaMetricsController(KafkaProducerMetrics producerMetrics, KafkaConsumerMetrics consumerMetrics) {
+        this.producerMetrics = producerMetrics;
+        this.consumerMetrics = consumerMetrics;
+    }
+
+    /**
+     * Get the send latency, record size, throughput and error counters of every topic this instance produced to
+     */
+    @GetMapping("/producer")
+    public ResponseEntity<List<ProducerTopicMetrics>> getProducerMetrics() {
+        return ResponseEntity.ok(producerMetrics.snapshot());
+    }
+
+    /**
+     * Get the received and suppressed echo counters of every topic the notification listeners consume
+     */
+    @GetMapping("/consumer")
+    public ResponseEntity<List<ConsumerTopicMetrics>> getConsumerMetrics() {
+        return ResponseEntity.ok(consumerMetrics.snapshot());
+    }
+
+    /**
+     * Get the committed offset, position and lag between them of every partition the record listeners read
+     */
+    @GetMapping("/consumer/lag")
+    public ResponseEntity<List<ConsumerPartitionLag>> getConsumerLag() {
+        return ResponseEntity.ok(consumerMetrics.lag());
+    }
+}
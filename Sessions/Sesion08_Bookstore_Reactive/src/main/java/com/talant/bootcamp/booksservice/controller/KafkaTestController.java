@@ -2,17 +2,22 @@ package com.talant.bootcamp.booksservice.controller;
 
 import com.talant.bootcamp.booksservice.dto.BookNotification;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.NotificationSendResult;
 import com.talant.bootcamp.booksservice.model.BookCategory;
 import com.talant.bootcamp.booksservice.service.BookKafkaProducerService;
 import com.talant.bootcamp.booksservice.service.BookService;
+import com.talant.bootcamp.booksservice.service.ReactiveBookNotificationSender;
+import com.talant.bootcamp.booksservice.service.ReactiveBookSearchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -27,11 +32,17 @@ public class KafkaTestController {
     
     private final BookKafkaProducerService kafkaProducerService;
     private final BookService bookService;
+    private final ReactiveBookNotificationSender reactiveNotificationSender;
+    private final ReactiveBookSearchService reactiveBookSearchService;
     
     @Autowired
-    public KafkaTestController(BookKafkaProducerService kafkaProducerService, BookService bookService) {
+    public KafkaTestController(BookKafkaProducerService kafkaProducerService, BookService bookService,
+                               ReactiveBookNotificationSender reactiveNotificationSender,
+                               ReactiveBookSearchService reactiveBookSearchService) {
         this.kafkaProducerService = kafkaProducerService;
         this.bookService = bookService;
+        this.reactiveNotificationSender = reactiveNotificationSender;
+        this.reactiveBookSearchService = reactiveBookSearchService;
     }
     
     /**
@@ -140,6 +151,27 @@ public class KafkaTestController {
         }
     }
     
+    /**
+     * Send a list of notifications without blocking the request thread, streaming one result per
+     * notification as the broker acknowledges it
+     */
+    @PostMapping("/notifications/bulk")
+    public Flux<NotificationSendResult> sendBulkNotifications(@RequestBody List<BookNotification> notifications) {
+        return reactiveNotificationSender.sendAll(notifications);
+    }
+    
+    /**
+     * Send a notification of the given type for every book whose title contains the keyword, reading the
+     * books and sending the notifications as one stream, so no more books are read than can be in flight
+     */
+    @PostMapping("/notifications/reactive")
+    public Flux<NotificationSendResult> sendNotificationsReactive(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "BOOK_UPDATE") BookNotification.NotificationType type) {
+        return reactiveNotificationSender.send(reactiveBookSearchService.findByTitleContains(keyword)
+                .map(book -> kafkaProducerService.createNotificationFromBook(new BookResponse(book), type)));
+    }
+    
     /**
      * Create a sample book notification for testing
      */
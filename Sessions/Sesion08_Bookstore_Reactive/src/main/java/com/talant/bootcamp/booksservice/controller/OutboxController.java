@@ -0,0 +1,33 @@
+package com.talant.bootcamp.booksservice.controller;
+
+import com.talant.bootcamp.booksservice.dto.OutboxStats;
+import com.talant.bootcamp.booksservice.service.OutboxRelay;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/outbox")
+public class OutboxController {
+
+    private final OutboxRelay outboxRelay;
+
+    public OutboxController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * Get the outbox backlog, the relay lag and the relay counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<OutboxStats> getStats() {
+        return ResponseEntity.ok(outboxRelay.stats());
+    }
+
+    /**
+     * Delete the events published longer ago than the retention now
+     */
+    @PostMapping("/cleanup")
+    public ResponseEntity<Integer> cleanUp() {
+        return ResponseEntity.ok(outboxRelay.cleanUp());
+    }
+}
@@ -1,6 +1,8 @@
 package com.talant.bootcamp.booksservice.controller;
 
+import com.talant.bootcamp.booksservice.model.BookRatingStats;
 import com.talant.bootcamp.booksservice.model.Review;
+import com.talant.bootcamp.booksservice.service.BookRatingStatsBackfill;
 import com.talant.bootcamp.booksservice.service.ReviewService;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,9 +13,11 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final BookRatingStatsBackfill ratingStatsBackfill;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, BookRatingStatsBackfill ratingStatsBackfill) {
         this.reviewService = reviewService;
+        this.ratingStatsBackfill = ratingStatsBackfill;
     }
 
     @PostMapping
@@ -25,4 +29,14 @@ public class ReviewController {
     public List<Review> getReviews(@PathVariable Long bookId) {
         return reviewService.getReviewsForBook(bookId);
     }
+
+    @GetMapping("/{bookId}/stats")
+    public BookRatingStats getRatingStats(@PathVariable Long bookId) {
+        return reviewService.getRatingStats(bookId);
+    }
+
+    @PostMapping("/stats/backfill")
+    public long backfillRatingStats() {
+        return ratingStatsBackfill.run();
+    }
 }
@@ -0,0 +1,53 @@
+package com.talant.bootcamp.booksservice.controller;
+
+import com.talant.bootcamp.booksservice.dto.StockReplayReport;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.service.StockMovementLog;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stock-movements")
+public class StockMovementController {
+
+    private final StockMovementLog stockMovementLog;
+
+    public StockMovementController(StockMovementLog stockMovementLog) {
+        this.stockMovementLog = stockMovementLog;
+    }
+
+    /**
+     * Get the latest stock movements of a book, newest first
+     */
+    @GetMapping("/{bookId}")
+    public ResponseEntity<List<StockMovement>> getMovements(@PathVariable Long bookId,
+                                                            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(stockMovementLog.getMovements(bookId, limit));
+    }
+
+    /**
+     * Get the stock of a book from its latest snapshot and the movements logged after it
+     */
+    @GetMapping("/{bookId}/stock")
+    public ResponseEntity<Integer> getStock(@PathVariable Long bookId) {
+        return ResponseEntity.ok(stockMovementLog.currentStock(bookId));
+    }
+
+    /**
+     * Fold the movements logged since the last snapshots into the snapshots now
+     */
+    @PostMapping("/snapshots")
+    public ResponseEntity<Integer> takeSnapshots() {
+        return ResponseEntity.ok(stockMovementLog.takeSnapshots());
+    }
+
+    /**
+     * Rebuild the snapshots from the full log and report the books whose stock column differs from it
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<StockReplayReport> replay() {
+        return ResponseEntity.ok(stockMovementLog.replay());
+    }
+}
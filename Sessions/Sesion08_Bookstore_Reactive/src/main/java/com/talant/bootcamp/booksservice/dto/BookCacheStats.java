@@ -0,0 +1,66 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for book cache counters
+ */
+public class BookCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+    private final long weight;
+
+    public BookCacheStats(long hits, long misses, long evictions, long size, long weight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.weight = weight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Share of lookups served from the cache, or 1.0 when there were no lookups
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    /**
+     * Number of cached keys; a book cached by both ID and ISBN counts twice
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Estimated size in bytes of the cached entries
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "BookCacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", size=" + size +
+                ", weight=" + weight +
+                '}';
+    }
+}
@@ -43,7 +43,8 @@ public class BookNotification {
     public enum NotificationType {
         NEW_BOOK,
         STOCK_UPDATE,
-        BOOK_UPDATE
+        BOOK_UPDATE,
+        LOW_STOCK
     }
     
     // Constructors
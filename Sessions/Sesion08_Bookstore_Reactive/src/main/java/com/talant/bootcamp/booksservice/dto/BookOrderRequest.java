@@ -0,0 +1,50 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO for book order request
+ */
+public class BookOrderRequest {
+
+    @NotNull(message = "Book ID is required")
+    private Long bookId;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Max(value = 999999, message = "Quantity cannot exceed 999999")
+    private Integer quantity;
+
+    public BookOrderRequest() {}
+
+    public BookOrderRequest(Long bookId, Integer quantity) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "BookOrderRequest{" +
+                "bookId=" + bookId +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
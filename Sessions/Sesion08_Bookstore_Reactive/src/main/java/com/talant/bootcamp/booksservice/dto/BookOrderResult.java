@@ -0,0 +1,41 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the outcome of placing a book order
+ */
+public class BookOrderResult {
+
+    private final Long bookId;
+    private final int quantity;
+    private final boolean accepted;
+
+    public BookOrderResult(Long bookId, int quantity, boolean accepted) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+        this.accepted = accepted;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Whether the order was accepted; false when the book had less stock left than ordered
+     */
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    @Override
+    public String toString() {
+        return "BookOrderResult{" +
+                "bookId=" + bookId +
+                ", quantity=" + quantity +
+                ", accepted=" + accepted +
+                '}';
+    }
+}
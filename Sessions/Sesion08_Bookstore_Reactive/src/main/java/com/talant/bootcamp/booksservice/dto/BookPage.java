@@ -0,0 +1,45 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import java.util.List;
+
+/**
+ * DTO for one page of a keyset-paginated book listing
+ */
+public class BookPage {
+    
+    /**
+     * Page size asking for every matching book in one page
+     */
+    public static final int UNPAGED = Integer.MAX_VALUE;
+    
+    private final List<BookResponse> content;
+    private final String nextCursor;
+    
+    public BookPage(List<BookResponse> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<BookResponse> getContent() {
+        return content;
+    }
+    
+    /**
+     * Opaque cursor to pass as "after" for the next page, or null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "BookPage{" +
+                "content=" + content.size() + " books" +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import java.math.BigDecimal;
+
+/**
+ * DTO for a combined book search. Every criterion is optional; the ones present are ANDed together.
+ */
+public class BookQuery {
+
+    private BookCategory category;
+    private String author;
+    private String title;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
+    private BookSortKey sort = BookSortKey.ID;
+    private Integer limit;
+
+    // Constructors
+    public BookQuery() {}
+
+    public BookQuery(BookCategory category, String author, String title, BigDecimal minPrice,
+                     BigDecimal maxPrice, Boolean inStock, BookSortKey sort, Integer limit) {
+        this.category = category;
+        this.author = author;
+        this.title = title;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStock = inStock;
+        this.sort = sort;
+        this.limit = limit;
+    }
+
+    // Getters and Setters
+    public BookCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(BookCategory category) {
+        this.category = category;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Boolean getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(Boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    public BookSortKey getSort() {
+        return sort;
+    }
+
+    public void setSort(BookSortKey sort) {
+        this.sort = sort;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "BookQuery{" +
+                "category=" + category +
+                ", author='" + author + '\'' +
+                ", title='" + title + '\'' +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", inStock=" + inStock +
+                ", sort=" + sort +
+                ", limit=" + limit +
+                '}';
+    }
+}
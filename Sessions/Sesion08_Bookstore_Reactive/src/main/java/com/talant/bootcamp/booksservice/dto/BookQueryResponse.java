@@ -0,0 +1,60 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the result of a combined book search: the matching books plus facet counts over all matches
+ */
+public class BookQueryResponse {
+
+    private final List<BookResponse> books;
+    private final long total;
+    private final Map<String, Long> categories;
+    private final List<PriceFacet> prices;
+
+    public BookQueryResponse(List<BookResponse> books, long total, Map<String, Long> categories, List<PriceFacet> prices) {
+        this.books = books;
+        this.total = total;
+        this.categories = categories;
+        this.prices = prices;
+    }
+
+    /**
+     * Matching books, up to the requested limit
+     */
+    public List<BookResponse> getBooks() {
+        return books;
+    }
+
+    /**
+     * Number of matching books, ignoring the limit
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Number of matching books per category, keyed by category name
+     */
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Number of matching books per price bucket, in ascending price order
+     */
+    public List<PriceFacet> getPrices() {
+        return prices;
+    }
+
+    @Override
+    public String toString() {
+        return "BookQueryResponse{" +
+                "books=" + books.size() +
+                ", total=" + total +
+                ", categories=" + categories +
+                ", prices=" + prices +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * Sort orders supported by the paginated book listings.
+ * Every order ends with the book ID so that the keyset (sortKey, id) is unique.
+ */
+public enum BookSortKey {
+    ID(Sort.by(Sort.Order.asc("id")), null, null, null),
+    PRICE_ASC(Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id")), "price", Book::getPrice, BigDecimal::new),
+    PRICE_DESC(Sort.by(Sort.Order.desc("price"), Sort.Order.asc("id")), "price", Book::getPrice, BigDecimal::new),
+    TITLE(Sort.by(Sort.Order.asc("title"), Sort.Order.asc("id")), "title", Book::getTitle, value -> value),
+    AUTHOR(Sort.by(Sort.Order.asc("author"), Sort.Order.asc("id")), "author", Book::getAuthor, value -> value);
+
+    private final Sort sort;
+    private final String property;
+    private final Function<Book, Object> extractor;
+    private final Function<String, Object> parser;
+
+    BookSortKey(Sort sort, String property, Function<Book, Object> extractor, Function<String, Object> parser) {
+        this.sort = sort;
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Entity property sorted on before the ID, or null when sorting by ID only
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    public Object valueOf(Book book) {
+        return extractor.apply(book);
+    }
+
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+}
@@ -0,0 +1,35 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import com.talant.bootcamp.booksservice.model.BookCategory;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for the average book price of a category
+ */
+public class CategoryAveragePrice {
+
+    private final BookCategory category;
+    private final BigDecimal averagePrice;
+
+    public CategoryAveragePrice(BookCategory category, BigDecimal averagePrice) {
+        this.category = category;
+        this.averagePrice = averagePrice;
+    }
+
+    public BookCategory getCategory() {
+        return category;
+    }
+
+    public BigDecimal getAveragePrice() {
+        return averagePrice;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryAveragePrice{" +
+                "category=" + category +
+                ", averagePrice=" + averagePrice +
+                '}';
+    }
+}
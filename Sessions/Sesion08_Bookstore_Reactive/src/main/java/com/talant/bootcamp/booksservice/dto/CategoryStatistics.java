@@ -0,0 +1,80 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import com.talant.bootcamp.booksservice.model.BookCategory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * DTO for the number of books in a category and their price aggregates
+ */
+public class CategoryStatistics {
+
+    private final BookCategory category;
+    private final long count;
+    private final BigDecimal totalPrice;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+
+    public CategoryStatistics(BookCategory category, long count, BigDecimal totalPrice,
+                              BigDecimal minPrice, BigDecimal maxPrice) {
+        this.category = category;
+        this.count = count;
+        this.totalPrice = totalPrice;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public BookCategory getCategory() {
+        return category;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * Average price rounded to cents, or null when the category has no books
+     */
+    public BigDecimal getAveragePrice() {
+        return count == 0 ? null : totalPrice.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Whether both hold the same count and prices, ignoring the scale of the prices
+     */
+    public boolean matches(CategoryStatistics other) {
+        return category == other.category
+                && count == other.count
+                && sameAmount(totalPrice, other.totalPrice)
+                && sameAmount(minPrice, other.minPrice)
+                && sameAmount(maxPrice, other.maxPrice);
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryStatistics{" +
+                "category=" + category +
+                ", count=" + count +
+                ", totalPrice=" + totalPrice +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                '}';
+    }
+}
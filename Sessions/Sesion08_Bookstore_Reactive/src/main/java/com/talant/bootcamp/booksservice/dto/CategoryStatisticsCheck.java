@@ -0,0 +1,41 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of comparing the in-memory category statistics with the database
+ */
+public class CategoryStatisticsCheck {
+
+    private final List<CategoryStatistics> expected;
+    private final List<CategoryStatistics> actual;
+
+    /**
+     * @param expected statistics of the categories that differ, as computed by the database
+     * @param actual   statistics of the same categories as held in memory
+     */
+    public CategoryStatisticsCheck(List<CategoryStatistics> expected, List<CategoryStatistics> actual) {
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public boolean isConsistent() {
+        return expected.isEmpty();
+    }
+
+    public List<CategoryStatistics> getExpected() {
+        return expected;
+    }
+
+    public List<CategoryStatistics> getActual() {
+        return actual;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryStatisticsCheck{" +
+                "expected=" + expected +
+                ", actual=" + actual +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for how far the committed offset of one partition trails the position of the consumer reading it
+ */
+public class ConsumerPartitionLag {
+
+    private final String topic;
+    private final int partition;
+    private final long committedOffset;
+    private final long position;
+
+    public ConsumerPartitionLag(String topic, int partition, long committedOffset, long position) {
+        this.topic = topic;
+        this.partition = partition;
+        this.committedOffset = committedOffset;
+        this.position = position;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * Last offset the broker confirmed as committed, or where this consumer started reading until its first commit
+     */
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * Offset of the next record the consumer fetches
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Records fetched but not yet committed, read again if the partition moves to another consumer now
+     */
+    public long getLag() {
+        return Math.max(0, position - committedOffset);
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerPartitionLag{" +
+                "topic='" + topic + '\'' +
+                ", partition=" + partition +
+                ", committedOffset=" + committedOffset +
+                ", position=" + position +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the consumer counters of one topic
+ */
+public class ConsumerTopicMetrics {
+
+    private final String topic;
+    private final long received;
+    private final long suppressedEchoes;
+
+    public ConsumerTopicMetrics(String topic, long received, long suppressedEchoes) {
+        this.topic = topic;
+        this.received = received;
+        this.suppressedEchoes = suppressedEchoes;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Records handed to the listeners since the application started
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * Records skipped because this service produced them
+     */
+    public long getSuppressedEchoes() {
+        return suppressedEchoes;
+    }
+
+    /**
+     * Share of received records that were echoes, or 0 when none were received
+     */
+    public double getEchoRate() {
+        return received == 0 ? 0.0 : (double) suppressedEchoes / received;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsumerTopicMetrics{" +
+                "topic='" + topic + '\'' +
+                ", received=" + received +
+                ", suppressedEchoes=" + suppressedEchoes +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the outcome of replaying a dead-letter topic into its notification topic
+ */
+public class DeadLetterReplayReport {
+
+    private final String topic;
+    private final String deadLetterTopic;
+    private final int replayed;
+    private final long remaining;
+
+    /**
+     * @param topic           notification topic the records were sent back to
+     * @param deadLetterTopic dead-letter topic the records were read from
+     * @param replayed        number of records sent back and acknowledged
+     * @param remaining       number of records left in the dead-letter topic after them
+     */
+    public DeadLetterReplayReport(String topic, String deadLetterTopic, int replayed, long remaining) {
+        this.topic = topic;
+        this.deadLetterTopic = deadLetterTopic;
+        this.replayed = replayed;
+        this.remaining = remaining;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    public int getReplayed() {
+        return replayed;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetterReplayReport{" +
+                "topic='" + topic + '\'' +
+                ", deadLetterTopic='" + deadLetterTopic + '\'' +
+                ", replayed=" + replayed +
+                ", remaining=" + remaining +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the outcome of sending one book notification
+ */
+public class NotificationSendResult {
+
+    private final String isbn;
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final String error;
+
+    private NotificationSendResult(String isbn, String topic, int partition, long offset, String error) {
+        this.isbn = isbn;
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.error = error;
+    }
+
+    public static NotificationSendResult sent(String isbn, String topic, int partition, long offset) {
+        return new NotificationSendResult(isbn, topic, partition, offset, null);
+    }
+
+    public static NotificationSendResult failed(String isbn, String topic, String error) {
+        return new NotificationSendResult(isbn, topic, -1, -1, error);
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Partition the notification was written to, or -1 when it was not sent
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * Offset of the notification in its partition, or -1 when it was not sent
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Why the send failed, or null when it was acknowledged
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSent() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationSendResult{" +
+                "isbn='" + isbn + '\'' +
+                ", topic='" + topic + '\'' +
+                ", partition=" + partition +
+                ", offset=" + offset +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
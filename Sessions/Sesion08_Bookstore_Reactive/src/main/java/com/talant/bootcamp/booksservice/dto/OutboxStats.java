@@ -0,0 +1,88 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for outbox relay counters
+ */
+public class OutboxStats {
+
+    private final long pendingEvents;
+    private final long oldestPendingAgeMillis;
+    private final long lastPublishLagMillis;
+    private final long publishedEvents;
+    private final long coalescedEvents;
+    private final long failedSends;
+    private final long deletedEvents;
+
+    public OutboxStats(long pendingEvents, long oldestPendingAgeMillis, long lastPublishLagMillis,
+                       long publishedEvents, long coalescedEvents, long failedSends, long deletedEvents) {
+        this.pendingEvents = pendingEvents;
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+        this.lastPublishLagMillis = lastPublishLagMillis;
+        this.publishedEvents = publishedEvents;
+        this.coalescedEvents = coalescedEvents;
+        this.failedSends = failedSends;
+        this.deletedEvents = deletedEvents;
+    }
+
+    /**
+     * Events written but not yet published
+     */
+    public long getPendingEvents() {
+        return pendingEvents;
+    }
+
+    /**
+     * How long the oldest unpublished event has been waiting, or 0 when none is waiting
+     */
+    public long getOldestPendingAgeMillis() {
+        return oldestPendingAgeMillis;
+    }
+
+    /**
+     * How long the oldest event of the last published batch waited between being written and being acknowledged
+     */
+    public long getLastPublishLagMillis() {
+        return lastPublishLagMillis;
+    }
+
+    /**
+     * Events published by this instance since it started
+     */
+    public long getPublishedEvents() {
+        return publishedEvents;
+    }
+
+    /**
+     * Published events that were not sent because a newer stock update of the same book in their batch was
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents;
+    }
+
+    /**
+     * Sends that failed or timed out since this instance started; the events are sent again
+     */
+    public long getFailedSends() {
+        return failedSends;
+    }
+
+    /**
+     * Published events deleted by the cleanup job since this instance started
+     */
+    public long getDeletedEvents() {
+        return deletedEvents;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxStats{" +
+                "pendingEvents=" + pendingEvents +
+                ", oldestPendingAgeMillis=" + oldestPendingAgeMillis +
+                ", lastPublishLagMillis=" + lastPublishLagMillis +
+                ", publishedEvents=" + publishedEvents +
+                ", coalescedEvents=" + coalescedEvents +
+                ", failedSends=" + failedSends +
+                ", deletedEvents=" + deletedEvents +
+                '}';
+    }
+}
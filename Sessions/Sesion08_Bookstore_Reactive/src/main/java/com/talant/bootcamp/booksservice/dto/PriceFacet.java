@@ -0,0 +1,41 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for the number of matching books in one price bucket.
+ * The bucket covers [min, max); a null bound means the bucket is open on that side.
+ */
+public class PriceFacet {
+
+    private final BigDecimal min;
+    private final BigDecimal max;
+    private final long count;
+
+    public PriceFacet(BigDecimal min, BigDecimal max, long count) {
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceFacet{" +
+                "min=" + min +
+                ", max=" + max +
+                ", count=" + count +
+                '}';
+    }
+}
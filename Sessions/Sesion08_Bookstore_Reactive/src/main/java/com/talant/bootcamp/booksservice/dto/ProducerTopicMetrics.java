@@ -0,0 +1,134 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the producer counters of one topic
+ */
+public class ProducerTopicMetrics {
+
+    private final String topic;
+    private final long sent;
+    private final long acknowledged;
+    private final long failed;
+    private final long inFlight;
+    private final long bytes;
+    private final double recordsPerSecond;
+    private final double bytesPerSecond;
+    private final double errorsPerSecond;
+    private final HistogramSnapshot latencyMicros;
+    private final HistogramSnapshot recordSizeBytes;
+
+    public ProducerTopicMetrics(String topic, long sent, long acknowledged, long failed, long inFlight, long bytes,
+                                double recordsPerSecond, double bytesPerSecond, double errorsPerSecond,
+                                HistogramSnapshot latencyMicros, HistogramSnapshot recordSizeBytes) {
+        this.topic = topic;
+        this.sent = sent;
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+        this.inFlight = inFlight;
+        this.bytes = bytes;
+        this.recordsPerSecond = recordsPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        this.errorsPerSecond = errorsPerSecond;
+        this.latencyMicros = latencyMicros;
+        this.recordSizeBytes = recordSizeBytes;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Records handed to the producer since the application started
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * Records acknowledged by the broker
+     */
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * Records whose send failed or timed out
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Records sent but neither acknowledged nor failed yet
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Serialized key and value bytes of the acknowledged records
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Share of completed sends that failed, or 0 when none completed
+     */
+    public double getErrorRate() {
+        long completed = acknowledged + failed;
+        return completed == 0 ? 0.0 : (double) failed / completed;
+    }
+
+    /**
+     * Acknowledged records per second over the last minute
+     */
+    public double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+
+    /**
+     * Acknowledged bytes per second over the last minute
+     */
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Failed sends per second over the last minute
+     */
+    public double getErrorsPerSecond() {
+        return errorsPerSecond;
+    }
+
+    /**
+     * Time from handing a record to the producer to its acknowledgement, in microseconds
+     */
+    public HistogramSnapshot getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * Serialized key and value size of the acknowledged records
+     */
+    public HistogramSnapshot getRecordSizeBytes() {
+        return recordSizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ProducerTopicMetrics{" +
+                "topic='" + topic + '\'' +
+                ", sent=" + sent +
+                ", acknowledged=" + acknowledged +
+                ", failed=" + failed +
+                ", inFlight=" + inFlight +
+                ", bytes=" + bytes +
+                ", recordsPerSecond=" + recordsPerSecond +
+                ", bytesPerSecond=" + bytesPerSecond +
+                ", errorsPerSecond=" + errorsPerSecond +
+                ", latencyMicros=" + latencyMicros +
+                ", recordSizeBytes=" + recordSizeBytes +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for a book whose stock column differs from the stock replayed from its movements
+ */
+public class StockMismatch {
+
+    private final Long bookId;
+    private final int stock;
+    private final int loggedStock;
+
+    public StockMismatch(Long bookId, int stock, int loggedStock) {
+        this.bookId = bookId;
+        this.stock = stock;
+        this.loggedStock = loggedStock;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public int getLoggedStock() {
+        return loggedStock;
+    }
+
+    @Override
+    public String toString() {
+        return "StockMismatch{" +
+                "bookId=" + bookId +
+                ", stock=" + stock +
+                ", loggedStock=" + loggedStock +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package com.talant.bootcamp.booksservice.dto;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of replaying the stock movement log
+ */
+public class StockReplayReport {
+
+    private final int snapshots;
+    private final List<StockMismatch> mismatches;
+
+    /**
+     * @param snapshots  number of book snapshots rebuilt from the movements
+     * @param mismatches books whose stock column differs from the replayed stock
+     */
+    public StockReplayReport(int snapshots, List<StockMismatch> mismatches) {
+        this.snapshots = snapshots;
+        this.mismatches = mismatches;
+    }
+
+    public boolean isConsistent() {
+        return mismatches.isEmpty();
+    }
+
+    public int getSnapshots() {
+        return snapshots;
+    }
+
+    public List<StockMismatch> getMismatches() {
+        return mismatches;
+    }
+
+    @Override
+    public String toString() {
+        return "StockReplayReport{" +
+                "snapshots=" + snapshots +
+                ", mismatches=" + mismatches +
+                '}';
+    }
+}
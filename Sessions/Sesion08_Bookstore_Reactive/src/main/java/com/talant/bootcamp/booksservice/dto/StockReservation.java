@@ -0,0 +1,41 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the outcome of reserving stock of a book
+ */
+public class StockReservation {
+
+    private final Long bookId;
+    private final int quantity;
+    private final boolean reserved;
+
+    public StockReservation(Long bookId, int quantity, boolean reserved) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+        this.reserved = reserved;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Whether the stock was taken; false when the book had less stock than requested
+     */
+    public boolean isReserved() {
+        return reserved;
+    }
+
+    @Override
+    public String toString() {
+        return "StockReservation{" +
+                "bookId=" + bookId +
+                ", quantity=" + quantity +
+                ", reserved=" + reserved +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for one item of a bulk stock update; the book is identified by either its ID or its ISBN
+ */
+public class StockUpdateRequest {
+
+    private Long id;
+    private String isbn;
+    private Integer stock;
+
+    public StockUpdateRequest() {}
+
+    public StockUpdateRequest(Long id, String isbn, Integer stock) {
+        this.id = id;
+        this.isbn = isbn;
+        this.stock = stock;
+    }
+
+    public static StockUpdateRequest byId(Long id, Integer stock) {
+        return new StockUpdateRequest(id, null, stock);
+    }
+
+    public static StockUpdateRequest byIsbn(String isbn, Integer stock) {
+        return new StockUpdateRequest(null, isbn, stock);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    @Override
+    public String toString() {
+        return "StockUpdateRequest{" +
+                "id=" + id +
+                ", isbn='" + isbn + '\'' +
+                ", stock=" + stock +
+                '}';
+    }
+}
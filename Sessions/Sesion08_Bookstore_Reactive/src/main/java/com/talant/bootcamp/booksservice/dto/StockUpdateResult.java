@@ -0,0 +1,57 @@
+package com.talant.bootcamp.booksservice.dto;
+
+/**
+ * DTO for the outcome of one item of a bulk stock update
+ */
+public class StockUpdateResult {
+
+    public enum Status {
+        UPDATED,
+        // The book already had the requested stock, so nothing was written or sent
+        UNCHANGED,
+        NOT_FOUND,
+        // The item names no book, names it both ways, or asks for a stock out of range
+        INVALID
+    }
+
+    private final Long id;
+    private final String isbn;
+    private final Integer stock;
+    private final Status status;
+
+    public StockUpdateResult(Long id, String isbn, Integer stock, Status status) {
+        this.id = id;
+        this.isbn = isbn;
+        this.stock = stock;
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * The stock of the book after this item was applied; the requested stock when the item was not applied
+     */
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "StockUpdateResult{" +
+                "id=" + id +
+                ", isbn='" + isbn + '\'' +
+                ", stock=" + stock +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -72,6 +72,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
     
+    /**
+     * Handle OrderBacklogFullException
+     */
+    @ExceptionHandler(OrderBacklogFullException.class)
+    public ResponseEntity<ErrorResponse> handleOrderBacklogFullException(OrderBacklogFullException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Order backlog full",
+            ex.getMessage(),
+            null
+        );
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+    
     /**
      * Handle IllegalArgumentException
      */
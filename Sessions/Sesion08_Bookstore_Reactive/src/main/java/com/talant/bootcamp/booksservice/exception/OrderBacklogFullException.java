@@ -0,0 +1,11 @@
+package com.talant.bootcamp.booksservice.exception;
+
+/**
+ * Exception thrown when accepted orders are waiting to be stored faster than they can be written
+ */
+public class OrderBacklogFullException extends RuntimeException {
+    
+    public OrderBacklogFullException(int capacity) {
+        super("Too many orders waiting to be stored (" + capacity + "), try again later");
+    }
+}
@@ -1,115 +1,299 @@
 package com.talant.bootcamp.booksservice.listener;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.config.NotificationHeaders;
+import com.talant.bootcamp.booksservice.config.NotificationRetryTopics;
 import com.talant.bootcamp.booksservice.dto.BookNotification;
 import com.talant.bootcamp.booksservice.service.BookNotificationService;
+import com.talant.bootcamp.booksservice.service.KafkaConsumerMetrics;
+import com.talant.bootcamp.booksservice.service.NotificationApplyScope;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Kafka listener for book notifications
+ * Kafka listener for book notifications. Records arrive already deserialized, in JSON or binary as named by their
+ * content type header; records that cannot be read go to the container's error handler.
+ * With kafka.consumer.batch-listener (the default) each poll is applied as one batch, otherwise record by record.
+ * Records this service produced itself are skipped, and changes applied from the others are not announced again,
+ * so a change never comes back around as a new notification. A record that fails is retried from the retry topics
+ * after growing delays, and then left in the dead-letter topic, while the records behind it go on.
  */
 @Component
 public class BookNotificationListener {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(BookNotificationListener.class);
-    
+    private static final LogAccessor logAccessor = new LogAccessor(BookNotificationListener.class);
+
     private final BookNotificationService bookNotificationService;
-    private final ObjectMapper objectMapper;
-    
+    private final KafkaConsumerMetrics consumerMetrics;
+    private final NotificationRetryTopics retryTopics;
+    private final ConsumerRecordRecoverer retryRecoverer;
+    private final String origin;
+
     @Autowired
-    public BookNotificationListener(BookNotificationService bookNotificationService, ObjectMapper objectMapper) {
+    public BookNotificationListener(BookNotificationService bookNotificationService,
+                                    KafkaConsumerMetrics consumerMetrics,
+                                    NotificationRetryTopics retryTopics,
+                                    ConsumerRecordRecoverer notificationRetryRecoverer,
+                                    @Value("${kafka.notifications.origin:${spring.application.name:book-service}}") String origin) {
         this.bookNotificationService = bookNotificationService;
-        this.objectMapper = objectMapper;
+        this.consumerMetrics = consumerMetrics;
+        this.retryTopics = retryTopics;
+        this.retryRecoverer = notificationRetryRecoverer;
+        this.origin = origin;
     }
-    
+
     /**
      * Listen for book notifications on the book-notifications topic
      */
     @KafkaListener(
         topics = "${kafka.topic.book-notifications:book-notifications}",
         groupId = "${kafka.consumer.group-id:book-service-group}",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{!${kafka.consumer.batch-listener:true}}"
     )
-    public void listenForBookNotifications(
-            @Payload String message,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) Integer partition,
-            @Header(KafkaHeaders.OFFSET) Long offset) {
-        
-        logger.info("Received message from topic: {}, partition: {}, offset: {}", topic, partition, offset);
-        logger.debug("Message content: {}", message);
-        
-        try {
-            // Parse the JSON message to BookNotification
-            BookNotification notification = objectMapper.readValue(message, BookNotification.class);
-            
-            // Validate the notification
-            if (!bookNotificationService.isValidNotification(notification)) {
-                logger.error("Invalid book notification received: {}", notification);
-                return;
-            }
-            
-            // Process the notification
-            bookNotificationService.processBookNotification(notification);
-            
-            logger.info("Successfully processed book notification for ISBN: {}", notification.getIsbn());
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error parsing book notification JSON: {}", message, e);
-        } catch (Exception e) {
-            logger.error("Error processing book notification: {}", message, e);
-            // In a real application, you might want to send to a dead letter queue
-            // or implement retry logic here
+    public void listenForBookNotifications(ConsumerRecord<String, BookNotification> record) {
+        logger.info("Received message from topic: {}, partition: {}, offset: {}",
+                record.topic(), record.partition(), record.offset());
+        BookNotification notification = record.value();
+        logger.debug("Message content: {}", notification);
+
+        consumerMetrics.received(record.topic(), 1);
+        if (isEcho(record)) {
+            return;
+        }
+
+        // Validate the notification
+        if (!bookNotificationService.isValidNotification(notification)) {
+            logger.error("Invalid book notification received: {}", notification);
+            return;
         }
+
+        // Process the notification; if it fails, the error handler hands it to the first retry topic
+        processRecord(record);
+
+        logger.info("Successfully processed book notification for ISBN: {}", notification.getIsbn());
     }
-    
+
     /**
      * Listen for book stock updates specifically
      */
     @KafkaListener(
         topics = "${kafka.topic.stock-updates:book-stock-updates}",
         groupId = "${kafka.consumer.group-id:book-service-group}",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{!${kafka.consumer.batch-listener:true}}"
     )
-    public void listenForStockUpdates(
-            @Payload String message,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) Integer partition,
-            @Header(KafkaHeaders.OFFSET) Long offset) {
-        
-        logger.info("Received stock update from topic: {}, partition: {}, offset: {}", topic, partition, offset);
-        logger.debug("Stock update message: {}", message);
-        
-        try {
-            // Parse the JSON message to BookNotification
-            BookNotification notification = objectMapper.readValue(message, BookNotification.class);
-            
-            // Validate the notification
-            if (!bookNotificationService.isValidNotification(notification)) {
-                logger.error("Invalid stock update notification received: {}", notification);
-                return;
+    public void listenForStockUpdates(ConsumerRecord<String, BookNotification> record) {
+        logger.info("Received stock update from topic: {}, partition: {}, offset: {}",
+                record.topic(), record.partition(), record.offset());
+        BookNotification notification = record.value();
+        logger.debug("Stock update message: {}", notification);
+
+        consumerMetrics.received(record.topic(), 1);
+        if (isEcho(record)) {
+            return;
+        }
+
+        // Validate the notification
+        if (!bookNotificationService.isValidNotification(notification)) {
+            logger.error("Invalid stock update notification received: {}", notification);
+            return;
+        }
+
+        // Force notification type to STOCK_UPDATE
+        notification.setNotificationType(BookNotification.NotificationType.STOCK_UPDATE);
+
+        // Process the notification; if it fails, the error handler hands it to the first retry topic
+        processRecord(record);
+
+        logger.info("Successfully processed stock update for ISBN: {}", notification.getIsbn());
+    }
+
+    /**
+     * Listen for batches of book notifications on the book-notifications topic
+     */
+    @KafkaListener(
+        topics = "${kafka.topic.book-notifications:book-notifications}",
+        groupId = "${kafka.consumer.group-id:book-service-group}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "${kafka.consumer.batch-listener:true}"
+    )
+    public void listenForBookNotificationBatch(List<ConsumerRecord<String, BookNotification>> records,
+                                               Acknowledgment acknowledgment) {
+        logger.info("Received {} book notifications", records.size());
+        processBatch(readable(withoutEchoes(records)));
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Listen for batches of book stock updates
+     */
+    @KafkaListener(
+        topics = "${kafka.topic.stock-updates:book-stock-updates}",
+        groupId = "${kafka.consumer.group-id:book-service-group}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "${kafka.consumer.batch-listener:true}"
+    )
+    public void listenForStockUpdateBatch(List<ConsumerRecord<String, BookNotification>> records,
+                                          Acknowledgment acknowledgment) {
+        logger.info("Received {} stock updates", records.size());
+        List<ConsumerRecord<String, BookNotification>> foreign = readable(withoutEchoes(records));
+        for (ConsumerRecord<String, BookNotification> record : foreign) {
+            if (record.value() != null) {
+                // Force notification type to STOCK_UPDATE
+                record.value().setNotificationType(BookNotification.NotificationType.STOCK_UPDATE);
             }
-            
-            // Force notification type to STOCK_UPDATE
-            notification.setNotificationType(BookNotification.NotificationType.STOCK_UPDATE);
-            
-            // Process the notification
-            bookNotificationService.processBookNotification(notification);
-            
-            logger.info("Successfully processed stock update for ISBN: {}", notification.getIsbn());
-            
-        } catch (JsonProcessingException e) {
-            logger.error("Error parsing stock update JSON: {}", message, e);
+        }
+        processBatch(foreign);
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Listen for notifications to retry, with one container per retry tier, so records waiting for the longer
+     * delays do not hold back those of the shorter ones. Records in a retry topic come due in the order they
+     * were written, so until the first one is due the whole consumer waits for it.
+     */
+    @KafkaListener(
+        id = "book-notification-retry-1",
+        topics = "#{@notificationRetryTopics.retryTopics(1)}",
+        groupId = "${kafka.consumer.group-id:book-service-group}",
+        containerFactory = "retryKafkaListenerContainerFactory"
+    )
+    @KafkaListener(
+        id = "book-notification-retry-2",
+        topics = "#{@notificationRetryTopics.retryTopics(2)}",
+        groupId = "${kafka.consumer.group-id:book-service-group}",
+        containerFactory = "retryKafkaListenerContainerFactory"
+    )
+    @KafkaListener(
+        id = "book-notification-retry-3",
+        topics = "#{@notificationRetryTopics.retryTopics(3)}",
+        groupId = "${kafka.consumer.group-id:book-service-group}",
+        containerFactory = "retryKafkaListenerContainerFactory"
+    )
+    public void listenForRetries(ConsumerRecord<String, BookNotification> record, Acknowledgment acknowledgment) {
+        Duration remaining = retryTopics.remainingDelay(record, System.currentTimeMillis());
+        if (!remaining.isZero()) {
+            acknowledgment.nack(remaining);
+            return;
+        }
+        logger.info("Retrying book notification from topic: {}, partition: {}, offset: {}",
+                record.topic(), record.partition(), record.offset());
+        consumerMetrics.received(record.topic(), 1);
+
+        // If it fails again, the error handler hands it to the next retry topic or the dead-letter topic;
+        // either way the batched offset committer commits it with the records after it
+        processRecord(record);
+    }
+
+    /**
+     * Apply the last notification of each ISBN in one transaction. If the batch fails as a whole, its notifications
+     * are processed one by one, and those that fail again go to the first retry topic.
+     *
+     * @throws BatchListenerFailedException for the first record that could not be handed to the retry topics
+     */
+    private void processBatch(List<ConsumerRecord<String, BookNotification>> records) {
+        List<ConsumerRecord<String, BookNotification>> latest = bookNotificationService.latestPerIsbn(records);
+        if (latest.isEmpty()) {
+            return;
+        }
+        Map<String, String> causations = new HashMap<>();
+        for (ConsumerRecord<String, BookNotification> record : latest) {
+            causations.put(record.value().getIsbn(), NotificationHeaders.eventId(record));
+        }
+        try {
+            int changed = NotificationApplyScope.apply(causations,
+                    () -> bookNotificationService.processBookNotifications(latest));
+            logger.info("Applied {} book notifications, {} books changed", latest.size(), changed);
         } catch (Exception e) {
-            logger.error("Error processing stock update: {}", message, e);
+            logger.warn("Error applying {} book notifications as a batch, processing them one by one", latest.size(), e);
+            for (ConsumerRecord<String, BookNotification> record : latest) {
+                try {
+                    processRecord(record);
+                } catch (Exception recordException) {
+                    logger.error("Error processing book notification: {}", record.value(), recordException);
+                    recover(record, recordException);
+                }
+            }
+        }
+    }
+
+    private void processRecord(ConsumerRecord<String, BookNotification> record) {
+        BookNotification notification = record.value();
+        NotificationApplyScope.apply(Map.of(notification.getIsbn(), NotificationHeaders.eventId(record)), () -> {
+            bookNotificationService.processBookNotification(notification, record.offset());
+            return null;
+        });
+    }
+
+    private List<ConsumerRecord<String, BookNotification>> withoutEchoes(
+            List<ConsumerRecord<String, BookNotification>> records) {
+        List<ConsumerRecord<String, BookNotification>> foreign = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, BookNotification> record : records) {
+            consumerMetrics.received(record.topic(), 1);
+            if (!isEcho(record)) {
+                foreign.add(record);
+            }
+        }
+        return foreign;
+    }
+
+    /**
+     * Hand records that could not be deserialized straight to the dead-letter topic, with their original bytes
+     */
+    private List<ConsumerRecord<String, BookNotification>> readable(
+            List<ConsumerRecord<String, BookNotification>> records) {
+        List<ConsumerRecord<String, BookNotification>> readable = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, BookNotification> record : records) {
+            DeserializationException exception = SerializationUtils.getExceptionFromHeader(record,
+                    SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, logAccessor);
+            if (exception == null) {
+                readable.add(record);
+                continue;
+            }
+            logger.error("Unreadable book notification at partition {}, offset {}",
+                    record.partition(), record.offset(), exception);
+            recover(record, exception);
+        }
+        return readable;
+    }
+
+    /**
+     * Hand a record of a batch to the retry topics. When that fails too, the batch fails at this record, so the
+     * error handler commits the records before it and hands on only this one, instead of retrying the whole batch.
+     */
+    private void recover(ConsumerRecord<String, BookNotification> record, Exception exception) {
+        try {
+            retryRecoverer.accept(record, exception);
+        } catch (RuntimeException e) {
+            throw new BatchListenerFailedException("Cannot hand the notification to the retry topics", e, record);
+        }
+    }
+
+    private boolean isEcho(ConsumerRecord<String, BookNotification> record) {
+        if (!origin.equals(NotificationHeaders.get(record.headers(), NotificationHeaders.ORIGIN))) {
+            return false;
         }
+        consumerMetrics.echoSuppressed(record.topic());
+        logger.debug("Skipping notification produced by this service at partition {}, offset {}",
+                record.partition(), record.offset());
+        return true;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.talant.bootcamp.booksservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Running review count, rating sum and rating histogram of a book.
+ * Maintained alongside the reviews so average ratings are read from a single row.
+ */
+@Entity
+@Table(name = "book_rating_stats")
+public class BookRatingStats {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_1", nullable = false)
+    private long rating1;
+
+    @Column(name = "rating_2", nullable = false)
+    private long rating2;
+
+    @Column(name = "rating_3", nullable = false)
+    private long rating3;
+
+    @Column(name = "rating_4", nullable = false)
+    private long rating4;
+
+    @Column(name = "rating_5", nullable = false)
+    private long rating5;
+
+    public BookRatingStats() {
+        // Default constructor required by JPA
+    }
+
+    public BookRatingStats(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /**
+     * Average rating, or 0 when the book has no reviews
+     */
+    public double getAverageRating() {
+        return reviewCount == 0 ? 0.0 : (double) ratingSum / reviewCount;
+    }
+
+    /**
+     * Number of reviews with each rating, indexed from 0 for one star to 4 for five stars
+     */
+    public long[] getHistogram() {
+        return new long[] {rating1, rating2, rating3, rating4, rating5};
+    }
+
+    @Override
+    public String toString() {
+        return "BookRatingStats{" +
+               "bookId=" + bookId +
+               ", reviewCount=" + reviewCount +
+               ", ratingSum=" + ratingSum +
+               '}';
+    }
+}
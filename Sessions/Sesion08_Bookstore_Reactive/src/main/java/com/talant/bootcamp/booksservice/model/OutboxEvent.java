@@ -0,0 +1,95 @@
+package com.talant.bootcamp.booksservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Kafka message written in the transaction of the change it announces, and published once that transaction
+ * has committed. The payload is a book notification as JSON, encoded in the wire format when published.
+ * An event written while applying a notification read from Kafka keeps the event ID of that notification as its
+ * causation, see {@link com.talant.bootcamp.booksservice.service.NotificationApplyScope}.
+ * Published events are kept for a while, then deleted.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_published_at", columnList = "published_at, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    @Column(nullable = false, length = 8192)
+    private String payload;
+
+    @Column(name = "causation_id")
+    private String causationId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    public OutboxEvent() {
+        // Default constructor required by JPA
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload) {
+        this(topic, messageKey, payload, null);
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload, String causationId) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+        this.causationId = causationId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public String getCausationId() {
+        return causationId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id=" + id +
+                ", topic='" + topic + '\'' +
+                ", messageKey='" + messageKey + '\'' +
+                ", causationId='" + causationId + '\'' +
+                ", createdAt=" + createdAt +
+                ", publishedAt=" + publishedAt +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+package com.talant.bootcamp.booksservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to the stock of a book. Movements are only ever appended;
+ * the stock of a book is the sum of its deltas.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = @Index(name = "idx_stock_movements_book_id", columnList = "book_id, id"))
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private StockMovementReason reason;
+
+    // Kafka offset of the message that caused the movement, if any
+    @Column(name = "source_offset")
+    private Long sourceOffset;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public StockMovement() {
+        // Default constructor required by JPA
+    }
+
+    public StockMovement(Long bookId, int delta, StockMovementReason reason, Long sourceOffset) {
+        this.bookId = bookId;
+        this.delta = delta;
+        this.reason = reason;
+        this.sourceOffset = sourceOffset;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public StockMovementReason getReason() {
+        return reason;
+    }
+
+    public Long getSourceOffset() {
+        return sourceOffset;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "StockMovement{" +
+               "id=" + id +
+               ", bookId=" + bookId +
+               ", delta=" + delta +
+               ", reason=" + reason +
+               ", sourceOffset=" + sourceOffset +
+               '}';
+    }
+}
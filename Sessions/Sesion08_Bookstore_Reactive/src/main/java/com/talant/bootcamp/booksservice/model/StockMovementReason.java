@@ -0,0 +1,16 @@
+package com.talant.bootcamp.booksservice.model;
+
+/**
+ * Why the stock of a book moved
+ */
+public enum StockMovementReason {
+    // Stock of a book that existed before its movements were logged
+    BASELINE,
+    CREATED,
+    BOOK_UPDATE,
+    STOCK_UPDATE,
+    // Stock update received from Kafka, logged with the offset of the message
+    STOCK_NOTIFICATION,
+    RESERVATION,
+    ORDER
+}
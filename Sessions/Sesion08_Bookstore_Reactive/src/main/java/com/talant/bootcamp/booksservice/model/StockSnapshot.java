@@ -0,0 +1,63 @@
+package com.talant.bootcamp.booksservice.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a book folded from its movements up to and including the given movement ID.
+ * The current stock is the snapshot stock plus the deltas of the later movements.
+ */
+@Entity
+@Table(name = "stock_snapshots")
+public class StockSnapshot {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(nullable = false)
+    private int stock;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private long lastMovementId;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    public StockSnapshot() {
+        // Default constructor required by JPA
+    }
+
+    public StockSnapshot(Long bookId, int stock, long lastMovementId) {
+        this.bookId = bookId;
+        this.stock = stock;
+        this.lastMovementId = lastMovementId;
+        this.takenAt = LocalDateTime.now();
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    @Override
+    public String toString() {
+        return "StockSnapshot{" +
+               "bookId=" + bookId +
+               ", stock=" + stock +
+               ", lastMovementId=" + lastMovementId +
+               '}';
+    }
+}
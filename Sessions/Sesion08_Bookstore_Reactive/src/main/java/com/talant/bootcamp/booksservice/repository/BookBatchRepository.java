@@ -0,0 +1,19 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.Book;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC batch writes of whole books
+ */
+public interface BookBatchRepository {
+
+    /**
+     * Create or update each book, found by ISBN, with one MERGE statement per book in one JDBC batch, and set the ID
+     * of every book written. A missing book is inserted whole. An existing book gets every field but its ISBN and
+     * creation time, or only its stock when its ISBN is in stockOnlyIsbns.
+     */
+    void upsertAll(List<Book> books, Set<String> stockOnlyIsbns);
+}
@@ -0,0 +1,81 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JdbcTemplate implementation of {@link BookBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link BookRepository}. Plain JDBC so a create or update is one statement, with no lookup before it,
+ * and the statements of many books go in one batch.
+ */
+class BookBatchRepositoryImpl implements BookBatchRepository {
+
+    // A stock-only write keeps the other columns of a matched row; the generated key is the ID of the row
+    // written, whether it was inserted or matched
+    private static final String UPSERT = "MERGE INTO books b USING (VALUES (CAST(? AS VARCHAR(255)), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(1000)), CAST(? AS DECIMAL(10, 2)), "
+            + "CAST(? AS INTEGER), CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP), CAST(? AS BOOLEAN))) "
+            + "AS s (title, author, isbn, description, price, stock, category, written_at, stock_only) "
+            + "ON b.isbn = s.isbn "
+            + "WHEN MATCHED THEN UPDATE SET "
+            + "title = CASE WHEN s.stock_only THEN b.title ELSE s.title END, "
+            + "author = CASE WHEN s.stock_only THEN b.author ELSE s.author END, "
+            + "description = CASE WHEN s.stock_only THEN b.description ELSE s.description END, "
+            + "price = CASE WHEN s.stock_only THEN b.price ELSE s.price END, "
+            + "category = CASE WHEN s.stock_only THEN b.category ELSE s.category END, "
+            + "stock = s.stock, updated_at = s.written_at "
+            + "WHEN NOT MATCHED THEN INSERT (title, author, isbn, description, price, stock, category, created_at, updated_at) "
+            + "VALUES (s.title, s.author, s.isbn, s.description, s.price, s.stock, s.category, s.written_at, s.written_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BookBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertAll(List<Book> books, Set<String> stockOnlyIsbns) {
+        if (books.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT, new String[]{"id"})) {
+                for (Book book : books) {
+                    statement.setString(1, book.getTitle());
+                    statement.setString(2, book.getAuthor());
+                    statement.setString(3, book.getIsbn());
+                    statement.setString(4, book.getDescription());
+                    statement.setBigDecimal(5, book.getPrice());
+                    statement.setInt(6, book.getStock());
+                    statement.setString(7, book.getCategory().name());
+                    statement.setTimestamp(8, Timestamp.valueOf(book.getUpdatedAt()));
+                    statement.setBoolean(9, stockOnlyIsbns.contains(book.getIsbn()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                setWrittenIds(statement, books);
+            }
+            return null;
+        });
+    }
+
+    private static void setWrittenIds(PreparedStatement statement, List<Book> books) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (Book book : books) {
+                if (!keys.next()) {
+                    throw new DataRetrievalFailureException("Fewer IDs returned than books written");
+                }
+                book.setId(keys.getLong(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate counts over the books matching a specification
+ */
+public interface BookFacetRepository {
+
+    /**
+     * Count matching books per category. Categories without matches are left out.
+     */
+    Map<BookCategory, Long> countByCategory(Specification<Book> specification);
+
+    /**
+     * Count matching books per price bucket in a single query.
+     * Ascending bounds b0..bn define the buckets (-inf, b0), [b0, b1), ..., [bn, +inf),
+     * so the result has one more element than the bounds.
+     */
+    long[] countByPriceBuckets(Specification<Book> specification, List<BigDecimal> bounds);
+}
@@ -0,0 +1,90 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Criteria implementation of {@link BookFacetRepository}, picked up by Spring Data as a fragment of {@link BookRepository}
+ */
+class BookFacetRepositoryImpl implements BookFacetRepository {
+
+    private final EntityManager entityManager;
+
+    BookFacetRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Map<BookCategory, Long> countByCategory(Specification<Book> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        Path<BookCategory> category = root.get("category");
+
+        where(query, root, cb, specification);
+        query.multiselect(category, cb.count(root)).groupBy(category);
+
+        Map<BookCategory, Long> counts = new EnumMap<>(BookCategory.class);
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            counts.put(row.get(0, BookCategory.class), row.get(1, Long.class));
+        }
+        return counts;
+    }
+
+    @Override
+    public long[] countByPriceBuckets(Specification<Book> specification, List<BigDecimal> bounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        Path<BigDecimal> price = root.get("price");
+        Path<Long> id = root.get("id");
+
+        // count(case when <bucket> then id end) per bucket, so all buckets come back in one row
+        List<Selection<?>> buckets = new ArrayList<>();
+        for (int i = 0; i <= bounds.size(); i++) {
+            List<Predicate> range = new ArrayList<>();
+            if (i > 0) {
+                range.add(cb.greaterThanOrEqualTo(price, bounds.get(i - 1)));
+            }
+            if (i < bounds.size()) {
+                range.add(cb.lessThan(price, bounds.get(i)));
+            }
+            Expression<Long> matched = cb.<Long>selectCase()
+                    .when(cb.and(range.toArray(new Predicate[0])), id);
+            buckets.add(cb.count(matched));
+        }
+
+        where(query, root, cb, specification);
+        query.multiselect(buckets);
+
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        long[] counts = new long[buckets.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = row.get(i, Long.class);
+        }
+        return counts;
+    }
+
+    private static void where(CriteriaQuery<?> query, Root<Book> root, CriteriaBuilder cb, Specification<Book> specification) {
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.BookOrder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC batch writes for the order pipeline
+ */
+public interface BookOrderBatchRepository {
+
+    /**
+     * Insert the orders, already taken off the stock by {@link #takeFromStock(Map)}, in one JDBC batch
+     */
+    void insertAll(List<BookOrder> orders);
+
+    /**
+     * Take a quantity off the stock of each given book in one JDBC batch, leaving alone the books
+     * that no longer exist or have less stock than the quantity
+     *
+     * @return the IDs of the books whose stock was left alone
+     */
+    Set<Long> takeFromStock(Map<Long, Integer> quantitiesByBook);
+}
@@ -0,0 +1,60 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.BookOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JdbcTemplate implementation of {@link BookOrderBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link BookOrderRepository}. Plain JDBC because Hibernate does not batch inserts of IDENTITY entities.
+ */
+class BookOrderBatchRepositoryImpl implements BookOrderBatchRepository {
+
+    private static final String INSERT =
+            "INSERT INTO book_orders (book_id, quantity, order_date) VALUES (?, ?, ?)";
+    private static final String TAKE_FROM_STOCK =
+            "UPDATE books SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BookOrderBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<BookOrder> orders) {
+        jdbcTemplate.batchUpdate(INSERT, orders, orders.size(), (statement, order) -> {
+            statement.setLong(1, order.getBookId());
+            statement.setInt(2, order.getQuantity());
+            statement.setDate(3, Date.valueOf(order.getOrderDate()));
+        });
+    }
+
+    @Override
+    public Set<Long> takeFromStock(Map<Long, Integer> quantitiesByBook) {
+        List<Long> bookIds = new ArrayList<>(quantitiesByBook.keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> arguments = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            int quantity = quantitiesByBook.get(bookId);
+            arguments.add(new Object[]{quantity, now, bookId, quantity});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(TAKE_FROM_STOCK, arguments);
+        Set<Long> untouched = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                untouched.add(bookIds.get(i));
+            }
+        }
+        return untouched;
+    }
+}
@@ -0,0 +1,13 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.BookOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for book orders. The order pipeline stores orders in the same transaction that takes them off
+ * the book's stock column, so the stock column is always the stock left for new orders.
+ */
+@Repository
+public interface BookOrderRepository extends JpaRepository<BookOrder, Long>, BookOrderBatchRepository {
+}
@@ -0,0 +1,56 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.BookRatingStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookRatingStatsRepository extends JpaRepository<BookRatingStats, Long> {
+
+    /**
+     * Add one rating to the book's aggregate in a single statement, creating the row on the first review
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "MERGE INTO book_rating_stats s " +
+           "USING (SELECT CAST(:bookId AS BIGINT) AS book_id, CAST(:rating AS INT) AS rating) r ON s.book_id = r.book_id " +
+           "WHEN MATCHED THEN UPDATE SET review_count = s.review_count + 1, rating_sum = s.rating_sum + r.rating, " +
+           "rating_1 = s.rating_1 + CASE WHEN r.rating = 1 THEN 1 ELSE 0 END, " +
+           "rating_2 = s.rating_2 + CASE WHEN r.rating = 2 THEN 1 ELSE 0 END, " +
+           "rating_3 = s.rating_3 + CASE WHEN r.rating = 3 THEN 1 ELSE 0 END, " +
+           "rating_4 = s.rating_4 + CASE WHEN r.rating = 4 THEN 1 ELSE 0 END, " +
+           "rating_5 = s.rating_5 + CASE WHEN r.rating = 5 THEN 1 ELSE 0 END " +
+           "WHEN NOT MATCHED THEN INSERT (book_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5) " +
+           "VALUES (r.book_id, 1, r.rating, " +
+           "CASE WHEN r.rating = 1 THEN 1 ELSE 0 END, CASE WHEN r.rating = 2 THEN 1 ELSE 0 END, " +
+           "CASE WHEN r.rating = 3 THEN 1 ELSE 0 END, CASE WHEN r.rating = 4 THEN 1 ELSE 0 END, " +
+           "CASE WHEN r.rating = 5 THEN 1 ELSE 0 END)")
+    void addRating(@Param("bookId") Long bookId, @Param("rating") int rating);
+
+    /**
+     * Find the IDs of books that have reviews, in ID order, after the given ID
+     */
+    @Query("SELECT DISTINCT r.bookId FROM Review r WHERE r.bookId > :after ORDER BY r.bookId")
+    List<Long> findReviewedBookIdsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Recompute the aggregates of the given books from their reviews, in a transaction of its own
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "MERGE INTO book_rating_stats " +
+           "(book_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5) KEY (book_id) " +
+           "SELECT book_id, COUNT(*), SUM(rating), " +
+           "SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END) " +
+           "FROM reviews WHERE book_id IN (:bookIds) GROUP BY book_id")
+    int rebuildForBooks(@Param("bookIds") Collection<Long> bookIds);
+}
@@ -2,26 +2,67 @@ package com.talant.bootcamp.booksservice.repository;
 
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for the Book model
  */
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookFacetRepository,
+        BookStockBatchRepository, BookBatchRepository {
+    
+    /**
+     * Number of rows fetched per round trip when streaming books
+     */
+    String EXPORT_FETCH_SIZE = "500";
     
     /**
      * Find a book by ISBN
      */
     Optional<Book> findByIsbn(String isbn);
     
+    /**
+     * Find a book by ID, locking its row until the end of the current transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * Find the books with any of the given IDs or ISBNs, locking their rows until the end of the current transaction.
+     * One query for both, so concurrent callers lock the rows they share in the same ID order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids OR b.isbn IN :isbns ORDER BY b.id")
+    List<Book> findAllByIdOrIsbnForUpdate(@Param("ids") Collection<Long> ids, @Param("isbns") Collection<String> isbns);
+    
+    /**
+     * Find the books with any of the given ISBNs, locking their rows in ID order until the end of the current transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.isbn IN :isbns ORDER BY b.id")
+    List<Book> findByIsbnIn(@Param("isbns") Collection<String> isbns);
+    
     /**
      * Find books by author
      */
@@ -78,6 +119,30 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b WHERE b.stock < 10")
     List<Book> findBooksWithLowStock();
     
+    /**
+     * Find the IDs of the books whose stock is below the given threshold
+     */
+    @Query("SELECT b.id FROM Book b WHERE b.stock < :threshold")
+    List<Long> findIdsByStockLessThan(@Param("threshold") int threshold);
+    
+    /**
+     * Find the stock of a book as stored in the database, bypassing any managed copy of the book
+     */
+    @Query("SELECT b.stock FROM Book b WHERE b.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+    
+    /**
+     * Find the ISBN of a book, without loading the book
+     */
+    @Query("SELECT b.isbn FROM Book b WHERE b.id = :id")
+    Optional<String> findIsbnById(@Param("id") Long id);
+    
+    /**
+     * Get the stock of every book, as [bookId, stock] rows
+     */
+    @Query("SELECT b.id, b.stock FROM Book b")
+    List<Object[]> findAllStocks();
+    
     /**
      * Find books by text in title or author
      */
@@ -97,11 +162,33 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b.category, AVG(b.price) FROM Book b GROUP BY b.category")
     List<Object[]> getAveragePriceByCategory();
     
+    /**
+     * Count books by category and price, as [category, price, count] rows
+     */
+    @Query("SELECT b.category, b.price, COUNT(b) FROM Book b GROUP BY b.category, b.price")
+    List<Object[]> countByCategoryAndPrice();
+    
+    /**
+     * Get count, price sum, minimum and maximum by category, as [category, count, sum, min, max] rows
+     */
+    @Query("SELECT b.category, COUNT(b), SUM(b.price), MIN(b.price), MAX(b.price) FROM Book b GROUP BY b.category")
+    List<Object[]> summarizeByCategory();
+    
     /**
      * Check if a book exists with the given ISBN
      */
     boolean existsByIsbn(String isbn);
     
+    /**
+     * Take the given quantity off a book's stock, only if that much is left, in one conditional UPDATE
+     *
+     * @return 1 when the stock was taken, 0 when the book does not exist or has too little stock
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.stock = b.stock - :quantity, b.updatedAt = LOCAL DATETIME " +
+           "WHERE b.id = :id AND b.stock >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
     /**
      * Find books ordered by price ascending
      */
@@ -121,4 +208,45 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      * Find books ordered by author
      */
     List<Book> findAllByOrderByAuthorAsc();
-} 
\ No newline at end of file
+    
+    /**
+     * Find a page of books, seeking past the given keyset position
+     */
+    Window<Book> findPageBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Find a page of books by category, seeking past the given keyset position
+     */
+    Window<Book> findPageByCategory(BookCategory category, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Find a page of books with stock greater than the given value, seeking past the given keyset position
+     */
+    Window<Book> findPageByStockGreaterThan(Integer stock, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Find a page of books by price range, seeking past the given keyset position
+     */
+    Window<Book> findPageByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Find a page of books by maximum price, seeking past the given keyset position
+     */
+    Window<Book> findPageByPriceLessThanEqual(BigDecimal maxPrice, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Find a page of books by minimum price, seeking past the given keyset position
+     */
+    Window<Book> findPageByPriceGreaterThanEqual(BigDecimal minPrice, ScrollPosition position, Sort sort, Limit limit);
+    
+    /**
+     * Stream all books in ID order, fetching rows from the database in chunks.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+}
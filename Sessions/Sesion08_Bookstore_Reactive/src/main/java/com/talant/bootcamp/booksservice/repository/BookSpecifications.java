@@ -0,0 +1,84 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.dto.BookQuery;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Specifications for filtering books, combinable into a single query
+ */
+public final class BookSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BookSpecifications() {
+    }
+
+    /**
+     * Combine every criterion present in the query into one specification
+     */
+    public static Specification<Book> matching(BookQuery query) {
+        List<Specification<Book>> specifications = new ArrayList<>();
+        if (query.getCategory() != null) {
+            specifications.add(hasCategory(query.getCategory()));
+        }
+        if (query.getAuthor() != null && !query.getAuthor().isBlank()) {
+            specifications.add(authorContains(query.getAuthor()));
+        }
+        if (query.getTitle() != null && !query.getTitle().isBlank()) {
+            specifications.add(titleContains(query.getTitle()));
+        }
+        if (query.getMinPrice() != null) {
+            specifications.add(priceAtLeast(query.getMinPrice()));
+        }
+        if (query.getMaxPrice() != null) {
+            specifications.add(priceAtMost(query.getMaxPrice()));
+        }
+        if (query.getInStock() != null) {
+            specifications.add(query.getInStock() ? inStock() : outOfStock());
+        }
+        return Specification.allOf(specifications);
+    }
+
+    public static Specification<Book> hasCategory(BookCategory category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Book> authorContains(String text) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("author")), containsPattern(text), LIKE_ESCAPE);
+    }
+
+    public static Specification<Book> titleContains(String text) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("title")), containsPattern(text), LIKE_ESCAPE);
+    }
+
+    public static Specification<Book> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Book> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Book> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+    }
+
+    public static Specification<Book> outOfStock() {
+        return (root, query, cb) -> cb.equal(root.get("stock"), 0);
+    }
+
+    static String containsPattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,14 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import java.util.Map;
+
+/**
+ * JDBC batch writes to the stock of many books at once
+ */
+public interface BookStockBatchRepository {
+
+    /**
+     * Set the stock of each given book in one JDBC batch
+     */
+    void setStock(Map<Long, Integer> stockByBook);
+}
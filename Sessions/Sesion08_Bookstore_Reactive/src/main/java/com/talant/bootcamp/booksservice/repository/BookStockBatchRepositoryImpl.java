@@ -0,0 +1,32 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JdbcTemplate implementation of {@link BookStockBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link BookRepository}. Plain JDBC so the rows are updated in one batch without loading and dirty-checking books.
+ */
+class BookStockBatchRepositoryImpl implements BookStockBatchRepository {
+
+    private static final String SET_STOCK = "UPDATE books SET stock = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BookStockBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void setStock(Map<Long, Integer> stockByBook) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> arguments = new ArrayList<>(stockByBook.size());
+        stockByBook.forEach((bookId, stock) -> arguments.add(new Object[]{stock, now, bookId}));
+        jdbcTemplate.batchUpdate(SET_STOCK, arguments);
+    }
+}
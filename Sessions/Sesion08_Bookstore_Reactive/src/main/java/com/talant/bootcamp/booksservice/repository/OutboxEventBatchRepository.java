@@ -0,0 +1,16 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * JDBC batch writes to the outbox
+ */
+public interface OutboxEventBatchRepository {
+
+    /**
+     * Insert the events in one JDBC batch
+     */
+    void appendAll(List<OutboxEvent> events);
+}
@@ -0,0 +1,34 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JdbcTemplate implementation of {@link OutboxEventBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link OutboxEventRepository}. Plain JDBC because Hibernate does not batch inserts of IDENTITY entities.
+ */
+class OutboxEventBatchRepositoryImpl implements OutboxEventBatchRepository {
+
+    private static final String APPEND =
+            "INSERT INTO outbox_events (topic, message_key, payload, causation_id, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OutboxEventBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendAll(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate(APPEND, events, events.size(), (statement, event) -> {
+            statement.setString(1, event.getTopic());
+            statement.setString(2, event.getMessageKey());
+            statement.setString(3, event.getPayload());
+            statement.setString(4, event.getCausationId());
+            statement.setTimestamp(5, Timestamp.valueOf(event.getCreatedAt()));
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for the OutboxEvent model
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>, OutboxEventBatchRepository {
+
+    /**
+     * Find the oldest unpublished events in ID order, locking them until the end of the current transaction.
+     * A second relay waits for the first to commit, then skips past what it published, so events leave in order.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE published_at IS NULL ORDER BY id " +
+                   "FETCH FIRST :limit ROWS ONLY FOR UPDATE", nativeQuery = true)
+    List<OutboxEvent> lockUnpublished(@Param("limit") int limit);
+
+    /**
+     * Mark the given events as published
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    /**
+     * Delete up to the given number of events published before the given time
+     *
+     * @return the number of events deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE id IN (SELECT id FROM outbox_events " +
+                   "WHERE published_at < :before ORDER BY id FETCH FIRST :limit ROWS ONLY)", nativeQuery = true)
+    int deletePublishedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * Count the events not yet published
+     */
+    long countByPublishedAtIsNull();
+
+    /**
+     * Find when the oldest event not yet published was written
+     */
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.publishedAt IS NULL")
+    Optional<LocalDateTime> findOldestUnpublishedCreatedAt();
+}
@@ -0,0 +1,74 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Non-blocking R2DBC access to the books table for the reactive services
+ */
+@Repository
+public class ReactiveBookRepository {
+
+    private static final String COLUMNS =
+            "id, title, author, isbn, description, price, stock, category, created_at, updated_at";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveBookRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Find books whose title contains the given text, ignoring case; a null text matches every book
+     */
+    public Flux<Book> findByTitleContainingIgnoreCase(String title) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM books WHERE LOWER(title) LIKE :pattern ESCAPE '\\' ORDER BY id")
+                .bind("pattern", BookSpecifications.containsPattern(title != null ? title : ""))
+                .map(ReactiveBookRepository::toBook)
+                .all();
+    }
+
+    /**
+     * Find the stock of a book, or an empty result when the book does not exist
+     */
+    public Mono<Integer> findStockById(Long id) {
+        return databaseClient.sql("SELECT stock FROM books WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("stock", Integer.class))
+                .one();
+    }
+
+    /**
+     * Find which of the given book IDs have stock available
+     */
+    public Flux<Long> findIdsWithStock(Collection<Long> ids) {
+        return databaseClient.sql("SELECT id FROM books WHERE id IN (:ids) AND stock > 0")
+                .bind("ids", ids)
+                .map(row -> row.get("id", Long.class))
+                .all();
+    }
+
+    private static Book toBook(Readable row) {
+        Book book = new Book();
+        book.setId(row.get("id", Long.class));
+        book.setTitle(row.get("title", String.class));
+        book.setAuthor(row.get("author", String.class));
+        book.setIsbn(row.get("isbn", String.class));
+        book.setDescription(row.get("description", String.class));
+        book.setPrice(row.get("price", BigDecimal.class));
+        book.setStock(row.get("stock", Integer.class));
+        book.setCategory(BookCategory.valueOf(row.get("category", String.class)));
+        book.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        book.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return book;
+    }
+}
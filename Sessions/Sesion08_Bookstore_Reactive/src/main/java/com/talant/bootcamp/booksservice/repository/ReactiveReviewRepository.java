@@ -0,0 +1,50 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking R2DBC access to review data for the reactive services
+ */
+@Repository
+public class ReactiveReviewRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveReviewRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Get the average rating of a book from its rating aggregate, or 0 when it has no reviews
+     */
+    public Mono<Double> getAverageRatingByBookId(Long bookId) {
+        return databaseClient.sql("SELECT review_count, rating_sum FROM book_rating_stats WHERE book_id = :bookId")
+                .bind("bookId", bookId)
+                .map(ReactiveReviewRepository::average)
+                .one()
+                .defaultIfEmpty(0.0);
+    }
+
+    /**
+     * Get the average rating of each of the given books that has reviews, as (bookId, average) pairs
+     */
+    public Flux<Tuple2<Long, Double>> getAverageRatingsByBookIds(Collection<Long> bookIds) {
+        return databaseClient.sql("SELECT book_id, review_count, rating_sum FROM book_rating_stats WHERE book_id IN (:bookIds)")
+                .bind("bookIds", bookIds)
+                .map(row -> Tuples.of(row.get("book_id", Long.class), average(row)))
+                .all();
+    }
+
+    private static double average(Readable row) {
+        long count = row.get("review_count", Long.class);
+        return count == 0 ? 0.0 : (double) row.get("rating_sum", Long.class) / count;
+    }
+}
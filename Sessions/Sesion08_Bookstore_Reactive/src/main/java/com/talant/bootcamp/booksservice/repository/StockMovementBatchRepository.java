@@ -0,0 +1,16 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.StockMovement;
+
+import java.util.List;
+
+/**
+ * JDBC batch writes for the stock movement log
+ */
+public interface StockMovementBatchRepository {
+
+    /**
+     * Append the movements in one JDBC batch
+     */
+    void appendAll(List<StockMovement> movements);
+}
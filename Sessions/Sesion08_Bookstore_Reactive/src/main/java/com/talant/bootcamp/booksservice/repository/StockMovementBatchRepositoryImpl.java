@@ -0,0 +1,39 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JdbcTemplate implementation of {@link StockMovementBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link StockMovementRepository}. Plain JDBC because Hibernate does not batch inserts of IDENTITY entities.
+ */
+class StockMovementBatchRepositoryImpl implements StockMovementBatchRepository {
+
+    private static final String APPEND =
+            "INSERT INTO stock_movements (book_id, delta, reason, source_offset, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StockMovementBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendAll(List<StockMovement> movements) {
+        jdbcTemplate.batchUpdate(APPEND, movements, movements.size(), (statement, movement) -> {
+            statement.setLong(1, movement.getBookId());
+            statement.setInt(2, movement.getDelta());
+            statement.setString(3, movement.getReason().name());
+            if (movement.getSourceOffset() != null) {
+                statement.setLong(4, movement.getSourceOffset());
+            } else {
+                statement.setNull(4, Types.BIGINT);
+            }
+            statement.setTimestamp(5, Timestamp.valueOf(movement.getCreatedAt()));
+        });
+    }
+}
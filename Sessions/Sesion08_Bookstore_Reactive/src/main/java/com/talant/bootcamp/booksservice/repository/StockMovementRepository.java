@@ -0,0 +1,53 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, StockMovementBatchRepository {
+
+    /**
+     * Sum the deltas of a book's movements after the given movement ID, or of all of them when it is 0
+     */
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m WHERE m.bookId = :bookId AND m.id > :after")
+    long sumDeltasAfter(@Param("bookId") Long bookId, @Param("after") long after);
+
+    /**
+     * Check if any movement of the book was logged
+     */
+    boolean existsByBookId(Long bookId);
+
+    /**
+     * Find the latest movements of a book, newest first
+     */
+    List<StockMovement> findByBookIdOrderByIdDesc(Long bookId, Limit limit);
+
+    /**
+     * Log a baseline movement for every book whose creation was not logged, bringing the sum of its movements
+     * up to its stock column
+     *
+     * @return the number of books given a baseline
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO stock_movements (book_id, delta, reason, created_at) " +
+           "SELECT b.id, b.stock - COALESCE(SUM(m.delta), 0), 'BASELINE', LOCALTIMESTAMP " +
+           "FROM books b LEFT JOIN stock_movements m ON m.book_id = b.id " +
+           "WHERE NOT EXISTS (SELECT 1 FROM stock_movements o WHERE o.book_id = b.id AND o.reason IN ('BASELINE', 'CREATED')) " +
+           "GROUP BY b.id, b.stock")
+    int recordBaselines();
+
+    /**
+     * Find the books whose stock column differs from the sum of their movements, as [bookId, stock, logged stock] rows
+     */
+    @Query(nativeQuery = true, value = "SELECT b.id, b.stock, COALESCE(SUM(m.delta), 0) " +
+           "FROM books b LEFT JOIN stock_movements m ON m.book_id = b.id " +
+           "GROUP BY b.id, b.stock HAVING b.stock <> COALESCE(SUM(m.delta), 0) ORDER BY b.id")
+    List<Object[]> findStockMismatches();
+}
@@ -0,0 +1,26 @@
+package com.talant.bootcamp.booksservice.repository;
+
+import com.talant.bootcamp.booksservice.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    /**
+     * Fold the movements logged since each book's last snapshot into its snapshot, creating it on the first run.
+     * Movements of a book are logged while its row in books is locked, so they become visible in ID order
+     * and none can later appear behind a snapshot.
+     *
+     * @return the number of snapshots written
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "MERGE INTO stock_snapshots (book_id, stock, last_movement_id, taken_at) KEY (book_id) " +
+           "SELECT m.book_id, COALESCE(s.stock, 0) + SUM(m.delta), MAX(m.id), LOCALTIMESTAMP " +
+           "FROM stock_movements m LEFT JOIN stock_snapshots s ON s.book_id = m.book_id " +
+           "WHERE m.id > COALESCE(s.last_movement_id, 0) " +
+           "GROUP BY m.book_id, s.stock")
+    int takeSnapshots();
+}
@@ -0,0 +1,127 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.talant.bootcamp.booksservice.dto.BookCacheStats;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of books keyed by both ID and ISBN.
+ * Bounded by the estimated size of the cached books; Caffeine's W-TinyLFU policy only admits
+ * a new book over an existing one when it is requested more often, so hot ISBNs stay cached.
+ */
+@Component
+public class BookCache {
+
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 16 * 1024 * 1024;
+    public static final String DEFAULT_EXPIRE_AFTER_WRITE = "10m";
+
+    // Rough per-key cost of the cache node, key, DTO header and boxed fields
+    static final int ENTRY_OVERHEAD = 160;
+
+    private final Cache<Object, BookResponse> cache;
+
+    public BookCache(@Value("${book.cache.maximum-weight:" + DEFAULT_MAXIMUM_WEIGHT + "}") long maximumWeight,
+                     @Value("${book.cache.expire-after-write:" + DEFAULT_EXPIRE_AFTER_WRITE + "}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(BookCache::weigh)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a book by ID, loading it and caching it under its ID and ISBN on a miss
+     */
+    public BookResponse getById(Long id, Supplier<BookResponse> loader) {
+        return get(id, loader);
+    }
+
+    /**
+     * Get a book by ISBN, loading it and caching it under its ID and ISBN on a miss
+     */
+    public BookResponse getByIsbn(String isbn, Supplier<BookResponse> loader) {
+        return get(isbn, loader);
+    }
+
+    /**
+     * Drop a book from the cache now and again when the current transaction completes,
+     * so readers cannot re-cache the old row before the change is committed
+     */
+    public void evict(Long id, String isbn) {
+        invalidate(id, isbn);
+        TransactionCallbacks.afterCompletion(() -> invalidate(id, isbn));
+    }
+
+    /**
+     * Drop the book cached under the given ISBN, and its ID entry, from the cache
+     */
+    public void evictIsbn(String isbn) {
+        BookResponse cached = cache.asMap().get(isbn);
+        evict(cached != null ? cached.getId() : null, isbn);
+    }
+
+    public BookCacheStats stats() {
+        CacheStats stats = cache.stats();
+        long weight = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+        return new BookCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                cache.estimatedSize(), weight);
+    }
+
+    /**
+     * Run pending maintenance such as evictions
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private BookResponse get(Object key, Supplier<BookResponse> loader) {
+        if (!cacheable()) {
+            BookResponse cached = cache.getIfPresent(key);
+            return cached != null ? cached : loader.get();
+        }
+
+        BookResponse book = cache.get(key, k -> loader.get());
+        Object otherKey = key instanceof Long ? book.getIsbn() : book.getId();
+        if (otherKey != null) {
+            cache.asMap().putIfAbsent(otherKey, book);
+        }
+        return book;
+    }
+
+    private void invalidate(Long id, String isbn) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+        if (isbn != null) {
+            cache.invalidate(isbn);
+        }
+    }
+
+    /**
+     * Only cache rows read outside a writing transaction; those may still roll back
+     */
+    private static boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    static int weigh(Object key, BookResponse book) {
+        return ENTRY_OVERHEAD + 2 * (length(book.getTitle()) + length(book.getAuthor())
+                + length(book.getIsbn()) + length(book.getDescription()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,97 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookPage;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
+import com.talant.bootcamp.booksservice.model.Book;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes and decodes the opaque "after" cursors used by keyset pagination.
+ * A cursor carries the sort key name, the ID and the sort value of the last book on a page.
+ */
+final class BookCursors {
+
+    private static final String SEPARATOR = "|";
+
+    private BookCursors() {
+    }
+
+    /**
+     * Resolve the scroll position for the given cursor; a missing cursor starts at the first page
+     */
+    static ScrollPosition position(BookSortKey sortKey, String after) {
+        if (after == null || after.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            parts = raw.split("\\" + SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + after);
+        }
+
+        boolean hasValue = sortKey.getProperty() != null;
+        if (parts.length != (hasValue ? 3 : 2) || !parts[0].equals(sortKey.name())) {
+            throw new IllegalArgumentException("Invalid cursor: " + after);
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            if (hasValue) {
+                keys.put(sortKey.getProperty(), sortKey.parse(parts[2]));
+            }
+            keys.put("id", Long.valueOf(parts[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + after);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Page size as a Spring Data limit, unlimited for {@link BookPage#UNPAGED}
+     */
+    static Limit limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        return limit == BookPage.UNPAGED ? Limit.unlimited() : Limit.of(limit);
+    }
+
+    /**
+     * Map a window of books to a page, with a cursor pointing after its last book
+     */
+    static BookPage page(Window<Book> window, BookSortKey sortKey) {
+        List<Book> books = window.getContent();
+        List<BookResponse> content = books.stream()
+                .map(BookResponse::new)
+                .collect(Collectors.toList());
+
+        String nextCursor = window.hasNext() && !books.isEmpty()
+                ? encode(sortKey, books.get(books.size() - 1))
+                : null;
+        return new BookPage(content, nextCursor);
+    }
+
+    static String encode(BookSortKey sortKey, Book last) {
+        StringBuilder raw = new StringBuilder(sortKey.name()).append(SEPARATOR).append(last.getId());
+        if (sortKey.getProperty() != null) {
+            Object value = sortKey.valueOf(last);
+            raw.append(SEPARATOR).append(value instanceof BigDecimal decimal ? decimal.toPlainString() : value);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
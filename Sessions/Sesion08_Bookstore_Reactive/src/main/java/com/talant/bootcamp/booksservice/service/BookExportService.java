@@ -0,0 +1,79 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service for exporting the book catalog as newline-delimited JSON
+ */
+@Service
+public class BookExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookExportService.class);
+
+    public static final int DEFAULT_CLEAR_INTERVAL = 500;
+
+    private static final int NEWLINE = '\n';
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    private final int clearInterval;
+
+    public BookExportService(BookRepository bookRepository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             @Value("${book.export.clear-interval:" + DEFAULT_CLEAR_INTERVAL + "}") int clearInterval) {
+        if (clearInterval < 1) {
+            throw new IllegalArgumentException("Clear interval must be greater than 0");
+        }
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writerFor(BookResponse.class);
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * Write every book to the given stream, one JSON document per line.
+     * Books are read through a database cursor and detached in chunks, so memory use does not grow with the catalog.
+     *
+     * @return the number of books written
+     */
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream outputStream) throws IOException {
+        OutputStream out = new BufferedOutputStream(outputStream);
+        long count = 0;
+
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(new BookResponse(iterator.next())));
+                out.write(NEWLINE);
+
+                if (++count % clearInterval == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+
+        logger.info("Exported {} books", count);
+        return count;
+    }
+}
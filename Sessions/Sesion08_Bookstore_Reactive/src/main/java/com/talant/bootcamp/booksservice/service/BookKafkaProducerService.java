@@ -14,6 +14,7 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -25,6 +26,7 @@ public class BookKafkaProducerService {
     private static final Logger logger = LoggerFactory.getLogger(BookKafkaProducerService.class);
     
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, BookNotification> notificationKafkaTemplate;
     private final ObjectMapper objectMapper;
     
     @Value("${kafka.topic.book-notifications:book-notifications}")
@@ -36,16 +38,22 @@ public class BookKafkaProducerService {
     @Value("${kafka.topic.book-events:book-events}")
     private String bookEventsTopic;
     
+    @Value("${kafka.topic.low-stock:book-low-stock}")
+    private String lowStockTopic;
+    
     @Autowired
-    public BookKafkaProducerService(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public BookKafkaProducerService(KafkaTemplate<String, String> kafkaTemplate,
+                                    KafkaTemplate<String, BookNotification> notificationKafkaTemplate,
+                                    ObjectMapper objectMapper) {
         this.kafkaTemplate = kafkaTemplate;
+        this.notificationKafkaTemplate = notificationKafkaTemplate;
         this.objectMapper = objectMapper;
     }
     
     /**
      * Send a new book notification
      */
-    public CompletableFuture<SendResult<String, String>> sendNewBookNotification(BookResponse book) {
+    public CompletableFuture<SendResult<String, BookNotification>> sendNewBookNotification(BookResponse book) {
         BookNotification notification = createNotificationFromBook(book, BookNotification.NotificationType.NEW_BOOK);
         return sendNotification(notification, bookNotificationsTopic, book.getIsbn());
     }
@@ -53,15 +61,35 @@ public class BookKafkaProducerService {
     /**
      * Send a stock update notification
      */
-    public CompletableFuture<SendResult<String, String>> sendStockUpdateNotification(BookResponse book) {
+    public CompletableFuture<SendResult<String, BookNotification>> sendStockUpdateNotification(BookResponse book) {
         BookNotification notification = createNotificationFromBook(book, BookNotification.NotificationType.STOCK_UPDATE);
         return sendNotification(notification, stockUpdatesTopic, book.getIsbn());
     }
     
+    /**
+     * Send a stock update notification for each of the given books back to back, then flush the producer
+     * so they leave together instead of one linger period apart
+     */
+    public CompletableFuture<Void> sendStockUpdateNotifications(Collection<BookResponse> books) {
+        CompletableFuture<?>[] futures = books.stream()
+                .map(this::sendStockUpdateNotification)
+                .toArray(CompletableFuture[]::new);
+        notificationKafkaTemplate.flush();
+        return CompletableFuture.allOf(futures);
+    }
+    
+    /**
+     * Send a low stock notification for a book whose stock just fell below the low stock threshold
+     */
+    public CompletableFuture<SendResult<String, BookNotification>> sendLowStockNotification(BookResponse book) {
+        BookNotification notification = createNotificationFromBook(book, BookNotification.NotificationType.LOW_STOCK);
+        return sendNotification(notification, lowStockTopic, book.getIsbn());
+    }
+    
     /**
      * Send a book update notification
      */
-    public CompletableFuture<SendResult<String, String>> sendBookUpdateNotification(BookResponse book) {
+    public CompletableFuture<SendResult<String, BookNotification>> sendBookUpdateNotification(BookResponse book) {
         BookNotification notification = createNotificationFromBook(book, BookNotification.NotificationType.BOOK_UPDATE);
         return sendNotification(notification, bookNotificationsTopic, book.getIsbn());
     }
@@ -69,7 +97,7 @@ public class BookKafkaProducerService {
     /**
      * Send a custom book notification
      */
-    public CompletableFuture<SendResult<String, String>> sendCustomNotification(BookNotification notification) {
+    public CompletableFuture<SendResult<String, BookNotification>> sendCustomNotification(BookNotification notification) {
         return sendNotification(notification, bookNotificationsTopic, notification.getIsbn());
     }
     
@@ -83,8 +111,6 @@ public class BookKafkaProducerService {
                     .whenComplete((result, throwable) -> {
                         if (throwable != null) {
                             logger.error("Failed to send book event: {}", eventMessage, throwable);
-                        } else {
-                            logger.info("Successfully sent book event: {} for ISBN: {}", eventType, book.getIsbn());
                         }
                     });
         } catch (Exception e) {
@@ -96,32 +122,38 @@ public class BookKafkaProducerService {
     }
     
     /**
-     * Send notification to specified topic
+     * Get the topic notifications of the given type are sent to
      */
-    private CompletableFuture<SendResult<String, String>> sendNotification(BookNotification notification, String topic, String key) {
+    public String topicFor(BookNotification.NotificationType type) {
+        return switch (type) {
+            case NEW_BOOK, BOOK_UPDATE -> bookNotificationsTopic;
+            case STOCK_UPDATE -> stockUpdatesTopic;
+            case LOW_STOCK -> lowStockTopic;
+        };
+    }
+    
+    /**
+     * Send notification to specified topic, serialized in the configured wire format.
+     * Successful sends are not logged; they are counted in {@link KafkaProducerMetrics}.
+     */
+    private CompletableFuture<SendResult<String, BookNotification>> sendNotification(BookNotification notification, String topic, String key) {
         try {
-            String message = objectMapper.writeValueAsString(notification);
-            
-            return kafkaTemplate.send(topic, key, message)
+            return notificationKafkaTemplate.send(topic, key, notification)
                     .whenComplete((result, throwable) -> {
                         if (throwable != null) {
-                            logger.error("Failed to send notification to topic {}: {}", topic, message, throwable);
-                        } else {
-                            logger.info("Successfully sent notification to topic {} for ISBN: {}", topic, notification.getIsbn());
+                            logger.error("Failed to send notification to topic {}: {}", topic, notification, throwable);
                         }
                     });
-        } catch (JsonProcessingException e) {
+        } catch (Exception e) {
             logger.error("Error serializing notification: {}", notification, e);
-            CompletableFuture<SendResult<String, String>> future = new CompletableFuture<>();
-            future.completeExceptionally(e);
-            return future;
+            return CompletableFuture.failedFuture(e);
         }
     }
     
     /**
      * Create BookNotification from BookResponse
      */
-    private BookNotification createNotificationFromBook(BookResponse book, BookNotification.NotificationType type) {
+    public BookNotification createNotificationFromBook(BookResponse book, BookNotification.NotificationType type) {
         return new BookNotification(
             book.getIsbn(),
             book.getTitle(),
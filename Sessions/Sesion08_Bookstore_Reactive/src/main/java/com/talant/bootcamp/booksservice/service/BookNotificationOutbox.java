@@ -0,0 +1,71 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import com.talant.bootcamp.booksservice.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes book notifications to the outbox in the caller's transaction, so they are only published,
+ * by {@link OutboxRelay}, when the change they announce commits, and the caller never waits on Kafka
+ */
+@Service
+public class BookNotificationOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookKafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+
+    public BookNotificationOutbox(OutboxEventRepository outboxEventRepository,
+                                  BookKafkaProducerService kafkaProducerService, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write a notification of the given type for a book
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(BookResponse book, BookNotification.NotificationType type) {
+        addAll(List.of(book), type);
+    }
+
+    /**
+     * Write a notification of the given type for each of the given books, in one JDBC batch.
+     * Changes applied from notifications are not announced again, see {@link NotificationApplyScope}; low stock
+     * alerts are still written for them, naming the notification that caused each one.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(Collection<BookResponse> books, BookNotification.NotificationType type) {
+        if (books.isEmpty()
+                || (NotificationApplyScope.isActive() && type != BookNotification.NotificationType.LOW_STOCK)) {
+            return;
+        }
+        String topic = kafkaProducerService.topicFor(type);
+        List<OutboxEvent> events = new ArrayList<>(books.size());
+        for (BookResponse book : books) {
+            BookNotification notification = kafkaProducerService.createNotificationFromBook(book, type);
+            events.add(new OutboxEvent(topic, book.getIsbn(), serialize(notification),
+                    NotificationApplyScope.causationOf(book.getIsbn())));
+        }
+        outboxEventRepository.appendAll(events);
+    }
+
+    private String serialize(BookNotification notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize notification: " + notification, e);
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.talant.bootcamp.booksservice.service;
 
 import com.talant.bootcamp.booksservice.dto.BookNotification;
-import com.talant.bootcamp.booksservice.dto.BookRequest;
-import com.talant.bootcamp.booksservice.dto.BookResponse;
-import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
 import com.talant.bootcamp.booksservice.model.Book;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +12,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service to handle book notifications from Kafka
@@ -22,10 +28,14 @@ public class BookNotificationService {
     private static final Logger logger = LoggerFactory.getLogger(BookNotificationService.class);
     
     private final BookService bookService;
+    private final BookCache bookCache;
+    private final Validator validator;
     
     @Autowired
-    public BookNotificationService(BookService bookService) {
+    public BookNotificationService(BookService bookService, BookCache bookCache, Validator validator) {
         this.bookService = bookService;
+        this.bookCache = bookCache;
+        this.validator = validator;
     }
     
     /**
@@ -34,104 +44,84 @@ public class BookNotificationService {
      */
     @Transactional
     public void processBookNotification(BookNotification notification) {
-        logger.info("Processing book notification: {}", notification);
-        
-        try {
-            switch (notification.getNotificationType()) {
-                case NEW_BOOK:
-                    handleNewBook(notification);
-                    break;
-                case STOCK_UPDATE:
-                    handleStockUpdate(notification);
-                    break;
-                case BOOK_UPDATE:
-                    handleBookUpdate(notification);
-                    break;
-                default:
-                    logger.warn("Unknown notification type: {}", notification.getNotificationType());
-            }
-        } catch (Exception e) {
-            logger.error("Error processing book notification: {}", notification, e);
-            throw e;
-        }
+        processBookNotification(notification, null);
     }
     
     /**
-     * Handle new book notification
+     * Process a book notification read from Kafka at the given offset, which is logged with the stock movement
      */
-    private void handleNewBook(BookNotification notification) {
-        logger.info("Handling new book notification for ISBN: {}", notification.getIsbn());
+    @Transactional
+    public void processBookNotification(BookNotification notification, Long sourceOffset) {
+        logger.info("Processing book notification: {}", notification);
         
-        // Check if book already exists
-        if (bookService.existsByIsbn(notification.getIsbn())) {
-            logger.info("Book with ISBN {} already exists, updating stock", notification.getIsbn());
-            handleStockUpdate(notification);
-            return;
-        }
+        // The notification may describe a change made elsewhere, so never act on a cached copy
+        bookCache.evictIsbn(notification.getIsbn());
         
-        // Create new book
-        BookRequest bookRequest = createBookRequestFromNotification(notification);
-        BookResponse createdBook = bookService.createBook(bookRequest);
+        if (!fitsBook(notification)) {
+            throw new IllegalArgumentException("Notification does not fit a book: " + notification.getIsbn());
+        }
         
-        logger.info("Successfully created new book: {}", createdBook);
+        // Creates, full updates and stock updates all go through the same upsert as a batch of one
+        Map<String, Long> sourceOffsets = new HashMap<>();
+        sourceOffsets.put(notification.getIsbn(), sourceOffset);
+        int changed = bookService.applyNotifications(List.of(notification), sourceOffsets);
+        logger.debug("Applied {} notification for ISBN {}, {} books changed",
+                notification.getNotificationType(), notification.getIsbn(), changed);
     }
     
     /**
-     * Handle stock update notification
+     * Keep the last valid notification of each ISBN in a batch of records, in the order of their last record.
+     * Notifications carry the whole book, so a book update superseded by a later notification of another type
+     * is kept by applying the later notification as a book update.
      */
-    private void handleStockUpdate(BookNotification notification) {
-        logger.info("Handling stock update notification for ISBN: {}", notification.getIsbn());
-        
-        try {
-            // Get existing book by ISBN
-            BookResponse existingBook = bookService.getBookByIsbn(notification.getIsbn());
-            
-            // Update stock
-            BookResponse updatedBook = bookService.updateStock(existingBook.getId(), notification.getStock());
-            
-            logger.info("Successfully updated stock for book: {}", updatedBook);
-        } catch (BookNotFoundException e) {
-            logger.warn("Book with ISBN {} not found, creating new book", notification.getIsbn());
-            handleNewBook(notification);
+    public List<ConsumerRecord<String, BookNotification>> latestPerIsbn(
+            List<ConsumerRecord<String, BookNotification>> records) {
+        Map<String, ConsumerRecord<String, BookNotification>> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, BookNotification> record : records) {
+            BookNotification notification = record.value();
+            if (!isValidNotification(notification) || !fitsBook(notification)) {
+                logger.error("Invalid book notification received at partition {}, offset {}: {}",
+                        record.partition(), record.offset(), notification);
+                continue;
+            }
+            ConsumerRecord<String, BookNotification> superseded = latest.remove(notification.getIsbn());
+            if (superseded != null
+                    && superseded.value().getNotificationType() == BookNotification.NotificationType.BOOK_UPDATE) {
+                notification.setNotificationType(BookNotification.NotificationType.BOOK_UPDATE);
+            }
+            latest.put(notification.getIsbn(), record);
         }
+        return new ArrayList<>(latest.values());
     }
     
     /**
-     * Handle book update notification
+     * Apply a batch of records holding at most one notification per ISBN, as returned by {@link #latestPerIsbn},
+     * in one transaction
+     *
+     * @return the number of books created or changed
      */
-    private void handleBookUpdate(BookNotification notification) {
-        logger.info("Handling book update notification for ISBN: {}", notification.getIsbn());
-        
-        try {
-            // Get existing book by ISBN
-            BookResponse existingBook = bookService.getBookByIsbn(notification.getIsbn());
-            
-            // Create book request for update
-            BookRequest bookRequest = createBookRequestFromNotification(notification);
-            
-            // Update book
-            BookResponse updatedBook = bookService.updateBook(existingBook.getId(), bookRequest);
-            
-            logger.info("Successfully updated book: {}", updatedBook);
-        } catch (BookNotFoundException e) {
-            logger.warn("Book with ISBN {} not found, creating new book", notification.getIsbn());
-            handleNewBook(notification);
+    public int processBookNotifications(List<ConsumerRecord<String, BookNotification>> records) {
+        List<BookNotification> notifications = new ArrayList<>(records.size());
+        Map<String, Long> sourceOffsets = new HashMap<>();
+        for (ConsumerRecord<String, BookNotification> record : records) {
+            notifications.add(record.value());
+            sourceOffsets.put(record.value().getIsbn(), record.offset());
         }
+        return bookService.applyNotifications(notifications, sourceOffsets);
     }
     
     /**
-     * Create BookRequest from BookNotification
+     * Check the notification against the constraints of the book entity, which the batch path writes with plain JDBC
      */
-    private BookRequest createBookRequestFromNotification(BookNotification notification) {
-        return new BookRequest(
-            notification.getTitle(),
-            notification.getAuthor(),
-            notification.getIsbn(),
-            notification.getDescription(),
-            notification.getPrice(),
-            notification.getStock(),
-            notification.getCategory()
-        );
+    private boolean fitsBook(BookNotification notification) {
+        Set<ConstraintViolation<Book>> violations = validator.validate(new Book(notification.getTitle(),
+                notification.getAuthor(), notification.getIsbn(), notification.getDescription(),
+                notification.getPrice(), notification.getStock(), notification.getCategory()));
+        if (!violations.isEmpty()) {
+            logger.warn("Notification does not fit a book: {}", violations.iterator().next().getMessage());
+            return false;
+        }
+        return true;
     }
     
     /**
@@ -0,0 +1,269 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookOrderResult;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.exception.OrderBacklogFullException;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookOrder;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
+import com.talant.bootcamp.booksservice.repository.BookOrderRepository;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Micro-batched order pipeline backed by the in-memory {@link StockLedger}.
+ * Orders are accepted or rejected against the ledger and queued. A single writer thread groups queued orders
+ * into batches of up to batch-size orders, waiting at most batch-max-wait after the first one, and writes each
+ * batch in one transaction: one JDBC batch of stock updates, one JDBC batch insert into book_orders and one
+ * into the stock movement log. The stock update notification of each changed book, and the low stock notification
+ * of each book the batch brings below the threshold, are written to the outbox in the same transaction, so the
+ * writer never waits on the broker and {@link OutboxRelay} publishes a hot book once per relay batch.
+ * Callers get a future that completes once their batch commits; the writer then updates the low stock set.
+ */
+@Service
+public class BookOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookOrderService.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final String DEFAULT_BATCH_MAX_WAIT = "5ms";
+    public static final int DEFAULT_QUEUE_CAPACITY = 100_000;
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final StockLedger stockLedger;
+    private final BookOrderRepository orderRepository;
+    private final BookRepository bookRepository;
+    private final BookCache bookCache;
+    private final BookNotificationOutbox notificationOutbox;
+    private final InventoryAlertService inventoryAlertService;
+    private final StockMovementLog stockMovementLog;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration batchMaxWait;
+    private final int queueCapacity;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public BookOrderService(StockLedger stockLedger, BookOrderRepository orderRepository, BookRepository bookRepository,
+                            BookCache bookCache, BookNotificationOutbox notificationOutbox,
+                            InventoryAlertService inventoryAlertService, StockMovementLog stockMovementLog,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${book.orders.batch-size:" + DEFAULT_BATCH_SIZE + "}") int batchSize,
+                            @Value("${book.orders.batch-max-wait:" + DEFAULT_BATCH_MAX_WAIT + "}") Duration batchMaxWait,
+                            @Value("${book.orders.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity) {
+        if (batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Order batch size and queue capacity must be positive");
+        }
+        if (batchMaxWait.isNegative()) {
+            throw new IllegalArgumentException("Order batch wait cannot be negative");
+        }
+        this.stockLedger = stockLedger;
+        this.orderRepository = orderRepository;
+        this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.notificationOutbox = notificationOutbox;
+        this.inventoryAlertService = inventoryAlertService;
+        this.stockMovementLog = stockMovementLog;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.batchMaxWait = batchMaxWait;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Load the stock ledger from the database and start the order writer once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        stockLedger.rebuild();
+        running = true;
+        writer = new Thread(this::runWriter, "book-order-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop the order writer once the orders still queued are written
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Accept an order if the book has enough stock left and queue it for the next batch
+     *
+     * @return a future completed once the order is stored, or right away when it is rejected
+     * @throws OrderBacklogFullException when too many accepted orders are waiting to be stored
+     */
+    public CompletableFuture<BookOrderResult> placeOrder(Long bookId, int quantity) {
+        if (bookId == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+
+        if (!stockLedger.take(bookId, quantity)) {
+            return CompletableFuture.completedFuture(new BookOrderResult(bookId, quantity, false));
+        }
+        PendingOrder pending = new PendingOrder(new BookOrder(null, bookId, quantity, LocalDate.now()));
+        if (!queue.offer(pending)) {
+            stockLedger.giveBack(bookId, quantity);
+            throw new OrderBacklogFullException(queueCapacity);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Get the stock of a book left for new orders
+     */
+    public int getAvailableStock(Long bookId) {
+        return stockLedger.available(bookId);
+    }
+
+    private void runWriter() {
+        while (running || !queue.isEmpty()) {
+            try {
+                writeNextBatch(IDLE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Order writer failed", e);
+            }
+        }
+    }
+
+    /**
+     * Wait up to the given time for an order, then collect a batch around it and write it
+     *
+     * @return the number of orders in the batch, 0 when no order arrived
+     */
+    int writeNextBatch(long pollMillis) throws InterruptedException {
+        PendingOrder first = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + batchMaxWait.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() == batchSize || remaining <= 0) {
+                break;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+
+        write(batch);
+        return batch.size();
+    }
+
+    private void write(List<PendingOrder> batch) {
+        Map<Long, Integer> quantitiesByBook = new LinkedHashMap<>();
+        batch.forEach(pending -> quantitiesByBook.merge(pending.order.getBookId(), pending.order.getQuantity(), Integer::sum));
+
+        Set<Long> refused;
+        List<Book> changed;
+        stockLedger.beginWrite();
+        try {
+            BatchOutcome outcome = transactionTemplate.execute(status -> {
+                Set<Long> untouched = orderRepository.takeFromStock(quantitiesByBook);
+                orderRepository.insertAll(batch.stream()
+                        .map(pending -> pending.order)
+                        .filter(order -> !untouched.contains(order.getBookId()))
+                        .toList());
+                Map<Long, Integer> movements = new LinkedHashMap<>();
+                quantitiesByBook.forEach((bookId, quantity) -> {
+                    if (!untouched.contains(bookId)) {
+                        movements.put(bookId, -quantity);
+                    }
+                });
+                stockMovementLog.recordAll(movements, StockMovementReason.ORDER);
+                // Read back in the transaction, so each book's stock before the batch is its stock plus the quantity
+                List<Book> books = movements.isEmpty() ? List.of()
+                        : bookRepository.findAllById(List.copyOf(movements.keySet()));
+                List<BookResponse> responses = books.stream().map(BookResponse::new).toList();
+                notificationOutbox.addAll(responses, BookNotification.NotificationType.STOCK_UPDATE);
+                inventoryAlertService.writeLowStockAlerts(responses, books.stream().collect(Collectors.toMap(
+                        Book::getId, book -> book.getStock() + quantitiesByBook.get(book.getId()))));
+                return new BatchOutcome(untouched, books);
+            });
+            refused = outcome.refused();
+            changed = outcome.changed();
+            for (PendingOrder pending : batch) {
+                BookOrder order = pending.order;
+                if (refused.contains(order.getBookId())) {
+                    stockLedger.giveBack(order.getBookId(), order.getQuantity());
+                } else {
+                    stockLedger.settle(order.getBookId(), order.getQuantity());
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> stockLedger.giveBack(pending.order.getBookId(), pending.order.getQuantity()));
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            throw e;
+        } finally {
+            stockLedger.endWrite();
+        }
+        refused.forEach(stockLedger::resync);
+
+        // A book the stock update left alone was deleted or had its stock lowered after the orders were accepted
+        for (PendingOrder pending : batch) {
+            BookOrder order = pending.order;
+            pending.result.complete(new BookOrderResult(order.getBookId(), order.getQuantity(),
+                    !refused.contains(order.getBookId())));
+        }
+
+        changed.forEach(book -> bookCache.evict(book.getId(), book.getIsbn()));
+        // Only books whose copy is below the threshold are read again
+        changed.forEach(inventoryAlertService::stockLowered);
+    }
+
+    private record BatchOutcome(Set<Long> refused, List<Book> changed) {
+    }
+
+    private static final class PendingOrder {
+        private final BookOrder order;
+        private final CompletableFuture<BookOrderResult> result = new CompletableFuture<>();
+
+        private PendingOrder(BookOrder order) {
+            this.order = order;
+        }
+    }
+}
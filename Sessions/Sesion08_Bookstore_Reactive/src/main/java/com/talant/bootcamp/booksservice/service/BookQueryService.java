@@ -0,0 +1,84 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookQuery;
+import com.talant.bootcamp.booksservice.dto.BookQueryResponse;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
+import com.talant.bootcamp.booksservice.dto.PriceFacet;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.BookSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service for combined book searches with facet counts
+ */
+@Service
+@Transactional(readOnly = true)
+public class BookQueryService {
+
+    public static final String DEFAULT_PRICE_BUCKETS = "10,25,50,100";
+
+    private final BookRepository bookRepository;
+    private final List<BigDecimal> priceBuckets;
+
+    public BookQueryService(BookRepository bookRepository,
+                            @Value("${book.query.price-buckets:" + DEFAULT_PRICE_BUCKETS + "}") List<BigDecimal> priceBuckets) {
+        for (int i = 1; i < priceBuckets.size(); i++) {
+            if (priceBuckets.get(i - 1).compareTo(priceBuckets.get(i)) >= 0) {
+                throw new IllegalArgumentException("Price buckets must be in ascending order");
+            }
+        }
+        this.bookRepository = bookRepository;
+        this.priceBuckets = List.copyOf(priceBuckets);
+    }
+
+    /**
+     * Find books matching every criterion in the query, with category and price facets over all matches
+     */
+    public BookQueryResponse queryBooks(BookQuery query, int limit) {
+        if (query.getMinPrice() != null && query.getMaxPrice() != null
+                && query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
+        }
+        BookSortKey sortKey = query.getSort() != null ? query.getSort() : BookSortKey.ID;
+        Specification<Book> specification = BookSpecifications.matching(query);
+
+        List<BookResponse> books = bookRepository.findBy(specification,
+                        q -> q.sortBy(sortKey.getSort()).limit(BookCursors.limit(limit).max()).all())
+                .stream()
+                .map(BookResponse::new)
+                .collect(Collectors.toList());
+
+        Map<String, Long> categories = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<BookCategory, Long> entry : bookRepository.countByCategory(specification).entrySet()) {
+            categories.put(entry.getKey().name(), entry.getValue());
+            total += entry.getValue();
+        }
+
+        return new BookQueryResponse(books, total, categories, priceFacets(specification));
+    }
+
+    private List<PriceFacet> priceFacets(Specification<Book> specification) {
+        long[] counts = bookRepository.countByPriceBuckets(specification, priceBuckets);
+        List<PriceFacet> facets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal min = i > 0 ? priceBuckets.get(i - 1) : null;
+            BigDecimal max = i < priceBuckets.size() ? priceBuckets.get(i) : null;
+            facets.add(new PriceFacet(min, max, counts[i]));
+        }
+        return facets;
+    }
+}
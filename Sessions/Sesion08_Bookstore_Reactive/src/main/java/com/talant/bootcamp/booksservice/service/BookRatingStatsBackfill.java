@@ -0,0 +1,69 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.repository.BookRatingStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Job that builds the book_rating_stats aggregate from the reviews already stored.
+ * Books are processed in ID order, one batch per transaction, so the job never holds a long transaction.
+ * Recomputing is idempotent; it is meant to run while no reviews are being added, such as on startup.
+ */
+@Component
+public class BookRatingStatsBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookRatingStatsBackfill.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final BookRatingStatsRepository ratingStatsRepository;
+    private final int batchSize;
+    private final boolean runOnStartup;
+
+    public BookRatingStatsBackfill(BookRatingStatsRepository ratingStatsRepository,
+                                   @Value("${book.rating-stats.backfill-batch-size:" + DEFAULT_BATCH_SIZE + "}") int batchSize,
+                                   @Value("${book.rating-stats.backfill-on-startup:true}") boolean runOnStartup) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Backfill batch size must be positive");
+        }
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.batchSize = batchSize;
+        this.runOnStartup = runOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (runOnStartup) {
+            run();
+        }
+    }
+
+    /**
+     * Recompute the aggregate of every book that has reviews
+     *
+     * @return the number of books processed
+     */
+    public long run() {
+        long books = 0;
+        Long after = 0L;
+        List<Long> batch;
+        do {
+            batch = ratingStatsRepository.findReviewedBookIdsAfter(after, Limit.of(batchSize));
+            if (!batch.isEmpty()) {
+                ratingStatsRepository.rebuildForBooks(batch);
+                books += batch.size();
+                after = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == batchSize);
+
+        logger.info("Book rating stats backfilled for {} books", books);
+        return books;
+    }
+}
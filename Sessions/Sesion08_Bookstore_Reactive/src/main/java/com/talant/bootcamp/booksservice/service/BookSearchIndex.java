@@ -0,0 +1,231 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory trigram index over book titles and authors.
+ * Resolves case-insensitive "contains" searches to book IDs without scanning the books table.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    static final int GRAM_SIZE = 3;
+
+    private final BookRepository bookRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Entry> entries = new HashMap<>();
+    private Map<String, Set<Long>> titleGrams = new HashMap<>();
+    private Map<String, Set<Long>> authorGrams = new HashMap<>();
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Load the index from the database once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Book> books = bookRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            entries = new HashMap<>();
+            titleGrams = new HashMap<>();
+            authorGrams = new HashMap<>();
+            books.forEach(book -> put(book.getId(), toEntry(book)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Book search index built with {} books", books.size());
+    }
+
+    /**
+     * Add or replace a book in the index. Reverted if the current transaction rolls back.
+     */
+    public void index(Book book) {
+        Long id = book.getId();
+        Entry previous;
+        lock.writeLock().lock();
+        try {
+            previous = put(id, toEntry(book));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TransactionCallbacks.afterRollback(() -> restore(id, previous));
+    }
+
+    /**
+     * Remove a book from the index. Reverted if the current transaction rolls back.
+     */
+    public void remove(Long id) {
+        Entry previous;
+        lock.writeLock().lock();
+        try {
+            previous = delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TransactionCallbacks.afterRollback(() -> restore(id, previous));
+    }
+
+    /**
+     * Find the IDs of books whose title contains the given text, ignoring case
+     */
+    public List<Long> findByTitle(String text) {
+        return find(text, true, false);
+    }
+
+    /**
+     * Find the IDs of books whose author contains the given text, ignoring case
+     */
+    public List<Long> findByAuthor(String text) {
+        return find(text, false, true);
+    }
+
+    /**
+     * Find the IDs of books whose title or author contains the given text, ignoring case
+     */
+    public List<Long> findByTitleOrAuthor(String text) {
+        return find(text, true, true);
+    }
+
+    /**
+     * Number of books currently indexed
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> find(String text, boolean byTitle, boolean byAuthor) {
+        String needle = normalize(text);
+        Set<Long> matches = new TreeSet<>();
+
+        lock.readLock().lock();
+        try {
+            if (byTitle) {
+                collect(needle, titleGrams, Entry::title, matches);
+            }
+            if (byAuthor) {
+                collect(needle, authorGrams, Entry::author, matches);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(matches);
+    }
+
+    private void collect(String needle, Map<String, Set<Long>> grams,
+                         Function<Entry, String> field, Set<Long> matches) {
+        Collection<Long> candidates = needle.length() < GRAM_SIZE
+                ? entries.keySet()
+                : rarestPosting(needle, grams);
+
+        // Candidates share at least one trigram with the needle; confirm the full substring
+        for (Long id : candidates) {
+            if (field.apply(entries.get(id)).contains(needle)) {
+                matches.add(id);
+            }
+        }
+    }
+
+    private Collection<Long> rarestPosting(String needle, Map<String, Set<Long>> grams) {
+        Set<Long> rarest = null;
+        for (String gram : grams(needle)) {
+            Set<Long> posting = grams.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            if (rarest == null || posting.size() < rarest.size()) {
+                rarest = posting;
+            }
+        }
+        return rarest;
+    }
+
+    private void restore(Long id, Entry previous) {
+        lock.writeLock().lock();
+        try {
+            if (previous == null) {
+                delete(id);
+            } else {
+                put(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Entry put(Long id, Entry entry) {
+        Entry previous = delete(id);
+        entries.put(id, entry);
+        grams(entry.title()).forEach(gram -> titleGrams.computeIfAbsent(gram, key -> new HashSet<>()).add(id));
+        grams(entry.author()).forEach(gram -> authorGrams.computeIfAbsent(gram, key -> new HashSet<>()).add(id));
+        return previous;
+    }
+
+    private Entry delete(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            unlink(id, grams(previous.title()), titleGrams);
+            unlink(id, grams(previous.author()), authorGrams);
+        }
+        return previous;
+    }
+
+    private static void unlink(Long id, Set<String> keys, Map<String, Set<Long>> grams) {
+        for (String gram : keys) {
+            Set<Long> posting = grams.get(gram);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    private static Entry toEntry(Book book) {
+        return new Entry(normalize(book.getTitle()), normalize(book.getAuthor()));
+    }
+
+    static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(String title, String author) {
+    }
+}
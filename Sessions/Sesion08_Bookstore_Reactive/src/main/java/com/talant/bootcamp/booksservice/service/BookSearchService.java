@@ -1,6 +1,8 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookPage;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
@@ -8,6 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,49 +22,41 @@ import java.util.stream.Collectors;
 public class BookSearchService {
     
     private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
     
-    public BookSearchService(BookRepository bookRepository) {
+    public BookSearchService(BookRepository bookRepository, BookSearchIndex bookSearchIndex) {
         this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
     }
     
     /**
      * Find books by author
      */
     public List<BookResponse> getBooksByAuthor(String author) {
-        return bookRepository.findByAuthorContainingIgnoreCase(author)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+        return findBooksByIds(bookSearchIndex.findByAuthor(author));
     }
     
     /**
      * Find books by title
      */
     public List<BookResponse> getBooksByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+        return findBooksByIds(bookSearchIndex.findByTitle(title));
     }
     
     /**
-     * Find books by category
+     * Find a page of books by category
      */
-    public List<BookResponse> getBooksByCategory(BookCategory category) {
-        return bookRepository.findByCategory(category)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksByCategory(BookCategory category, String after, int limit) {
+        return BookCursors.page(bookRepository.findPageByCategory(category,
+                BookCursors.position(BookSortKey.ID, after), BookSortKey.ID.getSort(), BookCursors.limit(limit)), BookSortKey.ID);
     }
     
     /**
-     * Find books with stock available
+     * Find a page of books with stock available
      */
-    public List<BookResponse> getBooksWithStock() {
-        return bookRepository.findByStockGreaterThan(0)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksWithStock(String after, int limit) {
+        return BookCursors.page(bookRepository.findPageByStockGreaterThan(0,
+                BookCursors.position(BookSortKey.ID, after), BookSortKey.ID.getSort(), BookCursors.limit(limit)), BookSortKey.ID);
     }
     
     /**
@@ -75,33 +70,27 @@ public class BookSearchService {
     }
     
     /**
-     * Find books by price range
+     * Find a page of books by price range
      */
-    public List<BookResponse> getBooksByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return bookRepository.findByPriceBetween(minPrice, maxPrice)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, String after, int limit) {
+        return BookCursors.page(bookRepository.findPageByPriceBetween(minPrice, maxPrice,
+                BookCursors.position(BookSortKey.ID, after), BookSortKey.ID.getSort(), BookCursors.limit(limit)), BookSortKey.ID);
     }
     
     /**
-     * Find books by maximum price
+     * Find a page of books by maximum price
      */
-    public List<BookResponse> getBooksByMaxPrice(BigDecimal maxPrice) {
-        return bookRepository.findByPriceLessThanEqual(maxPrice)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksByMaxPrice(BigDecimal maxPrice, String after, int limit) {
+        return BookCursors.page(bookRepository.findPageByPriceLessThanEqual(maxPrice,
+                BookCursors.position(BookSortKey.ID, after), BookSortKey.ID.getSort(), BookCursors.limit(limit)), BookSortKey.ID);
     }
     
     /**
-     * Find books by minimum price
+     * Find a page of books by minimum price
      */
-    public List<BookResponse> getBooksByMinPrice(BigDecimal minPrice) {
-        return bookRepository.findByPriceGreaterThanEqual(minPrice)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksByMinPrice(BigDecimal minPrice, String after, int limit) {
+        return BookCursors.page(bookRepository.findPageByPriceGreaterThanEqual(minPrice,
+                BookCursors.position(BookSortKey.ID, after), BookSortKey.ID.getSort(), BookCursors.limit(limit)), BookSortKey.ID);
     }
     
     /**
@@ -118,49 +107,56 @@ public class BookSearchService {
      * Find books by text in title or author
      */
     public List<BookResponse> searchBooks(String searchTerm) {
-        return bookRepository.searchByTitleOrAuthor(searchTerm)
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+        return findBooksByIds(bookSearchIndex.findByTitleOrAuthor(searchTerm));
     }
     
     /**
-     * Find books ordered by price ascending
+     * Find a page of books ordered by price ascending
      */
-    public List<BookResponse> getBooksOrderedByPriceAsc() {
-        return bookRepository.findAllByOrderByPriceAsc()
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksOrderedByPriceAsc(String after, int limit) {
+        return findPage(BookSortKey.PRICE_ASC, after, limit);
     }
     
     /**
-     * Find books ordered by price descending
+     * Find a page of books ordered by price descending
      */
-    public List<BookResponse> getBooksOrderedByPriceDesc() {
-        return bookRepository.findAllByOrderByPriceDesc()
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksOrderedByPriceDesc(String after, int limit) {
+        return findPage(BookSortKey.PRICE_DESC, after, limit);
     }
     
     /**
-     * Find books ordered by title
+     * Find a page of books ordered by title
      */
-    public List<BookResponse> getBooksOrderedByTitle() {
-        return bookRepository.findAllByOrderByTitleAsc()
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getBooksOrderedByTitle(String after, int limit) {
+        return findPage(BookSortKey.TITLE, after, limit);
+    }
+    
+    /**
+     * Find a page of books ordered by author
+     */
+    public BookPage getBooksOrderedByAuthor(String after, int limit) {
+        return findPage(BookSortKey.AUTHOR, after, limit);
+    }
+    
+    /**
+     * Find a page of all books in the given order
+     */
+    private BookPage findPage(BookSortKey sortKey, String after, int limit) {
+        return BookCursors.page(bookRepository.findPageBy(
+                BookCursors.position(sortKey, after), sortKey.getSort(), BookCursors.limit(limit)), sortKey);
     }
     
     /**
-     * Find books ordered by author
+     * Fetch only the rows resolved by the search index, in ID order
      */
-    public List<BookResponse> getBooksOrderedByAuthor() {
-        return bookRepository.findAllByOrderByAuthorAsc()
+    private List<BookResponse> findBooksByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return bookRepository.findAllById(ids)
                 .stream()
+                .sorted(Comparator.comparing(Book::getId))
                 .map(BookResponse::new)
                 .collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,18 +1,32 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookPage;
 import com.talant.bootcamp.booksservice.dto.BookRequest;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
+import com.talant.bootcamp.booksservice.dto.StockReservation;
+import com.talant.bootcamp.booksservice.dto.StockUpdateRequest;
+import com.talant.bootcamp.booksservice.dto.StockUpdateResult;
 import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
 import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Service class for the Book model - Core CRUD operations
@@ -21,17 +35,33 @@ import java.util.stream.Collectors;
 @Transactional
 public class BookService {
     
-    private static final Logger logger = LoggerFactory.getLogger(BookService.class);
+    public static final int MAX_BULK_STOCK_UPDATES = 10_000;
+    private static final int MAX_STOCK = 999_999;
     
     private final BookRepository bookRepository;
     private final BookValidator bookValidator;
-    private final BookKafkaProducerService kafkaProducerService;
+    private final BookNotificationOutbox notificationOutbox;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookCache bookCache;
+    private final CategoryAggregates categoryAggregates;
+    private final StockLedger stockLedger;
+    private final InventoryAlertService inventoryAlertService;
+    private final StockMovementLog stockMovementLog;
     
     @Autowired
-    public BookService(BookRepository bookRepository, BookValidator bookValidator, BookKafkaProducerService kafkaProducerService) {
+    public BookService(BookRepository bookRepository, BookValidator bookValidator, BookNotificationOutbox notificationOutbox,
+                       BookSearchIndex bookSearchIndex, BookCache bookCache, CategoryAggregates categoryAggregates,
+                       StockLedger stockLedger, InventoryAlertService inventoryAlertService,
+                       StockMovementLog stockMovementLog) {
         this.bookRepository = bookRepository;
         this.bookValidator = bookValidator;
-        this.kafkaProducerService = kafkaProducerService;
+        this.notificationOutbox = notificationOutbox;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookCache = bookCache;
+        this.categoryAggregates = categoryAggregates;
+        this.stockLedger = stockLedger;
+        this.inventoryAlertService = inventoryAlertService;
+        this.stockMovementLog = stockMovementLog;
     }
     
     /**
@@ -51,64 +81,59 @@ public class BookService {
         );
         
         Book savedBook = bookRepository.save(book);
+        stockMovementLog.record(savedBook.getId(), savedBook.getStock(), StockMovementReason.CREATED, null);
+        bookSearchIndex.index(savedBook);
+        categoryAggregates.add(savedBook.getCategory(), savedBook.getPrice());
+        TransactionCallbacks.afterCommit(() -> stockLedger.resync(savedBook.getId()));
+        TransactionCallbacks.afterCommit(() -> inventoryAlertService.stockChanged(savedBook.getId()));
         BookResponse bookResponse = new BookResponse(savedBook);
         
-        // Send Kafka notification asynchronously
-        try {
-            kafkaProducerService.sendNewBookNotification(bookResponse)
-                .whenComplete((result, throwable) -> {
-                    if (throwable != null) {
-                        logger.error("Failed to send new book notification for ISBN: {}", bookRequest.getIsbn(), throwable);
-                    } else {
-                        logger.info("Successfully sent new book notification for ISBN: {}", bookRequest.getIsbn());
-                    }
-                });
-        } catch (Exception e) {
-            logger.error("Error sending new book notification for ISBN: {}", bookRequest.getIsbn(), e);
-        }
+        notificationOutbox.add(bookResponse, BookNotification.NotificationType.NEW_BOOK);
+        inventoryAlertService.writeLowStockAlert(bookResponse, null);
         
         return bookResponse;
     }
     
     /**
-     * Get all books
+     * Get a page of all books in ID order
      */
     @Transactional(readOnly = true)
-    public List<BookResponse> getAllBooks() {
-        return bookRepository.findAll()
-                .stream()
-                .map(BookResponse::new)
-                .collect(Collectors.toList());
+    public BookPage getAllBooks(String after, int limit) {
+        return BookCursors.page(bookRepository.findPageBy(
+                BookCursors.position(BookSortKey.ID, after), BookSortKey.ID.getSort(), BookCursors.limit(limit)), BookSortKey.ID);
     }
     
     /**
-     * Get a book by ID
+     * Get a book by ID, served from the book cache when possible
      */
     @Transactional(readOnly = true)
     public BookResponse getBookById(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new BookNotFoundException(id));
-        return new BookResponse(book);
+        return bookCache.getById(id, () -> bookRepository.findById(id)
+                .map(BookResponse::new)
+                .orElseThrow(() -> new BookNotFoundException(id)));
     }
     
     /**
-     * Get a book by ISBN
+     * Get a book by ISBN, served from the book cache when possible
      */
     @Transactional(readOnly = true)
     public BookResponse getBookByIsbn(String isbn) {
-        Book book = bookRepository.findByIsbn(isbn)
-                .orElseThrow(() -> new BookNotFoundException("ISBN", isbn));
-        return new BookResponse(book);
+        return bookCache.getByIsbn(isbn, () -> bookRepository.findByIsbn(isbn)
+                .map(BookResponse::new)
+                .orElseThrow(() -> new BookNotFoundException("ISBN", isbn)));
     }
     
     /**
-     * Update a book
+     * Update a book. Its row stays locked until commit, so the stock movement is logged against the stock it replaced.
      */
     public BookResponse updateBook(Long id, BookRequest bookRequest) {
-        Book existingBook = bookRepository.findById(id)
+        Book existingBook = bookRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new BookNotFoundException(id));
+        int previousStock = existingBook.getStock();
         
         bookValidator.validateForUpdate(id, bookRequest);
+        bookCache.evict(id, existingBook.getIsbn());
+        categoryAggregates.remove(existingBook.getCategory(), existingBook.getPrice());
         
         // Update fields
         existingBook.setTitle(bookRequest.getTitle());
@@ -120,21 +145,15 @@ public class BookService {
         existingBook.setCategory(bookRequest.getCategory());
         
         Book updatedBook = bookRepository.save(existingBook);
+        stockMovementLog.record(id, updatedBook.getStock() - previousStock, StockMovementReason.BOOK_UPDATE, null);
+        bookSearchIndex.index(updatedBook);
+        categoryAggregates.add(updatedBook.getCategory(), updatedBook.getPrice());
+        TransactionCallbacks.afterCommit(() -> stockLedger.resync(id));
+        TransactionCallbacks.afterCommit(() -> inventoryAlertService.stockChanged(id));
         BookResponse bookResponse = new BookResponse(updatedBook);
         
-        // Send Kafka notification asynchronously
-        try {
-            kafkaProducerService.sendBookUpdateNotification(bookResponse)
-                .whenComplete((result, throwable) -> {
-                    if (throwable != null) {
-                        logger.error("Failed to send book update notification for ID: {}", id, throwable);
-                    } else {
-                        logger.info("Successfully sent book update notification for ID: {}", id);
-                    }
-                });
-        } catch (Exception e) {
-            logger.error("Error sending book update notification for ID: {}", id, e);
-        }
+        notificationOutbox.add(bookResponse, BookNotification.NotificationType.BOOK_UPDATE);
+        inventoryAlertService.writeLowStockAlert(bookResponse, previousStock);
         
         return bookResponse;
     }
@@ -143,40 +162,276 @@ public class BookService {
      * Delete a book
      */
     public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)) {
-            throw new BookNotFoundException(id);
-        }
+        Book book = bookRepository.findById(id)
+                .orElseThrow(() -> new BookNotFoundException(id));
         bookRepository.deleteById(id);
+        bookSearchIndex.remove(id);
+        bookCache.evict(id, book.getIsbn());
+        categoryAggregates.remove(book.getCategory(), book.getPrice());
+        TransactionCallbacks.afterCommit(() -> stockLedger.resync(id));
+        TransactionCallbacks.afterCommit(() -> inventoryAlertService.stockChanged(id));
     }
     
     /**
      * Update stock of a book
      */
     public BookResponse updateStock(Long id, Integer newStock) {
-        Book book = bookRepository.findById(id)
+        return updateStock(id, newStock, StockMovementReason.STOCK_UPDATE, null);
+    }
+    
+    /**
+     * Update stock of a book, logging the movement with the given reason and the Kafka offset that caused it, if any.
+     * The book's row stays locked until commit, so the movement is logged against the stock it replaced.
+     */
+    public BookResponse updateStock(Long id, Integer newStock, StockMovementReason reason, Long sourceOffset) {
+        Book book = bookRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new BookNotFoundException(id));
+        int previousStock = book.getStock();
         
         book.setStock(newStock);
         Book updatedBook = bookRepository.save(book);
+        stockMovementLog.record(id, newStock - previousStock, reason, sourceOffset);
+        bookCache.evict(id, book.getIsbn());
+        TransactionCallbacks.afterCommit(() -> stockLedger.resync(id));
+        TransactionCallbacks.afterCommit(() -> inventoryAlertService.stockChanged(id));
         BookResponse bookResponse = new BookResponse(updatedBook);
         
-        // Send Kafka notification asynchronously
-        try {
-            kafkaProducerService.sendStockUpdateNotification(bookResponse)
-                .whenComplete((result, throwable) -> {
-                    if (throwable != null) {
-                        logger.error("Failed to send stock update notification for ID: {}", id, throwable);
-                    } else {
-                        logger.info("Successfully sent stock update notification for ID: {}", id);
-                    }
-                });
-        } catch (Exception e) {
-            logger.error("Error sending stock update notification for ID: {}", id, e);
-        }
+        notificationOutbox.add(bookResponse, BookNotification.NotificationType.STOCK_UPDATE);
+        inventoryAlertService.writeLowStockAlert(bookResponse, previousStock);
         
         return bookResponse;
     }
     
+    /**
+     * Set the stock of many books, each identified by ID or ISBN, in one transaction.
+     * The books are locked and read with one query, and the changed rows and one stock notification per changed book
+     * are written in one JDBC batch each.
+     * A later item for the same book sees the stock set by an earlier one.
+     *
+     * @return one result per item, in the order of the items
+     */
+    public List<StockUpdateResult> updateStocks(List<StockUpdateRequest> updates) {
+        if (updates == null || updates.isEmpty() || updates.size() > MAX_BULK_STOCK_UPDATES) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BULK_STOCK_UPDATES + " stock updates are allowed");
+        }
+        
+        Set<Long> ids = new HashSet<>();
+        Set<String> isbns = new HashSet<>();
+        for (StockUpdateRequest update : updates) {
+            if (isValid(update)) {
+                if (update.getId() != null) {
+                    ids.add(update.getId());
+                } else {
+                    isbns.add(update.getIsbn());
+                }
+            }
+        }
+        Map<Long, Book> booksById = new HashMap<>();
+        Map<String, Book> booksByIsbn = new HashMap<>();
+        if (!ids.isEmpty() || !isbns.isEmpty()) {
+            for (Book book : bookRepository.findAllByIdOrIsbnForUpdate(ids, isbns)) {
+                booksById.put(book.getId(), book);
+                booksByIsbn.put(book.getIsbn(), book);
+            }
+        }
+        
+        List<StockUpdateResult> results = new ArrayList<>(updates.size());
+        Map<Long, Integer> stockByBook = new LinkedHashMap<>();
+        for (StockUpdateRequest update : updates) {
+            if (update == null) {
+                results.add(new StockUpdateResult(null, null, null, StockUpdateResult.Status.INVALID));
+                continue;
+            }
+            if (!isValid(update)) {
+                results.add(new StockUpdateResult(update.getId(), update.getIsbn(), update.getStock(),
+                        StockUpdateResult.Status.INVALID));
+                continue;
+            }
+            Book book = update.getId() != null ? booksById.get(update.getId()) : booksByIsbn.get(update.getIsbn());
+            if (book == null) {
+                results.add(new StockUpdateResult(update.getId(), update.getIsbn(), update.getStock(),
+                        StockUpdateResult.Status.NOT_FOUND));
+                continue;
+            }
+            Integer previous = stockByBook.put(book.getId(), update.getStock());
+            int current = previous != null ? previous : book.getStock();
+            StockUpdateResult.Status status = current == update.getStock()
+                    ? StockUpdateResult.Status.UNCHANGED : StockUpdateResult.Status.UPDATED;
+            results.add(new StockUpdateResult(book.getId(), book.getIsbn(), update.getStock(), status));
+        }
+        
+        // Books set back to the stock they started with are left alone
+        stockByBook.entrySet().removeIf(entry -> entry.getValue().equals(booksById.get(entry.getKey()).getStock()));
+        if (stockByBook.isEmpty()) {
+            return results;
+        }
+        
+        Map<Long, Integer> deltas = new HashMap<>();
+        Map<Long, Integer> previousStocks = new HashMap<>();
+        List<BookResponse> changed = new ArrayList<>(stockByBook.size());
+        stockByBook.forEach((id, stock) -> {
+            Book book = booksById.get(id);
+            deltas.put(id, stock - book.getStock());
+            previousStocks.put(id, book.getStock());
+            bookCache.evict(id, book.getIsbn());
+            // The managed book keeps its old stock so it is not written again at flush
+            BookResponse response = new BookResponse(book);
+            response.setStock(stock);
+            changed.add(response);
+        });
+        bookRepository.setStock(stockByBook);
+        stockMovementLog.recordAll(deltas, StockMovementReason.STOCK_UPDATE);
+        
+        Set<Long> changedIds = Set.copyOf(stockByBook.keySet());
+        TransactionCallbacks.afterCommit(() -> changedIds.forEach(id -> {
+            stockLedger.resync(id);
+            inventoryAlertService.stockChanged(id);
+        }));
+        notificationOutbox.addAll(changed, BookNotification.NotificationType.STOCK_UPDATE);
+        inventoryAlertService.writeLowStockAlerts(changed, previousStocks);
+        return results;
+    }
+    
+    /**
+     * Apply book notifications read from Kafka, at most one per ISBN, in one transaction.
+     * The books are locked and read with one query, and then written with one upsert statement each, in one JDBC batch.
+     * A notification creates its book when missing; otherwise a book update sets every field and any other type sets
+     * only the stock. Books a notification would leave as they are are not written or announced again.
+     *
+     * @param sourceOffsets the Kafka offset of each notification by ISBN, logged with its stock movement
+     * @return the number of books created or changed
+     */
+    public int applyNotifications(Collection<BookNotification> notifications, Map<String, Long> sourceOffsets) {
+        Set<String> isbns = new HashSet<>();
+        for (BookNotification notification : notifications) {
+            if (!isbns.add(notification.getIsbn())) {
+                throw new IllegalArgumentException("More than one notification for ISBN " + notification.getIsbn());
+            }
+        }
+        if (isbns.isEmpty()) {
+            return 0;
+        }
+        Map<String, Book> existingByIsbn = new HashMap<>();
+        for (Book book : bookRepository.findByIsbnIn(isbns)) {
+            existingByIsbn.put(book.getIsbn(), book);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Book> written = new ArrayList<>();
+        Set<String> stockOnlyIsbns = new HashSet<>();
+        for (BookNotification notification : notifications) {
+            boolean bookUpdate = notification.getNotificationType() == BookNotification.NotificationType.BOOK_UPDATE;
+            Book existing = existingByIsbn.get(notification.getIsbn());
+            // The managed book keeps its old state so it is not written again at flush
+            Book book = bookUpdate || existing == null
+                    ? new Book(notification.getTitle(), notification.getAuthor(), notification.getIsbn(),
+                            notification.getDescription(), notification.getPrice(), notification.getStock(),
+                            notification.getCategory())
+                    : new Book(existing.getTitle(), existing.getAuthor(), existing.getIsbn(), existing.getDescription(),
+                            existing.getPrice(), notification.getStock(), existing.getCategory());
+            if (existing != null && sameFields(book, existing)) {
+                continue;
+            }
+            book.setCreatedAt(existing != null ? existing.getCreatedAt() : now);
+            book.setUpdatedAt(now);
+            written.add(book);
+            if (!bookUpdate) {
+                stockOnlyIsbns.add(book.getIsbn());
+            }
+        }
+        if (written.isEmpty()) {
+            return 0;
+        }
+        bookRepository.upsertAll(written, stockOnlyIsbns);
+        
+        List<StockMovement> movements = new ArrayList<>(written.size());
+        Map<Long, Integer> previousStocks = new HashMap<>();
+        List<BookResponse> newBooks = new ArrayList<>();
+        List<BookResponse> stockUpdates = new ArrayList<>();
+        List<BookResponse> bookUpdates = new ArrayList<>();
+        for (Book book : written) {
+            Book existing = existingByIsbn.get(book.getIsbn());
+            Long sourceOffset = sourceOffsets.get(book.getIsbn());
+            bookCache.evict(book.getId(), book.getIsbn());
+            bookSearchIndex.index(book);
+            if (existing == null) {
+                movements.add(new StockMovement(book.getId(), book.getStock(), StockMovementReason.CREATED, sourceOffset));
+                categoryAggregates.add(book.getCategory(), book.getPrice());
+                newBooks.add(new BookResponse(book));
+            } else if (stockOnlyIsbns.contains(book.getIsbn())) {
+                previousStocks.put(book.getId(), existing.getStock());
+                movements.add(new StockMovement(book.getId(), book.getStock() - existing.getStock(),
+                        StockMovementReason.STOCK_NOTIFICATION, sourceOffset));
+                stockUpdates.add(new BookResponse(book));
+            } else {
+                previousStocks.put(book.getId(), existing.getStock());
+                movements.add(new StockMovement(book.getId(), book.getStock() - existing.getStock(),
+                        StockMovementReason.BOOK_UPDATE, sourceOffset));
+                categoryAggregates.remove(existing.getCategory(), existing.getPrice());
+                categoryAggregates.add(book.getCategory(), book.getPrice());
+                bookUpdates.add(new BookResponse(book));
+            }
+        }
+        stockMovementLog.recordAll(movements);
+        
+        Set<Long> changedIds = Set.copyOf(written.stream().map(Book::getId).toList());
+        TransactionCallbacks.afterCommit(() -> changedIds.forEach(id -> {
+            stockLedger.resync(id);
+            inventoryAlertService.stockChanged(id);
+        }));
+        notificationOutbox.addAll(newBooks, BookNotification.NotificationType.NEW_BOOK);
+        notificationOutbox.addAll(stockUpdates, BookNotification.NotificationType.STOCK_UPDATE);
+        notificationOutbox.addAll(bookUpdates, BookNotification.NotificationType.BOOK_UPDATE);
+        inventoryAlertService.writeLowStockAlerts(written.stream().map(BookResponse::new).toList(), previousStocks);
+        return written.size();
+    }
+    
+    /**
+     * Reserve stock of a book with a single conditional UPDATE, so concurrent orders neither
+     * oversell nor overwrite each other. Only the stock and ISBN are read back, and the whole book only when
+     * the reservation fails or takes it below the low stock threshold.
+     */
+    public StockReservation reserveStock(Long id, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        
+        boolean reserved = bookRepository.reserveStock(id, quantity) == 1;
+        if (!reserved && !bookRepository.existsById(id)) {
+            throw new BookNotFoundException(id);
+        }
+        if (reserved) {
+            stockMovementLog.record(id, -quantity, StockMovementReason.RESERVATION, null);
+            // The ISBN entry may outlive the ID entry in the cache, so it cannot be found through it
+            bookCache.evict(id, bookRepository.findIsbnById(id).orElse(null));
+            int stock = bookRepository.findStockById(id).orElseThrow(() -> new BookNotFoundException(id));
+            if (stock < inventoryAlertService.getLowStockThreshold()) {
+                bookRepository.findById(id).ifPresent(book -> {
+                    BookResponse response = new BookResponse(book);
+                    response.setStock(stock);
+                    inventoryAlertService.writeLowStockAlert(response, stock + quantity);
+                });
+            }
+            TransactionCallbacks.afterCommit(() -> stockLedger.resync(id));
+            TransactionCallbacks.afterCommit(() -> inventoryAlertService.stockLowered(id));
+        }
+        return new StockReservation(id, quantity, reserved);
+    }
+    
+    private static boolean sameFields(Book book, Book other) {
+        return Objects.equals(book.getTitle(), other.getTitle())
+                && Objects.equals(book.getAuthor(), other.getAuthor())
+                && Objects.equals(book.getDescription(), other.getDescription())
+                && book.getPrice().compareTo(other.getPrice()) == 0
+                && Objects.equals(book.getStock(), other.getStock())
+                && book.getCategory() == other.getCategory();
+    }
+    
+    private static boolean isValid(StockUpdateRequest update) {
+        return update != null && (update.getId() == null) != (update.getIsbn() == null)
+                && update.getStock() != null && update.getStock() >= 0 && update.getStock() <= MAX_STOCK;
+    }
+    
     /**
      * Check if a book exists by ISBN
      */
@@ -1,10 +1,22 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookCacheStats;
+import com.talant.bootcamp.booksservice.dto.CategoryAveragePrice;
+import com.talant.bootcamp.booksservice.dto.CategoryStatistics;
+import com.talant.bootcamp.booksservice.dto.CategoryStatisticsCheck;
+import com.talant.bootcamp.booksservice.model.BookCategory;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Service for book statistics operations
@@ -13,23 +25,74 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class BookStatisticsService {
     
+    private static final Logger logger = LoggerFactory.getLogger(BookStatisticsService.class);
+    
     private final BookRepository bookRepository;
+    private final BookCache bookCache;
+    private final CategoryAggregates categoryAggregates;
     
-    public BookStatisticsService(BookRepository bookRepository) {
+    public BookStatisticsService(BookRepository bookRepository, BookCache bookCache, CategoryAggregates categoryAggregates) {
         this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.categoryAggregates = categoryAggregates;
+    }
+    
+    /**
+     * Get book count and price statistics by category, served from the in-memory aggregates
+     */
+    public List<CategoryStatistics> getBookStatisticsByCategory() {
+        return categoryAggregates.snapshot();
     }
     
     /**
-     * Get book statistics by category
+     * Get average price by category, served from the in-memory aggregates
      */
-    public List<Object[]> getBookStatisticsByCategory() {
-        return bookRepository.countBooksByCategory();
+    public List<CategoryAveragePrice> getAveragePriceByCategory() {
+        return categoryAggregates.snapshot().stream()
+                .map(stats -> new CategoryAveragePrice(stats.getCategory(), stats.getAveragePrice()))
+                .collect(Collectors.toList());
     }
     
     /**
-     * Get average price by category
+     * Compare the in-memory category statistics with the same aggregates computed by the database
      */
-    public List<Object[]> getAveragePriceByCategory() {
-        return bookRepository.getAveragePriceByCategory();
+    public CategoryStatisticsCheck checkCategoryStatistics() {
+        Map<BookCategory, CategoryStatistics> actual = new EnumMap<>(BookCategory.class);
+        categoryAggregates.snapshot().forEach(stats -> actual.put(stats.getCategory(), stats));
+        
+        Map<BookCategory, CategoryStatistics> expected = new EnumMap<>(BookCategory.class);
+        for (Object[] row : bookRepository.summarizeByCategory()) {
+            BookCategory category = (BookCategory) row[0];
+            expected.put(category, new CategoryStatistics(category, ((Number) row[1]).longValue(),
+                    (BigDecimal) row[2], (BigDecimal) row[3], (BigDecimal) row[4]));
+        }
+        
+        List<CategoryStatistics> expectedMismatches = new ArrayList<>();
+        List<CategoryStatistics> actualMismatches = new ArrayList<>();
+        for (BookCategory category : BookCategory.values()) {
+            CategoryStatistics fromDatabase = expected.getOrDefault(category, empty(category));
+            CategoryStatistics inMemory = actual.getOrDefault(category, empty(category));
+            if (!fromDatabase.matches(inMemory)) {
+                expectedMismatches.add(fromDatabase);
+                actualMismatches.add(inMemory);
+            }
+        }
+        
+        CategoryStatisticsCheck check = new CategoryStatisticsCheck(expectedMismatches, actualMismatches);
+        if (!check.isConsistent()) {
+            logger.warn("Category statistics differ from the database: {}", check);
+        }
+        return check;
+    }
+    
+    /**
+     * Get hit, miss and eviction counters of the book cache
+     */
+    public BookCacheStats getCacheStatistics() {
+        return bookCache.stats();
+    }
+    
+    private static CategoryStatistics empty(BookCategory category) {
+        return new CategoryStatistics(category, 0, BigDecimal.ZERO, null, null);
     }
-} 
\ No newline at end of file
+}
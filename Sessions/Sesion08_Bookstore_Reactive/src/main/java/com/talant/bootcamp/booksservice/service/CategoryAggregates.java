@@ -0,0 +1,129 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.CategoryStatistics;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory book count and price aggregates per category, kept up to date by the BookService write paths.
+ * Counters are striped LongAdders so concurrent writers do not contend; the minimum and maximum come
+ * from a per-category count of books at each price, so they stay exact when books are removed.
+ */
+@Component
+public class CategoryAggregates {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryAggregates.class);
+
+    private final BookRepository bookRepository;
+
+    private volatile Map<BookCategory, Accumulator> accumulators = newAccumulators();
+
+    public CategoryAggregates(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Load the aggregates from the database once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<BookCategory, Accumulator> rebuilt = newAccumulators();
+        for (Object[] row : bookRepository.countByCategoryAndPrice()) {
+            rebuilt.get((BookCategory) row[0]).add(cents((BigDecimal) row[1]), ((Number) row[2]).longValue());
+        }
+        accumulators = rebuilt;
+        logger.info("Category aggregates built for {} categories", snapshot().size());
+    }
+
+    /**
+     * Count a book with the given category and price. Reverted if the current transaction rolls back.
+     */
+    public void add(BookCategory category, BigDecimal price) {
+        apply(category, price, 1);
+    }
+
+    /**
+     * Stop counting a book with the given category and price. Reverted if the current transaction rolls back.
+     */
+    public void remove(BookCategory category, BigDecimal price) {
+        apply(category, price, -1);
+    }
+
+    /**
+     * Aggregates of every category that has books, in category order
+     */
+    public List<CategoryStatistics> snapshot() {
+        List<CategoryStatistics> statistics = new ArrayList<>();
+        accumulators.forEach((category, accumulator) -> {
+            CategoryStatistics stats = accumulator.toStatistics(category);
+            if (stats.getCount() > 0) {
+                statistics.add(stats);
+            }
+        });
+        return statistics;
+    }
+
+    private void apply(BookCategory category, BigDecimal price, int books) {
+        if (category == null || price == null) {
+            return;
+        }
+        long cents = cents(price);
+        accumulators.get(category).add(cents, books);
+        TransactionCallbacks.afterRollback(() -> accumulators.get(category).add(cents, -books));
+    }
+
+    private static Map<BookCategory, Accumulator> newAccumulators() {
+        Map<BookCategory, Accumulator> map = new EnumMap<>(BookCategory.class);
+        for (BookCategory category : BookCategory.values()) {
+            map.put(category, new Accumulator());
+        }
+        return map;
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static final class Accumulator {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalCents = new LongAdder();
+        private final ConcurrentSkipListMap<Long, Long> booksByPrice = new ConcurrentSkipListMap<>();
+
+        void add(long cents, long books) {
+            count.add(books);
+            totalCents.add(cents * books);
+            if (books > 0) {
+                booksByPrice.merge(cents, books, Long::sum);
+            } else {
+                booksByPrice.computeIfPresent(cents, (price, current) -> current + books > 0 ? current + books : null);
+            }
+        }
+
+        CategoryStatistics toStatistics(BookCategory category) {
+            Map.Entry<Long, Long> min = booksByPrice.firstEntry();
+            Map.Entry<Long, Long> max = booksByPrice.lastEntry();
+            return new CategoryStatistics(category, count.sum(), amount(totalCents.sum()),
+                    min != null ? amount(min.getKey()) : null,
+                    max != null ? amount(max.getKey()) : null);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.config.NotificationRetryTopics;
+import com.talant.bootcamp.booksservice.dto.DeadLetterReplayReport;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends the records of a dead-letter topic back to the notification topic they failed in, once whatever made them
+ * fail is fixed. Records are forwarded as they were written, without the kafka_dlt-* error headers, and the
+ * replay group commits how far it got, so each replay goes on from where the last one stopped.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    static final int MAX_REPLAY_RECORDS = 10_000;
+    private static final String DEAD_LETTER_HEADER_PREFIX = "kafka_dlt-";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final NotificationRetryTopics retryTopics;
+    private final String groupId;
+    private final Duration timeout;
+
+    public DeadLetterReplayService(ConsumerFactory<String, byte[]> deadLetterConsumerFactory,
+                                   KafkaTemplate<String, Object> forwardingKafkaTemplate,
+                                   NotificationRetryTopics retryTopics,
+                                   @Value("${kafka.consumer.group-id:book-service-group}") String groupId,
+                                   @Value("${kafka.retry.replay-timeout:30s}") Duration timeout) {
+        this.consumerFactory = deadLetterConsumerFactory;
+        this.kafkaTemplate = forwardingKafkaTemplate;
+        this.retryTopics = retryTopics;
+        this.groupId = groupId + "-dlt-replay";
+        this.timeout = timeout;
+    }
+
+    /**
+     * Send up to maxRecords records of the dead-letter topic of a notification topic back to it, oldest first.
+     * Only the records in the dead-letter topic when the replay starts are sent, so records that fail again
+     * are left for the next replay.
+     */
+    public synchronized DeadLetterReplayReport replay(String topic, int maxRecords) {
+        if (!retryTopics.getTopics().contains(topic)) {
+            throw new IllegalArgumentException("Not a book notification topic: " + topic);
+        }
+        if (maxRecords < 1 || maxRecords > MAX_REPLAY_RECORDS) {
+            throw new IllegalArgumentException("maxRecords must be between 1 and " + MAX_REPLAY_RECORDS);
+        }
+        String deadLetterTopic = NotificationRetryTopics.deadLetterTopic(topic);
+
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(groupId, null)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo partition : consumer.partitionsFor(deadLetterTopic, timeout)) {
+                partitions.add(new TopicPartition(partition.topic(), partition.partition()));
+            }
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, timeout);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions), timeout);
+            Map<TopicPartition, Long> startOffsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset != null) {
+                    consumer.seek(partition, offset.offset());
+                } else {
+                    consumer.seekToBeginning(List.of(partition));
+                }
+                startOffsets.put(partition, consumer.position(partition, timeout));
+            }
+
+            List<ConsumerRecord<String, byte[]>> replayed = new ArrayList<>();
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, Long> nextOffsets = new HashMap<>(startOffsets);
+            while (replayed.size() < maxRecords && isBehind(nextOffsets, endOffsets)) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (replayed.size() == maxRecords || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    sends.add(kafkaTemplate.send(forward(topic, record)));
+                    replayed.add(record);
+                    nextOffsets.put(partition, record.offset() + 1);
+                }
+            }
+
+            // Only the leading run of acknowledged records is committed, so a failed record is sent again next time
+            long deadline = System.nanoTime() + timeout.toNanos();
+            Map<TopicPartition, OffsetAndMetadata> acknowledged = new HashMap<>();
+            int acknowledgedCount = 0;
+            for (int i = 0; i < sends.size(); i++) {
+                ConsumerRecord<String, byte[]> record = replayed.get(i);
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    acknowledged.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    acknowledgedCount++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException | TimeoutException e) {
+                    logger.warn("Failed to replay {} at partition {}, offset {}, replaying from it next time",
+                            deadLetterTopic, record.partition(), record.offset(), e);
+                    break;
+                }
+            }
+            if (!acknowledged.isEmpty()) {
+                consumer.commitSync(acknowledged, timeout);
+            }
+
+            long remaining = 0;
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = acknowledged.get(partition);
+                long replayedTo = offset != null ? offset.offset() : startOffsets.get(partition);
+                remaining += Math.max(0, endOffsets.get(partition) - replayedTo);
+            }
+            logger.info("Replayed {} records from {} to {}, {} left", acknowledgedCount, deadLetterTopic, topic, remaining);
+            return new DeadLetterReplayReport(topic, deadLetterTopic, acknowledgedCount, remaining);
+        }
+    }
+
+    private static ProducerRecord<String, Object> forward(String topic, ConsumerRecord<String, byte[]> record) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(DEAD_LETTER_HEADER_PREFIX)) {
+                headers.add(header);
+            }
+        }
+        return new ProducerRecord<>(topic, null, record.key(), record.value(), headers);
+    }
+
+    private static boolean isBehind(Map<TopicPartition, Long> nextOffsets, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : nextOffsets.entrySet()) {
+            if (entry.getValue() < endOffsets.get(entry.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,59 +1,180 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
- * Service for inventory alert operations
+ * Service for inventory alert operations.
+ * Keeps the IDs of the books below the low stock threshold in memory, updated after every committed stock change,
+ * and writes a low stock notification to the outbox, in the transaction of the change, only when a book crosses
+ * the threshold on its way down.
  */
 @Service
 public class InventoryAlertService {
 
+    private static final Logger logger = LoggerFactory.getLogger(InventoryAlertService.class);
+
     public static final int DEFAULT_LOW_STOCK_THRESHOLD = 5;
-    
+
+    static final int STRIPES = 64;
+
     private final BookRepository bookRepository;
+    private final BookNotificationOutbox notificationOutbox;
     private final int lowStockThreshold;
+    private final Set<Long> lowStockIds = ConcurrentHashMap.newKeySet();
 
-    public InventoryAlertService(BookRepository bookRepository, 
+    // Serializes the read and the set update of a book, so an older read never overwrites a newer one
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public InventoryAlertService(BookRepository bookRepository, BookNotificationOutbox notificationOutbox,
                                @Value("${book.inventory.low-stock-threshold:" + DEFAULT_LOW_STOCK_THRESHOLD + "}") int lowStockThreshold) {
         this.bookRepository = bookRepository;
+        this.notificationOutbox = notificationOutbox;
         this.lowStockThreshold = lowStockThreshold;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Load the books with low stock from the database once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> ids = bookRepository.findIdsByStockLessThan(lowStockThreshold);
+        lowStockIds.retainAll(ids);
+        lowStockIds.addAll(ids);
+        logger.info("Low stock set built with {} books", ids.size());
     }
 
     /**
-     * Get books with low stock
+     * Write a low stock notification, in the caller's transaction, when a changed book has just fallen below
+     * the threshold
+     *
+     * @param previousStock the stock of the book before the change, or null for a new book
+     */
+    public void writeLowStockAlert(BookResponse book, Integer previousStock) {
+        writeLowStockAlerts(List.of(book), previousStock != null ? Map.of(book.getId(), previousStock) : Map.of());
+    }
+
+    /**
+     * Write a low stock notification, in the caller's transaction, for each of the changed books that has just
+     * fallen below the threshold, in one JDBC batch
+     *
+     * @param previousStocks the stock of each book before the change by ID; books missing from it are new
+     */
+    public void writeLowStockAlerts(Collection<BookResponse> books, Map<Long, Integer> previousStocks) {
+        List<BookResponse> crossed = new ArrayList<>();
+        for (BookResponse book : books) {
+            Integer previousStock = previousStocks.get(book.getId());
+            if (book.getStock() < lowStockThreshold && (previousStock == null || previousStock >= lowStockThreshold)) {
+                crossed.add(book);
+            }
+        }
+        notificationOutbox.addAll(crossed, BookNotification.NotificationType.LOW_STOCK);
+    }
+
+    /**
+     * Re-check a book after a committed change to its stock or its removal.
+     * Only the in-memory set is updated; the low stock notification was written with the change.
+     */
+    public void stockChanged(Long bookId) {
+        ReentrantLock lock = locks[index(bookId)];
+        lock.lock();
+        try {
+            Optional<Integer> stock = bookRepository.findStockById(bookId);
+            if (stock.isEmpty() || stock.get() >= lowStockThreshold) {
+                lowStockIds.remove(bookId);
+            } else {
+                lowStockIds.add(bookId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-check a book after a committed change that can only have lowered its stock.
+     * Nothing is read when the book is already known to have low stock.
+     */
+    public void stockLowered(Long bookId) {
+        if (!lowStockIds.contains(bookId)) {
+            stockChanged(bookId);
+        }
+    }
+
+    /**
+     * Re-check a book read back after a committed change that can only have lowered its stock.
+     * The book is only read again under its lock when the given copy is below the threshold.
+     */
+    public void stockLowered(Book book) {
+        if (hasLowStock(book)) {
+            stockLowered(book.getId());
+        }
+    }
+
+    /**
+     * Get books with low stock, in ID order
      */
     public List<Book> getBooksWithLowStock() {
-        return bookRepository.findAll().stream()
-                .filter(book -> book.getStock() < lowStockThreshold)
+        if (lowStockIds.isEmpty()) {
+            return List.of();
+        }
+        return bookRepository.findAllById(Set.copyOf(lowStockIds)).stream()
+                .sorted(Comparator.comparing(Book::getId))
                 .collect(Collectors.toList());
     }
-    
+
     /**
      * Get books with low stock as BookResponse
      */
-    public List<com.talant.bootcamp.booksservice.dto.BookResponse> getBooksWithLowStockAsResponse() {
+    public List<BookResponse> getBooksWithLowStockAsResponse() {
         return getBooksWithLowStock().stream()
-                .map(com.talant.bootcamp.booksservice.dto.BookResponse::new)
+                .map(BookResponse::new)
                 .collect(Collectors.toList());
     }
-    
+
+    /**
+     * Check if the given book is currently known to have low stock
+     */
+    public boolean isLowStock(Long bookId) {
+        return lowStockIds.contains(bookId);
+    }
+
     /**
      * Check if a book has low stock
      */
     public boolean hasLowStock(Book book) {
         return book.getStock() < lowStockThreshold;
     }
-    
+
     /**
      * Get the current low stock threshold
      */
     public int getLowStockThreshold() {
         return lowStockThreshold;
     }
+
+    private static int index(Long bookId) {
+        return Long.hashCode(bookId * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
 }
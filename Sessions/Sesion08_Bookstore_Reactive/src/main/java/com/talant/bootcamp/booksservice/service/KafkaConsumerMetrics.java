@@ -0,0 +1,84 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.ConsumerPartitionLag;
+import com.talant.bootcamp.booksservice.dto.ConsumerTopicMetrics;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-topic counters of the records the notification listeners receive, and of the ones they skip as echoes
+ * of notifications this service produced itself, and the committed offset and position of each partition they read
+ */
+@Component
+public class KafkaConsumerMetrics {
+
+    private final Map<String, TopicMetrics> topics = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, long[]> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * Record records handed to a listener
+     */
+    public void received(String topic, int records) {
+        topic(topic).received.add(records);
+    }
+
+    /**
+     * Record a record skipped because this service produced it
+     */
+    public void echoSuppressed(String topic) {
+        topic(topic).suppressedEchoes.increment();
+    }
+
+    /**
+     * Get the metrics of every topic received from, by topic name
+     */
+    public List<ConsumerTopicMetrics> snapshot() {
+        return topics.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new ConsumerTopicMetrics(entry.getKey(), entry.getValue().received.sum(),
+                        entry.getValue().suppressedEchoes.sum()))
+                .toList();
+    }
+
+    /**
+     * Record the committed offset and the position of a partition this instance reads
+     */
+    public void offsets(TopicPartition partition, long committedOffset, long position) {
+        partitions.put(partition, new long[]{committedOffset, position});
+    }
+
+    /**
+     * Stop reporting a partition after it was revoked or lost
+     */
+    public void forget(TopicPartition partition) {
+        partitions.remove(partition);
+    }
+
+    /**
+     * Get the committed offset and position of every partition this instance reads, by topic and partition
+     */
+    public List<ConsumerPartitionLag> lag() {
+        return partitions.entrySet().stream()
+                .map(entry -> new ConsumerPartitionLag(entry.getKey().topic(), entry.getKey().partition(),
+                        entry.getValue()[0], entry.getValue()[1]))
+                .sorted(Comparator.comparing(ConsumerPartitionLag::getTopic)
+                        .thenComparingInt(ConsumerPartitionLag::getPartition))
+                .toList();
+    }
+
+    private TopicMetrics topic(String topic) {
+        TopicMetrics metrics = topics.get(topic);
+        return metrics != null ? metrics : topics.computeIfAbsent(topic, name -> new TopicMetrics());
+    }
+
+    private static final class TopicMetrics {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder suppressedEchoes = new LongAdder();
+    }
+}
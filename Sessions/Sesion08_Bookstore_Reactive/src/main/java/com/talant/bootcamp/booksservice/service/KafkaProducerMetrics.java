@@ -0,0 +1,217 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.HistogramSnapshot;
+import com.talant.bootcamp.booksservice.dto.ProducerTopicMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-topic producer counters, fed by every send of the instrumented Kafka templates: send-to-ack latency and
+ * record size histograms, in-flight records, failures, and per-second rates over the last minute.
+ * Recording is a few atomic increments, so it replaces logging each send.
+ */
+@Component
+public class KafkaProducerMetrics {
+
+    private final Map<String, TopicMetrics> topics = new ConcurrentHashMap<>();
+
+    /**
+     * Record a record handed to the producer
+     *
+     * @return the start time to pass to {@link #sendAcknowledged}
+     */
+    public long sendStarted(String topic) {
+        TopicMetrics metrics = topic(topic);
+        metrics.inFlight.incrementAndGet();
+        metrics.sent.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the acknowledgement of a record of the given serialized size
+     */
+    public void sendAcknowledged(String topic, long startNanos, int bytes) {
+        TopicMetrics metrics = topic(topic);
+        metrics.inFlight.decrementAndGet();
+        metrics.acknowledged.increment();
+        metrics.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        metrics.recordSizes.record(bytes);
+        long second = currentSecond();
+        metrics.recordRate.add(second, 1);
+        metrics.byteRate.add(second, bytes);
+    }
+
+    /**
+     * Record a send that failed or timed out
+     */
+    public void sendFailed(String topic) {
+        TopicMetrics metrics = topic(topic);
+        metrics.inFlight.decrementAndGet();
+        metrics.failed.increment();
+        metrics.errorRate.add(currentSecond(), 1);
+    }
+
+    /**
+     * Get the metrics of every topic sent to, by topic name
+     */
+    public List<ProducerTopicMetrics> snapshot() {
+        long second = currentSecond();
+        return topics.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getValue().snapshot(entry.getKey(), second))
+                .toList();
+    }
+
+    private TopicMetrics topic(String topic) {
+        TopicMetrics metrics = topics.get(topic);
+        return metrics != null ? metrics : topics.computeIfAbsent(topic, name -> new TopicMetrics(currentSecond()));
+    }
+
+    private static long currentSecond() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    private static final class TopicMetrics {
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final Histogram latencyMicros = new Histogram();
+        private final Histogram recordSizes = new Histogram();
+        private final RateWindow recordRate;
+        private final RateWindow byteRate;
+        private final RateWindow errorRate;
+
+        private TopicMetrics(long startSecond) {
+            recordRate = new RateWindow(startSecond);
+            byteRate = new RateWindow(startSecond);
+            errorRate = new RateWindow(startSecond);
+        }
+
+        private ProducerTopicMetrics snapshot(String topic, long second) {
+            return new ProducerTopicMetrics(topic, sent.sum(), acknowledged.sum(), failed.sum(), inFlight.get(),
+                    recordSizes.sum(), recordRate.perSecond(second), byteRate.perSecond(second),
+                    errorRate.perSecond(second), latencyMicros.snapshot(), recordSizes.snapshot());
+        }
+    }
+
+    /**
+     * Histogram of non-negative values in buckets of 1/8 of a power of two, exact below 8
+     */
+    static final class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            long clamped = Math.max(0, value);
+            counts.incrementAndGet(index(clamped));
+            sum.add(clamped);
+            max.accumulateAndGet(clamped, Math::max);
+        }
+
+        long sum() {
+            return sum.sum();
+        }
+
+        HistogramSnapshot snapshot() {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            long maximum = max.get();
+            double mean = total == 0 ? 0.0 : (double) sum.sum() / total;
+            return new HistogramSnapshot(total, mean, percentile(snapshot, total, 0.50, maximum),
+                    percentile(snapshot, total, 0.95, maximum), percentile(snapshot, total, 0.99, maximum), maximum);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long maximum) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maximum);
+                }
+            }
+            return maximum;
+        }
+
+        static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long width = 1L << (exponent - SUB_BUCKET_BITS);
+            return (1L << exponent) + (index % SUB_BUCKETS) * width + width - 1;
+        }
+    }
+
+    /**
+     * Per-second totals of the last minute, in a ring of one slot per second
+     */
+    static final class RateWindow {
+
+        private static final int SECONDS = 60;
+        private static final int SLOTS = SECONDS + 1;
+
+        private final long startSecond;
+        private final AtomicLongArray slotSeconds = new AtomicLongArray(SLOTS);
+        private final AtomicLongArray slotTotals = new AtomicLongArray(SLOTS);
+
+        RateWindow(long startSecond) {
+            this.startSecond = startSecond;
+        }
+
+        void add(long second, long amount) {
+            int slot = (int) (second % SLOTS);
+            long slotSecond = slotSeconds.get(slot);
+            // The first add of a new second clears what the slot held a minute ago
+            if (slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second)) {
+                slotTotals.set(slot, 0);
+            }
+            slotTotals.addAndGet(slot, amount);
+        }
+
+        /**
+         * Average per second over the last minute of whole seconds, or since the start when more recent
+         */
+        double perSecond(long second) {
+            long total = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                long slotSecond = slotSeconds.get(slot);
+                if (slotSecond < second && slotSecond >= second - SECONDS) {
+                    total += slotTotals.get(slot);
+                }
+            }
+            long elapsed = Math.min(SECONDS, second - startSecond);
+            return elapsed <= 0 ? 0.0 : (double) total / elapsed;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.talant.bootcamp.booksservice.service;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Marks the changes a thread applies from notifications read from Kafka. Inside the scope the outbox does not
+ * announce the changes again, which would echo them back to the listener, and records still sent for a book,
+ * such as low stock alerts, name the notification that caused them.
+ */
+public final class NotificationApplyScope {
+
+    private static final ThreadLocal<Map<String, String>> causationByIsbn = new ThreadLocal<>();
+
+    private NotificationApplyScope() {
+    }
+
+    /**
+     * Run a change applied from notifications, given the event ID of the notification of each ISBN.
+     * The change's transaction must end inside the scope, so the sends made after its commit are covered too.
+     */
+    public static <T> T apply(Map<String, String> causations, Supplier<T> change) {
+        Map<String, String> outer = causationByIsbn.get();
+        causationByIsbn.set(causations);
+        try {
+            return change.get();
+        } finally {
+            if (outer != null) {
+                causationByIsbn.set(outer);
+            } else {
+                causationByIsbn.remove();
+            }
+        }
+    }
+
+    /**
+     * Check whether the current thread is applying notifications
+     */
+    public static boolean isActive() {
+        return causationByIsbn.get() != null;
+    }
+
+    /**
+     * Get the event ID of the notification being applied for the given ISBN, or null when there is none
+     */
+    public static String causationOf(Object isbn) {
+        Map<String, String> causations = causationByIsbn.get();
+        return causations != null && isbn != null ? causations.get(isbn.toString()) : null;
+    }
+}
@@ -0,0 +1,297 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.config.NotificationHeaders;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.OutboxStats;
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import com.talant.bootcamp.booksservice.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the outbox to Kafka. Polls the oldest unpublished events in batches, sends a whole batch before
+ * waiting for any acknowledgement, then marks the acknowledged events published in the transaction that locked them.
+ * Delivery is at least once: events behind a failed send are sent again with it. Published events are deleted
+ * once older than the retention. Events are stored as JSON and sent in the configured notification wire format.
+ * Of the stock updates of one book locked in the same batch, only the newest is sent; the others are marked
+ * published along with it.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    public static final String DEFAULT_POLL_INTERVAL = "100ms";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final String DEFAULT_SEND_TIMEOUT = "30s";
+    public static final String DEFAULT_RETENTION = "1h";
+    public static final String DEFAULT_CLEANUP_INTERVAL = "1m";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, BookNotification> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String stockUpdatesTopic;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration retention;
+    private final Duration cleanupInterval;
+    private final boolean relayEnabled;
+
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong deletedEvents = new AtomicLong();
+    private volatile long lastPublishLagMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, KafkaTemplate<String, BookNotification> kafkaTemplate,
+                       ObjectMapper objectMapper, TransactionTemplate transactionTemplate,
+                       @Value("${kafka.topic.stock-updates:book-stock-updates}") String stockUpdatesTopic,
+                       @Value("${book.outbox.poll-interval:" + DEFAULT_POLL_INTERVAL + "}") Duration pollInterval,
+                       @Value("${book.outbox.batch-size:" + DEFAULT_BATCH_SIZE + "}") int batchSize,
+                       @Value("${book.outbox.send-timeout:" + DEFAULT_SEND_TIMEOUT + "}") Duration sendTimeout,
+                       @Value("${book.outbox.retention:" + DEFAULT_RETENTION + "}") Duration retention,
+                       @Value("${book.outbox.cleanup-interval:" + DEFAULT_CLEANUP_INTERVAL + "}") Duration cleanupInterval,
+                       @Value("${book.outbox.relay-enabled:true}") boolean relayEnabled) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Outbox batch size must be at least 1");
+        }
+        if (pollInterval.isZero() || pollInterval.isNegative() || cleanupInterval.isZero() || cleanupInterval.isNegative()) {
+            throw new IllegalArgumentException("Outbox poll and cleanup intervals must be positive");
+        }
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.stockUpdatesTopic = stockUpdatesTopic;
+        this.transactionTemplate = transactionTemplate;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retention = retention;
+        this.cleanupInterval = cleanupInterval;
+        this.relayEnabled = relayEnabled;
+    }
+
+    /**
+     * Start polling the outbox, and cleaning it up, once the application is ready, unless book.outbox.relay-enabled
+     * is false; events are then only published by calling {@link #relay()}
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!relayEnabled) {
+            logger.info("Outbox relay disabled, events stay in the outbox until relayed explicitly");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long pollMillis = pollInterval.toMillis();
+        long cleanupMillis = cleanupInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::relayScheduled, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::cleanUpScheduled, cleanupMillis, cleanupMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Publish batches of unpublished events until the outbox is drained or a send fails
+     *
+     * @return the number of events published
+     */
+    public int relay() {
+        int total = 0;
+        int published;
+        do {
+            published = transactionTemplate.execute(status -> publishBatch());
+            total += published;
+        } while (published == batchSize);
+        return total;
+    }
+
+    /**
+     * Delete the events published longer ago than the retention, one batch at a time
+     *
+     * @return the number of events deleted
+     */
+    public int cleanUp() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> outboxEventRepository.deletePublishedBefore(before, batchSize));
+            total += deleted;
+        } while (deleted == batchSize);
+        deletedEvents.addAndGet(total);
+        return total;
+    }
+
+    public OutboxStats stats() {
+        long oldestPendingAge = outboxEventRepository.findOldestUnpublishedCreatedAt()
+                .map(createdAt -> Math.max(0, Duration.between(createdAt, LocalDateTime.now()).toMillis()))
+                .orElse(0L);
+        return new OutboxStats(outboxEventRepository.countByPublishedAtIsNull(), oldestPendingAge,
+                lastPublishLagMillis, publishedEvents.get(), coalescedEvents.get(), failedSends.get(), deletedEvents.get());
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockUnpublished(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Consumers only need the latest stock, so the newest stock update of a book in the batch stands for the older ones
+        Map<String, Integer> newestStockUpdates = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            if (isStockUpdate(events.get(i))) {
+                newestStockUpdates.put(events.get(i).getMessageKey(), i);
+            }
+        }
+
+        List<CompletableFuture<SendResult<String, BookNotification>>> sends = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            if (isCoalesced(event, i, newestStockUpdates)) {
+                sends.add(null);
+                continue;
+            }
+            try {
+                sends.add(send(event));
+            } catch (RuntimeException e) {
+                // Sending the events behind it would only publish them ahead of this one
+                sends.add(CompletableFuture.failedFuture(e));
+                break;
+            }
+        }
+        kafkaTemplate.flush();
+
+        // A coalesced event is published with the stock update standing for it, unless that one was never sent
+        for (int i = 0; i < sends.size(); i++) {
+            if (sends.get(i) == null) {
+                int newest = newestStockUpdates.get(events.get(i).getMessageKey());
+                if (newest >= sends.size()) {
+                    sends.subList(i, sends.size()).clear();
+                    break;
+                }
+                sends.set(i, sends.get(newest));
+            }
+        }
+
+        // Only the leading run of acknowledged events is marked, so a failed event is sent again before those behind it
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<Long> published = new ArrayList<>(sends.size());
+        int coalesced = 0;
+        for (int i = 0; i < sends.size(); i++) {
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(events.get(i).getId());
+                if (isCoalesced(events.get(i), i, newestStockUpdates)) {
+                    coalesced++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                failedSends.incrementAndGet();
+                logger.warn("Failed to publish {}, retrying from it on the next poll", events.get(i), e);
+                break;
+            }
+        }
+
+        if (!published.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            outboxEventRepository.markPublished(published, now);
+            publishedEvents.addAndGet(published.size());
+            coalescedEvents.addAndGet(coalesced);
+            lastPublishLagMillis = Duration.between(events.get(0).getCreatedAt(), now).toMillis();
+        }
+        return published.size();
+    }
+
+    private CompletableFuture<SendResult<String, BookNotification>> send(OutboxEvent event) {
+        if (event.getCausationId() == null) {
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), readPayload(event));
+        }
+        // The relay thread applies no notifications, so the causation recorded with the event is set here
+        ProducerRecord<String, BookNotification> record =
+                new ProducerRecord<>(event.getTopic(), event.getMessageKey(), readPayload(event));
+        record.headers().add(NotificationHeaders.CAUSATION_ID, event.getCausationId().getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(record);
+    }
+
+    private boolean isStockUpdate(OutboxEvent event) {
+        return stockUpdatesTopic.equals(event.getTopic()) && event.getMessageKey() != null;
+    }
+
+    private boolean isCoalesced(OutboxEvent event, int index, Map<String, Integer> newestStockUpdates) {
+        return isStockUpdate(event) && newestStockUpdates.get(event.getMessageKey()) != index;
+    }
+
+    private BookNotification readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), BookNotification.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot parse the payload of " + event, e);
+        }
+    }
+
+    private void relayScheduled() {
+        try {
+            int published = relay();
+            if (published > 0) {
+                logger.debug("Published {} outbox events", published);
+            }
+        } catch (PessimisticLockingFailureException e) {
+            logger.debug("Another relay is publishing the oldest outbox events", e);
+        } catch (RuntimeException e) {
+            logger.error("Error relaying the outbox", e);
+        }
+    }
+
+    private void cleanUpScheduled() {
+        try {
+            int deleted = cleanUp();
+            if (deleted > 0) {
+                logger.debug("Deleted {} published outbox events", deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error cleaning up the outbox", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.NotificationSendResult;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+import java.util.List;
+
+/**
+ * Sends streams of book notifications through a reactor-kafka sender. Only max-in-flight records are
+ * requested from the source before their acknowledgements come back, so a slow broker slows the source down
+ * instead of filling the producer buffer and blocking the caller's thread. Each record gets a result,
+ * failed or not, in the order of the acknowledgements.
+ */
+@Service
+public class ReactiveBookNotificationSender {
+
+    public static final int MAX_BULK_NOTIFICATIONS = 10_000;
+
+    private final KafkaSender<String, BookNotification> kafkaSender;
+    private final BookKafkaProducerService kafkaProducerService;
+    private final KafkaProducerMetrics producerMetrics;
+
+    public ReactiveBookNotificationSender(KafkaSender<String, BookNotification> kafkaSender,
+                                          BookKafkaProducerService kafkaProducerService,
+                                          KafkaProducerMetrics producerMetrics) {
+        this.kafkaSender = kafkaSender;
+        this.kafkaProducerService = kafkaProducerService;
+        this.producerMetrics = producerMetrics;
+    }
+
+    /**
+     * Send a list of notifications, each to the topic of its type, keyed by its ISBN
+     *
+     * @throws IllegalArgumentException when the list is empty, too long, or holds a notification without
+     *                                  an ISBN or a type
+     */
+    public Flux<NotificationSendResult> sendAll(List<BookNotification> notifications) {
+        if (notifications == null || notifications.isEmpty()) {
+            throw new IllegalArgumentException("At least one notification is required");
+        }
+        if (notifications.size() > MAX_BULK_NOTIFICATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_NOTIFICATIONS + " notifications can be sent at once");
+        }
+        for (BookNotification notification : notifications) {
+            if (notification == null || notification.getIsbn() == null || notification.getNotificationType() == null) {
+                throw new IllegalArgumentException("Every notification needs an ISBN and a notification type");
+            }
+        }
+        return send(Flux.fromIterable(notifications));
+    }
+
+    /**
+     * Send a stream of notifications, each to the topic of its type, keyed by its ISBN
+     */
+    public Flux<NotificationSendResult> send(Flux<BookNotification> notifications) {
+        return kafkaSender.send(notifications.map(this::toRecord))
+                .map(this::toResult);
+    }
+
+    private SenderRecord<String, BookNotification, Pending> toRecord(BookNotification notification) {
+        String topic = kafkaProducerService.topicFor(notification.getNotificationType());
+        // Started when the sender requests the record, so the latency does not include waiting for an in-flight slot
+        long startNanos = producerMetrics.sendStarted(topic);
+        return SenderRecord.create(new ProducerRecord<>(topic, notification.getIsbn(), notification),
+                new Pending(notification.getIsbn(), topic, startNanos));
+    }
+
+    private NotificationSendResult toResult(SenderResult<Pending> result) {
+        Pending pending = result.correlationMetadata();
+        RecordMetadata metadata = result.recordMetadata();
+        if (result.exception() != null) {
+            producerMetrics.sendFailed(pending.topic);
+            return NotificationSendResult.failed(pending.isbn, pending.topic, result.exception().getMessage());
+        }
+        producerMetrics.sendAcknowledged(pending.topic, pending.startNanos,
+                Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize()));
+        return NotificationSendResult.sent(pending.isbn, pending.topic, metadata.partition(), metadata.offset());
+    }
+
+    private record Pending(String isbn, String topic, long startNanos) {
+    }
+}
@@ -1,16 +1,20 @@
 package com.talant.bootcamp.booksservice.service;
 
-import com.talant.bootcamp.booksservice.model.Book;
-import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.ReactiveBookRepository;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 public class ReactiveBookOrderService {
 
-    private final BookRepository bookRepository;
+    private final ReactiveBookRepository bookRepository;
 
-    public ReactiveBookOrderService(BookRepository bookRepository) {
+    public ReactiveBookOrderService(ReactiveBookRepository bookRepository) {
         this.bookRepository = bookRepository;
     }
 
@@ -18,9 +22,28 @@ public class ReactiveBookOrderService {
         if (bookId == null) {
             return Mono.error(new IllegalArgumentException("Book ID cannot be null"));
         }
-        return Mono.fromSupplier(() -> {
-            Book book = bookRepository.findById(bookId).orElse(null);
-            return book != null && book.getStock() != null && book.getStock() > 0;
-        });
+        return bookRepository.findStockById(bookId)
+                .map(stock -> stock > 0)
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Check stock for several books with a single query.
+     * Every requested ID is present in the result; unknown books are reported as out of stock.
+     */
+    public Mono<Map<Long, Boolean>> checkStock(Collection<Long> bookIds) {
+        if (bookIds == null) {
+            return Mono.error(new IllegalArgumentException("Book IDs cannot be null"));
+        }
+        if (bookIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return bookRepository.findIdsWithStock(bookIds)
+                .collect(Collectors.toSet())
+                .map(inStock -> {
+                    Map<Long, Boolean> result = new HashMap<>();
+                    bookIds.forEach(id -> result.put(id, inStock.contains(id)));
+                    return result;
+                });
     }
 }
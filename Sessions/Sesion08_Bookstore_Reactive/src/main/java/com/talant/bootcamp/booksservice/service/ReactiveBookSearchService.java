@@ -1,23 +1,20 @@
 package com.talant.bootcamp.booksservice.service;
 
 import com.talant.bootcamp.booksservice.model.Book;
-import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.ReactiveBookRepository;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
-import java.util.List;
-
 @Service
 public class ReactiveBookSearchService {
 
-    private final BookRepository bookRepository;
+    private final ReactiveBookRepository bookRepository;
 
-    public ReactiveBookSearchService(BookRepository bookRepository) {
+    public ReactiveBookSearchService(ReactiveBookRepository bookRepository) {
         this.bookRepository = bookRepository;
     }
 
     public Flux<Book> findByTitleContains(String keyword) {
-        List<Book> books = bookRepository.findByTitleContainingIgnoreCase(keyword);
-        return Flux.fromIterable(books);
+        return bookRepository.findByTitleContainingIgnoreCase(keyword);
     }
 }
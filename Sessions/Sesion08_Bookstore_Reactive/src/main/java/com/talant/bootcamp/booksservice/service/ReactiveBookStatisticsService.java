@@ -1,19 +1,20 @@
 package com.talant.bootcamp.booksservice.service;
 
-import com.talant.bootcamp.booksservice.model.Review;
-import com.talant.bootcamp.booksservice.repository.ReviewRepository;
+import com.talant.bootcamp.booksservice.repository.ReactiveReviewRepository;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 @Service
 public class ReactiveBookStatisticsService {
 
-    private final ReviewRepository reviewRepository;
+    private final ReactiveReviewRepository reviewRepository;
 
-    public ReactiveBookStatisticsService(ReviewRepository reviewRepository) {
+    public ReactiveBookStatisticsService(ReactiveReviewRepository reviewRepository) {
         this.reviewRepository = reviewRepository;
     }
 
@@ -21,10 +22,26 @@ public class ReactiveBookStatisticsService {
         if (bookId == null) {
             return Mono.error(new IllegalArgumentException("Book ID cannot be null"));
         }
-        List<Review> reviews = reviewRepository.findByBookId(bookId);
-        return Flux.fromIterable(reviews)
-                   .map(Review::getRating)
-                   .collectList()
-                   .map(list -> list.stream().mapToInt(Integer::intValue).average().orElse(0));
+        return reviewRepository.getAverageRatingByBookId(bookId);
+    }
+
+    /**
+     * Get the average rating of several books with a single grouped query.
+     * Every requested ID is present in the result; books without reviews average 0.
+     */
+    public Mono<Map<Long, Double>> getAverageRatings(Collection<Long> bookIds) {
+        if (bookIds == null) {
+            return Mono.error(new IllegalArgumentException("Book IDs cannot be null"));
+        }
+        if (bookIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return reviewRepository.getAverageRatingsByBookIds(bookIds)
+                .collectMap(Tuple2::getT1, Tuple2::getT2)
+                .map(averages -> {
+                    Map<Long, Double> result = new HashMap<>();
+                    bookIds.forEach(id -> result.put(id, averages.getOrDefault(id, 0.0)));
+                    return result;
+                });
     }
 }
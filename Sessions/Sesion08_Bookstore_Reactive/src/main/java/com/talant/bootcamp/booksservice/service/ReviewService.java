@@ -1,8 +1,11 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.model.BookRatingStats;
 import com.talant.bootcamp.booksservice.model.Review;
+import com.talant.bootcamp.booksservice.repository.BookRatingStatsRepository;
 import com.talant.bootcamp.booksservice.repository.ReviewRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,18 +14,35 @@ public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final ReviewValidator reviewValidator;
+    private final BookRatingStatsRepository ratingStatsRepository;
 
-    public ReviewService(ReviewRepository reviewRepository, ReviewValidator reviewValidator) {
+    public ReviewService(ReviewRepository reviewRepository, ReviewValidator reviewValidator,
+                         BookRatingStatsRepository ratingStatsRepository) {
         this.reviewRepository = reviewRepository;
         this.reviewValidator = reviewValidator;
+        this.ratingStatsRepository = ratingStatsRepository;
     }
 
+    /**
+     * Store a review and add its rating to the book's rating aggregate in the same transaction
+     */
+    @Transactional
     public void addReview(Review review) {
         reviewValidator.validate(review);
         reviewRepository.save(review);
+        ratingStatsRepository.addRating(review.getBookId(), review.getRating());
     }
 
     public List<Review> getReviewsForBook(Long bookId) {
         return reviewRepository.findByBookId(bookId);
     }
+
+    /**
+     * Get the review count, average and rating histogram of a book; all zero when it has no reviews
+     */
+    @Transactional(readOnly = true)
+    public BookRatingStats getRatingStats(Long bookId) {
+        return ratingStatsRepository.findById(bookId)
+                .orElseGet(() -> new BookRatingStats(bookId));
+    }
 }
@@ -7,6 +7,9 @@ import org.springframework.stereotype.Component;
 public class ReviewValidator {
 
     public void validate(Review review) {
+        if (review.getBookId() == null) {
+            throw new IllegalArgumentException("Book ID is required");
+        }
         if (review.getRating() < 1 || review.getRating() > 5) {
             throw new IllegalArgumentException("Rating must be between 1 and 5");
         }
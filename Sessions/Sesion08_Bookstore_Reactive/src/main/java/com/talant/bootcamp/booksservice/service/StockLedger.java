@@ -0,0 +1,224 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock left for new orders of every book, so orders are accepted or rejected without a database round trip.
+ * Books are spread over lock stripes; orders of books in different stripes never contend.
+ * For each book it also tracks the quantity of accepted orders not yet taken off the stock column, which lets
+ * {@link #resync(Long)} recompute the stock left after the stock column is changed outside the order path.
+ */
+@Component
+public class StockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    static final int STRIPES = 64;
+    private static final long WRITE_WAIT_NANOS = 100_000;
+
+    private final BookRepository bookRepository;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Odd while the order writer is storing a batch and settling it; see resync
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    public StockLedger(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Load the stock left of every book from the stock column.
+     * Must run before orders are accepted, as it drops the pending quantities.
+     */
+    public void rebuild() {
+        Map<Long, Entry>[] rebuilt = newMaps();
+        for (Object[] row : bookRepository.findAllStocks()) {
+            Long bookId = ((Number) row[0]).longValue();
+            rebuilt[index(bookId)].put(bookId, new Entry(((Number) row[1]).intValue()));
+        }
+
+        int books = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            Stripe stripe = stripes[i];
+            stripe.lock.lock();
+            try {
+                stripe.entries = rebuilt[i];
+                books += rebuilt[i].size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        logger.info("Stock ledger built for {} books", books);
+    }
+
+    /**
+     * Take the given quantity off the stock left of a book if that much is left.
+     * The quantity stays pending until {@link #settle(Long, int)} is called once the order is stored.
+     *
+     * @return whether the quantity was taken
+     * @throws BookNotFoundException when the ledger does not know the book
+     */
+    public boolean take(Long bookId, int quantity) {
+        Stripe stripe = stripe(bookId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(bookId);
+            if (entry == null) {
+                throw new BookNotFoundException(bookId);
+            }
+            if (entry.available < quantity) {
+                return false;
+            }
+            entry.available -= quantity;
+            entry.pending += quantity;
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Give back a quantity taken for an order that will not be stored
+     */
+    public void giveBack(Long bookId, int quantity) {
+        Stripe stripe = stripe(bookId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(bookId);
+            if (entry != null) {
+                entry.available += quantity;
+                entry.pending -= quantity;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Record that an order of the given quantity has been stored in book_orders
+     */
+    public void settle(Long bookId, int quantity) {
+        Stripe stripe = stripe(bookId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(bookId);
+            if (entry != null) {
+                entry.pending -= quantity;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Mark the start of storing a batch of orders; must be followed by {@link #endWrite()}
+     */
+    public void beginWrite() {
+        writeSequence.incrementAndGet();
+    }
+
+    /**
+     * Mark the end of storing and settling a batch of orders
+     */
+    public void endWrite() {
+        writeSequence.incrementAndGet();
+    }
+
+    /**
+     * Reload the stock left of a book after its stock column was changed, or forget the book when it no longer exists.
+     * The database read is retried when a batch of orders was stored meanwhile, since those orders would then
+     * be counted both in the stock column and as pending quantity.
+     */
+    public void resync(Long bookId) {
+        while (true) {
+            long sequence = writeSequence.get();
+            if ((sequence & 1) != 0) {
+                LockSupport.parkNanos(WRITE_WAIT_NANOS);
+                continue;
+            }
+
+            Optional<Integer> stockLeft = bookRepository.findStockById(bookId);
+
+            Stripe stripe = stripe(bookId);
+            stripe.lock.lock();
+            try {
+                if (writeSequence.get() != sequence) {
+                    continue;
+                }
+                if (stockLeft.isEmpty()) {
+                    stripe.entries.remove(bookId);
+                } else {
+                    Entry entry = stripe.entries.computeIfAbsent(bookId, id -> new Entry(0));
+                    entry.available = stockLeft.get() - entry.pending;
+                }
+                return;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Get the stock left for new orders of a book
+     *
+     * @throws BookNotFoundException when the ledger does not know the book
+     */
+    public int available(Long bookId) {
+        Stripe stripe = stripe(bookId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(bookId);
+            if (entry == null) {
+                throw new BookNotFoundException(bookId);
+            }
+            return entry.available;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripe(Long bookId) {
+        return stripes[index(bookId)];
+    }
+
+    private static int index(Long bookId) {
+        return Long.hashCode(bookId * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Entry>[] newMaps() {
+        Map<Long, Entry>[] maps = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            maps[i] = new HashMap<>();
+        }
+        return maps;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Long, Entry> entries = new HashMap<>();
+    }
+
+    private static final class Entry {
+        private int available;
+        private int pending;
+
+        private Entry(int available) {
+            this.available = available;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.StockMismatch;
+import com.talant.bootcamp.booksservice.dto.StockReplayReport;
+import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
+import com.talant.bootcamp.booksservice.model.StockSnapshot;
+import com.talant.bootcamp.booksservice.repository.StockMovementRepository;
+import com.talant.bootcamp.booksservice.repository.StockSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of the stock movements of every book, with periodic per-book snapshots.
+ * Every stock change appends a movement in the transaction that changes the stock column, so the stock of a book
+ * can be read back as its snapshot plus the movements logged after it, and replayed from the log alone.
+ */
+@Service
+public class StockMovementLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMovementLog.class);
+
+    public static final String DEFAULT_SNAPSHOT_INTERVAL = "30s";
+    public static final int MAX_HISTORY_LIMIT = 1000;
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration snapshotInterval;
+    private final boolean snapshotsEnabled;
+
+    private ScheduledExecutorService snapshotter;
+
+    public StockMovementLog(StockMovementRepository movementRepository, StockSnapshotRepository snapshotRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${book.stock-movements.snapshot-interval:" + DEFAULT_SNAPSHOT_INTERVAL + "}") Duration snapshotInterval,
+                            @Value("${book.stock-movements.snapshots-enabled:true}") boolean snapshotsEnabled) {
+        if (snapshotInterval.isZero() || snapshotInterval.isNegative()) {
+            throw new IllegalArgumentException("Stock snapshot interval must be positive");
+        }
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotsEnabled = snapshotsEnabled;
+    }
+
+    /**
+     * Give a baseline movement to the books created before their movements were logged,
+     * then start taking snapshots periodically once the application is ready, unless
+     * book.stock-movements.snapshots-enabled is false
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recordBaselines();
+        if (!snapshotsEnabled) {
+            logger.info("Periodic stock snapshots disabled");
+            return;
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = snapshotInterval.toMillis();
+        snapshotter.scheduleWithFixedDelay(this::takeScheduledSnapshots, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+    }
+
+    /**
+     * Log a baseline movement for every book whose creation was not logged, so that the movements of every book
+     * add up to its stock column
+     *
+     * @return the number of books given a baseline
+     */
+    public int recordBaselines() {
+        int baselines = transactionTemplate.execute(status -> movementRepository.recordBaselines());
+        if (baselines > 0) {
+            logger.info("Logged baseline stock movements for {} books", baselines);
+        }
+        return baselines;
+    }
+
+    /**
+     * Append a movement to the log in the current transaction. Must be called after the book's row in books
+     * is locked by the change being logged, so the movements of a book are logged in commit order.
+     * Zero deltas are not logged. Appended with plain JDBC, skipping the persistence context.
+     */
+    public void record(Long bookId, int delta, StockMovementReason reason, Long sourceOffset) {
+        if (delta != 0) {
+            movementRepository.appendAll(List.of(new StockMovement(bookId, delta, reason, sourceOffset)));
+        }
+    }
+
+    /**
+     * Append one movement per book in one JDBC batch, under the same conditions as {@link #record}
+     */
+    public void recordAll(Map<Long, Integer> deltasByBook, StockMovementReason reason) {
+        List<StockMovement> movements = deltasByBook.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new StockMovement(entry.getKey(), entry.getValue(), reason, null))
+                .toList();
+        if (!movements.isEmpty()) {
+            movementRepository.appendAll(movements);
+        }
+    }
+
+    /**
+     * Append the given movements in one JDBC batch, under the same conditions as {@link #record}
+     */
+    public void recordAll(List<StockMovement> movements) {
+        List<StockMovement> nonZero = movements.stream()
+                .filter(movement -> movement.getDelta() != 0)
+                .toList();
+        if (!nonZero.isEmpty()) {
+            movementRepository.appendAll(nonZero);
+        }
+    }
+
+    /**
+     * Get the stock of a book from the log, as its latest snapshot plus the movements logged after it.
+     * A snapshot taken meanwhile does not matter, as the movements are read past the snapshot that was read.
+     *
+     * @throws BookNotFoundException when no movement of the book was logged
+     */
+    public int currentStock(Long bookId) {
+        Optional<StockSnapshot> snapshot = snapshotRepository.findById(bookId);
+        if (snapshot.isEmpty() && !movementRepository.existsByBookId(bookId)) {
+            throw new BookNotFoundException(bookId);
+        }
+        long after = snapshot.map(StockSnapshot::getLastMovementId).orElse(0L);
+        return snapshot.map(StockSnapshot::getStock).orElse(0) + (int) movementRepository.sumDeltasAfter(bookId, after);
+    }
+
+    /**
+     * Get the stock of a book by replaying all of its movements, ignoring its snapshot
+     */
+    public int replayStock(Long bookId) {
+        return (int) movementRepository.sumDeltasAfter(bookId, 0);
+    }
+
+    /**
+     * Get the latest movements of a book, newest first
+     */
+    public List<StockMovement> getMovements(Long bookId, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_HISTORY_LIMIT);
+        }
+        return movementRepository.findByBookIdOrderByIdDesc(bookId, Limit.of(limit));
+    }
+
+    /**
+     * Fold the movements logged since the last snapshots into the snapshots
+     *
+     * @return the number of books whose snapshot was written
+     */
+    public int takeSnapshots() {
+        return transactionTemplate.execute(status -> snapshotRepository.takeSnapshots());
+    }
+
+    /**
+     * Rebuild every snapshot from the full log, then compare the stock column of every book with its replayed stock
+     */
+    public StockReplayReport replay() {
+        int snapshots = transactionTemplate.execute(status -> {
+            snapshotRepository.deleteAllInBatch();
+            return snapshotRepository.takeSnapshots();
+        });
+        List<StockMismatch> mismatches = movementRepository.findStockMismatches().stream()
+                .map(row -> new StockMismatch(((Number) row[0]).longValue(), ((Number) row[1]).intValue(),
+                        ((Number) row[2]).intValue()))
+                .toList();
+        if (!mismatches.isEmpty()) {
+            logger.warn("Stock of {} books differs from the stock movement log: {}", mismatches.size(), mismatches);
+        }
+        return new StockReplayReport(snapshots, mismatches);
+    }
+
+    private void takeScheduledSnapshots() {
+        try {
+            int snapshots = takeSnapshots();
+            logger.debug("Took {} stock snapshots", snapshots);
+        } catch (RuntimeException e) {
+            logger.error("Error taking stock snapshots", e);
+        }
+    }
+}
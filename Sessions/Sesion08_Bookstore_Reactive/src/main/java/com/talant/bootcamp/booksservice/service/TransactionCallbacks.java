@@ -0,0 +1,68 @@
+package com.talant.bootcamp.booksservice.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+/**
+ * Helper to tie in-memory side effects to the outcome of the current transaction
+ */
+public final class TransactionCallbacks {
+
+    // Later registrations get a higher precedence so rollback compensations run in LIFO order
+    private static final AtomicInteger sequence = new AtomicInteger(Ordered.LOWEST_PRECEDENCE);
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Run the given compensation if the current transaction rolls back.
+     * Does nothing when no transaction is active.
+     */
+    public static void afterRollback(Runnable compensation) {
+        register(compensation, status -> status == TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    /**
+     * Run the given action once the current transaction completes, whatever the outcome.
+     * Does nothing when no transaction is active.
+     */
+    public static void afterCompletion(Runnable action) {
+        register(action, status -> true);
+    }
+
+    /**
+     * Run the given action once the current transaction commits.
+     * Runs it right away when no transaction is active.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        register(action, status -> status == TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private static void register(Runnable action, IntPredicate onStatus) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        int order = sequence.decrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return order;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (onStatus.test(status)) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
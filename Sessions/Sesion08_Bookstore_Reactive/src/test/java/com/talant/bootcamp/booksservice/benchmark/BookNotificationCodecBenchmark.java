@@ -0,0 +1,101 @@
+package com.talant.bootcamp.booksservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.config.BookNotificationDeserializer;
+import com.talant.bootcamp.booksservice.config.BookNotificationFormat;
+import com.talant.bootcamp.booksservice.config.BookNotificationSerializer;
+import com.talant.bootcamp.booksservice.config.KafkaConfig;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bytes per message and single-thread encode and decode throughput of the JSON and binary
+ * book notification formats, through the Kafka serializer and deserializer.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@DisplayName("Book Notification Codec Benchmark")
+class BookNotificationCodecBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final long WARMUP_MILLIS = 1000;
+    private static final long MEASURE_MILLIS = 2000;
+
+    private final ObjectMapper objectMapper = new KafkaConfig().objectMapper();
+    private final BookNotificationDeserializer deserializer = new BookNotificationDeserializer(objectMapper);
+
+    // Keeps the JIT from dropping the measured work
+    private long sink;
+
+    @Test
+    @DisplayName("JSON versus binary bytes per message and encode/decode throughput")
+    void compareFormats() {
+        BookNotification[] notifications = notifications();
+        System.out.printf("%n%-8s %14s %16s %16s%n", "format", "bytes/message", "encode ops/s", "decode ops/s");
+        for (BookNotificationFormat format : BookNotificationFormat.values()) {
+            BookNotificationSerializer serializer = new BookNotificationSerializer(format, objectMapper);
+            Headers[] headers = new Headers[MESSAGES];
+            byte[][] encoded = new byte[MESSAGES][];
+            long bytes = 0;
+            for (int i = 0; i < MESSAGES; i++) {
+                headers[i] = new RecordHeaders();
+                encoded[i] = serializer.serialize("book-notifications", headers[i], notifications[i]);
+                bytes += encoded[i].length;
+            }
+            assertEquals(notifications[7].getTitle(),
+                    deserializer.deserialize("book-notifications", headers[7], encoded[7]).getTitle());
+
+            double encodes = measure(i -> sink += serializer.serialize("book-notifications", notifications[i]).length);
+            double decodes = measure(i -> sink += deserializer.deserialize("book-notifications", headers[i], encoded[i])
+                    .getStock());
+
+            System.out.printf("%-8s %14.1f %16.0f %16.0f%n", format, (double) bytes / MESSAGES, encodes, decodes);
+        }
+    }
+
+    /**
+     * Run the operation over the sample messages in a loop, counting the calls made during the measured window only
+     */
+    private static double measure(Operation operation) {
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long measureTo = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        long measured = 0;
+        long now;
+        int i = 0;
+        while ((now = System.nanoTime()) < measureTo) {
+            operation.run(i);
+            i = (i + 1) & (MESSAGES - 1);
+            if (now >= measureFrom) {
+                measured++;
+            }
+        }
+        return measured * 1000.0 / MEASURE_MILLIS;
+    }
+
+    private static BookNotification[] notifications() {
+        BookCategory[] categories = BookCategory.values();
+        BookNotification.NotificationType[] types = BookNotification.NotificationType.values();
+        BookNotification[] notifications = new BookNotification[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            notifications[i] = new BookNotification(String.format("978%010d", i), "Benchmark Title Volume " + i,
+                    "Benchmark Author " + (i % 50), "A description of benchmark book number " + i + " in the catalog",
+                    BigDecimal.valueOf(999 + i * 7L, 2), i % 500, categories[i % categories.length],
+                    types[i % types.length], LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(i * 37L));
+        }
+        return notifications;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(int index);
+    }
+}
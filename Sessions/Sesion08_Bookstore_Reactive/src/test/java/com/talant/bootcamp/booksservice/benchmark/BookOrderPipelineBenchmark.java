@@ -0,0 +1,159 @@
+package com.talant.bootcamp.booksservice.benchmark;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookOrderRepository;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.service.BookCache;
+import com.talant.bootcamp.booksservice.service.BookNotificationOutbox;
+import com.talant.bootcamp.booksservice.service.BookOrderService;
+import com.talant.bootcamp.booksservice.service.InventoryAlertService;
+import com.talant.bootcamp.booksservice.service.StockLedger;
+import com.talant.bootcamp.booksservice.service.StockMovementLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of the order pipeline for several batch sizes and batch waits,
+ * with closed-loop clients that each wait for their order to be stored before placing the next.
+ * Kafka is stubbed out, so the numbers cover the ledger and the database writes only.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Book Order Pipeline Benchmark")
+class BookOrderPipelineBenchmark {
+
+    private static final int[] BATCH_SIZES = {1, 8, 64, 512};
+    private static final Duration[] BATCH_WAITS = {Duration.ZERO, Duration.ofMillis(2), Duration.ofMillis(10)};
+    private static final int CLIENTS = 32;
+    private static final int BOOKS = 50;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 2000;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private BookOrderRepository orderRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookNotificationOutbox notificationOutbox;
+
+    @Autowired
+    private InventoryAlertService inventoryAlertService;
+
+    @Autowired
+    private StockMovementLog stockMovementLog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Throughput and latency by batch size and batch wait")
+    void measureBatchSizesAndWaits() throws Exception {
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookRepository.save(new Book("Book " + i, "Benchmark Author", String.format("%010d", i + 1),
+                    "Benchmark title", new BigDecimal("9.99"), 999_999, BookCategory.FICTION)).getId());
+        }
+
+        System.out.printf("%n%-10s %-8s %12s %10s %10s%n", "batch", "wait", "orders/s", "p50 ms", "p99 ms");
+        for (int batchSize : BATCH_SIZES) {
+            for (Duration wait : BATCH_WAITS) {
+                BookOrderService pipeline = new BookOrderService(stockLedger, orderRepository, bookRepository, bookCache,
+                        notificationOutbox, inventoryAlertService, stockMovementLog, transactionTemplate,
+                        batchSize, wait, 100_000);
+                pipeline.start();
+                try {
+                    long[] latencies = run(pipeline, bookIds);
+                    Arrays.sort(latencies);
+                    System.out.printf("%-10d %-8s %12.0f %10.2f %10.2f%n", batchSize, wait.toMillis() + "ms",
+                            latencies.length * 1000.0 / MEASURE_MILLIS,
+                            percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+                } finally {
+                    pipeline.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Place orders from every client until the window ends
+     *
+     * @return the latencies in nanoseconds of the orders placed during the measured window
+     */
+    private static long[] run(BookOrderService pipeline, List<Long> bookIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long measureTo = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long begin;
+                    while ((begin = System.nanoTime()) < measureTo) {
+                        Long bookId = bookIds.get(ThreadLocalRandom.current().nextInt(bookIds.size()));
+                        pipeline.placeOrder(bookId, 1).join();
+                        if (begin >= measureFrom) {
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = System.nanoTime() - begin;
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            start.countDown();
+
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+            return results.stream().flatMapToLong(Arrays::stream).toArray();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
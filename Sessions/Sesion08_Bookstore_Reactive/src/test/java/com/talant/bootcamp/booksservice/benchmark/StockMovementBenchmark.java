@@ -0,0 +1,198 @@
+package com.talant.bootcamp.booksservice.benchmark;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.StockMovementRepository;
+import com.talant.bootcamp.booksservice.repository.StockSnapshotRepository;
+import com.talant.bootcamp.booksservice.service.StockMovementLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of taking one unit off a single hot book as writer threads are added, comparing the in-place
+ * UPDATE of the books row, a pure append to the stock movement log, and the UPDATE plus append that every
+ * stock change does now. Also times reading the stock back from the log as the tail behind the snapshot grows.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Stock Movement Benchmark")
+class StockMovementBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final int[] TAILS = {0, 100, 1_000, 10_000};
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 2000;
+    private static final int READS = 2000;
+    private static final int INITIAL_STOCK = 999_999;
+    private static final String TAKE_ONE = "UPDATE books SET stock = stock - 1 WHERE id = ?";
+
+    @Autowired
+    private StockMovementLog stockMovementLog;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private int isbnSequence;
+
+    @AfterEach
+    void tearDown() {
+        snapshotRepository.deleteAll();
+        movementRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("In-place UPDATE versus append-only movements under contention")
+    void compareWritesUnderContention() throws Exception {
+        System.out.printf("%n%-8s %16s %16s %18s%n", "threads", "update ops/s", "append ops/s", "update+append ops/s");
+        for (int threads : THREADS) {
+            Long updateId = newBook().getId();
+            Result update = run(threads, () -> transactionTemplate.execute(status ->
+                    jdbcTemplate.update(TAKE_ONE, updateId) == 1));
+
+            Long appendId = newBook().getId();
+            stockMovementLog.recordBaselines();
+            Result append = run(threads, () -> transactionTemplate.execute(status -> {
+                movementRepository.appendAll(List.of(new StockMovement(appendId, -1, StockMovementReason.ORDER, null)));
+                return true;
+            }));
+            assertEquals(INITIAL_STOCK - append.operations, stockMovementLog.replayStock(appendId),
+                    "appends must not lose movements");
+
+            Long bothId = newBook().getId();
+            stockMovementLog.recordBaselines();
+            Result both = run(threads, () -> transactionTemplate.execute(status -> {
+                jdbcTemplate.update(TAKE_ONE, bothId);
+                stockMovementLog.record(bothId, -1, StockMovementReason.ORDER, null);
+                return true;
+            }));
+
+            System.out.printf("%-8d %16.0f %16.0f %18.0f%n", threads, update.perSecond(), append.perSecond(),
+                    both.perSecond());
+        }
+    }
+
+    @Test
+    @DisplayName("Reading the stock from the snapshot and a growing tail")
+    void measureReadsByTailLength() {
+        System.out.printf("%n%-8s %18s %18s%n", "tail", "snapshot+tail us", "column read us");
+        for (int tail : TAILS) {
+            Long bookId = newBook().getId();
+            stockMovementLog.recordBaselines();
+            stockMovementLog.takeSnapshots();
+            List<StockMovement> movements = new ArrayList<>(tail);
+            for (int i = 0; i < tail; i++) {
+                movements.add(new StockMovement(bookId, -1, StockMovementReason.ORDER, null));
+            }
+            transactionTemplate.executeWithoutResult(status -> movementRepository.appendAll(movements));
+            assertEquals(INITIAL_STOCK - tail, stockMovementLog.currentStock(bookId));
+
+            double logMicros = timeReads(() -> stockMovementLog.currentStock(bookId));
+            double columnMicros = timeReads(() -> bookRepository.findStockById(bookId).orElseThrow());
+            System.out.printf("%-8d %18.1f %18.1f%n", tail, logMicros, columnMicros);
+        }
+    }
+
+    private Book newBook() {
+        return bookRepository.save(new Book("Hot Book", "Benchmark Author", String.format("%010d", ++isbnSequence),
+                "Contended title", new BigDecimal("19.99"), INITIAL_STOCK, BookCategory.FICTION));
+    }
+
+    private static double timeReads(Runnable read) {
+        for (int i = 0; i < READS / 10; i++) {
+            read.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            read.run();
+        }
+        return (System.nanoTime() - started) / 1000.0 / READS;
+    }
+
+    /**
+     * Run the operation from the given number of threads, counting the successful calls
+     * made during the measured window only
+     */
+    private static Result run(int threads, Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long measureTo = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long measured = 0;
+                    long total = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < measureTo) {
+                        if (operation.run()) {
+                            total++;
+                            if (now >= measureFrom) {
+                                measured++;
+                            }
+                        }
+                    }
+                    return new long[]{measured, total};
+                }));
+            }
+            start.countDown();
+
+            long measured = 0;
+            long total = 0;
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+                measured += counts[0];
+                total += counts[1];
+            }
+            return new Result(measured, total);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        boolean run() throws Exception;
+    }
+
+    private record Result(long measured, long operations) {
+        double perSecond() {
+            return measured * 1000.0 / MEASURE_MILLIS;
+        }
+    }
+}
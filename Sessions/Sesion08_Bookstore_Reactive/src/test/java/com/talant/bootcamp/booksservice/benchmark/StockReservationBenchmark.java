@@ -0,0 +1,138 @@
+package com.talant.bootcamp.booksservice.benchmark;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of buying one unit of a single hot book as writer threads are added,
+ * comparing the conditional UPDATE behind /reserve with a load-modify-save update.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Stock Reservation Benchmark")
+class StockReservationBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 2000;
+    private static final int INITIAL_STOCK = 999_999;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private int isbnSequence;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Conditional UPDATE versus load-modify-save under contention")
+    void compareUnderContention() throws Exception {
+        System.out.printf("%n%-8s %18s %18s %14s%n", "threads", "reserve ops/s", "load-save ops/s", "lost updates");
+        for (int threads : THREADS) {
+            Long reserveId = newBook().getId();
+            Result reserve = run(threads, () -> bookService.reserveStock(reserveId, 1).isReserved());
+            int reserveStock = bookRepository.findById(reserveId).orElseThrow().getStock();
+            assertEquals(INITIAL_STOCK - reserve.operations, reserveStock, "conditional UPDATE must not lose updates");
+
+            Long loadSaveId = newBook().getId();
+            Result loadSave = run(threads, () -> transactionTemplate.execute(status -> {
+                Book book = bookRepository.findById(loadSaveId).orElseThrow();
+                book.setStock(book.getStock() - 1);
+                return true;
+            }));
+            int loadSaveStock = bookRepository.findById(loadSaveId).orElseThrow().getStock();
+            long lost = loadSave.operations - (INITIAL_STOCK - loadSaveStock);
+
+            System.out.printf("%-8d %18.0f %18.0f %14d%n", threads, reserve.perSecond(), loadSave.perSecond(), lost);
+        }
+    }
+
+    private Book newBook() {
+        return bookRepository.save(new Book("Hot Book", "Benchmark Author", String.format("%010d", ++isbnSequence),
+                "Contended title", new BigDecimal("19.99"), INITIAL_STOCK, BookCategory.FICTION));
+    }
+
+    /**
+     * Run the operation from the given number of threads, counting the successful calls
+     * made during the measured window only
+     */
+    private static Result run(int threads, Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long measureTo = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long measured = 0;
+                    long total = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < measureTo) {
+                        if (operation.run()) {
+                            total++;
+                            if (now >= measureFrom) {
+                                measured++;
+                            }
+                        }
+                    }
+                    return new long[]{measured, total};
+                }));
+            }
+            start.countDown();
+
+            long measured = 0;
+            long total = 0;
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+                measured += counts[0];
+                total += counts[1];
+            }
+            return new Result(measured, total);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        boolean run() throws Exception;
+    }
+
+    private record Result(long measured, long operations) {
+        double perSecond() {
+            return measured * 1000.0 / MEASURE_MILLIS;
+        }
+    }
+}
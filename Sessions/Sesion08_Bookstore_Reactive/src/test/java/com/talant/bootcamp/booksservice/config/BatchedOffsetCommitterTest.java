@@ -0,0 +1,112 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.ConsumerPartitionLag;
+import com.talant.bootcamp.booksservice.service.KafkaConsumerMetrics;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ConsumerAwareRecordRecoverer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batched Offset Committer Tests")
+class BatchedOffsetCommitterTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("book-notifications", 0);
+
+    private final KafkaConsumerMetrics consumerMetrics = new KafkaConsumerMetrics();
+    private final BatchedOffsetCommitter committer =
+        new BatchedOffsetCommitter(consumerMetrics, 3, Duration.ofSeconds(1));
+    private MockConsumer<String, BookNotification> consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        consumer.seek(PARTITION, 10);
+    }
+
+    @Test
+    @DisplayName("Should commit up to the first record not handled yet once enough records were handled")
+    void shouldCommitContiguousOffsetsEveryFewRecords() {
+        // Given
+        ConsumerAwareRecordRecoverer recoverer = committer.recovering((record, recordConsumer, exception) -> { });
+        consumer.seek(PARTITION, 15);
+
+        // When
+        long now = System.nanoTime();
+        handle(10);
+        handle(11);
+        committer.commitIfDue(consumer, now);
+        Map<TopicPartition, OffsetAndMetadata> afterTwo = consumer.committed(Set.of(PARTITION));
+        committer.intercept(record(12), consumer);
+        recoverer.accept(record(12), consumer, new IllegalStateException("database down"));
+        committer.intercept(record(13), consumer);
+        handle(14);
+        committer.commitIfDue(consumer, now);
+
+        // Then
+        assertNull(afterTwo.get(PARTITION));
+        assertEquals(13, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        ConsumerPartitionLag lag = consumerMetrics.lag().get(0);
+        assertEquals(13, lag.getCommittedOffset());
+        assertEquals(15, lag.getPosition());
+        assertEquals(2, lag.getLag());
+    }
+
+    @Test
+    @DisplayName("Should commit what was handled once the commit interval has passed, but not past the position")
+    void shouldCommitAfterTheIntervalUpToThePosition() {
+        // Given
+        long now = System.nanoTime();
+        handle(10);
+        handle(11);
+
+        // When
+        committer.commitIfDue(consumer, now);
+        // A nack seeks back to the record it hands back
+        consumer.seek(PARTITION, 11);
+        committer.commitIfDue(consumer, now + Duration.ofDays(1).toNanos());
+
+        // Then
+        assertEquals(11, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+    }
+
+    @Test
+    @DisplayName("Should commit revoked partitions at once and stop reporting them")
+    void shouldCommitRevokedPartitions() {
+        // Given
+        handle(10);
+        consumer.seek(PARTITION, 11);
+
+        // When
+        committer.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        // Then
+        assertEquals(11, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertTrue(consumerMetrics.lag().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+            () -> new BatchedOffsetCommitter(consumerMetrics, 0, Duration.ofSeconds(1)));
+    }
+
+    private void handle(long offset) {
+        ConsumerRecord<String, BookNotification> record = committer.intercept(record(offset), consumer);
+        committer.success(record, consumer);
+    }
+
+    private static ConsumerRecord<String, BookNotification> record(long offset) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "1111111111",
+            new BookNotification());
+    }
+}
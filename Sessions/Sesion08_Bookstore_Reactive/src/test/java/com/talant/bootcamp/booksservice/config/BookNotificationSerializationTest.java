@@ -0,0 +1,138 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Book Notification Serialization Tests")
+class BookNotificationSerializationTest {
+
+    private final ObjectMapper objectMapper = new KafkaConfig().objectMapper();
+    private final BookNotificationDeserializer deserializer = new BookNotificationDeserializer(objectMapper);
+
+    @Test
+    @DisplayName("Should round-trip every field through the binary codec")
+    void shouldRoundTripBinary() {
+        // Given
+        BookNotification notification = notification();
+        notification.setStock(-3);
+        notification.setDescription("Édition révisée — 第二版");
+
+        // When
+        BookNotification decoded = BookNotificationBinaryCodec.decode(BookNotificationBinaryCodec.encode(notification));
+
+        // Then
+        assertSameNotification(notification, decoded);
+    }
+
+    @Test
+    @DisplayName("Should round-trip null fields through the binary codec")
+    void shouldRoundTripNullFields() {
+        // Given
+        BookNotification notification = new BookNotification();
+        notification.setIsbn("1234567890");
+
+        // When
+        BookNotification decoded = BookNotificationBinaryCodec.decode(BookNotificationBinaryCodec.encode(notification));
+
+        // Then
+        assertSameNotification(notification, decoded);
+    }
+
+    @Test
+    @DisplayName("Should name the format in the content type header and read each record by its header")
+    void shouldNegotiateFormatByHeader() {
+        for (BookNotificationFormat format : BookNotificationFormat.values()) {
+            // Given
+            BookNotificationSerializer serializer = new BookNotificationSerializer(format, objectMapper);
+            Headers headers = new RecordHeaders();
+
+            // When
+            byte[] data = serializer.serialize("book-notifications", headers, notification());
+            BookNotification decoded = deserializer.deserialize("book-notifications", headers, data);
+
+            // Then
+            assertEquals(format.getContentType(), new String(
+                    headers.lastHeader(BookNotificationFormat.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8));
+            assertSameNotification(notification(), decoded);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read records without a content type header as JSON")
+    void shouldReadJsonWithoutHeader() {
+        // Given
+        byte[] data = ("{\"isbn\":\"1234567890\",\"stock\":7,\"notification_type\":\"STOCK_UPDATE\"," +
+                "\"timestamp\":\"2026-01-02 03:04:05\"}").getBytes(StandardCharsets.UTF_8);
+
+        // When
+        BookNotification decoded = deserializer.deserialize("book-stock-updates", new RecordHeaders(), data);
+
+        // Then
+        assertEquals("1234567890", decoded.getIsbn());
+        assertEquals(7, decoded.getStock());
+        assertEquals(BookNotification.NotificationType.STOCK_UPDATE, decoded.getNotificationType());
+        assertEquals(LocalDateTime.of(2026, 1, 2, 3, 4, 5), decoded.getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown content types and truncated binary records")
+    void shouldRejectUnreadableRecords() {
+        // Given
+        Headers unknown = new RecordHeaders();
+        unknown.add(BookNotificationFormat.CONTENT_TYPE_HEADER, "text/plain".getBytes(StandardCharsets.UTF_8));
+        byte[] encoded = BookNotificationBinaryCodec.encode(notification());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+
+        // When / Then
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("book-notifications", unknown, encoded));
+        assertThrows(SerializationException.class, () -> BookNotificationBinaryCodec.decode(truncated));
+        assertThrows(SerializationException.class, () -> BookNotificationBinaryCodec.decode(new byte[]{0}));
+    }
+
+    @Test
+    @DisplayName("Should encode a notification in fewer bytes than JSON")
+    void shouldBeSmallerThanJson() {
+        // Given
+        BookNotification notification = notification();
+
+        // When
+        byte[] binary = new BookNotificationSerializer(BookNotificationFormat.BINARY, objectMapper)
+                .serialize("book-notifications", notification);
+        byte[] json = new BookNotificationSerializer(BookNotificationFormat.JSON, objectMapper)
+                .serialize("book-notifications", notification);
+
+        // Then
+        assertTrue(binary.length < json.length / 2, binary.length + " binary bytes vs " + json.length + " JSON bytes");
+    }
+
+    private static BookNotification notification() {
+        return new BookNotification("1234567890", "Clean Code", "Robert C. Martin", "A handbook of agile craftsmanship",
+                new BigDecimal("29.99"), 42, BookCategory.TECHNOLOGY, BookNotification.NotificationType.BOOK_UPDATE,
+                LocalDateTime.of(2026, 3, 14, 15, 9, 26));
+    }
+
+    private static void assertSameNotification(BookNotification expected, BookNotification actual) {
+        assertEquals(expected.getIsbn(), actual.getIsbn());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getAuthor(), actual.getAuthor());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getStock(), actual.getStock());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getNotificationType(), actual.getNotificationType());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    }
+}
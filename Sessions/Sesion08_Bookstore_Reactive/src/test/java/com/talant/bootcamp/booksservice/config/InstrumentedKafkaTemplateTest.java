@@ -0,0 +1,71 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.dto.ProducerTopicMetrics;
+import com.talant.bootcamp.booksservice.service.KafkaProducerMetrics;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Instrumented Kafka Template Tests")
+class InstrumentedKafkaTemplateTest {
+
+    @Mock
+    private ProducerFactory<String, String> producerFactory;
+
+    private final MockProducer<String, String> producer =
+            new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+
+    private final KafkaProducerMetrics producerMetrics = new KafkaProducerMetrics();
+
+    private InstrumentedKafkaTemplate<String, String> kafkaTemplate;
+
+    @BeforeEach
+    void setUp() {
+        when(producerFactory.createProducer()).thenReturn(producer);
+        kafkaTemplate = new InstrumentedKafkaTemplate<>(producerFactory, producerMetrics);
+    }
+
+    @Test
+    @DisplayName("Should count a send in flight until it is acknowledged or fails")
+    void shouldRecordSendsPerTopic() {
+        // Given
+        CompletableFuture<SendResult<String, String>> acknowledged = kafkaTemplate.send("book-notifications", "1", "a");
+        CompletableFuture<SendResult<String, String>> failed = kafkaTemplate.send("book-notifications", "2", "b");
+        assertEquals(2, metrics().getInFlight());
+
+        // When
+        producer.completeNext();
+        producer.errorNext(new RuntimeException("broker down"));
+
+        // Then
+        assertFalse(acknowledged.isCompletedExceptionally());
+        assertTrue(failed.isCompletedExceptionally());
+        ProducerTopicMetrics metrics = metrics();
+        assertEquals(2, metrics.getSent());
+        assertEquals(1, metrics.getAcknowledged());
+        assertEquals(1, metrics.getFailed());
+        assertEquals(0, metrics.getInFlight());
+        assertEquals(0.5, metrics.getErrorRate());
+        assertEquals(1, metrics.getLatencyMicros().getCount());
+    }
+
+    private ProducerTopicMetrics metrics() {
+        List<ProducerTopicMetrics> topics = producerMetrics.snapshot();
+        assertEquals(1, topics.size());
+        return topics.get(0);
+    }
+}
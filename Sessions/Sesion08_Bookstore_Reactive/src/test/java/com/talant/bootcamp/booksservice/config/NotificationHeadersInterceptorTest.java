@@ -0,0 +1,70 @@
+package com.talant.bootcamp.booksservice.config;
+
+import com.talant.bootcamp.booksservice.service.NotificationApplyScope;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.config.ConfigException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Notification Headers Interceptor Tests")
+class NotificationHeadersInterceptorTest {
+
+    private NotificationHeadersInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new NotificationHeadersInterceptor();
+        interceptor.configure(Map.of(NotificationHeadersInterceptor.ORIGIN_CONFIG, "book-service"));
+    }
+
+    @Test
+    @DisplayName("Should add the origin and a new event ID to every record, keeping headers already set")
+    void shouldAddOriginAndEventId() {
+        // Given
+        ProducerRecord<Object, Object> first = new ProducerRecord<>("book-notifications", "1111111111", "payload");
+        ProducerRecord<Object, Object> second = new ProducerRecord<>("book-notifications", "1111111111", "payload");
+        second.headers().add(NotificationHeaders.EVENT_ID, "outbox-7".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        interceptor.onSend(first);
+        interceptor.onSend(second);
+
+        // Then
+        assertEquals("book-service", NotificationHeaders.get(first.headers(), NotificationHeaders.ORIGIN));
+        assertNotNull(NotificationHeaders.get(first.headers(), NotificationHeaders.EVENT_ID));
+        assertNull(NotificationHeaders.get(first.headers(), NotificationHeaders.CAUSATION_ID));
+        assertEquals("outbox-7", NotificationHeaders.get(second.headers(), NotificationHeaders.EVENT_ID));
+        assertEquals(2, second.headers().toArray().length);
+    }
+
+    @Test
+    @DisplayName("Should name the notification being applied as the cause of records sent for its book")
+    void shouldAddCausationWhileApplyingNotifications() {
+        // Given
+        ProducerRecord<Object, Object> alert = new ProducerRecord<>("book-low-stock", "1111111111", "payload");
+        ProducerRecord<Object, Object> other = new ProducerRecord<>("book-low-stock", "2222222222", "payload");
+
+        // When
+        NotificationApplyScope.apply(Map.of("1111111111", "event-1"), () -> {
+            interceptor.onSend(alert);
+            interceptor.onSend(other);
+            return null;
+        });
+
+        // Then
+        assertEquals("event-1", NotificationHeaders.get(alert.headers(), NotificationHeaders.CAUSATION_ID));
+        assertNull(NotificationHeaders.get(other.headers(), NotificationHeaders.CAUSATION_ID));
+    }
+
+    @Test
+    @DisplayName("Should require an origin")
+    void shouldRequireOrigin() {
+        assertThrows(ConfigException.class, () -> new NotificationHeadersInterceptor().configure(Map.of()));
+    }
+}
@@ -0,0 +1,77 @@
+package com.talant.bootcamp.booksservice.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Notification Retry Topics Tests")
+class NotificationRetryTopicsTest {
+
+    private final NotificationRetryTopics retryTopics = new NotificationRetryTopics(
+        List.of("book-notifications", "book-stock-updates"),
+        List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60)));
+
+    @Test
+    @DisplayName("Should send a failed record through every retry tier and then to the dead-letter topic")
+    void shouldGoThroughEveryTier() {
+        // Given
+        Exception failure = new ListenerExecutionFailedException("failed", new IllegalStateException("database down"));
+
+        // When & Then
+        assertEquals(new TopicPartition("book-stock-updates-retry-1", -1),
+            retryTopics.destination(record("book-stock-updates", 0), failure));
+        assertEquals(new TopicPartition("book-stock-updates-retry-2", -1),
+            retryTopics.destination(record("book-stock-updates-retry-1", 0), failure));
+        assertEquals(new TopicPartition("book-stock-updates-retry-3", -1),
+            retryTopics.destination(record("book-stock-updates-retry-2", 0), failure));
+        assertEquals(new TopicPartition("book-stock-updates-dlt", -1),
+            retryTopics.destination(record("book-stock-updates-retry-3", 0), failure));
+        assertArrayEquals(new String[]{"book-notifications-retry-2", "book-stock-updates-retry-2"},
+            retryTopics.retryTopics(2));
+    }
+
+    @Test
+    @DisplayName("Should send records that cannot be read or applied straight to the dead-letter topic")
+    void shouldSkipRetriesThatCannotHelp() {
+        // Given
+        ConsumerRecord<String, String> unreadable = record("book-notifications", 0);
+        unreadable.headers().add(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new byte[0]);
+        Exception invalid = new ListenerExecutionFailedException("failed",
+            new IllegalArgumentException("Notification does not fit a book"));
+
+        // When & Then
+        assertEquals(new TopicPartition("book-notifications-dlt", -1),
+            retryTopics.destination(unreadable, new IllegalStateException("unreadable")));
+        assertEquals(new TopicPartition("book-notifications-dlt", -1),
+            retryTopics.destination(record("book-notifications-retry-1", 0), invalid));
+    }
+
+    @Test
+    @DisplayName("Should hold a retried record until the delay of its tier has passed since it was written")
+    void shouldWaitForTheDelayOfTheTier() {
+        // Given
+        ConsumerRecord<String, String> retried = record("book-notifications-retry-2", 50_000);
+
+        // When & Then
+        assertEquals(Duration.ofSeconds(4), retryTopics.remainingDelay(retried, 56_000));
+        assertEquals(Duration.ZERO, retryTopics.remainingDelay(retried, 60_000));
+        assertThrows(IllegalArgumentException.class,
+            () -> new NotificationRetryTopics(List.of("book-notifications"), List.of(Duration.ofSeconds(1))));
+    }
+
+    private static ConsumerRecord<String, String> record(String topic, long timestamp) {
+        return new ConsumerRecord<>(topic, 0, 0, timestamp, TimestampType.CREATE_TIME, 0, 0, "1111111111", "payload",
+            new RecordHeaders(), Optional.empty());
+    }
+}
@@ -1,12 +1,26 @@
 package com.talant.bootcamp.booksservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.dto.BookCacheStats;
+import com.talant.bootcamp.booksservice.dto.BookPage;
+import com.talant.bootcamp.booksservice.dto.BookQuery;
+import com.talant.bootcamp.booksservice.dto.BookQueryResponse;
 import com.talant.bootcamp.booksservice.dto.BookRequest;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
+import com.talant.bootcamp.booksservice.dto.CategoryAveragePrice;
+import com.talant.bootcamp.booksservice.dto.CategoryStatistics;
+import com.talant.bootcamp.booksservice.dto.CategoryStatisticsCheck;
+import com.talant.bootcamp.booksservice.dto.PriceFacet;
+import com.talant.bootcamp.booksservice.dto.StockReservation;
+import com.talant.bootcamp.booksservice.dto.StockUpdateRequest;
+import com.talant.bootcamp.booksservice.dto.StockUpdateResult;
 import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
 import com.talant.bootcamp.booksservice.exception.DuplicateIsbnException;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.service.BookExportService;
+import com.talant.bootcamp.booksservice.service.BookQueryService;
 import com.talant.bootcamp.booksservice.service.BookService;
 import com.talant.bootcamp.booksservice.service.BookSearchService;
 import com.talant.bootcamp.booksservice.service.BookStatisticsService;
@@ -17,20 +31,31 @@ import com.talant.bootcamp.booksservice.service.ReactiveBookStatisticsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -45,6 +70,12 @@ class BookControllerTest {
     @MockitoBean
     private BookSearchService bookSearchService;
     
+    @MockitoBean
+    private BookExportService bookExportService;
+    
+    @MockitoBean
+    private BookQueryService bookQueryService;
+    
     @MockitoBean
     private BookStatisticsService bookStatisticsService;
     
@@ -118,13 +149,197 @@ class BookControllerTest {
     void shouldGetAllBooks() throws Exception {
         // Given
         List<BookResponse> books = Arrays.asList(bookResponse);
-        when(bookService.getAllBooks()).thenReturn(books);
+        when(bookService.getAllBooks(null, BookPage.UNPAGED)).thenReturn(new BookPage(books, null));
 
         // When & Then
         mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].title").value("Test Book"));
+                .andExpect(jsonPath("$[0].title").value("Test Book"))
+                .andExpect(header().doesNotExist(BookController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should return the next cursor when more books are available")
+    void shouldReturnNextCursorWhenMoreBooksAvailable() throws Exception {
+        // Given
+        List<BookResponse> books = Arrays.asList(bookResponse);
+        when(bookService.getAllBooks("abc", 1)).thenReturn(new BookPage(books, "def"));
+
+        // When & Then
+        mockMvc.perform(get("/api/books").param("after", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Test Book"))
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "def"));
+    }
+
+    @Test
+    @DisplayName("Should use the default page size once a cursor is given without a limit")
+    void shouldUseDefaultPageSizeWithCursorOnly() throws Exception {
+        // Given
+        when(bookService.getAllBooks("abc", 100)).thenReturn(new BookPage(List.of(bookResponse), "def"));
+
+        // When & Then
+        mockMvc.perform(get("/api/books").param("after", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "def"));
+    }
+
+    @Test
+    @DisplayName("Should cap the page size at the configured maximum")
+    void shouldCapPageSizeAtMaximum() throws Exception {
+        // Given
+        when(bookService.getAllBooks(null, 1000)).thenReturn(new BookPage(List.of(), null));
+
+        // When & Then
+        mockMvc.perform(get("/api/books").param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive page size")
+    void shouldRejectNonPositivePageSize() throws Exception {
+        mockMvc.perform(get("/api/books").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should stream the catalog export as NDJSON")
+    void shouldStreamCatalogExport() throws Exception {
+        // Given
+        when(bookExportService.exportBooks(any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    @DisplayName("Should query books with combined criteria and facets")
+    void shouldQueryBooksWithFacets() throws Exception {
+        // Given
+        BookQueryResponse response = new BookQueryResponse(List.of(bookResponse), 4,
+                Map.of("FICTION", 4L), List.of(new PriceFacet(null, new BigDecimal("50"), 4)));
+        when(bookQueryService.queryBooks(any(BookQuery.class), eq(5))).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(get("/api/books/query")
+                        .param("category", "FICTION")
+                        .param("minPrice", "10")
+                        .param("inStock", "true")
+                        .param("sort", "PRICE_DESC")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].title").value("Test Book"))
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.categories.FICTION").value(4))
+                .andExpect(jsonPath("$.prices[0].max").value(50));
+
+        ArgumentCaptor<BookQuery> query = ArgumentCaptor.forClass(BookQuery.class);
+        verify(bookQueryService).queryBooks(query.capture(), eq(5));
+        assertEquals(BookCategory.FICTION, query.getValue().getCategory());
+        assertEquals(new BigDecimal("10"), query.getValue().getMinPrice());
+        assertEquals(Boolean.TRUE, query.getValue().getInStock());
+        assertEquals(BookSortKey.PRICE_DESC, query.getValue().getSort());
+    }
+
+    @Test
+    @DisplayName("Should get typed book statistics by category")
+    void shouldGetBookStatisticsByCategory() throws Exception {
+        // Given
+        when(bookStatisticsService.getBookStatisticsByCategory()).thenReturn(List.of(
+                new CategoryStatistics(BookCategory.FICTION, 2, new BigDecimal("51.00"),
+                        new BigDecimal("20.50"), new BigDecimal("30.50"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/books/statistics/category"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].category").value("Fiction"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[0].averagePrice").value(25.50))
+                .andExpect(jsonPath("$[0].minPrice").value(20.50))
+                .andExpect(jsonPath("$[0].maxPrice").value(30.50));
+    }
+
+    @Test
+    @DisplayName("Should get average price by category")
+    void shouldGetAveragePriceByCategory() throws Exception {
+        // Given
+        when(bookStatisticsService.getAveragePriceByCategory()).thenReturn(List.of(
+                new CategoryAveragePrice(BookCategory.FICTION, new BigDecimal("25.50"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/books/statistics/average-price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].category").value("Fiction"))
+                .andExpect(jsonPath("$[0].averagePrice").value(25.50));
+    }
+
+    @Test
+    @DisplayName("Should check category statistics against the database")
+    void shouldCheckCategoryStatistics() throws Exception {
+        // Given
+        when(bookStatisticsService.checkCategoryStatistics()).thenReturn(new CategoryStatisticsCheck(List.of(), List.of()));
+
+        // When & Then
+        mockMvc.perform(get("/api/books/statistics/category/check"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consistent").value(true))
+                .andExpect(jsonPath("$.expected").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should get book cache statistics")
+    void shouldGetCacheStatistics() throws Exception {
+        // Given
+        when(bookStatisticsService.getCacheStatistics()).thenReturn(new BookCacheStats(3, 1, 0, 2, 512));
+
+        // When & Then
+        mockMvc.perform(get("/api/books/statistics/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1))
+                .andExpect(jsonPath("$.evictions").value(0))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
+
+    @Test
+    @DisplayName("Should enrich reactive search results with one bulk lookup per window")
+    void shouldEnrichReactiveSearchResultsInWindows() throws Exception {
+        // Given
+        Book second = new Book("Test Book 2", "Test Author", "0987654321", "Test Description",
+                new BigDecimal("19.99"), 0, BookCategory.FICTION);
+        second.setId(2L);
+        when(reactiveBookSearchService.findByTitleContains("Test")).thenReturn(Flux.just(book, second));
+        when(reactiveBookOrderService.checkStock(List.of(1L, 2L))).thenReturn(Mono.just(Map.of(1L, true, 2L, false)));
+        when(reactiveBookStatisticsService.getAverageRatings(List.of(1L, 2L))).thenReturn(Mono.just(Map.of(1L, 4.5, 2L, 0.0)));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/books/search/reactive").param("keyword", "Test"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+        verify(reactiveBookOrderService).checkStock(List.of(1L, 2L));
+        verify(reactiveBookStatisticsService).getAverageRatings(List.of(1L, 2L));
+        verify(reactiveBookOrderService, never()).checkStock(anyLong());
+        verify(reactiveBookStatisticsService, never()).getAverageRating(anyLong());
     }
 
     @Test
@@ -210,7 +425,7 @@ class BookControllerTest {
     void shouldGetBooksByCategory() throws Exception {
         // Given
         List<BookResponse> books = Arrays.asList(bookResponse);
-        when(bookSearchService.getBooksByCategory(BookCategory.FICTION)).thenReturn(books);
+        when(bookSearchService.getBooksByCategory(BookCategory.FICTION, null, BookPage.UNPAGED)).thenReturn(new BookPage(books, null));
 
         // When & Then
         mockMvc.perform(get("/api/books/category/FICTION"))
@@ -224,7 +439,7 @@ class BookControllerTest {
     void shouldGetBooksWithStock() throws Exception {
         // Given
         List<BookResponse> books = Arrays.asList(bookResponse);
-        when(bookSearchService.getBooksWithStock()).thenReturn(books);
+        when(bookSearchService.getBooksWithStock(null, BookPage.UNPAGED)).thenReturn(new BookPage(books, null));
 
         // When & Then
         mockMvc.perform(get("/api/books/in-stock"))
@@ -272,6 +487,54 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.id").value(1));
     }
 
+    @Test
+    @DisplayName("Should update the stock of many books and answer per item")
+    void shouldUpdateStocksInBulk() throws Exception {
+        // Given
+        List<StockUpdateRequest> updates = List.of(
+            StockUpdateRequest.byId(1L, 25),
+            StockUpdateRequest.byIsbn("0000000000", 3)
+        );
+        when(bookService.updateStocks(any())).thenReturn(List.of(
+            new StockUpdateResult(1L, "1234567890", 25, StockUpdateResult.Status.UPDATED),
+            new StockUpdateResult(null, "0000000000", 3, StockUpdateResult.Status.NOT_FOUND)
+        ));
+
+        // When & Then
+        mockMvc.perform(patch("/api/books/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[1].isbn").value("0000000000"));
+    }
+
+    @Test
+    @DisplayName("Should reserve stock")
+    void shouldReserveStock() throws Exception {
+        // Given
+        when(bookService.reserveStock(1L, 2)).thenReturn(new StockReservation(1L, 2, true));
+
+        // When & Then
+        mockMvc.perform(post("/api/books/1/reserve")
+                .param("quantity", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reserved").value(true));
+    }
+
+    @Test
+    @DisplayName("Should return 409 when stock is insufficient")
+    void shouldReturnConflictWhenStockIsInsufficient() throws Exception {
+        // Given
+        when(bookService.reserveStock(1L, 1)).thenReturn(new StockReservation(1L, 1, false));
+
+        // When & Then
+        mockMvc.perform(post("/api/books/1/reserve"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.reserved").value(false));
+    }
+
     @Test
     @DisplayName("Should check if book exists by ISBN")
     void shouldCheckIfBookExistsByIsbn() throws Exception {
@@ -3,6 +3,7 @@ package com.talant.bootcamp.booksservice.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.talant.bootcamp.booksservice.dto.BookRequest;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -145,6 +147,37 @@ class BookIntegrationTest {
                 .andExpect(jsonPath("$[0].author").value("J.R.R. Tolkien"));
     }
     
+    @Test
+    @DisplayName("Should query books with combined criteria and facets")
+    void shouldQueryBooksWithFacets() throws Exception {
+        // Given - Books stored directly, so no notifications are published
+        bookRepository.saveAll(List.of(
+            new Book("Facet Query Fantasy", "J.R.R. Tolkien", "9780000000101",
+                    "Epic fantasy", new BigDecimal("29.99"), 50, BookCategory.FANTASY),
+            new Book("Facet Query Fiction", "George Orwell", "9780000000102",
+                    "Dystopia", new BigDecimal("19.99"), 30, BookCategory.FICTION),
+            new Book("Facet Query Technology", "Robert C. Martin", "9780000000103",
+                    "Programming", new BigDecimal("45.99"), 15, BookCategory.TECHNOLOGY)
+        ));
+        
+        // When & Then - Query by title, price and stock, sorted by price descending
+        mockMvc.perform(get("/api/books/query")
+                .param("title", "facet query")
+                .param("minPrice", "20")
+                .param("inStock", "true")
+                .param("sort", "PRICE_DESC")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books.length()").value(1))
+                .andExpect(jsonPath("$.books[0].title").value("Facet Query Technology"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.categories.FANTASY").value(1))
+                .andExpect(jsonPath("$.categories.TECHNOLOGY").value(1))
+                .andExpect(jsonPath("$.prices[2].count").value(2))
+                .andExpect(jsonPath("$.prices[2].min").value(25))
+                .andExpect(jsonPath("$.prices[3].count").value(0));
+    }
+    
     @Test
     @DisplayName("Should update stock of a book")
     void shouldUpdateBookStock() throws Exception {
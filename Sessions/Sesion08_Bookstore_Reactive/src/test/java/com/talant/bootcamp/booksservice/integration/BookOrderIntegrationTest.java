@@ -0,0 +1,128 @@
+package com.talant.bootcamp.booksservice.integration;
+
+import com.talant.bootcamp.booksservice.dto.BookOrderResult;
+import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.BookOrder;
+import com.talant.bootcamp.booksservice.repository.BookOrderRepository;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.service.BookOrderService;
+import com.talant.bootcamp.booksservice.service.BookService;
+import com.talant.bootcamp.booksservice.service.StockLedger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: orders are stored by the writer thread in its own transactions
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Book Order Integration Tests")
+class BookOrderIntegrationTest {
+
+    @Autowired
+    private BookOrderService bookOrderService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookOrderRepository orderRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(new Book("Flash Sale", "Some Author", "4455667788",
+                "Limited stock", new BigDecimal("9.99"), 10, BookCategory.FICTION));
+        stockLedger.resync(book.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should accept exactly the stock under concurrent orders and persist it")
+    void shouldAcceptExactlyTheStockUnderConcurrentOrders() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            futures.add(executor.submit(() -> bookOrderService.placeOrder(book.getId(), 1).join().isAccepted()));
+        }
+        long accepted = 0;
+        for (Future<Boolean> future : futures) {
+            accepted += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(10, accepted);
+        assertEquals(0, bookOrderService.getAvailableStock(book.getId()));
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getStock());
+        List<BookOrder> orders = orderRepository.findAll();
+        assertEquals(10, orders.size());
+    }
+
+    @Test
+    @DisplayName("Should follow stock changes made outside the order path")
+    void shouldFollowStockChangesMadeOutsideOrderPath() {
+        // Given
+        bookOrderService.placeOrder(book.getId(), 3).join();
+
+        // When
+        bookService.reserveStock(book.getId(), 5);
+
+        // Then
+        assertEquals(2, bookOrderService.getAvailableStock(book.getId()));
+        assertEquals(2, bookRepository.findById(book.getId()).orElseThrow().getStock());
+
+        // When
+        bookService.deleteBook(book.getId());
+
+        // Then
+        assertThrows(BookNotFoundException.class, () -> bookOrderService.placeOrder(book.getId(), 1));
+    }
+
+    @Test
+    @DisplayName("Should refuse orders the stock no longer covers when the batch is written")
+    void shouldRefuseOrdersStockNoLongerCovers() {
+        // Given the stock column drops behind the ledger's back
+        bookRepository.findById(book.getId()).ifPresent(stored -> {
+            stored.setStock(1);
+            bookRepository.save(stored);
+        });
+
+        // When
+        BookOrderResult result = bookOrderService.placeOrder(book.getId(), 5).join();
+
+        // Then
+        assertFalse(result.isAccepted());
+        assertEquals(1, bookOrderService.getAvailableStock(book.getId()));
+        assertTrue(orderRepository.findAll().isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package com.talant.bootcamp.booksservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookRequest;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.OutboxEventRepository;
+import com.talant.bootcamp.booksservice.repository.StockMovementRepository;
+import com.talant.bootcamp.booksservice.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the outbox is only worth checking once the writing transaction has committed or rolled back.
+// Outbox rows are left behind, as the relay may hold them locked while it waits for a broker.
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Outbox Integration Tests")
+class OutboxIntegrationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        movementRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should write the notification of a created book in its transaction")
+    void shouldWriteNotificationWithCommittedBook() throws Exception {
+        // When
+        bookService.createBook(bookRequest("7700000001"));
+
+        // Then
+        List<OutboxEvent> events = eventsFor("7700000001");
+        assertEquals(1, events.size());
+        assertEquals("book-notifications", events.get(0).getTopic());
+        BookNotification notification = objectMapper.readValue(events.get(0).getPayload(), BookNotification.class);
+        assertEquals(BookNotification.NotificationType.NEW_BOOK, notification.getNotificationType());
+        assertEquals(10, notification.getStock());
+    }
+
+    @Test
+    @DisplayName("Should leave no notification behind when the transaction rolls back")
+    void shouldLeaveNoNotificationOnRollback() {
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.createBook(bookRequest("7700000002"));
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertFalse(bookRepository.existsByIsbn("7700000002"));
+        assertTrue(eventsFor("7700000002").isEmpty());
+    }
+
+    private List<OutboxEvent> eventsFor(String isbn) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> isbn.equals(event.getMessageKey()))
+                .toList();
+    }
+
+    private static BookRequest bookRequest(String isbn) {
+        return new BookRequest("Outbox Book", "Outbox Author", isbn, "Announced through the outbox",
+                new BigDecimal("14.99"), 10, BookCategory.FICTION);
+    }
+}
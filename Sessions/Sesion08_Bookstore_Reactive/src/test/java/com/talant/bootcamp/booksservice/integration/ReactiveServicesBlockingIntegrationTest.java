@@ -0,0 +1,141 @@
+package com.talant.bootcamp.booksservice.integration;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.Review;
+import com.talant.bootcamp.booksservice.repository.BookRatingStatsRepository;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.ReviewRepository;
+import com.talant.bootcamp.booksservice.service.ReactiveBookOrderService;
+import com.talant.bootcamp.booksservice.service.ReactiveBookSearchService;
+import com.talant.bootcamp.booksservice.service.ReactiveBookStatisticsService;
+import com.talant.bootcamp.booksservice.service.ReviewService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// BlockHound stays installed for the rest of the JVM, so this class runs alone in its own fork
+// (the blocking-detection surefire execution) instead of with the other tests
+@SpringBootTest
+@ActiveProfiles("test")
+class ReactiveServicesBlockingIntegrationTest {
+
+    @Autowired
+    private ReactiveBookOrderService reactiveBookOrderService;
+
+    @Autowired
+    private ReactiveBookSearchService reactiveBookSearchService;
+
+    @Autowired
+    private ReactiveBookStatisticsService reactiveBookStatisticsService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BookRatingStatsRepository ratingStatsRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    private Book book1;
+    private Book book2;
+
+    @BeforeAll
+    static void installBlockHound() {
+        // Fail any blocking call made on a Reactor non-blocking thread; taking a JDBC connection
+        // counts as blocking even when the in-memory database answers without touching the disk
+        BlockHound.install(builder -> builder
+                .markAsBlocking(HikariDataSource.class, "getConnection", "()Ljava/sql/Connection;"));
+    }
+
+    @BeforeEach
+    void setUp() {
+        ratingStatsRepository.deleteAll();
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+
+        book1 = bookRepository.save(new Book(
+            "Java Programming Guide",
+            "John Doe",
+            "1234567890",
+            "Complete guide to Java programming",
+            new BigDecimal("29.99"),
+            10,
+            BookCategory.TECHNOLOGY
+        ));
+        book2 = bookRepository.save(new Book(
+            "Advanced Java Concepts",
+            "Jane Smith",
+            "0987654321",
+            "Advanced Java programming concepts",
+            new BigDecimal("39.99"),
+            0,
+            BookCategory.TECHNOLOGY
+        ));
+
+        List.of(
+            new Review(null, book1.getId(), "user1", 5, "Excellent book!"),
+            new Review(null, book1.getId(), "user2", 4, "Very good book"),
+            new Review(null, book1.getId(), "user3", 3, "Good book"),
+            new Review(null, book2.getId(), "user4", 2, "Average book"),
+            new Review(null, book2.getId(), "user5", 1, "Poor book")
+        ).forEach(reviewService::addReview);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ratingStatsRepository.deleteAll();
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    void testReactiveServices_DoNotBlockNonBlockingThreads() {
+        // The same pipeline as /search/reactive, run where BlockHound rejects blocking calls
+        reactiveBookSearchService.findByTitleContains("Java")
+                .collectList()
+                .flatMap(books -> {
+                    List<Long> ids = books.stream().map(Book::getId).toList();
+                    return Mono.zip(reactiveBookOrderService.checkStock(ids),
+                            reactiveBookStatisticsService.getAverageRatings(ids));
+                })
+                .subscribeOn(Schedulers.parallel())
+                .as(StepVerifier::create)
+                .assertNext(tuple -> {
+                    assertEquals(Map.of(book1.getId(), true, book2.getId(), false), tuple.getT1());
+                    assertEquals(Map.of(book1.getId(), 4.0, book2.getId(), 1.5), tuple.getT2());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testBlockingDetection_RejectsJpaRepositoryCalls() {
+        // Guards the check above: the JPA repositories the reactive services used to call are caught
+        Mono.fromCallable(() -> bookRepository.findById(book1.getId()))
+                .subscribeOn(Schedulers.parallel())
+                .as(StepVerifier::create)
+                .expectErrorMatches(error -> error instanceof BlockingOperationError
+                        || error.getCause() instanceof BlockingOperationError)
+                .verify();
+    }
+}
@@ -2,30 +2,36 @@ package com.talant.bootcamp.booksservice.integration;
 
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.BookRatingStats;
 import com.talant.bootcamp.booksservice.model.Review;
+import com.talant.bootcamp.booksservice.repository.BookRatingStatsRepository;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
 import com.talant.bootcamp.booksservice.repository.ReviewRepository;
+import com.talant.bootcamp.booksservice.service.BookRatingStatsBackfill;
 import com.talant.bootcamp.booksservice.service.ReactiveBookOrderService;
 import com.talant.bootcamp.booksservice.service.ReactiveBookSearchService;
 import com.talant.bootcamp.booksservice.service.ReactiveBookStatisticsService;
+import com.talant.bootcamp.booksservice.service.ReviewService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+// Not @Transactional: the reactive services read over their own R2DBC connections,
+// so the test data has to be committed before they can see it
 @SpringBootTest
 @ActiveProfiles("test")
-@Transactional
 class ReactiveServicesIntegrationTest {
 
     @Autowired
@@ -43,6 +49,15 @@ class ReactiveServicesIntegrationTest {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private BookRatingStatsRepository ratingStatsRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private BookRatingStatsBackfill ratingStatsBackfill;
+
     private Book book1;
     private Book book2;
     private Book book3;
@@ -50,6 +65,7 @@ class ReactiveServicesIntegrationTest {
     @BeforeEach
     void setUp() {
         // Limpiar datos existentes
+        ratingStatsRepository.deleteAll();
         reviewRepository.deleteAll();
         bookRepository.deleteAll();
 
@@ -99,7 +115,14 @@ class ReactiveServicesIntegrationTest {
         Review review5 = new Review(null, book2.getId(), "user5", 1, "Poor book");
 
         // Guardar reviews
-        reviewRepository.saveAll(List.of(review1, review2, review3, review4, review5));
+        List.of(review1, review2, review3, review4, review5).forEach(reviewService::addReview);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ratingStatsRepository.deleteAll();
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
     }
 
     @Test
@@ -255,7 +278,7 @@ class ReactiveServicesIntegrationTest {
     @Test
     void testReactiveServices_ErrorHandling() {
         // Test con bookId null - debería lanzar excepción
-        StepVerifier.create(reactiveBookOrderService.checkStock(null))
+        StepVerifier.create(reactiveBookOrderService.checkStock((Long) null))
                 .expectError(IllegalArgumentException.class)
                 .verify();
 
@@ -272,4 +295,51 @@ class ReactiveServicesIntegrationTest {
                 .expectNext(0.0)
                 .verifyComplete();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testReactiveBookStatisticsService_AveragesMixedRatings() {
+        Book book4 = bookRepository.save(new Book(
+            "Rust in Action",
+            "Tim McNamara",
+            "5566778899",
+            "Systems programming with Rust",
+            new BigDecimal("44.99"),
+            3,
+            BookCategory.TECHNOLOGY
+        ));
+        List.of(
+            new Review(null, book4.getId(), "user1", 5, "Excellent!"),
+            new Review(null, book4.getId(), "user2", 3, "Good"),
+            new Review(null, book4.getId(), "user3", 4, "Very good"),
+            new Review(null, book4.getId(), "user4", 2, "Average"),
+            new Review(null, book4.getId(), "user5", 5, "Perfect!")
+        ).forEach(reviewService::addReview);
+
+        // (5+3+4+2+5)/5 = 3.8
+        StepVerifier.create(reactiveBookStatisticsService.getAverageRating(book4.getId()))
+                .expectNext(3.8)
+                .verifyComplete();
+
+        StepVerifier.create(reactiveBookStatisticsService.getAverageRatings(List.of(book1.getId(), book3.getId(), book4.getId())))
+                .expectNext(Map.of(book1.getId(), 4.0, book3.getId(), 0.0, book4.getId(), 3.8))
+                .verifyComplete();
+    }
+
+    @Test
+    void testBookRatingStatsBackfill_RebuildsAggregateFromReviews() {
+        // Reviews stored without going through ReviewService have no aggregate yet
+        ratingStatsRepository.deleteAll();
+        reviewRepository.save(new Review(null, book3.getId(), "user6", 4, "Nice"));
+
+        assertEquals(3, ratingStatsBackfill.run());
+
+        BookRatingStats stats = ratingStatsRepository.findById(book1.getId()).orElseThrow();
+        assertEquals(3, stats.getReviewCount());
+        assertEquals(12, stats.getRatingSum());
+        assertArrayEquals(new long[]{0, 0, 1, 1, 1}, stats.getHistogram());
+
+        StepVerifier.create(reactiveBookStatisticsService.getAverageRatings(List.of(book1.getId(), book2.getId(), book3.getId())))
+                .expectNext(Map.of(book1.getId(), 4.0, book2.getId(), 1.5, book3.getId(), 4.0))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,129 @@
+package com.talant.bootcamp.booksservice.integration;
+
+import com.talant.bootcamp.booksservice.dto.StockReplayReport;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
+import com.talant.bootcamp.booksservice.repository.BookOrderRepository;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.StockMovementRepository;
+import com.talant.bootcamp.booksservice.repository.StockSnapshotRepository;
+import com.talant.bootcamp.booksservice.service.BookOrderService;
+import com.talant.bootcamp.booksservice.service.BookService;
+import com.talant.bootcamp.booksservice.service.StockLedger;
+import com.talant.bootcamp.booksservice.service.StockMovementLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Stock Movement Integration Tests")
+class StockMovementIntegrationTest {
+
+    @Autowired
+    private StockMovementLog stockMovementLog;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookOrderService bookOrderService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookOrderRepository orderRepository;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        // Saved straight through the repository, so only the baseline logs its stock
+        book = bookRepository.save(new Book("Ledger Book", "Some Author", "5566778899",
+                "Logged stock", new BigDecimal("12.50"), 10, BookCategory.FICTION));
+        stockMovementLog.recordBaselines();
+        stockLedger.resync(book.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotRepository.deleteAll();
+        movementRepository.deleteAll();
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should log reservations and orders and read the stock back from the snapshot and the tail")
+    void shouldLogStockChangesAndReadStockBack() {
+        // Given
+        bookService.reserveStock(book.getId(), 3);
+        stockMovementLog.takeSnapshots();
+
+        // When - an order is logged after the snapshot
+        assertTrue(bookOrderService.placeOrder(book.getId(), 2).join().isAccepted());
+
+        // Then
+        int stock = bookRepository.findById(book.getId()).orElseThrow().getStock();
+        assertEquals(5, stock);
+        assertEquals(stock, stockMovementLog.currentStock(book.getId()));
+        assertEquals(stock, stockMovementLog.replayStock(book.getId()));
+        assertEquals(7, snapshotRepository.findById(book.getId()).orElseThrow().getStock());
+        List<StockMovementReason> reasons = stockMovementLog.getMovements(book.getId(), 10).stream()
+                .map(StockMovement::getReason)
+                .toList();
+        assertEquals(List.of(StockMovementReason.ORDER, StockMovementReason.RESERVATION, StockMovementReason.BASELINE),
+                reasons);
+    }
+
+    @Test
+    @DisplayName("Should report a stock column changed without logging the movement on replay")
+    void shouldReportStockChangedWithoutLogging() {
+        // Given - the stock column is lowered behind the log's back
+        transactionTemplate.executeWithoutResult(status -> bookRepository.reserveStock(book.getId(), 2));
+
+        // When
+        StockReplayReport report = stockMovementLog.replay();
+
+        // Then
+        assertTrue(report.getMismatches().stream().anyMatch(mismatch -> mismatch.getBookId().equals(book.getId())
+                && mismatch.getStock() == 8 && mismatch.getLoggedStock() == 10));
+        assertEquals(10, stockMovementLog.currentStock(book.getId()));
+    }
+
+    @Test
+    @DisplayName("Should not log a second baseline for a book")
+    void shouldNotLogSecondBaseline() {
+        // When
+        stockMovementLog.recordBaselines();
+
+        // Then
+        assertEquals(1, stockMovementLog.getMovements(book.getId(), 10).size());
+        assertEquals(10, stockMovementLog.currentStock(book.getId()));
+    }
+}
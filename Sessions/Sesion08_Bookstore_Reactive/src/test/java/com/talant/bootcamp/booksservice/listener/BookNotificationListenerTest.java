@@ -0,0 +1,164 @@
+package com.talant.bootcamp.booksservice.listener;
+
+import com.talant.bootcamp.booksservice.config.NotificationHeaders;
+import com.talant.bootcamp.booksservice.config.NotificationRetryTopics;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.ConsumerTopicMetrics;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.service.BookNotificationService;
+import com.talant.bootcamp.booksservice.service.KafkaConsumerMetrics;
+import com.talant.bootcamp.booksservice.service.NotificationApplyScope;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Notification Listener Tests")
+class BookNotificationListenerTest {
+
+    @Mock
+    private BookNotificationService bookNotificationService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private ConsumerRecordRecoverer retryRecoverer;
+
+    private KafkaConsumerMetrics consumerMetrics;
+    private BookNotificationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        consumerMetrics = new KafkaConsumerMetrics();
+        NotificationRetryTopics retryTopics = new NotificationRetryTopics(List.of("book-stock-updates"),
+            List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60)));
+        listener = new BookNotificationListener(bookNotificationService, consumerMetrics, retryTopics, retryRecoverer,
+            "book-service");
+    }
+
+    @Test
+    @DisplayName("Should skip and count records produced by this service, applying the rest without announcing them")
+    void shouldSuppressEchoes() {
+        // Given
+        ConsumerRecord<String, BookNotification> echo = record(1, "1111111111", "book-service");
+        ConsumerRecord<String, BookNotification> foreign = record(2, "2222222222", "warehouse-service");
+        when(bookNotificationService.latestPerIsbn(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookNotificationService.processBookNotifications(anyList())).thenAnswer(invocation -> {
+            assertTrue(NotificationApplyScope.isActive());
+            return 1;
+        });
+
+        // When
+        listener.listenForStockUpdateBatch(List.of(echo, foreign), acknowledgment);
+
+        // Then
+        verify(bookNotificationService).latestPerIsbn(List.of(foreign));
+        verify(bookNotificationService).processBookNotifications(List.of(foreign));
+        verify(acknowledgment).acknowledge();
+        ConsumerTopicMetrics metrics = consumerMetrics.snapshot().get(0);
+        assertEquals(2, metrics.getReceived());
+        assertEquals(1, metrics.getSuppressedEchoes());
+        assertFalse(NotificationApplyScope.isActive());
+    }
+
+    @Test
+    @DisplayName("Should fall back to one record at a time when the batch cannot be applied, retrying those that fail")
+    void shouldFallBackToSingleRecords() {
+        // Given
+        ConsumerRecord<String, BookNotification> first = record(1, "1111111111", null);
+        ConsumerRecord<String, BookNotification> second = record(2, "2222222222", null);
+        IllegalArgumentException failure = new IllegalArgumentException("bad");
+        when(bookNotificationService.latestPerIsbn(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookNotificationService.processBookNotifications(anyList())).thenThrow(new IllegalStateException("boom"));
+        doThrow(failure).when(bookNotificationService).processBookNotification(first.value(), 1L);
+
+        // When
+        listener.listenForBookNotificationBatch(List.of(first, second), acknowledgment);
+
+        // Then
+        verify(bookNotificationService).processBookNotification(second.value(), 2L);
+        verify(bookNotificationService, times(2)).processBookNotification(any(), anyLong());
+        verify(retryRecoverer).accept(first, failure);
+        verifyNoMoreInteractions(retryRecoverer);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should fail the batch at the record that could not be handed to the retry topics")
+    void shouldFailBatchAtRecordThatCannotBeRecovered() {
+        // Given
+        ConsumerRecord<String, BookNotification> first = record(1, "1111111111", null);
+        ConsumerRecord<String, BookNotification> second = record(2, "2222222222", null);
+        IllegalArgumentException failure = new IllegalArgumentException("bad");
+        when(bookNotificationService.latestPerIsbn(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookNotificationService.processBookNotifications(anyList())).thenThrow(new IllegalStateException("boom"));
+        lenient().doThrow(failure).when(bookNotificationService).processBookNotification(second.value(), 2L);
+        lenient().doThrow(new IllegalStateException("broker down")).when(retryRecoverer).accept(second, failure);
+
+        // When
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+            () -> listener.listenForBookNotificationBatch(List.of(first, second), acknowledgment));
+
+        // Then
+        assertSame(second, exception.getRecord());
+        verify(bookNotificationService).processBookNotification(first.value(), 1L);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should hand a retried record back until it is due, and then apply it")
+    void shouldWaitForRetriedRecordsToBeDue() {
+        // Given
+        long now = System.currentTimeMillis();
+        ConsumerRecord<String, BookNotification> waiting = retried(3, "1111111111", now);
+        ConsumerRecord<String, BookNotification> due = retried(4, "2222222222", now - 60_000);
+
+        // When
+        listener.listenForRetries(waiting, acknowledgment);
+        listener.listenForRetries(due, acknowledgment);
+
+        // Then
+        verify(acknowledgment).nack(argThat(wait -> wait.compareTo(Duration.ZERO) > 0
+            && wait.compareTo(Duration.ofSeconds(10)) <= 0));
+        verify(bookNotificationService, never()).processBookNotification(waiting.value(), 3L);
+        verify(bookNotificationService).processBookNotification(due.value(), 4L);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, BookNotification> retried(long offset, String isbn, long timestamp) {
+        return new ConsumerRecord<>("book-stock-updates-retry-2", 0, offset, timestamp, TimestampType.CREATE_TIME,
+            0, 0, isbn, record(offset, isbn, null).value(), new RecordHeaders(), Optional.empty());
+    }
+
+    private static ConsumerRecord<String, BookNotification> record(long offset, String isbn, String origin) {
+        BookNotification notification = new BookNotification(isbn, "Title", "Author", null, new BigDecimal("9.99"),
+            4, BookCategory.FICTION, BookNotification.NotificationType.STOCK_UPDATE, null);
+        ConsumerRecord<String, BookNotification> record =
+            new ConsumerRecord<>("book-stock-updates", 0, offset, isbn, notification);
+        if (origin != null) {
+            record.headers().add(NotificationHeaders.ORIGIN, origin.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
@@ -1,5 +1,7 @@
 package com.talant.bootcamp.booksservice.repository;
 
+import com.talant.bootcamp.booksservice.dto.BookQuery;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,13 +9,24 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.api.Assertions.within;
 
 @DataJpaTest
@@ -24,6 +37,9 @@ class BookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Book fictionBook;
     private Book fantasyBook;
     private Book technologyBook;
@@ -280,6 +296,41 @@ class BookRepositoryTest {
         }
     }
 
+    @Test
+    @DisplayName("Should count books by category and price")
+    void shouldCountBooksByCategoryAndPrice() {
+        // Given
+        bookRepository.save(new Book("Animal Farm", "George Orwell", "7777777777",
+            "Political satire", new BigDecimal("19.99"), 8, BookCategory.FICTION));
+
+        // When
+        List<Object[]> results = bookRepository.countByCategoryAndPrice();
+
+        // Then
+        assertThat(results)
+            .filteredOn(row -> row[0] == BookCategory.FICTION)
+            .extracting(row -> ((BigDecimal) row[1]).toPlainString() + "=" + row[2])
+            .containsExactlyInAnyOrder("19.99=2", "10.00=1");
+    }
+
+    @Test
+    @DisplayName("Should summarize count and prices by category")
+    void shouldSummarizeByCategory() {
+        // When
+        List<Object[]> results = bookRepository.summarizeByCategory();
+
+        // Then
+        assertThat(results).hasSize(5);
+        Object[] fiction = results.stream()
+            .filter(row -> row[0] == BookCategory.FICTION)
+            .findFirst()
+            .orElseThrow();
+        assertThat(fiction[1]).isEqualTo(2L);
+        assertThat((BigDecimal) fiction[2]).isEqualByComparingTo("29.99");
+        assertThat((BigDecimal) fiction[3]).isEqualByComparingTo("10.00");
+        assertThat((BigDecimal) fiction[4]).isEqualByComparingTo("19.99");
+    }
+
     @Test
     @DisplayName("Should check if book exists by ISBN")
     void shouldCheckIfBookExistsByIsbn() {
@@ -464,4 +515,184 @@ class BookRepositoryTest {
         assertThat(books).extracting("stock")
             .allMatch(stock -> (Integer) stock > 0);
     }
+
+    @Test
+    @DisplayName("Should scroll through books ordered by price with a keyset position")
+    void shouldScrollBooksOrderedByPriceWithKeyset() {
+        // Given
+        Sort sort = Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+
+        // When
+        Window<Book> first = bookRepository.findPageBy(ScrollPosition.keyset(), sort, Limit.of(4));
+        Window<Book> second = bookRepository.findPageBy(first.positionAt(first.size() - 1), sort, Limit.of(4));
+
+        // Then
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).extracting(Book::getTitle)
+            .containsExactly("Out of Stock Book", "The Hound of the Baskervilles", "1984", "Low Stock Book");
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent()).extracting(Book::getTitle)
+            .containsExactly("The Lord of the Rings", "Clean Code");
+    }
+
+    @Test
+    @DisplayName("Should resume a category scroll after the given book ID")
+    void shouldResumeCategoryScrollAfterId() {
+        // Given
+        Sort sort = Sort.by("id");
+        ScrollPosition afterFiction = ScrollPosition.forward(Map.of("id", fictionBook.getId()));
+
+        // When
+        Window<Book> page = bookRepository.findPageByCategory(BookCategory.FICTION, afterFiction, sort, Limit.of(10));
+
+        // Then
+        assertThat(page.getContent()).containsExactly(outOfStockBook);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reserve stock only while enough is left")
+    void shouldReserveStockOnlyWhileEnoughIsLeft() {
+        // When
+        int first = bookRepository.reserveStock(fictionBook.getId(), 20);
+        int second = bookRepository.reserveStock(fictionBook.getId(), 31);
+        int third = bookRepository.reserveStock(fictionBook.getId(), 30);
+        int missing = bookRepository.reserveStock(-1L, 1);
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(third).isEqualTo(1);
+        assertThat(missing).isZero();
+        assertThat(bookRepository.findById(fictionBook.getId())).get()
+            .extracting(Book::getStock).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Should stream all books in ID order")
+    void shouldStreamAllBooksInIdOrder() {
+        // When
+        List<Book> books;
+        try (Stream<Book> stream = bookRepository.streamAll()) {
+            books = stream.toList();
+        }
+
+        // Then
+        assertThat(books).hasSize(6);
+        assertThat(books).extracting(Book::getId).isSorted();
+    }
+
+    @Test
+    @DisplayName("Should combine query criteria into a single specification")
+    void shouldCombineQueryCriteria() {
+        // Given
+        BookQuery query = new BookQuery(BookCategory.FICTION, "orwell", null,
+            new BigDecimal("15.00"), null, true, BookSortKey.PRICE_ASC, null);
+
+        // When
+        List<Book> books = bookRepository.findAll(BookSpecifications.matching(query));
+
+        // Then
+        assertThat(books).containsExactly(fictionBook);
+    }
+
+    @Test
+    @DisplayName("Should treat LIKE wildcards in text criteria literally")
+    void shouldTreatLikeWildcardsLiterally() {
+        // When
+        List<Book> books = bookRepository.findAll(BookSpecifications.titleContains("%"));
+
+        // Then
+        assertThat(books).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should count matching books per category")
+    void shouldCountMatchingBooksPerCategory() {
+        // When
+        Map<BookCategory, Long> counts = bookRepository.countByCategory(BookSpecifications.inStock());
+
+        // Then
+        assertThat(counts).containsOnly(
+            Map.entry(BookCategory.FICTION, 1L),
+            Map.entry(BookCategory.FANTASY, 1L),
+            Map.entry(BookCategory.TECHNOLOGY, 1L),
+            Map.entry(BookCategory.MYSTERY, 1L),
+            Map.entry(BookCategory.SCIENCE_FICTION, 1L)
+        );
+    }
+
+    @Test
+    @DisplayName("Should count matching books per price bucket in one row")
+    void shouldCountMatchingBooksPerPriceBucket() {
+        // Given
+        List<BigDecimal> bounds = List.of(new BigDecimal("10.00"), new BigDecimal("25.00"), new BigDecimal("50.00"));
+
+        // When
+        long[] all = bookRepository.countByPriceBuckets(Specification.allOf(), bounds);
+        long[] fiction = bookRepository.countByPriceBuckets(BookSpecifications.hasCategory(BookCategory.FICTION), bounds);
+
+        // Then
+        // [10, 25): 10.00, 15.99, 19.99 and [25, 50): 25.00, 29.99, 45.99
+        assertThat(all).containsExactly(0, 3, 3, 0);
+        assertThat(fiction).containsExactly(0, 2, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Should lock and find books by either ID or ISBN in one query")
+    void shouldFindBooksByIdOrIsbnForUpdate() {
+        // When
+        List<Book> both = bookRepository.findAllByIdOrIsbnForUpdate(
+            List.of(fantasyBook.getId(), -1L), List.of(fictionBook.getIsbn(), "0000000000"));
+        List<Book> byIsbnOnly = bookRepository.findAllByIdOrIsbnForUpdate(List.of(), List.of(mysteryBook.getIsbn()));
+
+        // Then
+        assertThat(both).containsExactly(fictionBook, fantasyBook);
+        assertThat(byIsbnOnly).containsExactly(mysteryBook);
+    }
+
+    @Test
+    @DisplayName("Should set the stock of several books in one batch")
+    void shouldSetStockOfSeveralBooks() {
+        // When
+        bookRepository.setStock(Map.of(fictionBook.getId(), 7, outOfStockBook.getId(), 12));
+
+        // Then
+        assertThat(bookRepository.findStockById(fictionBook.getId())).contains(7);
+        assertThat(bookRepository.findStockById(outOfStockBook.getId())).contains(12);
+        assertThat(bookRepository.findStockById(fantasyBook.getId())).contains(30);
+    }
+
+    @Test
+    @DisplayName("Should create, update and update the stock of books in one batch, setting their IDs")
+    void shouldUpsertBooksInOneBatch() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Book created = new Book("Dune", "Frank Herbert", "7890123456", "Desert planet",
+            new BigDecimal("18.50"), 4, BookCategory.SCIENCE_FICTION);
+        Book updated = new Book("Nineteen Eighty-Four", "George Orwell", fictionBook.getIsbn(), "Classic",
+            new BigDecimal("21.00"), 44, BookCategory.SCIENCE_FICTION);
+        Book restocked = new Book("Ignored Title", "Ignored Author", fantasyBook.getIsbn(), null,
+            new BigDecimal("1.00"), 12, BookCategory.ROMANCE);
+        for (Book book : List.of(created, updated, restocked)) {
+            book.setCreatedAt(now);
+            book.setUpdatedAt(now);
+        }
+
+        // When
+        bookRepository.upsertAll(List.of(created, updated, restocked), Set.of(fantasyBook.getIsbn()));
+
+        // Then
+        entityManager.clear();
+        assertThat(created.getId()).isNotNull().isNotIn(fictionBook.getId(), fantasyBook.getId());
+        assertThat(updated.getId()).isEqualTo(fictionBook.getId());
+        assertThat(restocked.getId()).isEqualTo(fantasyBook.getId());
+        assertThat(bookRepository.findByIsbnIn(List.of("7890123456", fictionBook.getIsbn(), fantasyBook.getIsbn())))
+            .extracting(Book::getId, Book::getTitle, Book::getPrice, Book::getStock, Book::getCategory)
+            .containsExactlyInAnyOrder(
+                tuple(created.getId(), "Dune", new BigDecimal("18.50"), 4, BookCategory.SCIENCE_FICTION),
+                tuple(fictionBook.getId(), "Nineteen Eighty-Four", new BigDecimal("21.00"), 44,
+                    BookCategory.SCIENCE_FICTION),
+                tuple(fantasyBook.getId(), "The Lord of the Rings", fantasyBook.getPrice(), 12, BookCategory.FANTASY));
+    }
 }
@@ -0,0 +1,152 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookCacheStats;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Book Cache Tests")
+class BookCacheTest {
+
+    private BookCache bookCache;
+    private BookResponse book;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        bookCache = new BookCache(BookCache.DEFAULT_MAXIMUM_WEIGHT, Duration.ofMinutes(10));
+        book = response(1L, "1234567890");
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should load once and then serve by ID and ISBN")
+    void shouldLoadOnceAndServeByIdAndIsbn() {
+        assertSame(book, bookCache.getById(1L, loader(book)));
+        assertSame(book, bookCache.getById(1L, loader(book)));
+        assertSame(book, bookCache.getByIsbn("1234567890", loader(book)));
+
+        assertEquals(1, loads.get());
+        BookCacheStats stats = bookCache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    @DisplayName("Should not cache a book that was not found")
+    void shouldNotCacheMissingBook() {
+        Supplier<BookResponse> missing = () -> {
+            loads.incrementAndGet();
+            throw new BookNotFoundException(1L);
+        };
+
+        assertThrows(BookNotFoundException.class, () -> bookCache.getById(1L, missing));
+        assertThrows(BookNotFoundException.class, () -> bookCache.getById(1L, missing));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, bookCache.stats().getSize());
+    }
+
+    @Test
+    @DisplayName("Should evict both keys of a book")
+    void shouldEvictBothKeys() {
+        bookCache.getById(1L, loader(book));
+
+        bookCache.evict(1L, "1234567890");
+
+        bookCache.getByIsbn("1234567890", loader(book));
+        bookCache.getById(1L, loader(book));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should evict the ID entry when evicting by ISBN")
+    void shouldEvictIdEntryWhenEvictingByIsbn() {
+        bookCache.getByIsbn("1234567890", loader(book));
+
+        bookCache.evictIsbn("1234567890");
+
+        bookCache.getById(1L, loader(book));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should evict again when the transaction completes")
+    void shouldEvictAgainWhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookCache.evict(1L, "1234567890");
+
+            // A concurrent reader re-caches the old row before the writer commits
+            bookCache.getById(1L, loader(book));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        bookCache.getById(1L, loader(book));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache books read inside a writing transaction")
+    void shouldNotCacheInsideWritingTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            bookCache.getById(1L, loader(book));
+            bookCache.getById(1L, loader(book));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(2, loads.get());
+        assertEquals(0, bookCache.stats().getSize());
+    }
+
+    @Test
+    @DisplayName("Should evict when the estimated size exceeds the maximum weight")
+    void shouldEvictWhenMaximumWeightExceeded() {
+        int entryWeight = BookCache.weigh(1L, book);
+        bookCache = new BookCache(entryWeight * 10L, Duration.ofMinutes(10));
+
+        for (long id = 1; id <= 20; id++) {
+            BookResponse other = response(id, String.format("%010d", id));
+            bookCache.getById(id, () -> other);
+        }
+        bookCache.cleanUp();
+
+        BookCacheStats stats = bookCache.stats();
+        assertTrue(stats.getEvictions() > 0);
+        assertTrue(stats.getWeight() <= entryWeight * 10L);
+    }
+
+    private Supplier<BookResponse> loader(BookResponse value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    private static BookResponse response(Long id, String isbn) {
+        Book book = new Book("Test Book", "Test Author", isbn, "Test Description",
+                new BigDecimal("29.99"), 10, BookCategory.FICTION);
+        book.setId(id);
+        return new BookResponse(book);
+    }
+}
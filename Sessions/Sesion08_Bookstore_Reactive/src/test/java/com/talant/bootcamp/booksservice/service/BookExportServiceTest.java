@@ -0,0 +1,124 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Export Service Tests")
+class BookExportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ObjectMapper objectMapper;
+    private BookExportService bookExportService;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        bookExportService = new BookExportService(bookRepository, entityManager, objectMapper, 2);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON document per book")
+    void shouldWriteOneJsonDocumentPerBook() throws Exception {
+        // Given
+        when(bookRepository.streamAll()).thenReturn(books(3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = bookExportService.exportBooks(out);
+
+        // Then
+        assertEquals(3, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("Book 1", first.get("title").asText());
+        assertEquals("ISBN-3", objectMapper.readTree(lines[2]).get("isbn").asText());
+    }
+
+    @Test
+    @DisplayName("Should clear the persistence context every interval")
+    void shouldClearPersistenceContextEveryInterval() throws Exception {
+        // Given
+        when(bookRepository.streamAll()).thenReturn(books(5));
+
+        // When
+        bookExportService.exportBooks(new ByteArrayOutputStream());
+
+        // Then
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("Should close the book stream once the export finishes")
+    void shouldCloseBookStream() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(bookRepository.streamAll()).thenReturn(books(1).onClose(() -> closed.set(true)));
+
+        // When
+        bookExportService.exportBooks(new ByteArrayOutputStream());
+
+        // Then
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Should write nothing for an empty catalog")
+    void shouldWriteNothingForEmptyCatalog() throws Exception {
+        // Given
+        when(bookRepository.streamAll()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = bookExportService.exportBooks(out);
+
+        // Then
+        assertEquals(0, count);
+        assertEquals(0, out.size());
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive clear interval")
+    void shouldRejectNonPositiveClearInterval() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookExportService(bookRepository, entityManager, objectMapper, 0));
+    }
+
+    private Stream<Book> books(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            Book book = new Book("Book " + id, "Author " + id, "ISBN-" + id, "Description",
+                    new BigDecimal("10.00"), 5, BookCategory.FICTION);
+            book.setId(id);
+            return book;
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import com.talant.bootcamp.booksservice.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Notification Outbox Tests")
+class BookNotificationOutboxTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<String, BookNotification> notificationKafkaTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private BookNotificationOutbox notificationOutbox;
+
+    @BeforeEach
+    void setUp() {
+        BookKafkaProducerService kafkaProducerService = new BookKafkaProducerService(kafkaTemplate, notificationKafkaTemplate, objectMapper);
+        ReflectionTestUtils.setField(kafkaProducerService, "bookNotificationsTopic", "book-notifications");
+        ReflectionTestUtils.setField(kafkaProducerService, "stockUpdatesTopic", "book-stock-updates");
+        notificationOutbox = new BookNotificationOutbox(outboxEventRepository, kafkaProducerService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should write one event per book, keyed by ISBN, to the topic of the notification type")
+    @SuppressWarnings("unchecked")
+    void shouldWriteEventsToTheOutbox() throws Exception {
+        // Given
+        BookResponse first = book(1L, "1111111111", 3);
+        BookResponse second = book(2L, "2222222222", 8);
+
+        // When
+        notificationOutbox.addAll(List.of(first, second), BookNotification.NotificationType.STOCK_UPDATE);
+
+        // Then
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).appendAll(captor.capture());
+        List<OutboxEvent> events = captor.getValue();
+        assertEquals(2, events.size());
+        assertEquals("book-stock-updates", events.get(0).getTopic());
+        assertEquals("1111111111", events.get(0).getMessageKey());
+        BookNotification notification = objectMapper.readValue(events.get(1).getPayload(), BookNotification.class);
+        assertEquals("2222222222", notification.getIsbn());
+        assertEquals(8, notification.getStock());
+        assertEquals(BookNotification.NotificationType.STOCK_UPDATE, notification.getNotificationType());
+        verifyNoInteractions(kafkaTemplate, notificationKafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("Should write nothing for no books")
+    void shouldWriteNothingForNoBooks() {
+        // When
+        notificationOutbox.addAll(List.of(), BookNotification.NotificationType.NEW_BOOK);
+
+        // Then
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should not announce changes applied from notifications")
+    void shouldWriteNothingWhileApplyingNotifications() {
+        // When
+        NotificationApplyScope.apply(Map.of("1111111111", "event-1"), () -> {
+            notificationOutbox.add(book(1L, "1111111111", 3), BookNotification.NotificationType.STOCK_UPDATE);
+            return null;
+        });
+
+        // Then
+        verifyNoInteractions(outboxEventRepository);
+        assertFalse(NotificationApplyScope.isActive());
+    }
+
+    @Test
+    @DisplayName("Should still write low stock alerts while applying notifications, naming their causation")
+    @SuppressWarnings("unchecked")
+    void shouldWriteLowStockAlertsWhileApplyingNotifications() {
+        // Given
+        ReflectionTestUtils.setField(notificationOutbox, "kafkaProducerService", producerWithLowStockTopic());
+
+        // When
+        NotificationApplyScope.apply(Map.of("1111111111", "event-1"), () -> {
+            notificationOutbox.addAll(List.of(book(1L, "1111111111", 3), book(2L, "2222222222", 1)),
+                BookNotification.NotificationType.LOW_STOCK);
+            return null;
+        });
+
+        // Then
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).appendAll(captor.capture());
+        List<OutboxEvent> events = captor.getValue();
+        assertEquals("book-low-stock", events.get(0).getTopic());
+        assertEquals("event-1", events.get(0).getCausationId());
+        assertNull(events.get(1).getCausationId());
+    }
+
+    private BookKafkaProducerService producerWithLowStockTopic() {
+        BookKafkaProducerService kafkaProducerService = new BookKafkaProducerService(kafkaTemplate, notificationKafkaTemplate, objectMapper);
+        ReflectionTestUtils.setField(kafkaProducerService, "lowStockTopic", "book-low-stock");
+        return kafkaProducerService;
+    }
+
+    private static BookResponse book(Long id, String isbn, int stock) {
+        Book book = new Book("Title " + id, "Author", isbn, "Description", new BigDecimal("9.99"), stock,
+            BookCategory.FICTION);
+        book.setId(id);
+        return new BookResponse(book);
+    }
+}
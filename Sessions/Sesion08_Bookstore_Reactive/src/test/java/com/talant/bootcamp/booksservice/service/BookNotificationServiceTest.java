@@ -2,20 +2,26 @@ package com.talant.bootcamp.booksservice.service;
 
 import com.talant.bootcamp.booksservice.dto.BookNotification;
 import com.talant.bootcamp.booksservice.dto.BookRequest;
-import com.talant.bootcamp.booksservice.dto.BookResponse;
-import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,14 +34,18 @@ class BookNotificationServiceTest {
     @Mock
     private BookService bookService;
     
+    @Mock
+    private BookCache bookCache;
+    
+    @Mock
+    private Validator validator;
+    
     @InjectMocks
     private BookNotificationService bookNotificationService;
     
     private BookNotification newBookNotification;
     private BookNotification stockUpdateNotification;
     private BookNotification bookUpdateNotification;
-    private BookResponse existingBookResponse;
-    private BookRequest bookRequest;
     
     @BeforeEach
     void setUp() {
@@ -74,64 +84,22 @@ class BookNotificationServiceTest {
             BookNotification.NotificationType.BOOK_UPDATE,
             LocalDateTime.now()
         );
-        
-        Book book = new Book(
-            "Test Book",
-            "Test Author",
-            "9780123456789",
-            "Test Description",
-            new BigDecimal("29.99"),
-            10,
-            BookCategory.FICTION
-        );
-        book.setId(1L);
-        
-        existingBookResponse = new BookResponse(book);
-        
-        bookRequest = new BookRequest(
-            "Test Book",
-            "Test Author",
-            "9780123456789",
-            "Test Description",
-            new BigDecimal("29.99"),
-            10,
-            BookCategory.FICTION
-        );
     }
     
     @Test
     @DisplayName("Should process new book notification successfully")
     void processBookNotification_NewBook_Success() {
         // Given
-        when(bookService.existsByIsbn("9780123456789")).thenReturn(false);
-        when(bookService.createBook(any(BookRequest.class))).thenReturn(existingBookResponse);
+        Map<String, Long> noOffset = new HashMap<>();
+        noOffset.put("9780123456789", null);
+        when(bookService.applyNotifications(List.of(newBookNotification), noOffset)).thenReturn(1);
         
         // When
         bookNotificationService.processBookNotification(newBookNotification);
         
         // Then
-        verify(bookService).existsByIsbn("9780123456789");
-        verify(bookService).createBook(any(BookRequest.class));
-        verify(bookService, never()).getBookByIsbn(anyString());
-        verify(bookService, never()).updateStock(anyLong(), anyInt());
-        verify(bookService, never()).updateBook(anyLong(), any(BookRequest.class));
-    }
-    
-    @Test
-    @DisplayName("Should handle new book notification when book already exists")
-    void processBookNotification_NewBook_BookAlreadyExists() {
-        // Given
-        when(bookService.existsByIsbn("9780123456789")).thenReturn(true);
-        when(bookService.getBookByIsbn("9780123456789")).thenReturn(existingBookResponse);
-        when(bookService.updateStock(1L, 10)).thenReturn(existingBookResponse);
-        
-        // When
-        bookNotificationService.processBookNotification(newBookNotification);
-        
-        // Then
-        verify(bookService).existsByIsbn("9780123456789");
-        verify(bookService).getBookByIsbn("9780123456789");
-        verify(bookService).updateStock(1L, 10);
+        verify(bookService).applyNotifications(List.of(newBookNotification), noOffset);
+        verify(bookService, never()).existsByIsbn(anyString());
         verify(bookService, never()).createBook(any(BookRequest.class));
     }
     
@@ -139,68 +107,48 @@ class BookNotificationServiceTest {
     @DisplayName("Should process stock update notification successfully")
     void processBookNotification_StockUpdate_Success() {
         // Given
-        when(bookService.getBookByIsbn("9780123456789")).thenReturn(existingBookResponse);
-        when(bookService.updateStock(1L, 15)).thenReturn(existingBookResponse);
-        
-        // When
-        bookNotificationService.processBookNotification(stockUpdateNotification);
-        
-        // Then
-        verify(bookService).getBookByIsbn("9780123456789");
-        verify(bookService).updateStock(1L, 15);
-        verify(bookService, never()).createBook(any(BookRequest.class));
-    }
-    
-    @Test
-    @DisplayName("Should handle stock update notification when book not found")
-    void processBookNotification_StockUpdate_BookNotFound() {
-        // Given
-        when(bookService.getBookByIsbn("9780123456789")).thenThrow(new BookNotFoundException("ISBN", "9780123456789"));
-        when(bookService.existsByIsbn("9780123456789")).thenReturn(false);
-        when(bookService.createBook(any(BookRequest.class))).thenReturn(existingBookResponse);
+        when(bookService.applyNotifications(List.of(stockUpdateNotification), Map.of("9780123456789", 42L)))
+            .thenReturn(1);
         
-        // When
-        bookNotificationService.processBookNotification(stockUpdateNotification);
+        // When - read from Kafka at offset 42
+        bookNotificationService.processBookNotification(stockUpdateNotification, 42L);
         
         // Then
-        verify(bookService).getBookByIsbn("9780123456789");
-        verify(bookService).existsByIsbn("9780123456789");
-        verify(bookService).createBook(any(BookRequest.class));
-        verify(bookService, never()).updateStock(anyLong(), anyInt());
+        InOrder inOrder = inOrder(bookCache, bookService);
+        inOrder.verify(bookCache).evictIsbn("9780123456789");
+        inOrder.verify(bookService).applyNotifications(List.of(stockUpdateNotification), Map.of("9780123456789", 42L));
+        verify(bookService, never()).getBookByIsbn(anyString());
+        verify(bookService, never()).updateStock(anyLong(), anyInt(), any(), any());
     }
     
     @Test
     @DisplayName("Should process book update notification successfully")
     void processBookNotification_BookUpdate_Success() {
         // Given
-        when(bookService.getBookByIsbn("9780123456789")).thenReturn(existingBookResponse);
-        when(bookService.updateBook(eq(1L), any(BookRequest.class))).thenReturn(existingBookResponse);
+        when(bookService.applyNotifications(eq(List.of(bookUpdateNotification)), anyMap())).thenReturn(1);
         
         // When
         bookNotificationService.processBookNotification(bookUpdateNotification);
         
         // Then
-        verify(bookService).getBookByIsbn("9780123456789");
-        verify(bookService).updateBook(eq(1L), any(BookRequest.class));
-        verify(bookService, never()).createBook(any(BookRequest.class));
+        verify(bookService).applyNotifications(eq(List.of(bookUpdateNotification)), anyMap());
+        verify(bookService, never()).getBookByIsbn(anyString());
+        verify(bookService, never()).updateBook(anyLong(), any(BookRequest.class));
     }
     
     @Test
-    @DisplayName("Should handle book update notification when book not found")
-    void processBookNotification_BookUpdate_BookNotFound() {
+    @DisplayName("Should reject a notification that does not fit a book")
+    void processBookNotification_NotABook_Throws() {
         // Given
-        when(bookService.getBookByIsbn("9780123456789")).thenThrow(new BookNotFoundException("ISBN", "9780123456789"));
-        when(bookService.existsByIsbn("9780123456789")).thenReturn(false);
-        when(bookService.createBook(any(BookRequest.class))).thenReturn(existingBookResponse);
-        
-        // When
-        bookNotificationService.processBookNotification(bookUpdateNotification);
-        
-        // Then
-        verify(bookService).getBookByIsbn("9780123456789");
-        verify(bookService).existsByIsbn("9780123456789");
-        verify(bookService).createBook(any(BookRequest.class));
-        verify(bookService, never()).updateBook(anyLong(), any(BookRequest.class));
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<Book> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("ISBN must be 10 or 13 digits");
+        when(validator.validate(any(Book.class))).thenReturn(Set.of(violation));
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> bookNotificationService.processBookNotification(newBookNotification));
+        verify(bookService, never()).applyNotifications(anyList(), anyMap());
     }
     
     @Test
@@ -365,4 +313,48 @@ class BookNotificationServiceTest {
         // Then
         assertFalse(isValid);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should keep the last valid notification of each ISBN, keeping a superseded book update")
+    void latestPerIsbn_KeepsLastNotificationPerIsbn() {
+        // Given
+        BookNotification otherBook = new BookNotification("9780000000001", "Other Book", "Other Author", null,
+            new BigDecimal("10.00"), 3, BookCategory.FICTION, BookNotification.NotificationType.NEW_BOOK, null);
+        BookNotification invalid = new BookNotification("9780000000002", null, "Author", null,
+            new BigDecimal("10.00"), 3, BookCategory.FICTION, BookNotification.NotificationType.NEW_BOOK, null);
+        
+        // When
+        List<ConsumerRecord<String, BookNotification>> latest = bookNotificationService.latestPerIsbn(List.of(
+            record(1, bookUpdateNotification),
+            record(2, otherBook),
+            record(3, stockUpdateNotification),
+            record(4, invalid),
+            record(5, null)
+        ));
+        
+        // Then
+        assertEquals(List.of(2L, 3L), latest.stream().map(ConsumerRecord::offset).toList());
+        assertEquals(BookNotification.NotificationType.BOOK_UPDATE, latest.get(1).value().getNotificationType());
+        assertEquals(15, latest.get(1).value().getStock());
+    }
+    
+    @Test
+    @DisplayName("Should apply a batch of notifications with their offsets in one call")
+    void processBookNotifications_AppliesBatch() {
+        // Given
+        when(bookService.applyNotifications(List.of(stockUpdateNotification), Map.of("9780123456789", 42L)))
+            .thenReturn(1);
+        
+        // When
+        int changed = bookNotificationService.processBookNotifications(List.of(record(42, stockUpdateNotification)));
+        
+        // Then
+        assertEquals(1, changed);
+        verify(bookService, never()).updateStock(anyLong(), anyInt(), any(), any());
+    }
+    
+    private static ConsumerRecord<String, BookNotification> record(long offset, BookNotification notification) {
+        return new ConsumerRecord<>("book-notifications", 0, offset,
+            notification != null ? notification.getIsbn() : null, notification);
+    }
+}
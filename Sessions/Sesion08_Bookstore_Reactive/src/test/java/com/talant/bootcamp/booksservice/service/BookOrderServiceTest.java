@@ -0,0 +1,233 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookOrderResult;
+import com.talant.bootcamp.booksservice.exception.OrderBacklogFullException;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.BookOrder;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
+import com.talant.bootcamp.booksservice.repository.BookOrderRepository;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Order Service Tests")
+class BookOrderServiceTest {
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private BookOrderRepository orderRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookCache bookCache;
+
+    @Mock
+    private BookNotificationOutbox notificationOutbox;
+
+    @Mock
+    private InventoryAlertService inventoryAlertService;
+
+    @Mock
+    private StockMovementLog stockMovementLog;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookOrderService bookOrderService;
+
+    @BeforeEach
+    void setUp() {
+        bookOrderService = new BookOrderService(stockLedger, orderRepository, bookRepository, bookCache,
+                notificationOutbox, inventoryAlertService, stockMovementLog, transactionTemplate, 2, Duration.ZERO, 3);
+        // Run the transaction callbacks inline
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should queue an accepted order until its batch is written")
+    void shouldQueueAcceptedOrderUntilBatchIsWritten() throws Exception {
+        // Given
+        when(stockLedger.take(1L, 2)).thenReturn(true);
+
+        // When
+        CompletableFuture<BookOrderResult> result = bookOrderService.placeOrder(1L, 2);
+
+        // Then
+        assertFalse(result.isDone());
+        verifyNoInteractions(orderRepository);
+
+        // When
+        when(orderRepository.takeFromStock(Map.of(1L, 2))).thenReturn(Set.of());
+        bookOrderService.writeNextBatch(0);
+
+        // Then
+        assertTrue(result.join().isAccepted());
+        verify(stockLedger).settle(1L, 2);
+    }
+
+    @Test
+    @DisplayName("Should reject an order right away when stock is insufficient")
+    void shouldRejectOrderWhenStockIsInsufficient() throws Exception {
+        // Given
+        when(stockLedger.take(1L, 2)).thenReturn(false);
+
+        // When
+        CompletableFuture<BookOrderResult> result = bookOrderService.placeOrder(1L, 2);
+
+        // Then
+        assertFalse(result.join().isAccepted());
+        assertEquals(0, bookOrderService.writeNextBatch(0));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid orders")
+    void shouldRejectInvalidOrders() {
+        assertThrows(IllegalArgumentException.class, () -> bookOrderService.placeOrder(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> bookOrderService.placeOrder(1L, 0));
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    @DisplayName("Should give the stock back when the backlog is full")
+    void shouldGiveStockBackWhenBacklogIsFull() {
+        // Given
+        when(stockLedger.take(1L, 1)).thenReturn(true);
+        for (int i = 0; i < 3; i++) {
+            bookOrderService.placeOrder(1L, 1);
+        }
+
+        // When & Then
+        assertThrows(OrderBacklogFullException.class, () -> bookOrderService.placeOrder(1L, 1));
+        verify(stockLedger).giveBack(1L, 1);
+    }
+
+    @Test
+    @DisplayName("Should write each batch as one stock update batch and one insert batch")
+    void shouldWriteEachBatchAsOneStockUpdateAndOneInsert() throws Exception {
+        // Given
+        when(stockLedger.take(any(), anyInt())).thenReturn(true);
+        bookOrderService.placeOrder(1L, 1);
+        bookOrderService.placeOrder(1L, 3);
+        bookOrderService.placeOrder(2L, 2);
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> batchSizes.add(invocation.<List<BookOrder>>getArgument(0).size()))
+            .when(orderRepository).insertAll(any());
+        when(orderRepository.takeFromStock(any())).thenReturn(Set.of());
+        Book firstBook = new Book("First Book", "Test Author", "1111111111", "Test Description",
+                new BigDecimal("29.99"), 6, BookCategory.FICTION);
+        firstBook.setId(1L);
+        Book secondBook = new Book("Second Book", "Test Author", "2222222222", "Test Description",
+                new BigDecimal("29.99"), 8, BookCategory.FICTION);
+        secondBook.setId(2L);
+        when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(firstBook));
+        when(bookRepository.findAllById(List.of(2L))).thenReturn(List.of(secondBook));
+
+        // When
+        int first = bookOrderService.writeNextBatch(0);
+        int second = bookOrderService.writeNextBatch(0);
+
+        // Then
+        assertEquals(2, first);
+        assertEquals(1, second);
+        assertEquals(List.of(2, 1), batchSizes);
+        verify(orderRepository).takeFromStock(Map.of(1L, 4));
+        verify(orderRepository).takeFromStock(Map.of(2L, 2));
+        verify(stockLedger, times(2)).beginWrite();
+        verify(stockLedger, times(2)).endWrite();
+        verify(bookCache).evict(1L, "1111111111");
+        verify(bookCache).evict(2L, "2222222222");
+    }
+
+    @Test
+    @DisplayName("Should write the stock notifications of a batch to the outbox together")
+    void shouldWriteStockNotificationsOfBatchTogether() throws Exception {
+        // Given
+        when(stockLedger.take(any(), anyInt())).thenReturn(true);
+        bookOrderService.placeOrder(1L, 1);
+        bookOrderService.placeOrder(1L, 1);
+        when(orderRepository.takeFromStock(Map.of(1L, 2))).thenReturn(Set.of());
+        Book book = new Book("Test Book", "Test Author", "1234567890", "Test Description",
+                new BigDecimal("29.99"), 8, BookCategory.FICTION);
+        book.setId(1L);
+        when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(book));
+
+        // When
+        bookOrderService.writeNextBatch(0);
+
+        // Then
+        verify(notificationOutbox).addAll(argThat(books -> books.size() == 1),
+            eq(BookNotification.NotificationType.STOCK_UPDATE));
+        verify(inventoryAlertService).stockLowered(book);
+        // Its stock of 8 was 10 before the batch
+        verify(inventoryAlertService).writeLowStockAlerts(argThat(books -> books.size() == 1), eq(Map.of(1L, 10)));
+    }
+
+    @Test
+    @DisplayName("Should refuse the orders of a book whose stock no longer covers them")
+    void shouldRefuseOrdersOfBookWhoseStockNoLongerCoversThem() throws Exception {
+        // Given
+        when(stockLedger.take(any(), anyInt())).thenReturn(true);
+        CompletableFuture<BookOrderResult> refused = bookOrderService.placeOrder(1L, 5);
+        CompletableFuture<BookOrderResult> accepted = bookOrderService.placeOrder(2L, 1);
+        when(orderRepository.takeFromStock(any())).thenReturn(Set.of(1L));
+
+        // When
+        bookOrderService.writeNextBatch(0);
+
+        // Then
+        assertFalse(refused.join().isAccepted());
+        assertTrue(accepted.join().isAccepted());
+        verify(orderRepository).insertAll(argThat(orders -> orders.size() == 1 && orders.get(0).getBookId() == 2L));
+        verify(stockMovementLog).recordAll(Map.of(2L, -1), StockMovementReason.ORDER);
+        verify(stockLedger).giveBack(1L, 5);
+        verify(stockLedger).resync(1L);
+        verify(stockLedger).settle(2L, 1);
+    }
+
+    @Test
+    @DisplayName("Should fail the orders of a batch that could not be written")
+    void shouldFailOrdersOfBatchThatCouldNotBeWritten() {
+        // Given
+        when(stockLedger.take(1L, 1)).thenReturn(true);
+        CompletableFuture<BookOrderResult> result = bookOrderService.placeOrder(1L, 1);
+        when(orderRepository.takeFromStock(any())).thenThrow(new DataAccessResourceFailureException("Database unavailable"));
+
+        // When
+        assertThrows(DataAccessResourceFailureException.class, () -> bookOrderService.writeNextBatch(0));
+
+        // Then
+        CompletionException failure = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(DataAccessResourceFailureException.class, failure.getCause());
+        verify(stockLedger).giveBack(1L, 1);
+        verify(stockLedger).endWrite();
+    }
+}
@@ -0,0 +1,102 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookQuery;
+import com.talant.bootcamp.booksservice.dto.BookQueryResponse;
+import com.talant.bootcamp.booksservice.dto.PriceFacet;
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Query Service Tests")
+class BookQueryServiceTest {
+
+    private static final List<BigDecimal> BUCKETS = List.of(new BigDecimal("10"), new BigDecimal("25"));
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookQueryService bookQueryService;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        bookQueryService = new BookQueryService(bookRepository, BUCKETS);
+
+        book = new Book("Test Book", "Test Author", "1234567890", "Test Description",
+                new BigDecimal("19.99"), 10, BookCategory.FICTION);
+        book.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Should return matching books with category and price facets")
+    @SuppressWarnings("unchecked")
+    void shouldReturnBooksWithFacets() {
+        // Given
+        Map<BookCategory, Long> categories = new EnumMap<>(BookCategory.class);
+        categories.put(BookCategory.FICTION, 3L);
+        categories.put(BookCategory.FANTASY, 2L);
+        when(bookRepository.findBy(any(Specification.class), any())).thenReturn(List.of(book));
+        when(bookRepository.countByCategory(any())).thenReturn(categories);
+        when(bookRepository.countByPriceBuckets(any(), eq(BUCKETS))).thenReturn(new long[] {1, 3, 1});
+
+        BookQuery query = new BookQuery();
+        query.setInStock(true);
+
+        // When
+        BookQueryResponse result = bookQueryService.queryBooks(query, 1);
+
+        // Then
+        assertEquals(1, result.getBooks().size());
+        assertEquals("Test Book", result.getBooks().get(0).getTitle());
+        assertEquals(5, result.getTotal());
+        assertEquals(Map.of("FICTION", 3L, "FANTASY", 2L), result.getCategories());
+
+        List<PriceFacet> prices = result.getPrices();
+        assertEquals(3, prices.size());
+        assertNull(prices.get(0).getMin());
+        assertEquals(new BigDecimal("10"), prices.get(0).getMax());
+        assertEquals(new BigDecimal("10"), prices.get(1).getMin());
+        assertEquals(new BigDecimal("25"), prices.get(1).getMax());
+        assertEquals(3, prices.get(1).getCount());
+        assertEquals(new BigDecimal("25"), prices.get(2).getMin());
+        assertNull(prices.get(2).getMax());
+    }
+
+    @Test
+    @DisplayName("Should reject a minimum price above the maximum price")
+    void shouldRejectInvertedPriceRange() {
+        // Given
+        BookQuery query = new BookQuery();
+        query.setMinPrice(new BigDecimal("50"));
+        query.setMaxPrice(new BigDecimal("10"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> bookQueryService.queryBooks(query, 10));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject price buckets that are not ascending")
+    void shouldRejectUnorderedPriceBuckets() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookQueryService(bookRepository, List.of(new BigDecimal("25"), new BigDecimal("10"))));
+    }
+}
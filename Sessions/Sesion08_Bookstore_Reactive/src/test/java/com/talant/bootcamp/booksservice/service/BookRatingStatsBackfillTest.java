@@ -0,0 +1,76 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.repository.BookRatingStatsRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Rating Stats Backfill Tests")
+class BookRatingStatsBackfillTest {
+
+    @Mock
+    private BookRatingStatsRepository ratingStatsRepository;
+
+    @Test
+    @DisplayName("Should rebuild the aggregate one batch of books at a time")
+    void shouldRebuildOneBatchAtATime() {
+        // Given
+        BookRatingStatsBackfill backfill = new BookRatingStatsBackfill(ratingStatsRepository, 2, false);
+        when(ratingStatsRepository.findReviewedBookIdsAfter(0L, Limit.of(2))).thenReturn(List.of(1L, 4L));
+        when(ratingStatsRepository.findReviewedBookIdsAfter(4L, Limit.of(2))).thenReturn(List.of(7L));
+
+        // When
+        long books = backfill.run();
+
+        // Then
+        assertEquals(3, books);
+        verify(ratingStatsRepository).rebuildForBooks(List.of(1L, 4L));
+        verify(ratingStatsRepository).rebuildForBooks(List.of(7L));
+        verifyNoMoreInteractions(ratingStatsRepository);
+    }
+
+    @Test
+    @DisplayName("Should do nothing when there are no reviews")
+    void shouldDoNothingWithoutReviews() {
+        // Given
+        BookRatingStatsBackfill backfill = new BookRatingStatsBackfill(ratingStatsRepository, 2, false);
+        when(ratingStatsRepository.findReviewedBookIdsAfter(0L, Limit.of(2))).thenReturn(List.of());
+
+        // When
+        long books = backfill.run();
+
+        // Then
+        assertEquals(0, books);
+        verify(ratingStatsRepository, never()).rebuildForBooks(any());
+    }
+
+    @Test
+    @DisplayName("Should not run on startup when disabled")
+    void shouldNotRunOnStartupWhenDisabled() {
+        // Given
+        BookRatingStatsBackfill backfill = new BookRatingStatsBackfill(ratingStatsRepository, 2, false);
+
+        // When
+        backfill.onApplicationReady();
+
+        // Then
+        verifyNoInteractions(ratingStatsRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive batch size")
+    void shouldRejectNonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookRatingStatsBackfill(ratingStatsRepository, 0, true));
+    }
+}
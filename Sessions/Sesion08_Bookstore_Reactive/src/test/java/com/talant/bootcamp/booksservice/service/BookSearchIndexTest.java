@@ -0,0 +1,140 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.model.Book;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Book Search Index Tests")
+class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    private Book tolkien;
+    private Book orwell;
+    private Book martin;
+
+    @BeforeEach
+    void setUp() {
+        tolkien = book(1L, "The Lord of the Rings", "J.R.R. Tolkien", "1234567890");
+        orwell = book(2L, "1984", "George Orwell", "2345678901");
+        martin = book(3L, "Clean Code", "Robert C. Martin", "3456789012");
+
+        when(bookRepository.findAll()).thenReturn(Arrays.asList(tolkien, orwell, martin));
+        bookSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should load every book on rebuild")
+    void shouldLoadEveryBookOnRebuild() {
+        assertEquals(3, bookSearchIndex.size());
+        verify(bookRepository).findAll();
+    }
+
+    @Test
+    @DisplayName("Should find books by title ignoring case")
+    void shouldFindBooksByTitleIgnoringCase() {
+        assertEquals(List.of(1L), bookSearchIndex.findByTitle("LORD of"));
+        assertEquals(List.of(3L), bookSearchIndex.findByTitle("code"));
+        assertTrue(bookSearchIndex.findByTitle("Tolkien").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should find books by author")
+    void shouldFindBooksByAuthor() {
+        assertEquals(List.of(1L), bookSearchIndex.findByAuthor("tolkien"));
+        assertTrue(bookSearchIndex.findByAuthor("Rings").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should find books by title or author")
+    void shouldFindBooksByTitleOrAuthor() {
+        assertEquals(List.of(1L, 2L), bookSearchIndex.findByTitleOrAuthor("or"));
+        assertEquals(List.of(2L), bookSearchIndex.findByTitleOrAuthor("1984"));
+        assertEquals(List.of(3L), bookSearchIndex.findByTitleOrAuthor("martin"));
+    }
+
+    @Test
+    @DisplayName("Should not match when trigrams are present but not contiguous")
+    void shouldNotMatchNonContiguousTrigrams() {
+        // "the" and "rin" both occur in the title, but "thering" does not
+        assertTrue(bookSearchIndex.findByTitle("thering").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should match every book for an empty term")
+    void shouldMatchEveryBookForEmptyTerm() {
+        assertEquals(List.of(1L, 2L, 3L), bookSearchIndex.findByTitleOrAuthor(""));
+    }
+
+    @Test
+    @DisplayName("Should reindex a book when its title changes")
+    void shouldReindexBookWhenTitleChanges() {
+        orwell.setTitle("Animal Farm");
+
+        bookSearchIndex.index(orwell);
+
+        assertTrue(bookSearchIndex.findByTitle("1984").isEmpty());
+        assertEquals(List.of(2L), bookSearchIndex.findByTitle("farm"));
+        assertEquals(3, bookSearchIndex.size());
+    }
+
+    @Test
+    @DisplayName("Should remove a book from the index")
+    void shouldRemoveBookFromIndex() {
+        bookSearchIndex.remove(1L);
+
+        assertTrue(bookSearchIndex.findByAuthor("tolkien").isEmpty());
+        assertEquals(2, bookSearchIndex.size());
+    }
+
+    @Test
+    @DisplayName("Should revert index changes when the transaction rolls back")
+    void shouldRevertIndexChangesOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Book created = book(4L, "Refactoring", "Martin Fowler", "4567890123");
+            bookSearchIndex.index(created);
+            created.setTitle("Refactoring 2nd Edition");
+            bookSearchIndex.index(created);
+            bookSearchIndex.remove(2L);
+
+            assertEquals(List.of(3L, 4L), bookSearchIndex.findByAuthor("martin"));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(3L), bookSearchIndex.findByAuthor("martin"));
+        assertEquals(List.of(2L), bookSearchIndex.findByTitle("1984"));
+        assertEquals(3, bookSearchIndex.size());
+    }
+
+    private Book book(Long id, String title, String author, String isbn) {
+        Book book = new Book(title, author, isbn, "Description", new BigDecimal("19.99"), 10, BookCategory.FICTION);
+        book.setId(id);
+        return book;
+    }
+}
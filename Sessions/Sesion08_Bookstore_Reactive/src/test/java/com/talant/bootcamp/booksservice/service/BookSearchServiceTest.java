@@ -1,6 +1,8 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookPage;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
@@ -8,15 +10,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +35,9 @@ class BookSearchServiceTest {
     @Mock
     private BookRepository bookRepository;
     
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    
     @InjectMocks
     private BookSearchService bookSearchService;
     
@@ -65,7 +77,8 @@ class BookSearchServiceTest {
     void shouldGetBooksByAuthor() {
         // Given
         String author = "Test Author";
-        when(bookRepository.findByAuthorContainingIgnoreCase(author)).thenReturn(books);
+        when(bookSearchIndex.findByAuthor(author)).thenReturn(List.of(1L, 2L));
+        when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(books);
         
         // When
         List<BookResponse> result = bookSearchService.getBooksByAuthor(author);
@@ -75,7 +88,8 @@ class BookSearchServiceTest {
         assertEquals(2, result.size());
         assertEquals(book1.getAuthor(), result.get(0).getAuthor());
         assertEquals(book2.getAuthor(), result.get(1).getAuthor());
-        verify(bookRepository).findByAuthorContainingIgnoreCase(author);
+        verify(bookSearchIndex).findByAuthor(author);
+        verify(bookRepository).findAllById(List.of(1L, 2L));
     }
     
     @Test
@@ -83,7 +97,8 @@ class BookSearchServiceTest {
     void shouldGetBooksByTitle() {
         // Given
         String title = "Test Book";
-        when(bookRepository.findByTitleContainingIgnoreCase(title)).thenReturn(books);
+        when(bookSearchIndex.findByTitle(title)).thenReturn(List.of(1L, 2L));
+        when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(books);
         
         // When
         List<BookResponse> result = bookSearchService.getBooksByTitle(title);
@@ -93,7 +108,8 @@ class BookSearchServiceTest {
         assertEquals(2, result.size());
         assertEquals(book1.getTitle(), result.get(0).getTitle());
         assertEquals(book2.getTitle(), result.get(1).getTitle());
-        verify(bookRepository).findByTitleContainingIgnoreCase(title);
+        verify(bookSearchIndex).findByTitle(title);
+        verify(bookRepository).findAllById(List.of(1L, 2L));
     }
     
     @Test
@@ -101,31 +117,34 @@ class BookSearchServiceTest {
     void shouldGetBooksByCategory() {
         // Given
         BookCategory category = BookCategory.FICTION;
-        when(bookRepository.findByCategory(category)).thenReturn(Arrays.asList(book1));
+        when(bookRepository.findPageByCategory(eq(category), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(Arrays.asList(book1), false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksByCategory(category);
+        BookPage result = bookSearchService.getBooksByCategory(category, null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(book1.getCategory(), result.get(0).getCategory());
-        verify(bookRepository).findByCategory(category);
+        assertEquals(1, result.getContent().size());
+        assertEquals(book1.getCategory(), result.getContent().get(0).getCategory());
+        assertFalse(result.hasNext());
+        verify(bookRepository).findPageByCategory(eq(category), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20)));
     }
     
     @Test
     @DisplayName("Should get books with stock")
     void shouldGetBooksWithStock() {
         // Given
-        when(bookRepository.findByStockGreaterThan(0)).thenReturn(books);
+        when(bookRepository.findPageByStockGreaterThan(eq(0), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(books, false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksWithStock();
+        BookPage result = bookSearchService.getBooksWithStock(null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(bookRepository).findByStockGreaterThan(0);
+        assertEquals(2, result.getContent().size());
+        verify(bookRepository).findPageByStockGreaterThan(eq(0), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20)));
     }
     
     @Test
@@ -159,15 +178,16 @@ class BookSearchServiceTest {
         // Given
         BigDecimal minPrice = new BigDecimal("20.00");
         BigDecimal maxPrice = new BigDecimal("40.00");
-        when(bookRepository.findByPriceBetween(minPrice, maxPrice)).thenReturn(books);
+        when(bookRepository.findPageByPriceBetween(eq(minPrice), eq(maxPrice), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(books, false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksByPriceRange(minPrice, maxPrice);
+        BookPage result = bookSearchService.getBooksByPriceRange(minPrice, maxPrice, null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(bookRepository).findByPriceBetween(minPrice, maxPrice);
+        assertEquals(2, result.getContent().size());
+        verify(bookRepository).findPageByPriceBetween(eq(minPrice), eq(maxPrice), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20)));
     }
     
     @Test
@@ -175,16 +195,17 @@ class BookSearchServiceTest {
     void shouldGetBooksByMaxPrice() {
         // Given
         BigDecimal maxPrice = new BigDecimal("35.00");
-        when(bookRepository.findByPriceLessThanEqual(maxPrice)).thenReturn(Arrays.asList(book1));
+        when(bookRepository.findPageByPriceLessThanEqual(eq(maxPrice), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(Arrays.asList(book1), false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksByMaxPrice(maxPrice);
+        BookPage result = bookSearchService.getBooksByMaxPrice(maxPrice, null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertTrue(result.get(0).getPrice().compareTo(maxPrice) <= 0);
-        verify(bookRepository).findByPriceLessThanEqual(maxPrice);
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.getContent().get(0).getPrice().compareTo(maxPrice) <= 0);
+        verify(bookRepository).findPageByPriceLessThanEqual(eq(maxPrice), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20)));
     }
     
     @Test
@@ -192,16 +213,17 @@ class BookSearchServiceTest {
     void shouldGetBooksByMinPrice() {
         // Given
         BigDecimal minPrice = new BigDecimal("30.00");
-        when(bookRepository.findByPriceGreaterThanEqual(minPrice)).thenReturn(Arrays.asList(book2));
+        when(bookRepository.findPageByPriceGreaterThanEqual(eq(minPrice), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(Arrays.asList(book2), false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksByMinPrice(minPrice);
+        BookPage result = bookSearchService.getBooksByMinPrice(minPrice, null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertTrue(result.get(0).getPrice().compareTo(minPrice) >= 0);
-        verify(bookRepository).findByPriceGreaterThanEqual(minPrice);
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.getContent().get(0).getPrice().compareTo(minPrice) >= 0);
+        verify(bookRepository).findPageByPriceGreaterThanEqual(eq(minPrice), any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(20)));
     }
     
     @Test
@@ -225,7 +247,8 @@ class BookSearchServiceTest {
     void shouldSearchBooksByText() {
         // Given
         String searchTerm = "test";
-        when(bookRepository.searchByTitleOrAuthor(searchTerm)).thenReturn(books);
+        when(bookSearchIndex.findByTitleOrAuthor(searchTerm)).thenReturn(List.of(1L, 2L));
+        when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(Arrays.asList(book2, book1));
         
         // When
         List<BookResponse> result = bookSearchService.searchBooks(searchTerm);
@@ -233,74 +256,81 @@ class BookSearchServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(bookRepository).searchByTitleOrAuthor(searchTerm);
+        assertEquals(book1.getId(), result.get(0).getId());
+        assertEquals(book2.getId(), result.get(1).getId());
+        verify(bookSearchIndex).findByTitleOrAuthor(searchTerm);
+        verify(bookRepository, never()).searchByTitleOrAuthor(any());
     }
     
     @Test
     @DisplayName("Should get books ordered by price ascending")
     void shouldGetBooksOrderedByPriceAsc() {
         // Given
-        when(bookRepository.findAllByOrderByPriceAsc()).thenReturn(books);
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.PRICE_ASC.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(books, false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksOrderedByPriceAsc();
+        BookPage result = bookSearchService.getBooksOrderedByPriceAsc(null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(bookRepository).findAllByOrderByPriceAsc();
+        assertEquals(2, result.getContent().size());
+        verify(bookRepository).findPageBy(any(), eq(BookSortKey.PRICE_ASC.getSort()), eq(Limit.of(20)));
     }
     
     @Test
     @DisplayName("Should get books ordered by price descending")
     void shouldGetBooksOrderedByPriceDesc() {
         // Given
-        when(bookRepository.findAllByOrderByPriceDesc()).thenReturn(books);
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.PRICE_DESC.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(books, false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksOrderedByPriceDesc();
+        BookPage result = bookSearchService.getBooksOrderedByPriceDesc(null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(bookRepository).findAllByOrderByPriceDesc();
+        assertEquals(2, result.getContent().size());
+        verify(bookRepository).findPageBy(any(), eq(BookSortKey.PRICE_DESC.getSort()), eq(Limit.of(20)));
     }
     
     @Test
     @DisplayName("Should get books ordered by title")
     void shouldGetBooksOrderedByTitle() {
         // Given
-        when(bookRepository.findAllByOrderByTitleAsc()).thenReturn(books);
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.TITLE.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(books, false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksOrderedByTitle();
+        BookPage result = bookSearchService.getBooksOrderedByTitle(null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(bookRepository).findAllByOrderByTitleAsc();
+        assertEquals(2, result.getContent().size());
+        verify(bookRepository).findPageBy(any(), eq(BookSortKey.TITLE.getSort()), eq(Limit.of(20)));
     }
     
     @Test
     @DisplayName("Should get books ordered by author")
     void shouldGetBooksOrderedByAuthor() {
         // Given
-        when(bookRepository.findAllByOrderByAuthorAsc()).thenReturn(books);
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.AUTHOR.getSort()), eq(Limit.of(20))))
+                .thenReturn(window(books, false));
         
         // When
-        List<BookResponse> result = bookSearchService.getBooksOrderedByAuthor();
+        BookPage result = bookSearchService.getBooksOrderedByAuthor(null, 20);
         
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(bookRepository).findAllByOrderByAuthorAsc();
+        assertEquals(2, result.getContent().size());
+        verify(bookRepository).findPageBy(any(), eq(BookSortKey.AUTHOR.getSort()), eq(Limit.of(20)));
     }
     
     @Test
     @DisplayName("Should return empty list when no books found")
     void shouldReturnEmptyListWhenNoBooksFound() {
         // Given
-        when(bookRepository.findByAuthorContainingIgnoreCase("NonExistent")).thenReturn(Arrays.asList());
+        when(bookSearchIndex.findByAuthor("NonExistent")).thenReturn(List.of());
         
         // When
         List<BookResponse> result = bookSearchService.getBooksByAuthor("NonExistent");
@@ -308,6 +338,45 @@ class BookSearchServiceTest {
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(bookRepository).findByAuthorContainingIgnoreCase("NonExistent");
+        verify(bookSearchIndex).findByAuthor("NonExistent");
+        verify(bookRepository, never()).findAllById(any());
+    }
+    
+    @Test
+    @DisplayName("Should return a cursor that resumes after the last book of the page")
+    void shouldReturnCursorThatResumesAfterLastBook() {
+        // Given
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.PRICE_ASC.getSort()), eq(Limit.of(2))))
+                .thenReturn(window(books, true));
+        
+        // When
+        BookPage firstPage = bookSearchService.getBooksOrderedByPriceAsc(null, 2);
+        bookSearchService.getBooksOrderedByPriceAsc(firstPage.getNextCursor(), 2);
+        
+        // Then
+        assertTrue(firstPage.hasNext());
+        ArgumentCaptor<ScrollPosition> positions = ArgumentCaptor.forClass(ScrollPosition.class);
+        verify(bookRepository, times(2)).findPageBy(positions.capture(), eq(BookSortKey.PRICE_ASC.getSort()), eq(Limit.of(2)));
+        assertTrue(positions.getAllValues().get(0).isInitial());
+        KeysetScrollPosition resumed = (KeysetScrollPosition) positions.getAllValues().get(1);
+        assertEquals(new BigDecimal("39.99"), resumed.getKeys().get("price"));
+        assertEquals(2L, resumed.getKeys().get("id"));
+    }
+    
+    @Test
+    @DisplayName("Should reject a cursor issued for a different sort order")
+    void shouldRejectCursorFromDifferentSortOrder() {
+        // Given
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.TITLE.getSort()), eq(Limit.of(2))))
+                .thenReturn(window(books, true));
+        String titleCursor = bookSearchService.getBooksOrderedByTitle(null, 2).getNextCursor();
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> bookSearchService.getBooksOrderedByPriceAsc(titleCursor, 2));
+        assertThrows(IllegalArgumentException.class, () -> bookSearchService.getBooksOrderedByPriceAsc("not-a-cursor", 2));
+    }
+    
+    private Window<Book> window(List<Book> content, boolean hasNext) {
+        return Window.from(content, ScrollPosition::offset, hasNext);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.BookPage;
 import com.talant.bootcamp.booksservice.dto.BookRequest;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
+import com.talant.bootcamp.booksservice.dto.BookSortKey;
+import com.talant.bootcamp.booksservice.dto.StockReservation;
+import com.talant.bootcamp.booksservice.dto.StockUpdateRequest;
+import com.talant.bootcamp.booksservice.dto.StockUpdateResult;
 import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
 import com.talant.bootcamp.booksservice.exception.DuplicateIsbnException;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,15 +21,25 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +52,27 @@ class BookServiceTest {
     @Mock
     private BookValidator bookValidator;
     
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    
+    @Mock
+    private CategoryAggregates categoryAggregates;
+    
+    @Mock
+    private StockLedger stockLedger;
+    
+    @Mock
+    private InventoryAlertService inventoryAlertService;
+    
+    @Mock
+    private StockMovementLog stockMovementLog;
+    
+    @Mock
+    private BookNotificationOutbox notificationOutbox;
+    
+    @Spy
+    private BookCache bookCache = new BookCache(BookCache.DEFAULT_MAXIMUM_WEIGHT, Duration.ofMinutes(10));
+    
     @InjectMocks
     private BookService bookService;
     
@@ -84,6 +123,10 @@ class BookServiceTest {
         assertEquals(bookRequest.getIsbn(), result.getIsbn());
         verify(bookValidator).validateForCreation(bookRequest);
         verify(bookRepository).save(any(Book.class));
+        verify(bookSearchIndex).index(book);
+        verify(categoryAggregates).add(BookCategory.FICTION, new BigDecimal("29.99"));
+        verify(stockMovementLog).record(1L, 10, StockMovementReason.CREATED, null);
+        verify(notificationOutbox).add(any(BookResponse.class), eq(BookNotification.NotificationType.NEW_BOOK));
     }
     
     @Test
@@ -106,16 +149,33 @@ class BookServiceTest {
     void shouldGetAllBooks() {
         // Given
         List<Book> books = Arrays.asList(book);
-        when(bookRepository.findAll()).thenReturn(books);
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(10))))
+                .thenReturn(Window.from(books, ScrollPosition::offset, false));
         
         // When
-        List<BookResponse> result = bookService.getAllBooks();
+        BookPage result = bookService.getAllBooks(null, 10);
         
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(book.getTitle(), result.get(0).getTitle());
-        verify(bookRepository).findAll();
+        assertEquals(1, result.getContent().size());
+        assertEquals(book.getTitle(), result.getContent().get(0).getTitle());
+        assertNull(result.getNextCursor());
+        verify(bookRepository).findPageBy(any(), eq(BookSortKey.ID.getSort()), eq(Limit.of(10)));
+    }
+    
+    @Test
+    @DisplayName("Should get every book in one page when unpaged")
+    void shouldGetAllBooksUnpaged() {
+        // Given
+        when(bookRepository.findPageBy(any(), eq(BookSortKey.ID.getSort()), eq(Limit.unlimited())))
+                .thenReturn(Window.from(List.of(book), ScrollPosition::offset, false));
+        
+        // When
+        BookPage result = bookService.getAllBooks(null, BookPage.UNPAGED);
+        
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.hasNext());
     }
     
     @Test
@@ -190,7 +250,7 @@ class BookServiceTest {
             BookCategory.TECHNOLOGY
         );
         
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(book));
         doNothing().when(bookValidator).validateForUpdate(1L, updateRequest);
         when(bookRepository.save(any(Book.class))).thenReturn(book);
         
@@ -199,23 +259,29 @@ class BookServiceTest {
         
         // Then
         assertNotNull(result);
-        verify(bookRepository).findById(1L);
+        verify(bookRepository).findByIdForUpdate(1L);
         verify(bookValidator).validateForUpdate(1L, updateRequest);
         verify(bookRepository).save(any(Book.class));
+        verify(bookSearchIndex).index(book);
+        // The book moves from its old category and price to the new ones
+        verify(categoryAggregates).remove(BookCategory.FICTION, new BigDecimal("29.99"));
+        verify(categoryAggregates).add(BookCategory.TECHNOLOGY, new BigDecimal("39.99"));
+        // The stock went from 10 to 20
+        verify(stockMovementLog).record(1L, 10, StockMovementReason.BOOK_UPDATE, null);
     }
     
     @Test
     @DisplayName("Should throw BookNotFoundException when updating non-existent book")
     void shouldThrowBookNotFoundExceptionWhenUpdatingNonExistentBook() {
         // Given
-        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
         
         // When & Then
         assertThrows(BookNotFoundException.class, () -> {
             bookService.updateBook(1L, bookRequest);
         });
         
-        verify(bookRepository).findById(1L);
+        verify(bookRepository).findByIdForUpdate(1L);
         verify(bookRepository, never()).save(any(Book.class));
     }
     
@@ -223,30 +289,34 @@ class BookServiceTest {
     @DisplayName("Should delete book successfully")
     void shouldDeleteBook() {
         // Given
-        when(bookRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
         doNothing().when(bookRepository).deleteById(1L);
         
         // When
         bookService.deleteBook(1L);
         
         // Then
-        verify(bookRepository).existsById(1L);
+        verify(bookRepository).findById(1L);
         verify(bookRepository).deleteById(1L);
+        verify(bookSearchIndex).remove(1L);
+        verify(bookCache).evict(1L, "1234567890");
+        verify(categoryAggregates).remove(BookCategory.FICTION, new BigDecimal("29.99"));
     }
     
     @Test
     @DisplayName("Should throw BookNotFoundException when deleting non-existent book")
     void shouldThrowBookNotFoundExceptionWhenDeletingNonExistentBook() {
         // Given
-        when(bookRepository.existsById(1L)).thenReturn(false);
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
         
         // When & Then
         assertThrows(BookNotFoundException.class, () -> {
             bookService.deleteBook(1L);
         });
         
-        verify(bookRepository).existsById(1L);
+        verify(bookRepository).findById(1L);
         verify(bookRepository, never()).deleteById(any());
+        verifyNoInteractions(categoryAggregates);
     }
     
 
@@ -255,7 +325,7 @@ class BookServiceTest {
     @DisplayName("Should update stock successfully")
     void shouldUpdateStock() {
         // Given
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(book));
         when(bookRepository.save(any(Book.class))).thenReturn(book);
         
         // When
@@ -263,8 +333,260 @@ class BookServiceTest {
         
         // Then
         assertNotNull(result);
-        verify(bookRepository).findById(1L);
+        verify(bookRepository).findByIdForUpdate(1L);
+        verify(stockMovementLog).record(1L, 15, StockMovementReason.STOCK_UPDATE, null);
+        verify(notificationOutbox).add(argThat(response -> response.getStock() == 25),
+            eq(BookNotification.NotificationType.STOCK_UPDATE));
         verify(bookRepository).save(any(Book.class));
+        verify(bookCache).evict(1L, "1234567890");
+        verify(stockLedger).resync(1L);
+        verify(inventoryAlertService).stockChanged(1L);
+        verify(inventoryAlertService).writeLowStockAlert(argThat(response -> response.getStock() == 25), eq(10));
+    }
+    
+    @Test
+    @DisplayName("Should set the stock of many books and write their notifications in one batch each")
+    void shouldUpdateStocksInOneBatch() {
+        // Given
+        Book other = new Book("Other Book", "Other Author", "0987654321", "Other Description",
+            new BigDecimal("9.99"), 4, BookCategory.FANTASY);
+        other.setId(2L);
+        when(bookRepository.findAllByIdOrIsbnForUpdate(Set.of(1L, 3L), Set.of("0987654321")))
+            .thenReturn(List.of(book, other));
+        
+        // When
+        List<StockUpdateResult> results = bookService.updateStocks(List.of(
+            StockUpdateRequest.byId(1L, 25),
+            StockUpdateRequest.byIsbn("0987654321", 4),
+            StockUpdateRequest.byId(3L, 5),
+            StockUpdateRequest.byId(1L, 30)
+        ));
+        
+        // Then
+        assertEquals(List.of(StockUpdateResult.Status.UPDATED, StockUpdateResult.Status.UNCHANGED,
+                StockUpdateResult.Status.NOT_FOUND, StockUpdateResult.Status.UPDATED),
+            results.stream().map(StockUpdateResult::getStatus).toList());
+        assertEquals(2L, results.get(1).getId());
+        verify(bookRepository).setStock(Map.of(1L, 30));
+        verify(stockMovementLog).recordAll(Map.of(1L, 20), StockMovementReason.STOCK_UPDATE);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookCache).evict(1L, "1234567890");
+        verify(stockLedger).resync(1L);
+        verify(inventoryAlertService).stockChanged(1L);
+        verify(notificationOutbox).addAll(argThat((Collection<BookResponse> books) ->
+            books.size() == 1 && books.iterator().next().getStock() == 30), eq(BookNotification.NotificationType.STOCK_UPDATE));
+        assertEquals(10, book.getStock());
+    }
+    
+    @Test
+    @DisplayName("Should report invalid stock updates without touching the database")
+    void shouldReportInvalidStockUpdates() {
+        // When
+        List<StockUpdateResult> results = bookService.updateStocks(List.of(
+            new StockUpdateRequest(null, null, 5),
+            new StockUpdateRequest(1L, "1234567890", 5),
+            StockUpdateRequest.byId(1L, -1),
+            StockUpdateRequest.byIsbn("1234567890", null)
+        ));
+        
+        // Then
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == StockUpdateResult.Status.INVALID));
+        verifyNoInteractions(bookRepository, stockMovementLog, notificationOutbox);
+    }
+    
+    @Test
+    @DisplayName("Should report a null stock update as invalid and still apply the others")
+    void shouldReportNullStockUpdatesAsInvalid() {
+        // Given
+        when(bookRepository.findAllByIdOrIsbnForUpdate(Set.of(1L), Set.of())).thenReturn(List.of(book));
+        
+        // When
+        List<StockUpdateResult> results = bookService.updateStocks(Arrays.asList(
+            null,
+            StockUpdateRequest.byId(1L, 25)
+        ));
+        
+        // Then
+        assertEquals(List.of(StockUpdateResult.Status.INVALID, StockUpdateResult.Status.UPDATED),
+            results.stream().map(StockUpdateResult::getStatus).toList());
+        assertNull(results.get(0).getId());
+        verify(bookRepository).setStock(Map.of(1L, 25));
+    }
+    
+    @Test
+    @DisplayName("Should reject an empty bulk stock update")
+    void shouldRejectEmptyBulkStockUpdate() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> bookService.updateStocks(List.of()));
+    }
+    
+    @Test
+    @DisplayName("Should apply notifications with one lookup, creating missing books and skipping unchanged ones")
+    void shouldApplyNotificationsInOneBatch() {
+        // Given
+        Book other = new Book("Other Book", "Other Author", "0987654321", null, new BigDecimal("12.00"), 5,
+            BookCategory.HISTORY);
+        other.setId(2L);
+        when(bookRepository.findByIsbnIn(Set.of("1234567890", "0987654321", "5555555555")))
+            .thenReturn(List.of(book, other));
+        doAnswer(invocation -> {
+            List<Book> written = invocation.getArgument(0);
+            written.forEach(writtenBook -> writtenBook.setId(writtenBook.getIsbn().equals("1234567890") ? 1L : 3L));
+            return null;
+        }).when(bookRepository).upsertAll(anyList(), anySet());
+        
+        // When
+        int changed = bookService.applyNotifications(List.of(
+            notification("1234567890", 25, BookNotification.NotificationType.STOCK_UPDATE),
+            new BookNotification("0987654321", "Other Book", "Other Author", null, new BigDecimal("12.0"), 5,
+                BookCategory.HISTORY, BookNotification.NotificationType.BOOK_UPDATE, null),
+            notification("5555555555", 8, BookNotification.NotificationType.NEW_BOOK)
+        ), Map.of("1234567890", 7L, "0987654321", 8L, "5555555555", 9L));
+        
+        // Then
+        assertEquals(2, changed);
+        verify(bookRepository).upsertAll(argThat((List<Book> books) -> books.size() == 2
+            && books.get(0).getIsbn().equals("1234567890") && books.get(0).getStock() == 25
+            && books.get(1).getIsbn().equals("5555555555")), eq(Set.of("1234567890", "5555555555")));
+        verify(stockMovementLog).recordAll(argThat((List<StockMovement> movements) -> movements.size() == 2
+            && movements.get(0).getDelta() == 15 && movements.get(0).getSourceOffset() == 7L
+            && movements.get(0).getReason() == StockMovementReason.STOCK_NOTIFICATION
+            && movements.get(1).getBookId() == 3L && movements.get(1).getReason() == StockMovementReason.CREATED));
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(stockLedger).resync(1L);
+        verify(stockLedger).resync(3L);
+        verify(stockLedger, never()).resync(2L);
+        verify(notificationOutbox).addAll(argThat((Collection<BookResponse> books) -> books.size() == 1),
+            eq(BookNotification.NotificationType.NEW_BOOK));
+        verify(notificationOutbox).addAll(argThat((Collection<BookResponse> books) ->
+            books.size() == 1 && books.iterator().next().getStock() == 25), eq(BookNotification.NotificationType.STOCK_UPDATE));
+        verify(notificationOutbox).addAll(argThat(Collection::isEmpty), eq(BookNotification.NotificationType.BOOK_UPDATE));
+        assertEquals(10, book.getStock());
+    }
+    
+    @Test
+    @DisplayName("Should reject more than one notification for the same ISBN")
+    void shouldRejectDuplicateNotifications() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> bookService.applyNotifications(List.of(
+            notification("1234567890", 1, BookNotification.NotificationType.STOCK_UPDATE),
+            notification("1234567890", 2, BookNotification.NotificationType.STOCK_UPDATE)
+        ), Map.of()));
+        verifyNoInteractions(bookRepository);
+    }
+    
+    @Test
+    @DisplayName("Should reserve stock without loading the book")
+    void shouldReserveStockWithoutLoadingBook() {
+        // Given
+        when(bookRepository.reserveStock(1L, 3)).thenReturn(1);
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(7));
+        when(bookRepository.findIsbnById(1L)).thenReturn(Optional.of("1234567890"));
+        when(inventoryAlertService.getLowStockThreshold()).thenReturn(5);
+        
+        // When
+        StockReservation result = bookService.reserveStock(1L, 3);
+        
+        // Then
+        assertTrue(result.isReserved());
+        assertEquals(3, result.getQuantity());
+        verify(bookRepository, never()).findById(any());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookCache).evict(1L, "1234567890");
+        verify(stockLedger).resync(1L);
+        verify(inventoryAlertService).stockLowered(1L);
+        verify(inventoryAlertService, never()).writeLowStockAlert(any(), any());
+        verify(stockMovementLog).record(1L, -3, StockMovementReason.RESERVATION, null);
+    }
+    
+    @Test
+    @DisplayName("Should write the low stock alert in the transaction of a reservation that crosses the threshold")
+    void shouldWriteLowStockAlertWhenReservationCrossesThreshold() {
+        // Given - the book had 5 before taking 3
+        when(bookRepository.reserveStock(1L, 3)).thenReturn(1);
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(2));
+        when(inventoryAlertService.getLowStockThreshold()).thenReturn(5);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        
+        // When
+        bookService.reserveStock(1L, 3);
+        
+        // Then
+        verify(inventoryAlertService).writeLowStockAlert(argThat(book -> book.getStock() == 2), eq(5));
+        verify(inventoryAlertService).stockLowered(1L);
+    }
+    
+    @Test
+    @DisplayName("Should report insufficient stock when reserving")
+    void shouldReportInsufficientStockWhenReserving() {
+        // Given
+        when(bookRepository.reserveStock(1L, 30)).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        
+        // When
+        StockReservation result = bookService.reserveStock(1L, 30);
+        
+        // Then
+        assertFalse(result.isReserved());
+        verify(bookCache, never()).evict(any(), any());
+        verifyNoInteractions(inventoryAlertService);
+        verifyNoInteractions(stockMovementLog);
+    }
+    
+    @Test
+    @DisplayName("Should throw exception when reserving stock of non-existent book")
+    void shouldThrowExceptionWhenReservingStockOfNonExistentBook() {
+        // Given
+        when(bookRepository.reserveStock(999L, 1)).thenReturn(0);
+        when(bookRepository.existsById(999L)).thenReturn(false);
+        
+        // When & Then
+        assertThrows(BookNotFoundException.class, () -> bookService.reserveStock(999L, 1));
+    }
+    
+    @Test
+    @DisplayName("Should reject reserving less than one unit")
+    void shouldRejectReservingLessThanOneUnit() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.reserveStock(1L, 0));
+        verify(bookRepository, never()).reserveStock(any(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("Should serve repeated lookups by ID and ISBN from the cache")
+    void shouldServeRepeatedLookupsFromCache() {
+        // Given
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        
+        // When
+        BookResponse first = bookService.getBookById(1L);
+        BookResponse second = bookService.getBookById(1L);
+        BookResponse byIsbn = bookService.getBookByIsbn("1234567890");
+        
+        // Then
+        assertSame(first, second);
+        assertSame(first, byIsbn);
+        verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, never()).findByIsbn(any());
+        assertEquals(2, bookCache.stats().getHits());
+    }
+    
+    @Test
+    @DisplayName("Should reload a cached book after its stock is updated")
+    void shouldReloadCachedBookAfterStockUpdate() {
+        // Given
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        when(bookRepository.findByIsbn("1234567890")).thenReturn(Optional.of(book));
+        bookService.getBookById(1L);
+        
+        // When
+        bookService.updateStock(1L, 25);
+        BookResponse result = bookService.getBookByIsbn("1234567890");
+        
+        // Then
+        assertEquals(25, result.getStock());
+        verify(bookRepository).findByIsbn("1234567890");
     }
     
     @Test
@@ -280,4 +602,9 @@ class BookServiceTest {
         assertTrue(result);
         verify(bookRepository).existsByIsbn("1234567890");
     }
-} 
\ No newline at end of file
+    
+    private static BookNotification notification(String isbn, int stock, BookNotification.NotificationType type) {
+        return new BookNotification(isbn, "Notified Book", "Notified Author", null, new BigDecimal("15.00"), stock,
+            BookCategory.FICTION, type, null);
+    }
+}
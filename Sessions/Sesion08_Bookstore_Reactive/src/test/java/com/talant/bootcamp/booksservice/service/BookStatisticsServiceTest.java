@@ -1,5 +1,10 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookCacheStats;
+import com.talant.bootcamp.booksservice.dto.CategoryAveragePrice;
+import com.talant.bootcamp.booksservice.dto.CategoryStatistics;
+import com.talant.bootcamp.booksservice.dto.CategoryStatisticsCheck;
+import com.talant.bootcamp.booksservice.model.BookCategory;
 import com.talant.bootcamp.booksservice.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,6 +14,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
@@ -22,92 +28,144 @@ class BookStatisticsServiceTest {
     @Mock
     private BookRepository bookRepository;
     
+    @Mock
+    private BookCache bookCache;
+    
+    @Mock
+    private CategoryAggregates categoryAggregates;
+    
     @InjectMocks
     private BookStatisticsService bookStatisticsService;
     
-    private List<Object[]> categoryStatistics;
-    private List<Object[]> averagePriceStatistics;
+    private List<CategoryStatistics> categoryStatistics;
     
     @BeforeEach
     void setUp() {
-        // Mock data for category statistics
-        Object[] fictionStats = {"FICTION", 5L};
-        Object[] technologyStats = {"TECHNOLOGY", 3L};
-        categoryStatistics = Arrays.asList(fictionStats, technologyStats);
-        
-        // Mock data for average price statistics
-        Object[] fictionAvgPrice = {"FICTION", 25.50};
-        Object[] technologyAvgPrice = {"TECHNOLOGY", 45.75};
-        averagePriceStatistics = Arrays.asList(fictionAvgPrice, technologyAvgPrice);
+        categoryStatistics = Arrays.asList(
+            new CategoryStatistics(BookCategory.FICTION, 2L, new BigDecimal("51.00"),
+                new BigDecimal("20.50"), new BigDecimal("30.50")),
+            new CategoryStatistics(BookCategory.TECHNOLOGY, 3L, new BigDecimal("137.25"),
+                new BigDecimal("40.00"), new BigDecimal("52.25"))
+        );
     }
     
     @Test
-    @DisplayName("Should get book statistics by category")
+    @DisplayName("Should get book statistics by category from the in-memory aggregates")
     void shouldGetBookStatisticsByCategory() {
         // Given
-        when(bookRepository.countBooksByCategory()).thenReturn(categoryStatistics);
+        when(categoryAggregates.snapshot()).thenReturn(categoryStatistics);
         
         // When
-        List<Object[]> result = bookStatisticsService.getBookStatisticsByCategory();
+        List<CategoryStatistics> result = bookStatisticsService.getBookStatisticsByCategory();
         
         // Then
-        assertNotNull(result);
         assertEquals(2, result.size());
-        assertEquals("FICTION", result.get(0)[0]);
-        assertEquals(5L, result.get(0)[1]);
-        assertEquals("TECHNOLOGY", result.get(1)[0]);
-        assertEquals(3L, result.get(1)[1]);
-        verify(bookRepository).countBooksByCategory();
+        assertEquals(BookCategory.FICTION, result.get(0).getCategory());
+        assertEquals(2L, result.get(0).getCount());
+        assertEquals(BookCategory.TECHNOLOGY, result.get(1).getCategory());
+        assertEquals(3L, result.get(1).getCount());
+        verifyNoInteractions(bookRepository);
     }
     
     @Test
-    @DisplayName("Should get average price by category")
+    @DisplayName("Should get average price by category from the in-memory aggregates")
     void shouldGetAveragePriceByCategory() {
         // Given
-        when(bookRepository.getAveragePriceByCategory()).thenReturn(averagePriceStatistics);
+        when(categoryAggregates.snapshot()).thenReturn(categoryStatistics);
         
         // When
-        List<Object[]> result = bookStatisticsService.getAveragePriceByCategory();
+        List<CategoryAveragePrice> result = bookStatisticsService.getAveragePriceByCategory();
         
         // Then
-        assertNotNull(result);
         assertEquals(2, result.size());
-        assertEquals("FICTION", result.get(0)[0]);
-        assertEquals(25.50, result.get(0)[1]);
-        assertEquals("TECHNOLOGY", result.get(1)[0]);
-        assertEquals(45.75, result.get(1)[1]);
-        verify(bookRepository).getAveragePriceByCategory();
+        assertEquals(BookCategory.FICTION, result.get(0).getCategory());
+        assertEquals(new BigDecimal("25.50"), result.get(0).getAveragePrice());
+        assertEquals(BookCategory.TECHNOLOGY, result.get(1).getCategory());
+        assertEquals(new BigDecimal("45.75"), result.get(1).getAveragePrice());
+        verifyNoInteractions(bookRepository);
     }
     
     @Test
     @DisplayName("Should return empty list when no statistics available")
     void shouldReturnEmptyListWhenNoStatisticsAvailable() {
         // Given
-        when(bookRepository.countBooksByCategory()).thenReturn(Arrays.asList());
+        when(categoryAggregates.snapshot()).thenReturn(List.of());
         
         // When
-        List<Object[]> result = bookStatisticsService.getBookStatisticsByCategory();
+        List<CategoryStatistics> result = bookStatisticsService.getBookStatisticsByCategory();
         
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(bookRepository).countBooksByCategory();
     }
     
     @Test
     @DisplayName("Should return empty list when no average price statistics available")
     void shouldReturnEmptyListWhenNoAveragePriceStatisticsAvailable() {
         // Given
-        when(bookRepository.getAveragePriceByCategory()).thenReturn(Arrays.asList());
+        when(categoryAggregates.snapshot()).thenReturn(List.of());
         
         // When
-        List<Object[]> result = bookStatisticsService.getAveragePriceByCategory();
+        List<CategoryAveragePrice> result = bookStatisticsService.getAveragePriceByCategory();
         
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(bookRepository).getAveragePriceByCategory();
     }
     
-
-} 
\ No newline at end of file
+    @Test
+    @DisplayName("Should report consistent statistics when they match the database")
+    void shouldReportConsistentStatistics() {
+        // Given
+        when(categoryAggregates.snapshot()).thenReturn(categoryStatistics);
+        when(bookRepository.summarizeByCategory()).thenReturn(Arrays.asList(
+            new Object[] {BookCategory.FICTION, 2L, new BigDecimal("51.0"), new BigDecimal("20.5"), new BigDecimal("30.5")},
+            new Object[] {BookCategory.TECHNOLOGY, 3L, new BigDecimal("137.25"), new BigDecimal("40"), new BigDecimal("52.25")}
+        ));
+        
+        // When
+        CategoryStatisticsCheck check = bookStatisticsService.checkCategoryStatistics();
+        
+        // Then
+        assertTrue(check.isConsistent());
+        assertTrue(check.getActual().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should report the categories that differ from the database")
+    void shouldReportInconsistentStatistics() {
+        // Given
+        when(categoryAggregates.snapshot()).thenReturn(categoryStatistics);
+        when(bookRepository.summarizeByCategory()).thenReturn(Arrays.asList(
+            new Object[] {BookCategory.FICTION, 2L, new BigDecimal("51.00"), new BigDecimal("20.50"), new BigDecimal("30.50")},
+            new Object[] {BookCategory.FANTASY, 1L, new BigDecimal("9.99"), new BigDecimal("9.99"), new BigDecimal("9.99")}
+        ));
+        
+        // When
+        CategoryStatisticsCheck check = bookStatisticsService.checkCategoryStatistics();
+        
+        // Then
+        assertFalse(check.isConsistent());
+        assertEquals(List.of(BookCategory.FANTASY, BookCategory.TECHNOLOGY),
+            check.getExpected().stream().map(CategoryStatistics::getCategory).toList());
+        assertEquals(0L, check.getExpected().get(1).getCount());
+        assertEquals(0L, check.getActual().get(0).getCount());
+        assertEquals(3L, check.getActual().get(1).getCount());
+    }
+    
+    @Test
+    @DisplayName("Should get book cache statistics")
+    void shouldGetCacheStatistics() {
+        // Given
+        BookCacheStats stats = new BookCacheStats(8, 2, 1, 10, 4096);
+        when(bookCache.stats()).thenReturn(stats);
+        
+        // When
+        BookCacheStats result = bookStatisticsService.getCacheStatistics();
+        
+        // Then
+        assertSame(stats, result);
+        assertEquals(0.8, result.getHitRate(), 0.0001);
+        verify(bookCache).stats();
+    }
+}
@@ -0,0 +1,141 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.CategoryStatistics;
+import com.talant.bootcamp.booksservice.model.BookCategory;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Category Aggregates Tests")
+class CategoryAggregatesTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private CategoryAggregates categoryAggregates;
+
+    @BeforeEach
+    void setUp() {
+        categoryAggregates = new CategoryAggregates(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the aggregates from the database")
+    void shouldRebuildFromDatabase() {
+        // Given
+        when(bookRepository.countByCategoryAndPrice()).thenReturn(Arrays.asList(
+            new Object[] {BookCategory.FICTION, new BigDecimal("19.99"), 2L},
+            new Object[] {BookCategory.FICTION, new BigDecimal("10.00"), 1L},
+            new Object[] {BookCategory.FANTASY, new BigDecimal("29.99"), 1L}
+        ));
+
+        // When
+        categoryAggregates.rebuild();
+
+        // Then
+        List<CategoryStatistics> snapshot = categoryAggregates.snapshot();
+        assertEquals(2, snapshot.size());
+        CategoryStatistics fiction = snapshot.get(0);
+        assertEquals(BookCategory.FICTION, fiction.getCategory());
+        assertEquals(3L, fiction.getCount());
+        assertEquals(new BigDecimal("49.98"), fiction.getTotalPrice());
+        assertEquals(new BigDecimal("16.66"), fiction.getAveragePrice());
+        assertEquals(new BigDecimal("10.00"), fiction.getMinPrice());
+        assertEquals(new BigDecimal("19.99"), fiction.getMaxPrice());
+        assertEquals(BookCategory.FANTASY, snapshot.get(1).getCategory());
+    }
+
+    @Test
+    @DisplayName("Should keep minimum and maximum exact when books are removed")
+    void shouldKeepMinAndMaxExactOnRemoval() {
+        // Given
+        categoryAggregates.add(BookCategory.FICTION, new BigDecimal("10.00"));
+        categoryAggregates.add(BookCategory.FICTION, new BigDecimal("20.00"));
+        categoryAggregates.add(BookCategory.FICTION, new BigDecimal("30.00"));
+
+        // When
+        categoryAggregates.remove(BookCategory.FICTION, new BigDecimal("10.00"));
+        categoryAggregates.remove(BookCategory.FICTION, new BigDecimal("30.00"));
+
+        // Then
+        CategoryStatistics fiction = categoryAggregates.snapshot().get(0);
+        assertEquals(1L, fiction.getCount());
+        assertEquals(new BigDecimal("20.00"), fiction.getMinPrice());
+        assertEquals(new BigDecimal("20.00"), fiction.getMaxPrice());
+    }
+
+    @Test
+    @DisplayName("Should drop a category once its last book is removed")
+    void shouldDropEmptyCategory() {
+        // Given
+        categoryAggregates.add(BookCategory.MYSTERY, new BigDecimal("15.99"));
+
+        // When
+        categoryAggregates.remove(BookCategory.MYSTERY, new BigDecimal("15.99"));
+
+        // Then
+        assertTrue(categoryAggregates.snapshot().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should revert changes when the transaction rolls back")
+    void shouldRevertOnRollback() {
+        // Given
+        categoryAggregates.add(BookCategory.FICTION, new BigDecimal("10.00"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            categoryAggregates.remove(BookCategory.FICTION, new BigDecimal("10.00"));
+            categoryAggregates.add(BookCategory.SCIENCE, new BigDecimal("50.00"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        List<CategoryStatistics> snapshot = categoryAggregates.snapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals(BookCategory.FICTION, snapshot.get(0).getCategory());
+        assertEquals(1L, snapshot.get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("Should not lose updates from concurrent writers")
+    void shouldHandleConcurrentWriters() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 8_000; i++) {
+            BigDecimal price = BigDecimal.valueOf(i % 100 + 1);
+            executor.execute(() -> categoryAggregates.add(BookCategory.TECHNOLOGY, price));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        CategoryStatistics technology = categoryAggregates.snapshot().get(0);
+        assertEquals(8_000L, technology.getCount());
+        assertEquals(0, new BigDecimal("404000").compareTo(technology.getTotalPrice()));
+        assertEquals(0, BigDecimal.ONE.compareTo(technology.getMinPrice()));
+        assertEquals(0, new BigDecimal("100").compareTo(technology.getMaxPrice()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.config.NotificationHeaders;
+import com.talant.bootcamp.booksservice.config.NotificationRetryTopics;
+import com.talant.bootcamp.booksservice.dto.DeadLetterReplayReport;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Dead Letter Replay Service Tests")
+class DeadLetterReplayServiceTest {
+
+    private static final TopicPartition DEAD_LETTERS = new TopicPartition("book-notifications-dlt", 0);
+
+    @Mock
+    private ConsumerFactory<String, byte[]> consumerFactory;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private DeadLetterReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        NotificationRetryTopics retryTopics = new NotificationRetryTopics(List.of("book-notifications"),
+            List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60)));
+        replayService = new DeadLetterReplayService(consumerFactory, kafkaTemplate, retryTopics, "book-service-group",
+            Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Should send dead letters back to their topic without the error headers, up to the limit")
+    @SuppressWarnings("unchecked")
+    void shouldReplayDeadLetters() {
+        // Given
+        MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DEAD_LETTERS.topic(),
+            List.of(new PartitionInfo(DEAD_LETTERS.topic(), 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(DEAD_LETTERS, 0L));
+        consumer.updateEndOffsets(Map.of(DEAD_LETTERS, 3L));
+        consumer.schedulePollTask(() -> {
+            for (long offset = 0; offset < 3; offset++) {
+                consumer.addRecord(deadLetter(offset));
+            }
+        });
+        when(consumerFactory.createConsumer("book-service-group-dlt-replay", null)).thenReturn(consumer);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        DeadLetterReplayReport report = replayService.replay("book-notifications", 2);
+
+        // Then
+        assertEquals(2, report.getReplayed());
+        assertEquals(1, report.getRemaining());
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(sent.capture());
+        ProducerRecord<String, Object> first = sent.getAllValues().get(0);
+        assertEquals("book-notifications", first.topic());
+        assertEquals("9780000000000", first.key());
+        assertEquals("warehouse-service", NotificationHeaders.get(first.headers(), NotificationHeaders.ORIGIN));
+        assertNull(first.headers().lastHeader("kafka_dlt-exception-message"));
+        assertTrue(consumer.closed());
+    }
+
+    @Test
+    @DisplayName("Should reject topics other than the notification topics")
+    void shouldRejectUnknownTopics() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> replayService.replay("book-events", 10));
+        assertThrows(IllegalArgumentException.class, () -> replayService.replay("book-notifications", 0));
+        verifyNoInteractions(consumerFactory, kafkaTemplate);
+    }
+
+    private static ConsumerRecord<String, byte[]> deadLetter(long offset) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(DEAD_LETTERS.topic(), 0, offset,
+            "978000000000" + offset, "{}".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(NotificationHeaders.ORIGIN, "warehouse-service".getBytes(StandardCharsets.UTF_8));
+        record.headers().add("kafka_dlt-exception-message", "database down".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
@@ -1,5 +1,6 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.dto.BookNotification;
 import com.talant.bootcamp.booksservice.dto.BookResponse;
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
@@ -8,13 +9,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,16 +28,18 @@ class InventoryAlertServiceTest {
     @Mock
     private BookRepository bookRepository;
     
+    @Mock
+    private BookNotificationOutbox notificationOutbox;
+    
     private InventoryAlertService inventoryAlertService;
     
     private Book bookWithLowStock;
     private Book bookWithNormalStock;
     private Book bookWithZeroStock;
-    private List<Book> allBooks;
     
     @BeforeEach
     void setUp() {
-        inventoryAlertService = new InventoryAlertService(bookRepository, 5);
+        inventoryAlertService = new InventoryAlertService(bookRepository, notificationOutbox, 5);
         
         bookWithLowStock = new Book(
             "Low Stock Book",
@@ -69,33 +73,32 @@ class InventoryAlertServiceTest {
             BookCategory.FICTION
         );
         bookWithZeroStock.setId(3L);
-        
-        allBooks = Arrays.asList(bookWithLowStock, bookWithNormalStock, bookWithZeroStock);
     }
     
     @Test
     @DisplayName("Should get books with low stock")
     void shouldGetBooksWithLowStock() {
         // Given
-        when(bookRepository.findAll()).thenReturn(allBooks);
+        when(bookRepository.findIdsByStockLessThan(5)).thenReturn(List.of(1L, 3L));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(bookWithZeroStock, bookWithLowStock));
+        inventoryAlertService.rebuild();
         
         // When
         List<Book> result = inventoryAlertService.getBooksWithLowStock();
         
         // Then
-        assertNotNull(result);
-        assertEquals(2, result.size()); // bookWithLowStock (3) and bookWithZeroStock (0)
-        assertTrue(result.contains(bookWithLowStock));
-        assertTrue(result.contains(bookWithZeroStock));
-        assertFalse(result.contains(bookWithNormalStock));
-        verify(bookRepository).findAll();
+        assertEquals(List.of(bookWithLowStock, bookWithZeroStock), result); // In ID order
+        verify(bookRepository).findAllById(argThat(ids -> ids.equals(Set.of(1L, 3L))));
+        verify(bookRepository, never()).findAll();
     }
     
     @Test
     @DisplayName("Should get books with low stock as BookResponse")
     void shouldGetBooksWithLowStockAsResponse() {
         // Given
-        when(bookRepository.findAll()).thenReturn(allBooks);
+        when(bookRepository.findIdsByStockLessThan(5)).thenReturn(List.of(1L, 3L));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(bookWithLowStock, bookWithZeroStock));
+        inventoryAlertService.rebuild();
         
         // When
         List<BookResponse> result = inventoryAlertService.getBooksWithLowStockAsResponse();
@@ -106,7 +109,6 @@ class InventoryAlertServiceTest {
         assertTrue(result.stream().anyMatch(response -> response.getId().equals(bookWithLowStock.getId())));
         assertTrue(result.stream().anyMatch(response -> response.getId().equals(bookWithZeroStock.getId())));
         assertFalse(result.stream().anyMatch(response -> response.getId().equals(bookWithNormalStock.getId())));
-        verify(bookRepository).findAll();
     }
     
     @Test
@@ -129,14 +131,11 @@ class InventoryAlertServiceTest {
     }
     
     @Test
-    @DisplayName("Should return empty list when no books have low stock")
+    @DisplayName("Should return empty list without querying books when no books have low stock")
     void shouldReturnEmptyListWhenNoBooksHaveLowStock() {
         // Given
-        Book highStockBook1 = new Book("High Stock 1", "Author", "111", "Desc", new BigDecimal("10"), 10, BookCategory.FICTION);
-        Book highStockBook2 = new Book("High Stock 2", "Author", "222", "Desc", new BigDecimal("20"), 15, BookCategory.TECHNOLOGY);
-        List<Book> highStockBooks = Arrays.asList(highStockBook1, highStockBook2);
-        
-        when(bookRepository.findAll()).thenReturn(highStockBooks);
+        when(bookRepository.findIdsByStockLessThan(5)).thenReturn(List.of());
+        inventoryAlertService.rebuild();
         
         // When
         List<Book> result = inventoryAlertService.getBooksWithLowStock();
@@ -144,46 +143,101 @@ class InventoryAlertServiceTest {
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(bookRepository).findAll();
+        verify(bookRepository, never()).findAllById(any());
     }
     
     @Test
-    @DisplayName("Should return empty list when no books exist")
-    void shouldReturnEmptyListWhenNoBooksExist() {
+    @DisplayName("Should handle books with stock exactly at threshold")
+    void shouldHandleBooksWithStockExactlyAtThreshold() {
         // Given
-        when(bookRepository.findAll()).thenReturn(Arrays.asList());
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(5)); // Exactly at threshold
         
         // When
-        List<Book> result = inventoryAlertService.getBooksWithLowStock();
+        inventoryAlertService.stockChanged(1L);
         
         // Then
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(bookRepository).findAll();
+        assertFalse(inventoryAlertService.isLowStock(1L)); // Should not be considered low stock (stock >= threshold)
+        verifyNoInteractions(notificationOutbox);
     }
     
     @Test
-    @DisplayName("Should handle books with stock exactly at threshold")
-    void shouldHandleBooksWithStockExactlyAtThreshold() {
+    @DisplayName("Should write a low stock notification only for the books that cross the threshold")
+    void shouldWriteAlertsOnlyForBooksCrossingThreshold() {
+        // Given - 10 to 3 crosses, 4 to 3 was already low, 8 to 6 stays above and a new book starts low
+        BookResponse crossed = response(1L, 3);
+        BookResponse alreadyLow = response(2L, 3);
+        BookResponse stillAbove = response(3L, 6);
+        BookResponse newBook = response(4L, 0);
+        
+        // When
+        inventoryAlertService.writeLowStockAlerts(List.of(crossed, alreadyLow, stillAbove, newBook),
+            Map.of(1L, 10, 2L, 4, 3L, 8));
+        inventoryAlertService.writeLowStockAlert(response(5L, 5), null);
+        
+        // Then
+        verify(notificationOutbox).addAll(List.of(crossed, newBook), BookNotification.NotificationType.LOW_STOCK);
+        verify(notificationOutbox).addAll(List.of(), BookNotification.NotificationType.LOW_STOCK);
+    }
+    
+    @Test
+    @DisplayName("Should only update the low stock set after a committed change")
+    void shouldOnlyUpdateLowStockSetAfterCommit() {
+        // Given - the stock goes 10, 3, 2, 8, 4
+        when(bookRepository.findStockById(2L)).thenReturn(
+            Optional.of(10), Optional.of(3), Optional.of(2), Optional.of(8), Optional.of(4));
+        
+        // When
+        for (int i = 0; i < 5; i++) {
+            inventoryAlertService.stockChanged(2L);
+        }
+        
+        // Then
+        assertTrue(inventoryAlertService.isLowStock(2L));
+        verify(bookRepository, never()).findById(any());
+        verifyNoInteractions(notificationOutbox);
+    }
+    
+    @Test
+    @DisplayName("Should drop books that were restocked or deleted")
+    void shouldDropRestockedOrDeletedBooks() {
         // Given
-        Book bookAtThreshold = new Book(
-            "At Threshold Book",
-            "Author",
-            "3333333333",
-            "Description",
-            new BigDecimal("25.00"),
-            5, // Exactly at threshold
-            BookCategory.FICTION
-        );
+        when(bookRepository.findIdsByStockLessThan(5)).thenReturn(List.of(1L, 3L));
+        inventoryAlertService.rebuild();
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        when(bookRepository.findStockById(3L)).thenReturn(Optional.empty());
         
-        when(bookRepository.findAll()).thenReturn(Arrays.asList(bookAtThreshold));
+        // When
+        inventoryAlertService.stockChanged(1L);
+        inventoryAlertService.stockChanged(3L);
+        
+        // Then
+        assertFalse(inventoryAlertService.isLowStock(1L));
+        assertFalse(inventoryAlertService.isLowStock(3L));
+        assertTrue(inventoryAlertService.getBooksWithLowStock().isEmpty());
+        verifyNoInteractions(notificationOutbox);
+    }
+    
+    @Test
+    @DisplayName("Should not read a lowered stock again when the book is already low or the copy is not")
+    void shouldSkipReadWhenLoweredStockCannotCross() {
+        // Given
+        when(bookRepository.findIdsByStockLessThan(5)).thenReturn(List.of(1L));
+        inventoryAlertService.rebuild();
         
         // When
-        List<Book> result = inventoryAlertService.getBooksWithLowStock();
+        inventoryAlertService.stockLowered(1L);
+        inventoryAlertService.stockLowered(bookWithLowStock);
+        inventoryAlertService.stockLowered(bookWithNormalStock);
         
         // Then
-        assertNotNull(result);
-        assertTrue(result.isEmpty()); // Should not be considered low stock (stock >= threshold)
-        verify(bookRepository).findAll();
+        verify(bookRepository, never()).findStockById(any());
+        verifyNoInteractions(notificationOutbox);
+    }
+    
+    private static BookResponse response(Long id, int stock) {
+        Book book = new Book("Book " + id, "Author", "123456789" + id, "Description", new BigDecimal("9.99"), stock,
+            BookCategory.FICTION);
+        book.setId(id);
+        return new BookResponse(book);
     }
-} 
\ No newline at end of file
+}
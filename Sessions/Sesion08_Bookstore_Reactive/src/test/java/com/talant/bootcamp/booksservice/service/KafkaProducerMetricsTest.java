@@ -0,0 +1,85 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.HistogramSnapshot;
+import com.talant.bootcamp.booksservice.dto.ProducerTopicMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Kafka Producer Metrics Tests")
+class KafkaProducerMetricsTest {
+
+    @Test
+    @DisplayName("Should keep separate counters per topic, sorted by topic")
+    void shouldCountPerTopic() {
+        // Given
+        KafkaProducerMetrics metrics = new KafkaProducerMetrics();
+
+        // When
+        long first = metrics.sendStarted("book-stock-updates");
+        long second = metrics.sendStarted("book-notifications");
+        metrics.sendStarted("book-notifications");
+        metrics.sendAcknowledged("book-stock-updates", first, 120);
+        metrics.sendAcknowledged("book-notifications", second, 300);
+
+        // Then
+        List<ProducerTopicMetrics> topics = metrics.snapshot();
+        assertEquals(List.of("book-notifications", "book-stock-updates"),
+            topics.stream().map(ProducerTopicMetrics::getTopic).toList());
+        ProducerTopicMetrics notifications = topics.get(0);
+        assertEquals(2, notifications.getSent());
+        assertEquals(1, notifications.getInFlight());
+        assertEquals(300, notifications.getBytes());
+        assertEquals(300, notifications.getRecordSizeBytes().getMax());
+        assertEquals(120, topics.get(1).getBytes());
+    }
+
+    @Test
+    @DisplayName("Should estimate percentiles within a bucket of the recorded values")
+    void shouldEstimatePercentiles() {
+        // Given
+        KafkaProducerMetrics.Histogram histogram = new KafkaProducerMetrics.Histogram();
+
+        // When
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500.5, snapshot.getMean(), 0.001);
+        assertEquals(1000, snapshot.getMax());
+        assertTrue(snapshot.getP50() >= 500 && snapshot.getP50() <= 500 * 9 / 8, "p50 " + snapshot.getP50());
+        assertTrue(snapshot.getP99() >= 990 && snapshot.getP99() <= 1000, "p99 " + snapshot.getP99());
+    }
+
+    @Test
+    @DisplayName("Should map every value to a bucket whose upper bound is within 1/8 above it")
+    void shouldBoundBucketError() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 100, 1023, 1024, 123_456, 9_876_543_210L}) {
+            long upperBound = KafkaProducerMetrics.Histogram.upperBound(KafkaProducerMetrics.Histogram.index(value));
+            assertTrue(upperBound >= value && upperBound <= value + value / 8, value + " -> " + upperBound);
+        }
+    }
+
+    @Test
+    @DisplayName("Should average the last minute of whole seconds, or the seconds since the start")
+    void shouldAverageLastMinute() {
+        // Given
+        KafkaProducerMetrics.RateWindow window = new KafkaProducerMetrics.RateWindow(1000);
+
+        // When
+        window.add(1000, 40);
+        window.add(1001, 20);
+        window.add(1002, 99);
+
+        // Then
+        assertEquals(30.0, window.perSecond(1002), 0.001);
+        window.add(1100, 60);
+        assertEquals(1.0, window.perSecond(1101), 0.001);
+    }
+}
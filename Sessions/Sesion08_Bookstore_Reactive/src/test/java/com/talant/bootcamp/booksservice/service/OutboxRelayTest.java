@@ -0,0 +1,214 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.talant.bootcamp.booksservice.config.NotificationHeaders;
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.OutboxStats;
+import com.talant.bootcamp.booksservice.model.OutboxEvent;
+import com.talant.bootcamp.booksservice.repository.OutboxEventRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Outbox Relay Tests")
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaTemplate<String, BookNotification> kafkaTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaTemplate, new ObjectMapper(), transactionTemplate, "book-stock-updates",
+                Duration.ofMillis(100), 2, Duration.ofSeconds(1), Duration.ofHours(1), Duration.ofMinutes(1), true);
+        // Run the transaction callbacks inline
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should send a whole batch before marking it published, until the outbox is drained")
+    void shouldPublishBatchesUntilDrained() {
+        // Given
+        OutboxEvent first = event(1L, "1111111111");
+        OutboxEvent second = event(2L, "2222222222");
+        OutboxEvent third = event(3L, "3333333333");
+        when(outboxEventRepository.lockUnpublished(2)).thenReturn(List.of(first, second), List.of(third));
+        when(kafkaTemplate.send(eq("book-notifications"), anyString(), any(BookNotification.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int published = outboxRelay.relay();
+
+        // Then
+        assertEquals(3, published);
+        InOrder inOrder = inOrder(kafkaTemplate, outboxEventRepository);
+        inOrder.verify(kafkaTemplate).send(eq("book-notifications"), eq("1111111111"), withIsbn("1111111111"));
+        inOrder.verify(kafkaTemplate).send(eq("book-notifications"), eq("2222222222"), withIsbn("2222222222"));
+        inOrder.verify(kafkaTemplate).flush();
+        inOrder.verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any());
+        inOrder.verify(kafkaTemplate).send(eq("book-notifications"), eq("3333333333"), withIsbn("3333333333"));
+        inOrder.verify(outboxEventRepository).markPublished(eq(List.of(3L)), any());
+        assertEquals(3, outboxRelay.stats().getPublishedEvents());
+    }
+
+    @Test
+    @DisplayName("Should only mark the events acknowledged before the first failed send")
+    void shouldStopAtFirstFailedSend() {
+        // Given
+        OutboxEvent first = event(1L, "1111111111");
+        OutboxEvent second = event(2L, "2222222222");
+        when(outboxEventRepository.lockUnpublished(2)).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(eq("book-notifications"), eq("1111111111"), withIsbn("1111111111")))
+            .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+        when(kafkaTemplate.send(eq("book-notifications"), eq("2222222222"), withIsbn("2222222222")))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int published = outboxRelay.relay();
+
+        // Then
+        assertEquals(0, published);
+        verify(outboxEventRepository, never()).markPublished(any(), any());
+        assertEquals(1, outboxRelay.stats().getFailedSends());
+    }
+
+    @Test
+    @DisplayName("Should stop sending a batch once a send throws")
+    void shouldStopSendingWhenSendThrows() {
+        // Given
+        OutboxEvent first = event(1L, "1111111111");
+        OutboxEvent second = event(2L, "2222222222");
+        when(outboxEventRepository.lockUnpublished(2)).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(eq("book-notifications"), eq("1111111111"), withIsbn("1111111111")))
+            .thenThrow(new TimeoutException("metadata not available"));
+
+        // When
+        int published = outboxRelay.relay();
+
+        // Then
+        assertEquals(0, published);
+        verify(kafkaTemplate, never()).send(eq("book-notifications"), eq("2222222222"), withIsbn("2222222222"));
+    }
+
+    @Test
+    @DisplayName("Should only send the newest stock update of a book in a batch and mark the older ones with it")
+    void shouldCoalesceStockUpdatesInBatch() {
+        // Given
+        OutboxEvent older = event(1L, "book-stock-updates", "1111111111");
+        OutboxEvent other = event(2L, "book-stock-updates", "2222222222");
+        OutboxEvent newest = event(3L, "book-stock-updates", "1111111111");
+        when(outboxEventRepository.lockUnpublished(2)).thenReturn(List.of(older, other, newest));
+        when(kafkaTemplate.send(eq("book-stock-updates"), anyString(), any(BookNotification.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int published = outboxRelay.relay();
+
+        // Then
+        assertEquals(3, published);
+        verify(kafkaTemplate, times(2)).send(eq("book-stock-updates"), anyString(), any(BookNotification.class));
+        InOrder inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send(eq("book-stock-updates"), eq("2222222222"), withIsbn("2222222222"));
+        inOrder.verify(kafkaTemplate).send(eq("book-stock-updates"), eq("1111111111"), withIsbn("1111111111"));
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L, 3L)), any());
+        assertEquals(1, outboxRelay.stats().getCoalescedEvents());
+    }
+
+    @Test
+    @DisplayName("Should send the causation recorded with an event as its header")
+    void shouldSendRecordedCausationAsHeader() {
+        // Given
+        OutboxEvent alert = new OutboxEvent("book-low-stock", "1111111111", "{\"isbn\":\"1111111111\"}", "event-1");
+        ReflectionTestUtils.setField(alert, "id", 1L);
+        when(outboxEventRepository.lockUnpublished(2)).thenReturn(List.of(alert));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int published = outboxRelay.relay();
+
+        // Then
+        assertEquals(1, published);
+        verify(kafkaTemplate).send(argThat((ProducerRecord<String, BookNotification> record) ->
+            "book-low-stock".equals(record.topic()) && "1111111111".equals(record.key())
+                && "event-1".equals(NotificationHeaders.get(record.headers(), NotificationHeaders.CAUSATION_ID))));
+    }
+
+    @Test
+    @DisplayName("Should delete old published events one batch at a time")
+    void shouldCleanUpInBatches() {
+        // Given
+        when(outboxEventRepository.deletePublishedBefore(any(), eq(2))).thenReturn(2, 1);
+
+        // When
+        int deleted = outboxRelay.cleanUp();
+
+        // Then
+        assertEquals(3, deleted);
+        verify(outboxEventRepository, times(2)).deletePublishedBefore(any(), anyInt());
+        assertEquals(3, outboxRelay.stats().getDeletedEvents());
+    }
+
+    @Test
+    @DisplayName("Should report the backlog and the age of the oldest pending event")
+    void shouldReportBacklog() {
+        // Given
+        when(outboxEventRepository.countByPublishedAtIsNull()).thenReturn(4L);
+        when(outboxEventRepository.findOldestUnpublishedCreatedAt())
+            .thenReturn(Optional.of(LocalDateTime.now().minusSeconds(5)));
+
+        // When
+        OutboxStats stats = outboxRelay.stats();
+
+        // Then
+        assertEquals(4, stats.getPendingEvents());
+        assertTrue(stats.getOldestPendingAgeMillis() >= 5000);
+    }
+
+    private static OutboxEvent event(Long id, String isbn) {
+        return event(id, "book-notifications", isbn);
+    }
+
+    private static OutboxEvent event(Long id, String topic, String isbn) {
+        OutboxEvent event = new OutboxEvent(topic, isbn, "{\"isbn\":\"" + isbn + "\"}");
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+
+    private static BookNotification withIsbn(String isbn) {
+        return argThat(notification -> notification != null && isbn.equals(notification.getIsbn()));
+    }
+}
@@ -0,0 +1,159 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.BookNotification;
+import com.talant.bootcamp.booksservice.dto.NotificationSendResult;
+import com.talant.bootcamp.booksservice.dto.ProducerTopicMetrics;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Reactive Book Notification Sender Tests")
+class ReactiveBookNotificationSenderTest {
+
+    @Mock
+    private KafkaSender<String, BookNotification> kafkaSender;
+
+    @Mock
+    private BookKafkaProducerService kafkaProducerService;
+
+    private KafkaProducerMetrics producerMetrics;
+    private ReactiveBookNotificationSender sender;
+
+    @BeforeEach
+    void setUp() {
+        producerMetrics = new KafkaProducerMetrics();
+        sender = new ReactiveBookNotificationSender(kafkaSender, kafkaProducerService, producerMetrics);
+        lenient().when(kafkaProducerService.topicFor(BookNotification.NotificationType.STOCK_UPDATE))
+            .thenReturn("book-stock-updates");
+        lenient().when(kafkaProducerService.topicFor(BookNotification.NotificationType.NEW_BOOK))
+            .thenReturn("book-notifications");
+    }
+
+    @Test
+    @DisplayName("Should send each notification to the topic of its type and return a result per record")
+    void shouldReturnResultPerRecord() {
+        // Given
+        List<SenderRecord<String, BookNotification, ?>> sent = Collections.synchronizedList(new ArrayList<>());
+        acknowledgeAll(sent, "9780000000002");
+
+        // When
+        Flux<NotificationSendResult> results = sender.sendAll(List.of(
+            notification("9780000000001", BookNotification.NotificationType.STOCK_UPDATE),
+            notification("9780000000002", BookNotification.NotificationType.NEW_BOOK)));
+
+        // Then
+        StepVerifier.create(results)
+            .assertNext(result -> {
+                assertTrue(result.isSent());
+                assertEquals("9780000000001", result.getIsbn());
+                assertEquals("book-stock-updates", result.getTopic());
+                assertEquals(0, result.getOffset());
+            })
+            .assertNext(result -> {
+                assertFalse(result.isSent());
+                assertEquals("book-notifications", result.getTopic());
+                assertEquals(-1, result.getOffset());
+                assertEquals("broker unavailable", result.getError());
+            })
+            .verifyComplete();
+        assertEquals("9780000000001", sent.get(0).key());
+        List<ProducerTopicMetrics> metrics = producerMetrics.snapshot();
+        assertEquals(1, metrics.get(0).getFailed());
+        assertEquals(1, metrics.get(1).getAcknowledged());
+        assertEquals(0, metrics.get(1).getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should reject empty bulk requests and notifications without an ISBN or type")
+    void shouldRejectInvalidBulkRequests() {
+        assertThrows(IllegalArgumentException.class, () -> sender.sendAll(List.of()));
+        assertThrows(IllegalArgumentException.class,
+            () -> sender.sendAll(List.of(notification(null, BookNotification.NotificationType.NEW_BOOK))));
+        assertThrows(IllegalArgumentException.class,
+            () -> sender.sendAll(List.of(notification("9780000000001", null))));
+        verifyNoInteractions(kafkaSender);
+    }
+
+    @Test
+    @DisplayName("Should only pull notifications from the source as results are requested")
+    void shouldPropagateBackpressure() {
+        // Given
+        acknowledgeAll(new ArrayList<>(), null);
+        List<Long> requested = Collections.synchronizedList(new ArrayList<>());
+        Flux<BookNotification> source = Flux.range(0, 1000)
+            .map(i -> notification(String.valueOf(i), BookNotification.NotificationType.STOCK_UPDATE))
+            .doOnRequest(requested::add);
+
+        // When
+        StepVerifier.create(sender.send(source), 5)
+            .expectNextCount(5)
+            .thenCancel()
+            .verify();
+
+        // Then
+        assertTrue(requested.stream().mapToLong(Long::longValue).sum() < 1000, "requested " + requested);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void acknowledgeAll(List<SenderRecord<String, BookNotification, ?>> sent, String failingIsbn) {
+        when(kafkaSender.send(any(Publisher.class))).thenAnswer(invocation -> {
+            Publisher<SenderRecord<String, BookNotification, Object>> records = invocation.getArgument(0);
+            long[] offset = {0};
+            return Flux.from(records).map(record -> {
+                sent.add(record);
+                if (record.key().equals(failingIsbn)) {
+                    return result(null, new RuntimeException("broker unavailable"), record.correlationMetadata());
+                }
+                RecordMetadata metadata = new RecordMetadata(new TopicPartition(record.topic(), 0),
+                    offset[0]++, 0, 0L, 10, 90);
+                return result(metadata, null, record.correlationMetadata());
+            });
+        });
+    }
+
+    private static <T> SenderResult<T> result(RecordMetadata metadata, Exception exception, T correlation) {
+        return new SenderResult<>() {
+            @Override
+            public RecordMetadata recordMetadata() {
+                return metadata;
+            }
+
+            @Override
+            public Exception exception() {
+                return exception;
+            }
+
+            @Override
+            public T correlationMetadata() {
+                return correlation;
+            }
+        };
+    }
+
+    private static BookNotification notification(String isbn, BookNotification.NotificationType type) {
+        BookNotification notification = new BookNotification();
+        notification.setIsbn(isbn);
+        notification.setNotificationType(type);
+        return notification;
+    }
+}
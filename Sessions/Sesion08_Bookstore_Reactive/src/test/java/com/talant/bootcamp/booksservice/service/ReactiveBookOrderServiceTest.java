@@ -2,27 +2,34 @@ package com.talant.bootcamp.booksservice.service;
 
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
-import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.ReactiveBookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ReactiveBookOrderServiceTest {
 
     @Mock
-    private BookRepository bookRepository;
+    private ReactiveBookRepository bookRepository;
 
     @InjectMocks
     private ReactiveBookOrderService reactiveBookOrderService;
@@ -58,7 +65,7 @@ class ReactiveBookOrderServiceTest {
     @Test
     void checkStock_WhenBookExistsWithStock_ShouldReturnTrue() {
         // Given
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(bookWithStock));
+        when(bookRepository.findStockById(1L)).thenReturn(Mono.justOrEmpty(bookWithStock.getStock()));
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(1L);
@@ -72,7 +79,7 @@ class ReactiveBookOrderServiceTest {
     @Test
     void checkStock_WhenBookExistsWithoutStock_ShouldReturnFalse() {
         // Given
-        when(bookRepository.findById(2L)).thenReturn(Optional.of(bookWithoutStock));
+        when(bookRepository.findStockById(2L)).thenReturn(Mono.justOrEmpty(bookWithoutStock.getStock()));
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(2L);
@@ -86,7 +93,7 @@ class ReactiveBookOrderServiceTest {
     @Test
     void checkStock_WhenBookDoesNotExist_ShouldReturnFalse() {
         // Given
-        when(bookRepository.findById(999L)).thenReturn(Optional.empty());
+        when(bookRepository.findStockById(999L)).thenReturn(Mono.empty());
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(999L);
@@ -110,7 +117,7 @@ class ReactiveBookOrderServiceTest {
             BookCategory.FICTION
         );
         bookWithNullStock.setId(3L);
-        when(bookRepository.findById(3L)).thenReturn(Optional.of(bookWithNullStock));
+        when(bookRepository.findStockById(3L)).thenReturn(Mono.justOrEmpty(bookWithNullStock.getStock()));
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(3L);
@@ -134,7 +141,7 @@ class ReactiveBookOrderServiceTest {
             BookCategory.FICTION
         );
         bookWithNegativeStock.setId(4L);
-        when(bookRepository.findById(4L)).thenReturn(Optional.of(bookWithNegativeStock));
+        when(bookRepository.findStockById(4L)).thenReturn(Mono.justOrEmpty(bookWithNegativeStock.getStock()));
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(4L);
@@ -158,7 +165,7 @@ class ReactiveBookOrderServiceTest {
             BookCategory.FICTION
         );
         bookWithOneStock.setId(5L);
-        when(bookRepository.findById(5L)).thenReturn(Optional.of(bookWithOneStock));
+        when(bookRepository.findStockById(5L)).thenReturn(Mono.justOrEmpty(bookWithOneStock.getStock()));
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(5L);
@@ -182,7 +189,7 @@ class ReactiveBookOrderServiceTest {
             BookCategory.FICTION
         );
         bookWithHighStock.setId(6L);
-        when(bookRepository.findById(6L)).thenReturn(Optional.of(bookWithHighStock));
+        when(bookRepository.findStockById(6L)).thenReturn(Mono.justOrEmpty(bookWithHighStock.getStock()));
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(6L);
@@ -208,7 +215,7 @@ class ReactiveBookOrderServiceTest {
     void checkStock_WhenBookIdIsNegative_ShouldReturnFalse() {
         // Given
         Long bookId = -1L;
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(bookRepository.findStockById(bookId)).thenReturn(Mono.empty());
 
         // When
         Mono<Boolean> result = reactiveBookOrderService.checkStock(bookId);
@@ -218,4 +225,44 @@ class ReactiveBookOrderServiceTest {
                 .expectNext(false)
                 .verifyComplete();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void checkStock_WithSeveralIds_ShouldUseSingleQuery() {
+        // Given
+        List<Long> ids = List.of(1L, 2L, 999L);
+        when(bookRepository.findIdsWithStock(ids)).thenReturn(Flux.just(1L));
+
+        // When
+        Mono<Map<Long, Boolean>> result = reactiveBookOrderService.checkStock(ids);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(Map.of(1L, true, 2L, false, 999L, false))
+                .verifyComplete();
+        verify(bookRepository, times(1)).findIdsWithStock(ids);
+        verify(bookRepository, never()).findStockById(anyLong());
+    }
+
+    @Test
+    void checkStock_WithNoIds_ShouldNotQuery() {
+        // When
+        Mono<Map<Long, Boolean>> result = reactiveBookOrderService.checkStock(List.of());
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(Map.of())
+                .verifyComplete();
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void checkStock_WithNullIds_ShouldReturnError() {
+        // When
+        Mono<Map<Long, Boolean>> result = reactiveBookOrderService.checkStock((Collection<Long>) null);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+}
@@ -2,7 +2,7 @@ package com.talant.bootcamp.booksservice.service;
 
 import com.talant.bootcamp.booksservice.model.Book;
 import com.talant.bootcamp.booksservice.model.BookCategory;
-import com.talant.bootcamp.booksservice.repository.BookRepository;
+import com.talant.bootcamp.booksservice.repository.ReactiveBookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,14 +17,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ReactiveBookSearchServiceTest {
 
     @Mock
-    private BookRepository bookRepository;
+    private ReactiveBookRepository bookRepository;
 
     @InjectMocks
     private ReactiveBookSearchService reactiveBookSearchService;
@@ -74,7 +73,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "Java";
         List<Book> expectedBooks = Arrays.asList(book1, book2);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -91,7 +90,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "Programming";
         List<Book> expectedBooks = Arrays.asList(book1, book3);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -107,7 +106,7 @@ class ReactiveBookSearchServiceTest {
     void findByTitleContains_WhenKeywordDoesNotMatchAnyBook_ShouldReturnEmptyFlux() {
         // Given
         String keyword = "NonExistent";
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Collections.emptyList());
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.empty());
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -122,7 +121,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "";
         List<Book> expectedBooks = Arrays.asList(book1, book2, book3);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -140,7 +139,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = null;
         List<Book> expectedBooks = Arrays.asList(book1, book2, book3);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -158,7 +157,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "java";
         List<Book> expectedBooks = Arrays.asList(book1, book2);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -175,7 +174,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "JAVA";
         List<Book> expectedBooks = Arrays.asList(book1, book2);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -192,7 +191,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "Prog";
         List<Book> expectedBooks = Arrays.asList(book1, book3);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -209,7 +208,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "J";
         List<Book> expectedBooks = Arrays.asList(book1, book2);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -226,7 +225,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "Java-Programming";
         List<Book> expectedBooks = Collections.singletonList(book1);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -242,7 +241,7 @@ class ReactiveBookSearchServiceTest {
         // Given
         String keyword = "Java123";
         List<Book> expectedBooks = Collections.singletonList(book1);
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(expectedBooks);
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.fromIterable(expectedBooks));
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
@@ -257,7 +256,7 @@ class ReactiveBookSearchServiceTest {
     void findByTitleContains_WhenKeywordIsVeryLong_ShouldReturnMatchingBooks() {
         // Given
         String keyword = "This is a very long keyword that might not match anything";
-        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Collections.emptyList());
+        when(bookRepository.findByTitleContainingIgnoreCase(keyword)).thenReturn(Flux.empty());
 
         // When
         Flux<Book> result = reactiveBookSearchService.findByTitleContains(keyword);
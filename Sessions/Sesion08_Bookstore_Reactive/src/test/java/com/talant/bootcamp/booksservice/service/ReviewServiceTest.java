@@ -1,6 +1,8 @@
 package com.talant.bootcamp.booksservice.service;
 
+import com.talant.bootcamp.booksservice.model.BookRatingStats;
 import com.talant.bootcamp.booksservice.model.Review;
+import com.talant.bootcamp.booksservice.repository.BookRatingStatsRepository;
 import com.talant.bootcamp.booksservice.repository.ReviewRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +28,9 @@ class ReviewServiceTest {
     
     @Mock
     private ReviewValidator reviewValidator;
+
+    @Mock
+    private BookRatingStatsRepository ratingStatsRepository;
     
     @InjectMocks
     private ReviewService reviewService;
@@ -38,7 +44,46 @@ class ReviewServiceTest {
         anotherReview = new Review(2L, 1L, "user2", 4, "Good book, but could be better.");
     }
     
-
+    @Test
+    @DisplayName("Should add the rating to the book's aggregate when adding a review")
+    void shouldAddRatingToAggregateWhenAddingReview() {
+        // When
+        reviewService.addReview(validReview);
+        
+        // Then
+        verify(reviewValidator).validate(validReview);
+        verify(reviewRepository).save(validReview);
+        verify(ratingStatsRepository).addRating(1L, 5);
+    }
+    
+    @Test
+    @DisplayName("Should get the rating stats of a book")
+    void shouldGetRatingStats() {
+        // Given
+        BookRatingStats stats = mock(BookRatingStats.class);
+        when(ratingStatsRepository.findById(1L)).thenReturn(Optional.of(stats));
+        
+        // When
+        BookRatingStats result = reviewService.getRatingStats(1L);
+        
+        // Then
+        assertSame(stats, result);
+    }
+    
+    @Test
+    @DisplayName("Should return empty rating stats when book has no reviews")
+    void shouldReturnEmptyRatingStatsWhenBookHasNoReviews() {
+        // Given
+        when(ratingStatsRepository.findById(999L)).thenReturn(Optional.empty());
+        
+        // When
+        BookRatingStats result = reviewService.getRatingStats(999L);
+        
+        // Then
+        assertEquals(999L, result.getBookId());
+        assertEquals(0, result.getReviewCount());
+        assertEquals(0.0, result.getAverageRating());
+    }
     
     @Test
     @DisplayName("Should get reviews for book")
@@ -110,6 +155,7 @@ class ReviewServiceTest {
         
         verify(reviewValidator).validate(invalidReview);
         verify(reviewRepository, never()).save(any(Review.class));
+        verify(ratingStatsRepository, never()).addRating(anyLong(), anyInt());
     }
     
 
@@ -0,0 +1,157 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
+import com.talant.bootcamp.booksservice.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Stock Ledger Tests")
+class StockLedgerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(bookRepository);
+        when(bookRepository.findAllStocks()).thenReturn(List.of(
+            new Object[]{1L, 10},
+            new Object[]{2L, 0}
+        ));
+        stockLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should take stock only while enough is left")
+    void shouldTakeStockOnlyWhileEnoughIsLeft() {
+        assertTrue(stockLedger.take(1L, 6));
+        assertFalse(stockLedger.take(1L, 5));
+        assertTrue(stockLedger.take(1L, 4));
+        assertFalse(stockLedger.take(2L, 1));
+
+        assertEquals(0, stockLedger.available(1L));
+    }
+
+    @Test
+    @DisplayName("Should throw exception for unknown book")
+    void shouldThrowExceptionForUnknownBook() {
+        assertThrows(BookNotFoundException.class, () -> stockLedger.take(99L, 1));
+        assertThrows(BookNotFoundException.class, () -> stockLedger.available(99L));
+    }
+
+    @Test
+    @DisplayName("Should give back stock of an order that was not stored")
+    void shouldGiveBackStock() {
+        // Given
+        stockLedger.take(1L, 3);
+
+        // When
+        stockLedger.giveBack(1L, 3);
+
+        // Then
+        assertEquals(10, stockLedger.available(1L));
+    }
+
+    @Test
+    @DisplayName("Should subtract pending orders when resyncing a book")
+    void shouldSubtractPendingOrdersWhenResyncing() {
+        // Given
+        stockLedger.take(1L, 3);
+        stockLedger.take(1L, 2);
+        stockLedger.settle(1L, 2);
+        // Stock set to 20; the settled order is an unapplied row counted by the query
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.of(18));
+
+        // When
+        stockLedger.resync(1L);
+
+        // Then
+        assertEquals(15, stockLedger.available(1L));
+    }
+
+    @Test
+    @DisplayName("Should add new books and forget deleted ones when resyncing")
+    void shouldAddAndForgetBooksWhenResyncing() {
+        // Given
+        when(bookRepository.findStockById(3L)).thenReturn(Optional.of(7));
+        when(bookRepository.findStockById(1L)).thenReturn(Optional.empty());
+
+        // When
+        stockLedger.resync(3L);
+        stockLedger.resync(1L);
+
+        // Then
+        assertEquals(7, stockLedger.available(3L));
+        assertThrows(BookNotFoundException.class, () -> stockLedger.available(1L));
+    }
+
+    @Test
+    @DisplayName("Should read the database again when orders were stored during a resync")
+    void shouldRetryResyncWhenOrdersStoredMeanwhile() {
+        // Given
+        stockLedger.take(1L, 4);
+        when(bookRepository.findStockById(1L))
+            .thenAnswer(invocation -> {
+                // The writer stores the pending order while the first read is in flight
+                stockLedger.beginWrite();
+                stockLedger.settle(1L, 4);
+                stockLedger.endWrite();
+                return Optional.of(6);
+            })
+            .thenReturn(Optional.of(6));
+
+        // When
+        stockLedger.resync(1L);
+
+        // Then
+        assertEquals(6, stockLedger.available(1L));
+        verify(bookRepository, times(2)).findStockById(1L);
+    }
+
+    @Test
+    @DisplayName("Should never oversell under concurrent orders")
+    void shouldNeverOversellUnderConcurrentOrders() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                int taken = 0;
+                for (int i = 0; i < 100; i++) {
+                    if (stockLedger.take(1L, 1)) {
+                        taken++;
+                    }
+                }
+                return taken;
+            }));
+        }
+        int taken = 0;
+        for (Future<Integer> future : futures) {
+            taken += future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(10, taken);
+        assertEquals(0, stockLedger.available(1L));
+    }
+}
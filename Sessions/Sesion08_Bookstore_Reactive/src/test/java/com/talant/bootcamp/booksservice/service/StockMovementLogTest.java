@@ -0,0 +1,158 @@
+package com.talant.bootcamp.booksservice.service;
+
+import com.talant.bootcamp.booksservice.dto.StockReplayReport;
+import com.talant.bootcamp.booksservice.exception.BookNotFoundException;
+import com.talant.bootcamp.booksservice.model.StockMovement;
+import com.talant.bootcamp.booksservice.model.StockMovementReason;
+import com.talant.bootcamp.booksservice.model.StockSnapshot;
+import com.talant.bootcamp.booksservice.repository.StockMovementRepository;
+import com.talant.bootcamp.booksservice.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Stock Movement Log Tests")
+class StockMovementLogTest {
+
+    @Mock
+    private StockMovementRepository movementRepository;
+
+    @Mock
+    private StockSnapshotRepository snapshotRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private StockMovementLog stockMovementLog;
+
+    @BeforeEach
+    void setUp() {
+        stockMovementLog = new StockMovementLog(movementRepository, snapshotRepository, transactionTemplate,
+                Duration.ofSeconds(30), true);
+        // Run the transaction callbacks inline
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should append a movement and skip zero deltas")
+    void shouldAppendMovementAndSkipZeroDeltas() {
+        // When
+        stockMovementLog.record(1L, -3, StockMovementReason.RESERVATION, null);
+        stockMovementLog.record(1L, 0, StockMovementReason.STOCK_UPDATE, 7L);
+
+        // Then
+        verify(movementRepository).appendAll(argThat(movements -> movements.size() == 1
+                && movements.get(0).getBookId() == 1L && movements.get(0).getDelta() == -3
+                && movements.get(0).getReason() == StockMovementReason.RESERVATION));
+        verifyNoMoreInteractions(movementRepository);
+    }
+
+    @Test
+    @DisplayName("Should append the movements of several books in one batch")
+    void shouldAppendMovementsOfSeveralBooksInOneBatch() {
+        // Given
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(1L, -2);
+        deltas.put(2L, 0);
+        deltas.put(3L, -5);
+
+        // When
+        stockMovementLog.recordAll(deltas, StockMovementReason.ORDER);
+
+        // Then
+        verify(movementRepository).appendAll(argThat(movements -> movements.size() == 2
+                && movements.get(0).getBookId() == 1L && movements.get(1).getDelta() == -5
+                && movements.stream().allMatch(movement -> movement.getReason() == StockMovementReason.ORDER)));
+    }
+
+    @Test
+    @DisplayName("Should read the stock as the snapshot plus the movements after it")
+    void shouldReadStockAsSnapshotPlusTail() {
+        // Given
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.of(new StockSnapshot(1L, 40, 120L)));
+        when(movementRepository.sumDeltasAfter(1L, 120L)).thenReturn(-7L);
+
+        // When
+        int stock = stockMovementLog.currentStock(1L);
+
+        // Then
+        assertEquals(33, stock);
+        verify(movementRepository, never()).existsByBookId(any());
+    }
+
+    @Test
+    @DisplayName("Should read the stock from every movement when the book has no snapshot yet")
+    void shouldReadStockFromEveryMovementWithoutSnapshot() {
+        // Given
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.empty());
+        when(movementRepository.existsByBookId(1L)).thenReturn(true);
+        when(movementRepository.sumDeltasAfter(1L, 0L)).thenReturn(12L);
+
+        // When
+        int stock = stockMovementLog.currentStock(1L);
+
+        // Then
+        assertEquals(12, stock);
+    }
+
+    @Test
+    @DisplayName("Should throw BookNotFoundException when no movement of the book was logged")
+    void shouldThrowWhenNoMovementLogged() {
+        // Given
+        when(snapshotRepository.findById(1L)).thenReturn(Optional.empty());
+        when(movementRepository.existsByBookId(1L)).thenReturn(false);
+
+        // When & Then
+        assertThrows(BookNotFoundException.class, () -> stockMovementLog.currentStock(1L));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the snapshots before reporting mismatching books on replay")
+    void shouldRebuildSnapshotsBeforeReportingMismatches() {
+        // Given
+        when(snapshotRepository.takeSnapshots()).thenReturn(3);
+        List<Object[]> rows = List.<Object[]>of(new Object[]{2L, 8, 10L});
+        when(movementRepository.findStockMismatches()).thenReturn(rows);
+
+        // When
+        StockReplayReport report = stockMovementLog.replay();
+
+        // Then
+        assertEquals(3, report.getSnapshots());
+        assertFalse(report.isConsistent());
+        assertEquals(2L, report.getMismatches().get(0).getBookId());
+        assertEquals(8, report.getMismatches().get(0).getStock());
+        assertEquals(10, report.getMismatches().get(0).getLoggedStock());
+        InOrder inOrder = inOrder(snapshotRepository, movementRepository);
+        inOrder.verify(snapshotRepository).deleteAllInBatch();
+        inOrder.verify(snapshotRepository).takeSnapshots();
+        inOrder.verify(movementRepository).findStockMismatches();
+    }
+
+    @Test
+    @DisplayName("Should reject history limits out of range")
+    void shouldRejectHistoryLimitsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> stockMovementLog.getMovements(1L, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> stockMovementLog.getMovements(1L, StockMovementLog.MAX_HISTORY_LIMIT + 1));
+        verifyNoInteractions(movementRepository);
+    }
+}